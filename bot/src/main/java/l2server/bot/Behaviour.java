@@ -0,0 +1,62 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package l2server.bot;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The scripted actions of a bot in the world.<BR>
+ * Each one lists the server packets answering it: the latency of an action is the time until the first of them is received.
+ * A packet given as Name@offset only answers the action if the object id at that offset is the one of the bot,
+ * since the same packets are broadcast for the other creatures around.
+ */
+public enum Behaviour {
+	WALK("MoveToLocation@0", "ActionFailed"),
+	ATTACK("Attack@0", "MoveToPawn@0", "MyTargetSelected", "ActionFailed"),
+	CAST("MagicSkillUse@4", "ActionFailed", "SystemMessage"),
+	CHAT("CreatureSay@0"),
+	TRADE("SystemMessage", "TradeStart", "ActionFailed");
+
+	public static final int NOT_A_RESPONSE = -2;
+	public static final int ANY_ACTOR = -1;
+
+	private final Map<String, Integer> responses = new HashMap<>();
+
+	Behaviour(String... responses) {
+		for (String response : responses) {
+			int separator = response.indexOf('@');
+			if (separator < 0) {
+				this.responses.put(response, ANY_ACTOR);
+			} else {
+				this.responses.put(response.substring(0, separator), Integer.parseInt(response.substring(separator + 1)));
+			}
+		}
+	}
+
+	/**
+	 * @return the offset of the actor id in the packet, ANY_ACTOR if the packet always answers this action
+	 * or NOT_A_RESPONSE if it doesn't answer it
+	 */
+	public int getActorOffset(String packetName) {
+		Integer offset = responses.get(packetName);
+		return offset == null ? NOT_A_RESPONSE : offset;
+	}
+
+	public String getStatName() {
+		return name().toLowerCase();
+	}
+}
@@ -0,0 +1,396 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package l2server.bot;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Selector;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * A simulated player: logs in, enters the world and then runs one scripted behaviour after another,
+ * waiting for the answer of each one (or its timeout) and a think time before the next.<BR>
+ * Driven by its selector thread only, apart from the object id and state read by the other bots picking a trade partner.
+ */
+public final class Bot {
+	private static Logger log = LoggerFactory.getLogger(Bot.class.getName());
+
+	private static final int MAX_KNOWN_NPCS = 64;
+
+	public enum State {
+		WAITING,
+		LOGIN,
+		ENTERING,
+		IN_WORLD,
+		FAILED,
+		STOPPED
+	}
+
+	public static final class SessionKey {
+		public final int loginOk1;
+		public final int loginOk2;
+		public final int playOk1;
+		public final int playOk2;
+
+		private SessionKey(int loginOk1, int loginOk2, int playOk1, int playOk2) {
+			this.loginOk1 = loginOk1;
+			this.loginOk2 = loginOk2;
+			this.playOk1 = playOk1;
+			this.playOk2 = playOk2;
+		}
+	}
+
+	private final String account;
+	private final long startAt;
+	private final BotConfig config;
+	private final BotOpcodes opcodes;
+	private final BotStats stats;
+	private final Bot[] swarm;
+	private final Random random;
+
+	private final Behaviour[] behaviours;
+	private final int[] behaviourWeights;
+	private final int behaviourWeightSum;
+
+	private Selector selector;
+	private volatile State state = State.WAITING;
+	private long stateSince;
+
+	private LoginConnection loginConnection;
+	private GameConnection gameConnection;
+	private InetSocketAddress gameAddress;
+	private SessionKey sessionKey;
+
+	private volatile int objectId;
+	private int x;
+	private int y;
+	private int z;
+	private int homeX;
+	private int homeY;
+	private int homeZ;
+	private final List<Integer> knownNpcs = new ArrayList<>();
+
+	private Behaviour pending = null;
+	private long pendingSince;
+	private long nextActionAt;
+
+	public Bot(int id, long startAt, BotConfig config, BotOpcodes opcodes, BotStats stats, Bot[] swarm) {
+		this.account = config.accountPrefix + id;
+		this.startAt = startAt;
+		this.config = config;
+		this.opcodes = opcodes;
+		this.stats = stats;
+		this.swarm = swarm;
+		this.random = new Random(id);
+
+		behaviours = new Behaviour[config.behaviours.size()];
+		behaviourWeights = new int[behaviours.length];
+		int sum = 0;
+		int i = 0;
+		for (Map.Entry<Behaviour, Integer> entry : config.behaviours.entrySet()) {
+			sum += entry.getValue();
+			behaviours[i] = entry.getKey();
+			behaviourWeights[i++] = sum;
+		}
+		behaviourWeightSum = sum;
+	}
+
+	void bind(Selector selector) {
+		this.selector = selector;
+	}
+
+	public String getAccount() {
+		return account;
+	}
+
+	public String getPassword() {
+		return config.password;
+	}
+
+	public BotConfig getConfig() {
+		return config;
+	}
+
+	public BotOpcodes getOpcodes() {
+		return opcodes;
+	}
+
+	public SessionKey getSessionKey() {
+		return sessionKey;
+	}
+
+	public State getState() {
+		return state;
+	}
+
+	public int getObjectId() {
+		return objectId;
+	}
+
+	InetSocketAddress getGameAddress(String ip, int port) {
+		return new InetSocketAddress(config.gameHost != null ? config.gameHost : ip, config.gamePort > 0 ? config.gamePort : port);
+	}
+
+	void setGameAddress(InetSocketAddress gameAddress) {
+		this.gameAddress = gameAddress;
+	}
+
+	private void setState(State state, long now) {
+		this.state = state;
+		stateSince = now;
+	}
+
+	private void start(long now) throws IOException {
+		setState(State.LOGIN, now);
+		stats.getConnected().incrementAndGet();
+		loginConnection = new LoginConnection(this, selector);
+		loginConnection.connect(new InetSocketAddress(config.loginHost, config.loginPort));
+	}
+
+	void onPlayOk(int loginOk1, int loginOk2, int playOk1, int playOk2) throws IOException {
+		final long now = System.nanoTime();
+		stats.recordLatency("login", now - stateSince);
+
+		sessionKey = new SessionKey(loginOk1, loginOk2, playOk1, playOk2);
+		setState(State.ENTERING, now);
+		gameConnection = new GameConnection(this, selector);
+		gameConnection.connect(gameAddress);
+	}
+
+	void onCharSelected(int objectId, int x, int y, int z) {
+		this.objectId = objectId;
+		this.x = homeX = x;
+		this.y = homeY = y;
+		this.z = homeZ = z;
+	}
+
+	void onLoginFailed(String reason) {
+		stats.count("failed." + reason);
+		fail();
+	}
+
+	void onDisconnected(BotConnection connection) {
+		stats.count("disconnected." + state.name().toLowerCase());
+		fail();
+	}
+
+	void onError(Exception e) {
+		stats.count("error." + e.getClass().getSimpleName());
+		log.debug(account + ": " + e.getMessage(), e);
+		fail();
+	}
+
+	private void fail() {
+		close();
+		state = State.FAILED;
+	}
+
+	private void close() {
+		if (state == State.IN_WORLD) {
+			stats.getInWorld().decrementAndGet();
+		}
+		if (state != State.WAITING && state != State.FAILED && state != State.STOPPED) {
+			stats.getConnected().decrementAndGet();
+		}
+
+		if (loginConnection != null) {
+			loginConnection.close();
+		}
+		if (gameConnection != null) {
+			gameConnection.close();
+		}
+	}
+
+	/**
+	 * Logs out the bots in the world and closes the connections.
+	 */
+	void stop() {
+		if (state == State.IN_WORLD) {
+			try {
+				gameConnection.sendPacket(gameConnection.newPacket("Logout"));
+			} catch (IOException e) {
+				// Closing anyway
+			}
+		}
+
+		close();
+		state = State.STOPPED;
+	}
+
+	void tick(long now) throws IOException {
+		switch (state) {
+			case WAITING:
+				if (now >= startAt) {
+					start(now);
+				}
+				break;
+			case LOGIN:
+			case ENTERING:
+				if (now - stateSince > config.loginTimeout * 1000000L) {
+					stats.count("timeout." + state.name().toLowerCase());
+					fail();
+				}
+				break;
+			case IN_WORLD:
+				if (pending != null) {
+					if (now - pendingSince > config.requestTimeout * 1000000L) {
+						stats.count("timeout." + pending.getStatName());
+						pending = null;
+						nextActionAt = now + thinkTime();
+					}
+				} else if (now >= nextActionAt) {
+					act(now);
+				}
+				break;
+		}
+	}
+
+	private long thinkTime() {
+		return (config.thinkTime / 2 + random.nextInt(config.thinkTime + 1)) * 1000000L;
+	}
+
+	private void act(long now) throws IOException {
+		int roll = random.nextInt(behaviourWeightSum);
+		Behaviour behaviour = behaviours[behaviours.length - 1];
+		for (int i = 0; i < behaviours.length; i++) {
+			if (roll < behaviourWeights[i]) {
+				behaviour = behaviours[i];
+				break;
+			}
+		}
+
+		if (perform(behaviour)) {
+			pending = behaviour;
+			pendingSince = now;
+		} else {
+			stats.count("skipped." + behaviour.getStatName());
+			nextActionAt = now + thinkTime();
+		}
+	}
+
+	/**
+	 * @return false if the behaviour has nothing to act on
+	 */
+	private boolean perform(Behaviour behaviour) throws IOException {
+		switch (behaviour) {
+			case WALK:
+				final int radius = Math.max(1, config.walkRadius);
+				final int targetX = homeX + random.nextInt(radius * 2) - radius;
+				final int targetY = homeY + random.nextInt(radius * 2) - radius;
+				gameConnection.sendPacket(gameConnection.newPacket("MoveBackwardToLocation")
+						.writeD(targetX).writeD(targetY).writeD(z)
+						.writeD(x).writeD(y).writeD(z)
+						.writeD(1));
+				return true;
+			case ATTACK:
+				if (knownNpcs.isEmpty()) {
+					return false;
+				}
+
+				final int npcId = knownNpcs.get(random.nextInt(knownNpcs.size()));
+				gameConnection.sendPacket(gameConnection.newPacket("AttackRequest").writeD(npcId).writeD(x).writeD(y).writeD(z).writeC(0));
+				return true;
+			case CAST:
+				if (config.skills.length == 0) {
+					return false;
+				}
+
+				final int skillId = config.skills[random.nextInt(config.skills.length)];
+				gameConnection.sendPacket(gameConnection.newPacket("RequestMagicSkillUse").writeD(skillId).writeD(0).writeC(0));
+				return true;
+			case CHAT:
+				gameConnection.sendPacket(gameConnection.newPacket("Say2").writeS(account + " " + random.nextInt(1000000)).writeD(0));
+				return true;
+			case TRADE:
+				for (int i = 0; i < 3; i++) {
+					final Bot partner = swarm[random.nextInt(swarm.length)];
+					if (partner != this && partner.getState() == State.IN_WORLD && partner.getObjectId() != 0) {
+						gameConnection.sendPacket(gameConnection.newPacket("TradeRequest").writeD(partner.getObjectId()));
+						return true;
+					}
+				}
+				return false;
+		}
+		return false;
+	}
+
+	void onGamePacket(String name, ByteBuffer buf) throws IOException {
+		final int start = buf.position();
+		final int actorId = buf.remaining() >= 4 ? buf.getInt(start) : 0;
+		switch (name) {
+			case "UserInfo":
+				if (state == State.ENTERING) {
+					final long now = System.nanoTime();
+					stats.recordLatency("enterWorld", now - stateSince);
+					stats.getInWorld().incrementAndGet();
+					setState(State.IN_WORLD, now);
+					nextActionAt = now + thinkTime();
+				}
+				break;
+			case "NpcInfo":
+				if (knownNpcs.size() < MAX_KNOWN_NPCS && !knownNpcs.contains(actorId)) {
+					knownNpcs.add(actorId);
+				}
+				break;
+			case "DeleteObject":
+				knownNpcs.remove((Integer) actorId);
+				break;
+			case "MoveToLocation":
+				if (actorId == objectId) {
+					x = buf.getInt(start + 4);
+					y = buf.getInt(start + 8);
+					z = buf.getInt(start + 12);
+				}
+				break;
+			case "TeleportToLocation":
+				if (actorId == objectId) {
+					x = homeX = buf.getInt(start + 4);
+					y = homeY = buf.getInt(start + 8);
+					z = homeZ = buf.getInt(start + 12);
+				}
+				break;
+			case "Die":
+				if (actorId == objectId) {
+					// Back to the nearest village
+					gameConnection.sendPacket(gameConnection.newPacket("RequestRestartPoint").writeD(0));
+				} else {
+					knownNpcs.remove((Integer) actorId);
+				}
+				break;
+			case "SendTradeRequest":
+				// The trades are only requested to load the server, all of them are refused
+				gameConnection.sendPacket(gameConnection.newPacket("AnswerTradeRequest").writeD(0));
+				break;
+		}
+
+		if (pending != null) {
+			final int offset = pending.getActorOffset(name);
+			if (offset == Behaviour.ANY_ACTOR || offset >= 0 && buf.limit() >= start + offset + 4 && buf.getInt(start + offset) == objectId) {
+				final long now = System.nanoTime();
+				stats.recordLatency(pending.getStatName(), now - pendingSince);
+				pending = null;
+				nextActionAt = now + thinkTime();
+			}
+		}
+	}
+}
@@ -0,0 +1,78 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package l2server.bot;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+
+/**
+ * Headless load generator: connects a swarm of bots through the login server to a game server, makes them walk, attack, cast,
+ * chat and trade, and reports the latencies they see per request next to the tick metrics of the server.<BR>
+ * The accounts are created by the login server (AutoCreateAccounts) and the characters by the bots on their first run,
+ * so it only needs a local login and game server, on their usual database or on the {@link EmbeddedDatabase}.<BR>
+ * Usage, from the dist folder: gradle :bot:run -PbotArgs="bots=2000 connectRate=100 duration=600 skills=3,16"
+ *
+ * @see BotConfig for the settings
+ */
+public final class BotApplication {
+	private static Logger log = LoggerFactory.getLogger(BotApplication.class.getName());
+
+	public static void main(String[] args) throws Exception {
+		final BotConfig config = BotConfig.parse(args);
+		final BotOpcodes opcodes = new BotOpcodes(new File(config.protocolFile));
+		final BotStats stats = new BotStats();
+		final ServerMetrics serverMetrics = new ServerMetrics(config);
+
+		log.info("Server metrics before the run:\n" + serverMetrics.scrape());
+
+		final BotSelector[] selectors = new BotSelector[config.threads];
+		for (int i = 0; i < selectors.length; i++) {
+			selectors[i] = new BotSelector(i);
+		}
+
+		final Bot[] swarm = new Bot[config.bots];
+		final long start = System.nanoTime();
+		for (int i = 0; i < swarm.length; i++) {
+			final long startAt = start + i * 1000000000L / config.connectRate;
+			swarm[i] = new Bot(config.firstBot + i, startAt, config, opcodes, stats, swarm);
+			selectors[i % selectors.length].addBot(swarm[i]);
+		}
+
+		log.info("Starting " + swarm.length + " bots on " + selectors.length + " threads, " + config.connectRate + " new connections per second.");
+		for (BotSelector selector : selectors) {
+			selector.start();
+		}
+
+		final long end = start + config.duration * 1000000000L;
+		long now;
+		while ((now = System.nanoTime()) < end) {
+			Thread.sleep(Math.min(Math.max(1, config.reportInterval) * 1000L, (end - now) / 1000000L + 1));
+			log.info("Bot latencies of the last interval:\n" + stats.reportInterval() + serverMetrics.scrape());
+		}
+
+		for (BotSelector selector : selectors) {
+			selector.shutdown();
+		}
+		for (BotSelector selector : selectors) {
+			selector.join();
+		}
+
+		log.info("Bot latencies of the whole run:\n" + stats.reportTotals((System.nanoTime() - start) / 1e9));
+		log.info("Server metrics after the run:\n" + serverMetrics.scrape());
+	}
+}
@@ -0,0 +1,193 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package l2server.bot;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Settings of a bot run, given as name=value arguments (bots=2000 duration=600 ...).
+ * Every setting has a default aimed at a server running on the local machine with the default configs.
+ */
+public final class BotConfig {
+	public String loginHost = "127.0.0.1";
+	public int loginPort = 2106;
+	/**
+	 * Overrides the address sent in the server list, which is often the external one
+	 */
+	public String gameHost = null;
+	public int gamePort = 0;
+	/**
+	 * 0 to join the first server of the list
+	 */
+	public int serverId = 0;
+	public int protocolVersion = 140;
+	public String protocolFile = "data/protocol.xml";
+
+	public int bots = 100;
+	public int firstBot = 1;
+	public String accountPrefix = "bot";
+	public String password = "bot";
+	/**
+	 * New connections per second, so that the login server isn't flooded by the whole swarm at once
+	 */
+	public int connectRate = 50;
+	public int threads = Runtime.getRuntime().availableProcessors();
+	public int duration = 300;
+	public int reportInterval = 30;
+
+	/**
+	 * Mean time between two requests of a bot, in ms
+	 */
+	public int thinkTime = 1000;
+	public int requestTimeout = 5000;
+	/**
+	 * Time given to a bot to reach the world, the login and character loading being the slowest requests
+	 */
+	public int loginTimeout = 30000;
+	public int walkRadius = 600;
+	public int[] skills = new int[0];
+	public Map<Behaviour, Integer> behaviours = parseBehaviours("walk:40,attack:30,cast:10,chat:15,trade:5");
+
+	/**
+	 * The metrics endpoint of the game server, empty to skip the server side report
+	 */
+	public String metricsUrl = "http://127.0.0.1:8087/metrics";
+	public String[] metrics = {"l2_game_tick_seconds",
+			"l2_game_moving_objects",
+			"l2_world_players",
+			"l2_client_packet_queue_seconds",
+			"l2_client_packet_run_seconds",
+			"l2_executor_task_lateness_seconds",
+			"l2_selector_loop_seconds"};
+
+	public static BotConfig parse(String[] args) {
+		BotConfig config = new BotConfig();
+		for (String arg : args) {
+			int separator = arg.indexOf('=');
+			if (separator <= 0) {
+				throw new IllegalArgumentException("Expected name=value, got " + arg);
+			}
+
+			String name = arg.substring(0, separator).trim();
+			String value = arg.substring(separator + 1).trim();
+			switch (name) {
+				case "loginHost":
+					config.loginHost = value;
+					break;
+				case "loginPort":
+					config.loginPort = Integer.parseInt(value);
+					break;
+				case "gameHost":
+					config.gameHost = value;
+					break;
+				case "gamePort":
+					config.gamePort = Integer.parseInt(value);
+					break;
+				case "serverId":
+					config.serverId = Integer.parseInt(value);
+					break;
+				case "protocolVersion":
+					config.protocolVersion = Integer.parseInt(value);
+					break;
+				case "protocolFile":
+					config.protocolFile = value;
+					break;
+				case "bots":
+					config.bots = Integer.parseInt(value);
+					break;
+				case "firstBot":
+					config.firstBot = Integer.parseInt(value);
+					break;
+				case "accountPrefix":
+					config.accountPrefix = value;
+					break;
+				case "password":
+					config.password = value;
+					break;
+				case "connectRate":
+					config.connectRate = Math.max(1, Integer.parseInt(value));
+					break;
+				case "threads":
+					config.threads = Math.max(1, Integer.parseInt(value));
+					break;
+				case "duration":
+					config.duration = Integer.parseInt(value);
+					break;
+				case "reportInterval":
+					config.reportInterval = Integer.parseInt(value);
+					break;
+				case "thinkTime":
+					config.thinkTime = Integer.parseInt(value);
+					break;
+				case "requestTimeout":
+					config.requestTimeout = Integer.parseInt(value);
+					break;
+				case "loginTimeout":
+					config.loginTimeout = Integer.parseInt(value);
+					break;
+				case "walkRadius":
+					config.walkRadius = Integer.parseInt(value);
+					break;
+				case "skills":
+					config.skills = parseInts(value);
+					break;
+				case "behaviours":
+					config.behaviours = parseBehaviours(value);
+					break;
+				case "metricsUrl":
+					config.metricsUrl = value;
+					break;
+				case "metrics":
+					config.metrics = value.isEmpty() ? new String[0] : value.split(",");
+					break;
+				default:
+					throw new IllegalArgumentException("Unknown setting " + name);
+			}
+		}
+		return config;
+	}
+
+	private static int[] parseInts(String value) {
+		List<Integer> ids = new ArrayList<>();
+		for (String id : value.split(",")) {
+			if (!id.trim().isEmpty()) {
+				ids.add(Integer.parseInt(id.trim()));
+			}
+		}
+
+		int[] result = new int[ids.size()];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = ids.get(i);
+		}
+		return result;
+	}
+
+	/**
+	 * @param value behaviour:weight pairs, such as walk:40,chat:10
+	 */
+	private static Map<Behaviour, Integer> parseBehaviours(String value) {
+		Map<Behaviour, Integer> weights = new EnumMap<>(Behaviour.class);
+		for (String entry : value.split(",")) {
+			String[] parts = entry.split(":");
+			Behaviour behaviour = Behaviour.valueOf(parts[0].trim().toUpperCase());
+			weights.put(behaviour, parts.length > 1 ? Integer.parseInt(parts[1].trim()) : 1);
+		}
+		return weights;
+	}
+}
@@ -0,0 +1,164 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package l2server.bot;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+
+/**
+ * A non blocking connection of a bot, framed as the login and game servers do: 2 bytes of length, header included, then the encrypted body.<BR>
+ * Only used by the selector thread of its bot, so nothing here is synchronized.
+ */
+public abstract class BotConnection {
+	private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+	protected final Bot bot;
+
+	private final SocketChannel channel;
+	private final SelectionKey key;
+	private final ByteBuffer readBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+	private final ArrayDeque<ByteBuffer> writeQueue = new ArrayDeque<>();
+	private boolean closed = false;
+
+	protected BotConnection(Bot bot, Selector selector) throws IOException {
+		this.bot = bot;
+
+		channel = SocketChannel.open();
+		channel.configureBlocking(false);
+		channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+		key = channel.register(selector, SelectionKey.OP_CONNECT, this);
+	}
+
+	public final void connect(InetSocketAddress address) throws IOException {
+		if (channel.connect(address)) {
+			finishConnect();
+		}
+	}
+
+	final void finishConnect() throws IOException {
+		if (!channel.finishConnect()) {
+			return;
+		}
+
+		key.interestOps(writeQueue.isEmpty() ? SelectionKey.OP_READ : SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+		onConnected();
+	}
+
+	final void read() throws IOException {
+		if (channel.read(readBuffer) < 0) {
+			close();
+			bot.onDisconnected(this);
+			return;
+		}
+
+		readBuffer.flip();
+		while (readBuffer.remaining() >= 2) {
+			final int size = readBuffer.getShort(readBuffer.position()) & 0xffff;
+			if (size <= 2 || size > READ_BUFFER_SIZE) {
+				throw new IOException("Invalid packet size " + size);
+			}
+			if (readBuffer.remaining() < size) {
+				break;
+			}
+
+			readBuffer.position(readBuffer.position() + 2);
+			byte[] data = new byte[size - 2];
+			readBuffer.get(data);
+			decrypt(data);
+			onPacket(ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN));
+
+			if (closed) {
+				return;
+			}
+		}
+		readBuffer.compact();
+	}
+
+	final void flush() throws IOException {
+		if (closed || !channel.isConnected()) {
+			return;
+		}
+
+		while (!writeQueue.isEmpty()) {
+			ByteBuffer buf = writeQueue.peek();
+			channel.write(buf);
+			if (buf.hasRemaining()) {
+				break;
+			}
+			writeQueue.poll();
+		}
+		key.interestOps(writeQueue.isEmpty() ? SelectionKey.OP_READ : SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+	}
+
+	public final void sendPacket(BotPacket packet) throws IOException {
+		if (closed) {
+			return;
+		}
+
+		final int size = encrypt(packet.getData(), packet.getSize());
+		ByteBuffer buf = ByteBuffer.allocate(size + 2).order(ByteOrder.LITTLE_ENDIAN);
+		buf.putShort((short) (size + 2));
+		buf.put(packet.getData(), 0, size);
+		buf.flip();
+		writeQueue.add(buf);
+		flush();
+	}
+
+	public final void close() {
+		if (closed) {
+			return;
+		}
+
+		closed = true;
+		key.cancel();
+		try {
+			channel.close();
+		} catch (IOException e) {
+			// Closing anyway
+		}
+	}
+
+	final Bot getBot() {
+		return bot;
+	}
+
+	public final boolean isClosed() {
+		return closed;
+	}
+
+	/**
+	 * Encrypts the body in place, the data has at least 16 free bytes after it.
+	 *
+	 * @return the size of the encrypted body
+	 */
+	protected abstract int encrypt(byte[] data, int size) throws IOException;
+
+	protected abstract void decrypt(byte[] data) throws IOException;
+
+	protected abstract void onConnected() throws IOException;
+
+	/**
+	 * @param buf the decrypted body, opcode included
+	 */
+	protected abstract void onPacket(ByteBuffer buf) throws IOException;
+}
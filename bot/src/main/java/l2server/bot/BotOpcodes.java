@@ -0,0 +1,156 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package l2server.bot;
+
+import l2server.util.xml.XmlDocument;
+import l2server.util.xml.XmlNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The opcodes of the game protocol seen from the client side, read from the same protocol.xml as the game server's PacketOpcodes.<BR>
+ * The client packets are found by name, the server packets are named from their opcode.
+ */
+public final class BotOpcodes {
+	private static Logger log = LoggerFactory.getLogger(BotOpcodes.class.getName());
+
+	private final Map<String, byte[]> clientPackets = new HashMap<>();
+	private final PacketFamily serverPackets = new PacketFamily(1);
+
+	private static final class PacketFamily {
+		private final int switchLength;
+		private final Map<Integer, Object> children = new HashMap<>();
+
+		private PacketFamily(int switchLength) {
+			this.switchLength = switchLength;
+		}
+	}
+
+	public BotOpcodes(File file) {
+		XmlDocument doc = new XmlDocument(file);
+		for (XmlNode d : doc.getRoot().getChildren()) {
+			if (!d.getName().equals("packetfamilly")) {
+				continue;
+			}
+
+			if (d.getString("way").equalsIgnoreCase("ClientPackets")) {
+				parseClientFamily(d, new byte[0]);
+			} else {
+				parseServerFamily(d, serverPackets);
+			}
+		}
+
+		log.info("BotOpcodes: Loaded " + clientPackets.size() + " Client Packets from " + file.getName() + ".");
+	}
+
+	private static int getSwitchLength(XmlNode d) {
+		switch (d.getString("switchtype")) {
+			case "c":
+				return 1;
+			case "h":
+				return 2;
+			case "d":
+				return 4;
+			default:
+				throw new IllegalArgumentException("'" + d.getString("switchtype") + "' switch type is not supported.");
+		}
+	}
+
+	private void parseClientFamily(XmlNode d, byte[] parentOpcode) {
+		final int length = getSwitchLength(d);
+		for (XmlNode y : d.getChildren()) {
+			if (!y.getName().equals("packet") && !y.getName().equals("packetfamilly")) {
+				continue;
+			}
+
+			final int subOpcode = Integer.decode(y.getString("id"));
+			byte[] opcode = new byte[parentOpcode.length + length];
+			System.arraycopy(parentOpcode, 0, opcode, 0, parentOpcode.length);
+			for (int i = 0; i < length; i++) {
+				opcode[parentOpcode.length + i] = (byte) (subOpcode >> i * 8 & 0xff);
+			}
+
+			if (y.getName().equals("packetfamilly")) {
+				parseClientFamily(y, opcode);
+			} else {
+				clientPackets.putIfAbsent(y.getString("name").replace("?", ""), opcode);
+			}
+		}
+	}
+
+	private void parseServerFamily(XmlNode d, PacketFamily family) {
+		for (XmlNode y : d.getChildren()) {
+			if (!y.getName().equals("packet") && !y.getName().equals("packetfamilly")) {
+				continue;
+			}
+
+			final int subOpcode = Integer.decode(y.getString("id"));
+			if (y.getName().equals("packetfamilly")) {
+				PacketFamily child = new PacketFamily(getSwitchLength(y));
+				family.children.put(subOpcode, child);
+				parseServerFamily(y, child);
+			} else {
+				family.children.put(subOpcode, y.getString("name").replace("?", ""));
+			}
+		}
+	}
+
+	/**
+	 * @return the opcode of the client packet, which must be in the protocol
+	 */
+	public byte[] getClientOpcode(String name) {
+		byte[] opcode = clientPackets.get(name);
+		if (opcode == null) {
+			throw new IllegalArgumentException("The client packet " + name + " isn't in the protocol.");
+		}
+		return opcode;
+	}
+
+	/**
+	 * Reads the opcode at the position of the buffer.
+	 *
+	 * @return the name of the server packet, null if unknown
+	 */
+	public String readServerPacket(ByteBuffer buf) {
+		PacketFamily family = serverPackets;
+		while (buf.remaining() >= family.switchLength) {
+			final int subOpcode;
+			switch (family.switchLength) {
+				case 1:
+					subOpcode = buf.get() & 0xff;
+					break;
+				case 2:
+					subOpcode = buf.getShort() & 0xffff;
+					break;
+				default:
+					subOpcode = buf.getInt();
+					break;
+			}
+
+			Object child = family.children.get(subOpcode);
+			if (!(child instanceof PacketFamily)) {
+				return (String) child;
+			}
+			family = (PacketFamily) child;
+		}
+		return null;
+	}
+}
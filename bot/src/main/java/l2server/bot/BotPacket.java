@@ -0,0 +1,89 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package l2server.bot;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A client packet being written, with the little endian types of the protocol.<BR>
+ * The buffer starts after the 2 bytes of the length header, which are filled by the connection once the body is encrypted.
+ */
+public final class BotPacket {
+	/**
+	 * Room left after the body for the checksum and padding of the login packets
+	 */
+	private static final int TRAILER = 16;
+
+	private ByteBuffer buf = ByteBuffer.allocate(64).order(ByteOrder.LITTLE_ENDIAN);
+
+	public BotPacket(byte[] opcode) {
+		writeB(opcode);
+	}
+
+	private void ensure(int size) {
+		if (buf.remaining() < size + TRAILER) {
+			ByteBuffer bigger = ByteBuffer.allocate(Math.max(buf.capacity() * 2, buf.position() + size + TRAILER)).order(ByteOrder.LITTLE_ENDIAN);
+			buf.flip();
+			bigger.put(buf);
+			buf = bigger;
+		}
+	}
+
+	public BotPacket writeC(int value) {
+		ensure(1);
+		buf.put((byte) value);
+		return this;
+	}
+
+	public BotPacket writeH(int value) {
+		ensure(2);
+		buf.putShort((short) value);
+		return this;
+	}
+
+	public BotPacket writeD(int value) {
+		ensure(4);
+		buf.putInt(value);
+		return this;
+	}
+
+	public BotPacket writeB(byte[] data) {
+		ensure(data.length);
+		buf.put(data);
+		return this;
+	}
+
+	public BotPacket writeS(String text) {
+		byte[] data = text.getBytes(StandardCharsets.UTF_16LE);
+		ensure(data.length + 2);
+		buf.put(data);
+		buf.putShort((short) 0);
+		return this;
+	}
+
+	/**
+	 * @return the backing array, with at least 16 free bytes after the body
+	 */
+	byte[] getData() {
+		return buf.array();
+	}
+
+	int getSize() {
+		return buf.position();
+	}
+}
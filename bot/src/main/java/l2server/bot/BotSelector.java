@@ -0,0 +1,110 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package l2server.bot;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Runs the connections and the behaviours of a share of the bots on a single thread,
+ * so that thousands of them only need a few threads.
+ */
+public final class BotSelector extends Thread {
+	private static Logger log = LoggerFactory.getLogger(BotSelector.class.getName());
+
+	private static final long TICK_MS = 10;
+
+	private final Selector selector;
+	private final List<Bot> bots = new ArrayList<>();
+	private volatile boolean running = true;
+
+	public BotSelector(int index) throws IOException {
+		super("BotSelector-" + index);
+		selector = Selector.open();
+	}
+
+	/**
+	 * Must be called before the thread is started.
+	 */
+	public void addBot(Bot bot) {
+		bot.bind(selector);
+		bots.add(bot);
+	}
+
+	public void shutdown() {
+		running = false;
+		selector.wakeup();
+	}
+
+	@Override
+	public void run() {
+		while (running) {
+			try {
+				selector.select(TICK_MS);
+			} catch (IOException e) {
+				log.error("Selector failure", e);
+				break;
+			}
+
+			Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+			while (keys.hasNext()) {
+				final SelectionKey key = keys.next();
+				keys.remove();
+
+				final BotConnection connection = (BotConnection) key.attachment();
+				try {
+					if (key.isValid() && key.isConnectable()) {
+						connection.finishConnect();
+					}
+					if (key.isValid() && key.isReadable()) {
+						connection.read();
+					}
+					if (key.isValid() && key.isWritable()) {
+						connection.flush();
+					}
+				} catch (IOException | RuntimeException e) {
+					connection.getBot().onError(e);
+				}
+			}
+
+			final long now = System.nanoTime();
+			for (Bot bot : bots) {
+				try {
+					bot.tick(now);
+				} catch (IOException | RuntimeException e) {
+					bot.onError(e);
+				}
+			}
+		}
+
+		for (Bot bot : bots) {
+			bot.stop();
+		}
+
+		try {
+			selector.close();
+		} catch (IOException e) {
+			// Stopping anyway
+		}
+	}
+}
@@ -0,0 +1,105 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package l2server.bot;
+
+import l2server.util.metrics.MetricsHistogram;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latencies and counters of the whole swarm, written by every selector thread.<BR>
+ * Each latency is recorded twice: in the totals of the run and in the histograms of the current report interval.
+ */
+public final class BotStats {
+	private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+	private final ConcurrentMap<String, MetricsHistogram> totals = new ConcurrentHashMap<>();
+	private final ConcurrentMap<String, MetricsHistogram> intervals = new ConcurrentHashMap<>();
+	private final ConcurrentMap<String, LongAdder> counters = new ConcurrentHashMap<>();
+
+	private final AtomicInteger connected = new AtomicInteger();
+	private final AtomicInteger inWorld = new AtomicInteger();
+
+	private volatile long intervalStart = System.nanoTime();
+
+	public void recordLatency(String request, long nanos) {
+		totals.computeIfAbsent(request, k -> new MetricsHistogram()).record(nanos);
+		intervals.computeIfAbsent(request, k -> new MetricsHistogram()).record(nanos);
+	}
+
+	public void count(String counter) {
+		counters.computeIfAbsent(counter, k -> new LongAdder()).increment();
+	}
+
+	public AtomicInteger getConnected() {
+		return connected;
+	}
+
+	public AtomicInteger getInWorld() {
+		return inWorld;
+	}
+
+	/**
+	 * @return the latencies of the interval since the previous call, then starts a new interval
+	 */
+	public String reportInterval() {
+		final long now = System.nanoTime();
+		final double seconds = (now - intervalStart) / 1e9;
+		intervalStart = now;
+
+		StringBuilder sb = new StringBuilder();
+		sb.append("connected=").append(connected.get()).append(" inWorld=").append(inWorld.get()).append('\n');
+		appendLatencies(sb, intervals, seconds);
+		for (MetricsHistogram histogram : intervals.values()) {
+			histogram.reset();
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * @return the latencies and counters of the whole run
+	 */
+	public String reportTotals(double seconds) {
+		StringBuilder sb = new StringBuilder();
+		appendLatencies(sb, totals, seconds);
+		for (Map.Entry<String, LongAdder> counter : new TreeMap<>(counters).entrySet()) {
+			sb.append(String.format("%-24s %d%n", counter.getKey(), counter.getValue().sum()));
+		}
+		return sb.toString();
+	}
+
+	private static void appendLatencies(StringBuilder sb, Map<String, MetricsHistogram> histograms, double seconds) {
+		sb.append(String.format("%-12s %10s %9s %9s %9s %9s %9s %9s%n", "request", "count", "per sec", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms"));
+		for (Map.Entry<String, MetricsHistogram> entry : new TreeMap<>(histograms).entrySet()) {
+			final MetricsHistogram histogram = entry.getValue();
+			final long count = histogram.getCount();
+			if (count == 0) {
+				continue;
+			}
+
+			sb.append(String.format("%-12s %10d %9.1f", entry.getKey(), count, seconds > 0 ? count / seconds : 0));
+			for (double quantile : QUANTILES) {
+				sb.append(String.format(" %9.2f", histogram.getValueAtQuantile(quantile) / 1e6));
+			}
+			sb.append(String.format(" %9.2f%n", histogram.getMaxNanos() / 1e6));
+		}
+	}
+}
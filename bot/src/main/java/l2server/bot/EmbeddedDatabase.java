@@ -0,0 +1,186 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package l2server.bot;
+
+import ch.vorburger.mariadb4j.DB;
+import ch.vorburger.mariadb4j.DBConfigurationBuilder;
+import l2server.Config;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Containerless MariaDB for the load tests: the binaries come with the MariaDB4j dependency, nothing has to be installed.<BR>
+ * On its first start the database is created in dataDir and the login and server tables of the datapack are imported.
+ * Then the properties file the servers are started with (-Dl2server.configFile=bot.properties) is written: the current
+ * ConfigFile of config.cfg with the database settings pointing at this one and the accounts created on login.<BR>
+ * Usage, from the dist folder: gradle :bot:botDatabase, then :bot:botLoginServer, :bot:botGameServer and :bot:run
+ */
+public final class EmbeddedDatabase {
+	private static Logger log = LoggerFactory.getLogger(EmbeddedDatabase.class.getName());
+
+	public static final String PROPERTIES_FILE = "bot.properties";
+
+	private static final String[] SQL_DIRECTORIES = {"sql/login", "sql/server"};
+
+	private final int port;
+	private final String database;
+	private final File dataDir;
+	private DB db;
+
+	public EmbeddedDatabase(int port, String database, File dataDir) {
+		this.port = port;
+		this.database = database;
+		this.dataDir = dataDir;
+	}
+
+	public static void main(String[] args) throws Exception {
+		int port = 3307;
+		String database = "l2t_bot";
+		File dataDir = new File("bot-db");
+		for (String arg : args) {
+			final int separator = arg.indexOf('=');
+			if (separator < 0) {
+				throw new IllegalArgumentException("Expected name=value: " + arg);
+			}
+
+			final String value = arg.substring(separator + 1);
+			switch (arg.substring(0, separator)) {
+				case "port":
+					port = Integer.parseInt(value);
+					break;
+				case "database":
+					database = value;
+					break;
+				case "dataDir":
+					dataDir = new File(value);
+					break;
+				default:
+					throw new IllegalArgumentException("Unknown setting: " + arg);
+			}
+		}
+
+		final EmbeddedDatabase embedded = new EmbeddedDatabase(port, database, dataDir);
+		embedded.start();
+		Runtime.getRuntime().addShutdownHook(new Thread(embedded::stop, "EmbeddedDatabaseStop"));
+
+		final File baseProperties = new File(Config.CONFIG_DIRECTORY + readConfigFile(new File("config.cfg")));
+		final File properties = new File(Config.CONFIG_DIRECTORY + PROPERTIES_FILE);
+		writeProperties(baseProperties, properties, embedded.getUrl());
+		log.info("Embedded database running on " + embedded.getUrl() + ", start the servers with -D" + Config.CONFIG_FILE_PROPERTY + "=" +
+				PROPERTIES_FILE + ". Stop it with Ctrl+C.");
+
+		Thread.currentThread().join();
+	}
+
+	public void start() throws Exception {
+		final boolean created = !dataDir.exists();
+
+		final DBConfigurationBuilder config = DBConfigurationBuilder.newBuilder();
+		config.setPort(port);
+		config.setDataDir(dataDir.getAbsolutePath());
+		db = DB.newEmbeddedDB(config.build());
+		db.start();
+
+		if (created) {
+			db.createDB(database);
+			importDatapack();
+		}
+	}
+
+	public void stop() {
+		if (db == null) {
+			return;
+		}
+
+		try {
+			db.stop();
+		} catch (Exception e) {
+			log.warn("Failed stopping the embedded database.", e);
+		}
+		db = null;
+	}
+
+	public String getUrl() {
+		return "jdbc:mysql://localhost:" + port + "/" + database;
+	}
+
+	private void importDatapack() throws Exception {
+		int count = 0;
+		for (File file : getDatapackSqlFiles(new File("."))) {
+			db.run(new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8), "root", "", database);
+			count++;
+		}
+		log.info("Embedded database: imported " + count + " sql files in " + database + ".");
+	}
+
+	/**
+	 * @return the table files of the login and game server, without the updates and the custom ones
+	 */
+	static List<File> getDatapackSqlFiles(File distDir) {
+		final List<File> files = new ArrayList<>();
+		for (String directory : SQL_DIRECTORIES) {
+			final File[] sqlFiles = new File(distDir, directory).listFiles((dir, name) -> name.endsWith(".sql"));
+			if (sqlFiles == null) {
+				throw new IllegalStateException("No " + directory + " folder in " + distDir.getAbsolutePath() + ", run from the dist folder.");
+			}
+
+			Arrays.sort(sqlFiles);
+			files.addAll(Arrays.asList(sqlFiles));
+		}
+		return files;
+	}
+
+	/**
+	 * @return the ConfigFile set in config.cfg
+	 */
+	static String readConfigFile(File configCfg) throws IOException {
+		for (String line : Files.readAllLines(configCfg.toPath(), StandardCharsets.UTF_8)) {
+			if (line.startsWith("ConfigFile=")) {
+				return line.substring("ConfigFile=".length()).trim();
+			}
+		}
+		return "default.cfg";
+	}
+
+	/**
+	 * Writes the base properties followed by the settings of the embedded database, which override them.
+	 */
+	static void writeProperties(File base, File target, String url) throws IOException {
+		final List<String> lines = new ArrayList<>();
+		if (base.exists()) {
+			lines.addAll(Files.readAllLines(base.toPath(), StandardCharsets.UTF_8));
+		}
+
+		lines.add("");
+		lines.add("# Embedded database of the bot module, generated by EmbeddedDatabase from " + base.getName());
+		lines.add("LoginDbURL=" + url);
+		lines.add("LoginDbLogin=root");
+		lines.add("LoginDbPassword=");
+		lines.add("GameDbURL=" + url);
+		lines.add("GameDbLogin=root");
+		lines.add("GameDbPassword=");
+		lines.add("AutoCreateAccounts=True");
+		Files.write(target.toPath(), lines, StandardCharsets.UTF_8);
+	}
+}
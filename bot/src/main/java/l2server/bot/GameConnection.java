@@ -0,0 +1,166 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package l2server.bot;
+
+import l2server.gameserver.network.GameCrypt;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Selector;
+
+/**
+ * The client side of the game protocol up to the world entrance: ProtocolVersion, KeyPacket, AuthLogin,
+ * the character selection (creating the character on the first run) and EnterWorld.
+ * The packets received in the world are handed to the bot.<BR>
+ * Uses the GameCrypt of the server, whose keys move the same way on both sides: the client encrypts as the server does and decrypts as it does.
+ */
+public final class GameConnection extends BotConnection {
+	private static final byte[] STATIC_KEY_PART =
+			{(byte) 0xc8, (byte) 0x27, (byte) 0x93, (byte) 0x01, (byte) 0xa1, (byte) 0x6c, (byte) 0x31, (byte) 0x97};
+
+	private final BotOpcodes opcodes;
+	private GameCrypt crypt = null;
+	private boolean characterCreated = false;
+
+	public GameConnection(Bot bot, Selector selector) throws IOException {
+		super(bot, selector);
+		opcodes = bot.getOpcodes();
+	}
+
+	public BotPacket newPacket(String name) {
+		return new BotPacket(opcodes.getClientOpcode(name));
+	}
+
+	@Override
+	protected int encrypt(byte[] data, int size) {
+		if (crypt != null) {
+			crypt.encrypt(data, 0, size);
+		}
+		return size;
+	}
+
+	@Override
+	protected void decrypt(byte[] data) {
+		if (crypt != null) {
+			crypt.decrypt(data, 0, data.length);
+		}
+	}
+
+	@Override
+	protected void onConnected() throws IOException {
+		sendPacket(newPacket("ProtocolVersion").writeD(bot.getConfig().protocolVersion));
+	}
+
+	@Override
+	protected void onPacket(ByteBuffer buf) throws IOException {
+		final String name = opcodes.readServerPacket(buf);
+		if (name == null) {
+			return;
+		}
+
+		switch (name) {
+			case "KeyPacket":
+				readKey(buf);
+				break;
+			case "CharSelectionInfo":
+				selectCharacter(buf);
+				break;
+			case "CharCreateOk":
+				characterCreated = true;
+				break;
+			case "CharCreateFail":
+				bot.onLoginFailed("charCreateFail");
+				break;
+			case "CharSelected":
+				readCharSelected(buf);
+				break;
+			case "NetPing":
+				sendPacket(newPacket("NetPing").writeD(buf.getInt()).writeD(0).writeD(0));
+				break;
+			default:
+				bot.onGamePacket(name, buf);
+				break;
+		}
+	}
+
+	private void readKey(ByteBuffer buf) throws IOException {
+		if (buf.get() != 0x01) {
+			bot.onLoginFailed("wrongProtocol");
+			return;
+		}
+
+		byte[] key = new byte[16];
+		buf.get(key, 0, 8);
+		System.arraycopy(STATIC_KEY_PART, 0, key, 8, 8);
+
+		crypt = new GameCrypt();
+		crypt.setKey(key);
+		// The server doesn't encrypt the KeyPacket, this first call only enables the crypt as it does there
+		crypt.encrypt(key, 0, 0);
+
+		final Bot.SessionKey sessionKey = bot.getSessionKey();
+		sendPacket(newPacket("AuthLogin").writeS(bot.getAccount())
+				.writeD(sessionKey.playOk2)
+				.writeD(sessionKey.playOk1)
+				.writeD(sessionKey.loginOk1)
+				.writeD(sessionKey.loginOk2));
+	}
+
+	private void selectCharacter(ByteBuffer buf) throws IOException {
+		final int count = buf.getInt();
+		if (count > 0) {
+			sendPacket(newPacket("CharacterSelect").writeD(0).writeH(0).writeD(0).writeD(0).writeD(0));
+			return;
+		}
+
+		if (characterCreated) {
+			bot.onLoginFailed("noCharacter");
+			return;
+		}
+
+		// First run of this account: a human fighter named after it
+		sendPacket(newPacket("CharacterCreate").writeS(bot.getAccount())
+				.writeD(0) // race
+				.writeD(0) // sex
+				.writeD(0) // class
+				.writeD(0).writeD(0).writeD(0).writeD(0).writeD(0).writeD(0) // stats
+				.writeD(0) // hair style
+				.writeD(0) // hair color
+				.writeD(0)); // face
+	}
+
+	private void readCharSelected(ByteBuffer buf) throws IOException {
+		readS(buf); // name
+		final int objectId = buf.getInt();
+		readS(buf); // title
+		buf.position(buf.position() + 7 * 4); // session id, clan id, ?, sex, race, class, active
+		final int x = buf.getInt();
+		final int y = buf.getInt();
+		final int z = buf.getInt();
+		bot.onCharSelected(objectId, x, y, z);
+
+		sendPacket(newPacket("EnterWorld").writeB(new byte[104]));
+	}
+
+	public static String readS(ByteBuffer buf) {
+		StringBuilder sb = new StringBuilder();
+		char c;
+		while (buf.remaining() >= 2 && (c = buf.getChar()) != 0) {
+			sb.append(c);
+		}
+		return sb.toString();
+	}
+}
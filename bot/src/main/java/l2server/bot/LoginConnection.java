@@ -0,0 +1,208 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package l2server.bot;
+
+import l2server.util.crypt.NewCrypt;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Selector;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The client side of the login protocol: Init, AuthGameGuard, RequestAuthLogin, the server list and RequestServerLogin,
+ * until the PlayOk which lets the bot connect to the game server.<BR>
+ * The Init is decrypted with the static key of LoginCrypt, everything else with the Blowfish key it carries.
+ */
+public final class LoginConnection extends BotConnection {
+	private static final byte[] STATIC_BLOWFISH_KEY =
+			{(byte) 0x6b, (byte) 0x60, (byte) 0xcb, (byte) 0x5b, (byte) 0x82, (byte) 0xce, (byte) 0x90, (byte) 0xb1, (byte) 0xcc, (byte) 0x2b,
+					(byte) 0x6c, (byte) 0x55, (byte) 0x6c, (byte) 0x6c, (byte) 0x6c, (byte) 0x6c};
+
+	private static final BigInteger RSA_EXPONENT = BigInteger.valueOf(65537);
+
+	private NewCrypt crypt = new NewCrypt(STATIC_BLOWFISH_KEY);
+	private boolean initReceived = false;
+
+	private int sessionId;
+	private BigInteger modulus;
+	private int loginOk1;
+	private int loginOk2;
+
+	public LoginConnection(Bot bot, Selector selector) throws IOException {
+		super(bot, selector);
+	}
+
+	@Override
+	protected int encrypt(byte[] data, int size) throws IOException {
+		// checksum and padding, as LoginCrypt does
+		size += 4;
+		size += 8 - size % 8;
+		NewCrypt.appendChecksum(data, 0, size);
+		crypt.crypt(data, 0, size);
+		return size;
+	}
+
+	@Override
+	protected void decrypt(byte[] data) throws IOException {
+		crypt.decrypt(data, 0, data.length);
+		if (!initReceived) {
+			NewCrypt.decXORPass(data, 0, data.length);
+		}
+	}
+
+	@Override
+	protected void onConnected() {
+		// The server talks first
+	}
+
+	@Override
+	protected void onPacket(ByteBuffer buf) throws IOException {
+		final int opcode = buf.get() & 0xff;
+		if (!initReceived) {
+			if (opcode != 0x00) {
+				throw new IOException("Expected Init, got 0x" + Integer.toHexString(opcode));
+			}
+
+			readInit(buf);
+			return;
+		}
+
+		switch (opcode) {
+			case 0x0b: // GGAuth
+				sendAuthLogin();
+				break;
+			case 0x03: // LoginOk
+				loginOk1 = buf.getInt();
+				loginOk2 = buf.getInt();
+				sendPacket(new BotPacket(new byte[]{0x05}).writeD(loginOk1).writeD(loginOk2).writeC(0x04));
+				break;
+			case 0x04: // ServerList
+				readServerList(buf);
+				break;
+			case 0x07: // PlayOk
+				final int playOk1 = buf.getInt();
+				final int playOk2 = buf.getInt();
+				close();
+				bot.onPlayOk(loginOk1, loginOk2, playOk1, playOk2);
+				break;
+			case 0x01: // LoginFail
+				bot.onLoginFailed("loginFail" + (buf.remaining() > 0 ? buf.get() & 0xff : 0));
+				break;
+			case 0x02: // AccountKicked
+				bot.onLoginFailed("accountKicked");
+				break;
+			case 0x06: // PlayFail
+				bot.onLoginFailed("playFail" + (buf.remaining() > 0 ? buf.get() & 0xff : 0));
+				break;
+		}
+	}
+
+	private void readInit(ByteBuffer buf) throws IOException {
+		sessionId = buf.getInt();
+		buf.getInt(); // protocol revision
+
+		byte[] scrambledModulus = new byte[128];
+		buf.get(scrambledModulus);
+		modulus = new BigInteger(1, unscrambleModulus(scrambledModulus));
+
+		buf.position(buf.position() + 16); // GG
+
+		byte[] blowfishKey = new byte[16];
+		buf.get(blowfishKey);
+		crypt = new NewCrypt(blowfishKey);
+		initReceived = true;
+
+		sendPacket(new BotPacket(new byte[]{0x07}).writeD(sessionId).writeD(0).writeD(0).writeD(0).writeD(0));
+	}
+
+	/**
+	 * Reverts the steps of ScrambledKeyPair, in the opposite order.
+	 */
+	private static byte[] unscrambleModulus(byte[] scrambled) {
+		byte[] mod = scrambled.clone();
+		for (int i = 0; i < 0x40; i++) {
+			mod[0x40 + i] = (byte) (mod[0x40 + i] ^ mod[i]);
+		}
+		for (int i = 0; i < 4; i++) {
+			mod[0x0d + i] = (byte) (mod[0x0d + i] ^ mod[0x34 + i]);
+		}
+		for (int i = 0; i < 0x40; i++) {
+			mod[i] = (byte) (mod[i] ^ mod[0x40 + i]);
+		}
+		for (int i = 0; i < 4; i++) {
+			byte temp = mod[i];
+			mod[i] = mod[0x4d + i];
+			mod[0x4d + i] = temp;
+		}
+		return mod;
+	}
+
+	/**
+	 * The account and password go in two raw RSA blocks, at the offsets RequestAuthLogin reads them from.
+	 */
+	private void sendAuthLogin() throws IOException {
+		byte[] userBlock = new byte[128];
+		byte[] user = bot.getAccount().getBytes(StandardCharsets.US_ASCII);
+		System.arraycopy(user, 0, userBlock, 0x4E, Math.min(user.length, 14));
+
+		byte[] passwordBlock = new byte[128];
+		byte[] password = bot.getPassword().getBytes(StandardCharsets.US_ASCII);
+		System.arraycopy(password, 0, passwordBlock, 0x5C, Math.min(password.length, 16));
+
+		sendPacket(new BotPacket(new byte[]{0x00}).writeB(rsa(userBlock)).writeB(rsa(passwordBlock)));
+	}
+
+	private byte[] rsa(byte[] block) {
+		byte[] encrypted = new BigInteger(1, block).modPow(RSA_EXPONENT, modulus).toByteArray();
+		byte[] result = new byte[128];
+		if (encrypted.length > 128) {
+			System.arraycopy(encrypted, encrypted.length - 128, result, 0, 128);
+		} else {
+			System.arraycopy(encrypted, 0, result, 128 - encrypted.length, encrypted.length);
+		}
+		return result;
+	}
+
+	private void readServerList(ByteBuffer buf) throws IOException {
+		final int count = buf.get() & 0xff;
+		buf.get(); // last server
+
+		int serverId = 0;
+		InetSocketAddress address = null;
+		for (int i = 0; i < count; i++) {
+			final int id = buf.get() & 0xff;
+			final String ip = (buf.get() & 0xff) + "." + (buf.get() & 0xff) + "." + (buf.get() & 0xff) + "." + (buf.get() & 0xff);
+			final int port = buf.getInt();
+			buf.position(buf.position() + 1 + 1 + 2 + 2 + 1 + 4 + 1); // age limit, pvp, players, max players, status, type, brackets
+
+			if (address == null && (bot.getConfig().serverId == 0 || bot.getConfig().serverId == id)) {
+				serverId = id;
+				address = bot.getGameAddress(ip, port);
+			}
+		}
+
+		if (address == null) {
+			bot.onLoginFailed("noServer");
+			return;
+		}
+
+		bot.setGameAddress(address);
+		sendPacket(new BotPacket(new byte[]{0x02}).writeD(loginOk1).writeD(loginOk2).writeC(serverId));
+	}
+}
@@ -0,0 +1,71 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package l2server.bot;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads the tick, packet and executor metrics of the game server from its /metrics endpoint,
+ * to report them next to the latencies seen by the bots.
+ */
+public final class ServerMetrics {
+	private final BotConfig config;
+
+	public ServerMetrics(BotConfig config) {
+		this.config = config;
+	}
+
+	/**
+	 * @return the samples of the configured metrics, or why they couldn't be read
+	 */
+	public String scrape() {
+		if (config.metricsUrl == null || config.metricsUrl.isEmpty() || config.metrics.length == 0) {
+			return "";
+		}
+
+		StringBuilder sb = new StringBuilder();
+		try {
+			HttpURLConnection connection = (HttpURLConnection) new URL(config.metricsUrl).openConnection();
+			connection.setConnectTimeout(2000);
+			connection.setReadTimeout(5000);
+			try (BufferedReader reader = new BufferedReader(new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8))) {
+				String line;
+				while ((line = reader.readLine()) != null) {
+					if (line.startsWith("#")) {
+						continue;
+					}
+
+					for (String metric : config.metrics) {
+						if (line.startsWith(metric)) {
+							sb.append(line).append('\n');
+							break;
+						}
+					}
+				}
+			} finally {
+				connection.disconnect();
+			}
+		} catch (IOException e) {
+			return "Couldn't read the server metrics from " + config.metricsUrl + ": " + e.getMessage() + "\n";
+		}
+		return sb.toString();
+	}
+}
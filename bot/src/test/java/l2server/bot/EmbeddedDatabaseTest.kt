@@ -0,0 +1,42 @@
+package l2server.bot
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import java.io.File
+import java.nio.file.Files
+import java.util.Properties
+
+class EmbeddedDatabaseTest {
+
+	@Test
+	fun testPropertiesOverrideTheDatabase() {
+		val dir = Files.createTempDirectory("bot").toFile()
+		val base = File(dir, "base.properties")
+		base.writeText("GameDbURL=jdbc:mysql://localhost:3306/live\nRateXp=10\n")
+		val target = File(dir, EmbeddedDatabase.PROPERTIES_FILE)
+
+		EmbeddedDatabase.writeProperties(base, target, "jdbc:mysql://localhost:3307/l2t_bot")
+
+		val properties = Properties()
+		target.inputStream().use { properties.load(it) }
+		assertEquals("jdbc:mysql://localhost:3307/l2t_bot", properties.getProperty("GameDbURL"))
+		assertEquals("jdbc:mysql://localhost:3307/l2t_bot", properties.getProperty("LoginDbURL"))
+		assertEquals("10", properties.getProperty("RateXp"))
+	}
+
+	@Test
+	fun testConfigFile() {
+		val configCfg = Files.createTempFile("config", ".cfg").toFile()
+		configCfg.writeText("# comment\nConfigFile=tenkai_legacy.properties\n")
+		assertEquals("tenkai_legacy.properties", EmbeddedDatabase.readConfigFile(configCfg))
+	}
+
+	@Test
+	fun testDatapackSqlFiles() {
+		val files = EmbeddedDatabase.getDatapackSqlFiles(File("../dist"))
+		assertTrue(files.any { it.name == "accounts.sql" })
+		assertTrue(files.any { it.name == "characters.sql" })
+		assertTrue(files.none { it.parentFile.name == "updates" || it.parentFile.name == "custom" })
+	}
+}
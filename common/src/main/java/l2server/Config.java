@@ -448,12 +448,16 @@ public final class Config {
 	public static boolean ALT_DEV_NO_HANDLERS;
 	public static boolean ALT_DEV_NO_QUESTS;
 	public static boolean ALT_DEV_NO_SPAWNS;
+	public static int SCRIPT_COMPILER_THREADS;
 	public static int THREAD_P_EFFECTS;
 	public static int THREAD_P_GENERAL;
 	public static int GENERAL_PACKET_THREAD_CORE_SIZE;
 	public static int IO_PACKET_THREAD_CORE_SIZE;
 	public static int GENERAL_THREAD_CORE_SIZE;
 	public static int AI_MAX_THREAD;
+	public static boolean REGION_AFFINE_EXECUTION;
+	public static int REGION_EXECUTOR_THREADS;
+	public static int REGION_GROUP_SIZE;
 	public static int CLIENT_PACKET_QUEUE_SIZE;
 	public static int CLIENT_PACKET_QUEUE_MAX_BURST_SIZE;
 	public static int CLIENT_PACKET_QUEUE_MAX_PACKETS_PER_SECOND;
@@ -463,9 +467,16 @@ public final class Config {
 	public static int CLIENT_PACKET_QUEUE_MAX_OVERFLOWS_PER_MIN;
 	public static int CLIENT_PACKET_QUEUE_MAX_UNDERFLOWS_PER_MIN;
 	public static int CLIENT_PACKET_QUEUE_MAX_UNKNOWN_PER_MIN;
+	public static int PACKET_PROFILER_SAMPLE_RATE;
+	public static int PACKET_PROFILER_BUDGET;
+	public static boolean TASK_PROFILER_ENABLED;
+	public static int TASK_WATCHDOG_THRESHOLD;
 	public static boolean DEADLOCK_DETECTOR;
 	public static int DEADLOCK_CHECK_INTERVAL;
 	public static boolean RESTART_ON_DEADLOCK;
+	public static int SHUTDOWN_SAVE_THREADS;
+	public static int SHUTDOWN_SAVE_BATCH_SIZE;
+	public static int SHUTDOWN_SAVE_DEADLINE;
 	public static boolean ALLOW_DISCARDITEM;
 	public static int AUTODESTROY_ITEM_AFTER;
 	public static int HERB_AUTO_DESTROY_TIME;
@@ -485,6 +496,7 @@ public final class Config {
 	public static boolean FORCE_INVENTORY_UPDATE;
 	public static boolean LAZY_CACHE;
 	public static boolean CACHE_CHAR_NAMES;
+	public static int CHAR_LOAD_CACHE_TIME;
 	public static int MIN_NPC_ANIMATION;
 	public static int MAX_NPC_ANIMATION;
 	public static int MIN_MONSTER_ANIMATION;
@@ -494,6 +506,8 @@ public final class Config {
 	public static boolean GRIDS_ALWAYS_ON;
 	public static int GRID_NEIGHBOR_TURNON_TIME;
 	public static int GRID_NEIGHBOR_TURNOFF_TIME;
+	public static boolean DORMANT_NPCS;
+	public static int DORMANT_NPC_GRACE_TIME;
 	public static int WORLD_X_MIN;
 	public static int WORLD_X_MAX;
 	public static int WORLD_Y_MIN;
@@ -509,6 +523,7 @@ public final class Config {
 	public static int MAX_POSTFILTER_PASSES;
 	public static boolean DEBUG_PATH;
 	public static boolean FORCE_GEODATA;
+	public static int GEODATA_LOS_CACHE_SIZE;
 	public static boolean MOVE_BASED_KNOWNLIST;
 	public static long KNOWNLIST_UPDATE_INTERVAL;
 	public static int ZONE_TOWN;
@@ -686,6 +701,8 @@ public final class Config {
 	public static boolean OFFLINE_CRAFT_ENABLE;
 	public static boolean OFFLINE_MODE_IN_PEACE_ZONE;
 	public static boolean RESTORE_OFFLINERS;
+	public static int OFFLINE_RESTORE_BATCH_SIZE;
+	public static int OFFLINE_RESTORE_BATCH_DELAY;
 	
 	public static boolean OFFLINE_BUFFERS_ENABLE;
 	public static boolean OFFLINE_BUFFERS_RESTORE;
@@ -838,6 +855,8 @@ public final class Config {
 	public static int REQUEST_ID;
 	public static boolean RESERVE_HOST_ON_LOGIN = false;
 	public static boolean LOG_LOGIN_CONTROLLER;
+	public static int LOGIN_CRYPTO_THREADS;
+	public static int LOGIN_ACTIVITY_FLUSH_INTERVAL;
 	
 	//--------------------------------------------------
 	// MMO Settings
@@ -846,6 +865,7 @@ public final class Config {
 	public static int MMO_MAX_SEND_PER_PASS;
 	public static int MMO_MAX_READ_PER_PASS;
 	public static int MMO_HELPER_BUFFER_COUNT;
+	public static boolean MMO_SUPERSEDE_PACKETS;
 	
 	//--------------------------------------------------
 	// Vitality Settings
@@ -986,6 +1006,10 @@ public final class Config {
 	public static final String LANGUAGE_FILTER_FILE = "languagefilter.txt";
 	
 	public static String CONFIG_FILE = "default.cfg";
+	/**
+	 * System property overriding the ConfigFile of config.cfg, used by the bot module to run the servers on its embedded database
+	 */
+	public static final String CONFIG_FILE_PROPERTY = "l2server.configFile";
 	
 	private static List<ConfigVar> configs = new ArrayList<>();
 	
@@ -1026,6 +1050,12 @@ public final class Config {
 			failedLoadingBoot = true;
 		}
 		
+		final String configFileOverride = System.getProperty(CONFIG_FILE_PROPERTY);
+		if (configFileOverride != null && !configFileOverride.isEmpty()) {
+			CONFIG_FILE = configFileOverride;
+			failedLoadingBoot = false;
+		}
+		
 		if (failedLoadingBoot) {
 			try {
 				log.info("DEFAULT CONFIGURATIONS WILL BE LOADED. Press ENTER to continue.");
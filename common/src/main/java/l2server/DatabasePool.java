@@ -17,9 +17,13 @@ package l2server;
 
 import com.jolbox.bonecp.BoneCP;
 import com.jolbox.bonecp.BoneCPConfig;
+import l2server.util.metrics.MetricsRegistry;
+import l2server.util.metrics.MetricsTimer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
 import java.sql.Connection;
 import java.sql.SQLException;
 
@@ -39,12 +43,20 @@ public class DatabasePool {
 	// Data Field
 	private ProviderType providerType;
 	private BoneCP database;
+	private final MetricsTimer connectionWait;
+	private final ThreadLocal<PinnedConnection> pinnedConnection = new ThreadLocal<>();
 	
 	private final int PARTITION_COUNT = 4;
 	
 	// =========================================================
 	// Constructor
 	private DatabasePool() {
+		final MetricsRegistry metrics = MetricsRegistry.getInstance();
+		connectionWait = metrics.timer("l2_db_connection_wait_seconds", "Time spent waiting for a pooled connection");
+		metrics.gauge("l2_db_connections_leased", "Connections currently leased", this::getBusyConnectionCount);
+		metrics.gauge("l2_db_connections_free", "Idle connections in the pool", this::getIdleConnectionCount);
+		metrics.counter("l2_db_connections_created_total", "Connections created by the pool", () -> database.getTotalCreatedConnections());
+		
 		BoneCPConfig config = null;
 		
 		try {
@@ -172,6 +184,12 @@ public class DatabasePool {
 	}
 	
 	public Connection getConnection() {
+		final PinnedConnection pinned = pinnedConnection.get();
+		if (pinned != null) {
+			return pinned.proxy;
+		}
+		
+		final long start = System.nanoTime();
 		Connection con = null;
 		while (con == null) {
 			try {
@@ -181,9 +199,52 @@ public class DatabasePool {
 			}
 		}
 		
+		connectionWait.recordSince(start);
 		return con;
 	}
 	
+	/**
+	 * Until the matching {@link #unpinConnection()}, every getConnection() of the current thread returns the same pooled connection,
+	 * whose close() does nothing. Allows a long chain of loads written with one connection per method (like a character load)
+	 * to check out a single connection. Calls can be nested.
+	 */
+	public void pinConnection() {
+		final PinnedConnection pinned = pinnedConnection.get();
+		if (pinned != null) {
+			pinned.depth++;
+			return;
+		}
+		
+		final Connection con = getConnection();
+		final Connection proxy = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+				(p, method, args) -> {
+					if (method.getName().equals("close")) {
+						return null;
+					}
+					
+					try {
+						return method.invoke(con, args);
+					} catch (InvocationTargetException e) {
+						throw e.getCause();
+					}
+				});
+		pinnedConnection.set(new PinnedConnection(con, proxy));
+	}
+	
+	public void unpinConnection() {
+		final PinnedConnection pinned = pinnedConnection.get();
+		if (pinned == null) {
+			return;
+		}
+		
+		if (--pinned.depth > 0) {
+			return;
+		}
+		
+		pinnedConnection.remove();
+		close(pinned.connection);
+	}
+	
 	public static void close(Connection con) {
 		if (con == null) {
 			return;
@@ -207,4 +268,15 @@ public class DatabasePool {
 	public final ProviderType getProviderType() {
 		return providerType;
 	}
+	
+	private static final class PinnedConnection {
+		private final Connection connection;
+		private final Connection proxy;
+		private int depth = 1;
+		
+		private PinnedConnection(Connection connection, Connection proxy) {
+			this.connection = connection;
+			this.proxy = proxy;
+		}
+	}
 }
@@ -18,6 +18,8 @@
 
 package l2server.network;
 
+import l2server.util.metrics.MetricsTimer;
+
 import java.io.IOException;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
@@ -55,6 +57,7 @@ public final class Core<T extends MMOClient<?>> extends Thread {
 	private final int MAX_READ_PER_PASS;
 	private final long SLEEP_TIME;
 	public boolean TCP_NODELAY;
+	private final boolean SUPERSEDE_PACKETS;
 	// Main Buffers
 	private final ByteBuffer DIRECT_WRITE_BUFFER;
 	private final ByteBuffer WRITE_BUFFER;
@@ -68,6 +71,12 @@ public final class Core<T extends MMOClient<?>> extends Thread {
 	
 	private boolean shutdown;
 	
+	// Statistics
+	private volatile long supersededPackets;
+	private volatile long bytesRead;
+	private volatile long bytesWritten;
+	private final MetricsTimer loopTimer = new MetricsTimer();
+	
 	public Core(final CoreConfig sc,
 	            final IMMOExecutor<T> executor,
 	            final IPacketHandler<T> packetHandler,
@@ -81,6 +90,7 @@ public final class Core<T extends MMOClient<?>> extends Thread {
 		MAX_READ_PER_PASS = sc.MAX_READ_PER_PASS;
 		SLEEP_TIME = sc.SLEEP_TIME;
 		TCP_NODELAY = sc.TCP_NODELAY;
+		SUPERSEDE_PACKETS = sc.SUPERSEDE_PACKETS;
 		
 		DIRECT_WRITE_BUFFER = ByteBuffer.allocateDirect(sc.WRITE_BUFFER_SIZE).order(BYTE_ORDER);
 		WRITE_BUFFER = ByteBuffer.wrap(new byte[sc.WRITE_BUFFER_SIZE]).order(BYTE_ORDER);
@@ -132,6 +142,36 @@ public final class Core<T extends MMOClient<?>> extends Thread {
 		}
 	}
 	
+	final boolean isSupersedingEnabled() {
+		return SUPERSEDE_PACKETS;
+	}
+	
+	final void onPacketSuperseded() {
+		supersededPackets++;
+	}
+	
+	/**
+	 * @return the amount of queued packets dropped because a newer one superseded them
+	 */
+	public final long getSupersededPacketCount() {
+		return supersededPackets;
+	}
+	
+	public final long getBytesRead() {
+		return bytesRead;
+	}
+	
+	public final long getBytesWritten() {
+		return bytesWritten;
+	}
+	
+	/**
+	 * @return the timer of the selector loop work, sleep excluded
+	 */
+	public final MetricsTimer getLoopTimer() {
+		return loopTimer;
+	}
+	
 	@SuppressWarnings("unchecked")
 	@Override
 	public final void run() {
@@ -142,7 +182,10 @@ public final class Core<T extends MMOClient<?>> extends Thread {
 		
 		Iterator<SelectionKey> selectedKeys;
 		
+		long loopStart;
+		
 		while (!shutdown) {
+			loopStart = System.nanoTime();
 			try {
 				selectedKeysCount = selector.selectNow();
 			} catch (IOException e) {
@@ -193,6 +236,8 @@ public final class Core<T extends MMOClient<?>> extends Thread {
 				}
 			}
 			
+			loopTimer.recordSince(loopStart);
+			
 			try {
 				Thread.sleep(SLEEP_TIME);
 			} catch (InterruptedException e) {
@@ -257,12 +302,12 @@ public final class Core<T extends MMOClient<?>> extends Thread {
 			
 			try {
 				result = con.read(buf);
-				System.out.println(result);
 			} catch (IOException e) {
 				// error handling goes bellow
 			}
 			
 			if (result > 0) {
+				bytesRead += result;
 				buf.flip();
 				
 				final T client = con.getClient();
@@ -399,31 +444,45 @@ public final class Core<T extends MMOClient<?>> extends Thread {
 	}
 	
 	private void writeClosePacket(final MMOConnection<T> con) {
-		SendablePacket<T> sp;
-		synchronized (con.getSendQueue()) {
-			if (con.getSendQueue().isEmpty()) {
-				return;
+		// drop whatever was queued before the close request
+		con.getSendQueue().clear();
+		
+		final SendablePacket<T>[] closePackets = con.getClosePackets();
+		if (closePackets == null) {
+			return;
+		}
+		
+		for (SendablePacket<T> sp : closePackets) {
+			if (sp == null) {
+				break;
 			}
 			
-			while ((sp = con.getSendQueue().removeFirst()) != null) {
-				WRITE_BUFFER.clear();
-				
-				putPacketIntoWriteBuffer(con.getClient(), sp);
-				
-				WRITE_BUFFER.flip();
-				
-				try {
-					con.write(WRITE_BUFFER);
-				} catch (IOException e) {
-					// error handling goes on the if bellow
-				}
+			WRITE_BUFFER.clear();
+			
+			putPacketIntoWriteBuffer(con.getClient(), sp);
+			
+			WRITE_BUFFER.flip();
+			
+			try {
+				con.write(WRITE_BUFFER);
+			} catch (IOException e) {
+				// error handling goes on the if bellow
 			}
 		}
 	}
 	
+	private void clearWriteInterest(final SelectionKey key, final MMOConnection<T> con) {
+		key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+		
+		// a producer may have queued a packet between our empty check and the interest change
+		if (!con.getSendQueue().isEmpty()) {
+			key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+		}
+	}
+	
 	protected final void writePacket(final SelectionKey key, final MMOConnection<T> con) {
 		if (!prepareWriteBuffer(con)) {
-			key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+			clearWriteInterest(key, con);
 			return;
 		}
 		
@@ -441,13 +500,12 @@ public final class Core<T extends MMOClient<?>> extends Thread {
 		
 		// check if no error happened
 		if (result >= 0) {
+			bytesWritten += result;
 			// check if we written everything
 			if (result == size) {
 				// complete write
-				synchronized (con.getSendQueue()) {
-					if (con.getSendQueue().isEmpty() && !con.hasPendingWriteBuffer()) {
-						key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
-					}
+				if (con.getSendQueue().isEmpty() && !con.hasPendingWriteBuffer()) {
+					clearWriteInterest(key, con);
 				}
 			} else {
 				// incomplete write
@@ -470,19 +528,11 @@ public final class Core<T extends MMOClient<?>> extends Thread {
 		}
 		
 		if (DIRECT_WRITE_BUFFER.remaining() > 1 && !con.hasPendingWriteBuffer()) {
-			final NioNetStackList<SendablePacket<T>> sendQueue = con.getSendQueue();
 			final T client = con.getClient();
 			SendablePacket<T> sp;
 			
 			for (int i = 0; i < MAX_SEND_PER_PASS; i++) {
-				synchronized (con.getSendQueue()) {
-					if (sendQueue.isEmpty()) {
-						sp = null;
-					} else {
-						sp = sendQueue.removeFirst();
-					}
-				}
-				
+				sp = con.pollSendQueue();
 				if (sp == null) {
 					break;
 				}
@@ -61,4 +61,11 @@ public final class CoreConfig {
 	 * Summary, data will be sent earlier, thus lowering the ping, at the cost of a small increase in bandwidth consumption.
 	 */
 	public boolean TCP_NODELAY = false;
+	
+	/**
+	 * Used to enable/disable dropping of queued state packets when a newer packet for the same object is queued.<BR>
+	 * <BR>
+	 * Players on slow links will receive the fresh state instead of a growing backlog of outdated ones.
+	 */
+	public boolean SUPERSEDE_PACKETS = true;
 }
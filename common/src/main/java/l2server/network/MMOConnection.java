@@ -27,6 +27,8 @@ import java.nio.channels.CancelledKeyException;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.WritableByteChannel;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * @param <T>
@@ -45,11 +47,14 @@ public class MMOConnection<T extends MMOClient<?>> {
 	
 	private final int port;
 	
-	private final NioNetStackList<SendablePacket<T>> sendQueue;
+	private final NioNetSendQueue<SendablePacket<T>> sendQueue;
+	
+	// latest queued packet per supersede key, null if superseding is disabled
+	private final Map<Long, SendablePacket<T>> supersedingPackets;
 	
 	private final SelectionKey selectionKey;
 	
-	// private SendablePacket<T> closePacket;
+	private volatile SendablePacket<T>[] closePackets;
 	
 	private ByteBuffer readBuffer;
 	
@@ -70,7 +75,8 @@ public class MMOConnection<T extends MMOClient<?>> {
 		port = socket.getPort();
 		selectionKey = key;
 		
-		sendQueue = new NioNetStackList<>();
+		sendQueue = new NioNetSendQueue<>();
+		supersedingPackets = selectorThread.isSupersedingEnabled() ? new ConcurrentHashMap<>() : null;
 		
 		try {
 			socket.setTcpNoDelay(tcpNoDelay);
@@ -94,17 +100,53 @@ public class MMOConnection<T extends MMOClient<?>> {
 			return;
 		}
 		
-		synchronized (getSendQueue()) {
-			sendQueue.addLast(sp);
+		if (supersedingPackets != null) {
+			final long key = sp.getSupersedeKey();
+			if (key != 0) {
+				supersedingPackets.put(key, sp);
+			}
+		}
+		
+		sendQueue.addLast(sp);
+		
+		try {
+			selectionKey.interestOps(selectionKey.interestOps() | SelectionKey.OP_WRITE);
+		} catch (CancelledKeyException e) {
+			// ignore
+		}
+	}
+	
+	/**
+	 * Selector thread only.
+	 *
+	 * @return the next packet to write, skipping the ones superseded by a newer queued packet
+	 */
+	final SendablePacket<T> pollSendQueue() {
+		if (pendingClose) {
+			return null;
 		}
 		
-		if (!sendQueue.isEmpty()) {
-			try {
-				selectionKey.interestOps(selectionKey.interestOps() | SelectionKey.OP_WRITE);
-			} catch (CancelledKeyException e) {
-				// ignore
+		SendablePacket<T> sp;
+		while ((sp = sendQueue.removeFirst()) != null) {
+			final long key;
+			if (supersedingPackets == null || (key = sp.getSupersedeKey()) == 0) {
+				return sp;
+			}
+			
+			final SendablePacket<T> latest = supersedingPackets.get(key);
+			if (latest == null || latest == sp) {
+				supersedingPackets.remove(key, sp);
+				return sp;
+			}
+			
+			if (!latest.supersedes(sp)) {
+				return sp;
 			}
+			
+			selectorThread.onPacketSuperseded();
 		}
+		
+		return null;
 	}
 	
 	final SelectionKey getSelectionKey() {
@@ -182,13 +224,13 @@ public class MMOConnection<T extends MMOClient<?>> {
 		return pendingClose;
 	}
 	
-	final NioNetStackList<SendablePacket<T>> getSendQueue() {
+	final NioNetSendQueue<SendablePacket<T>> getSendQueue() {
 		return sendQueue;
 	}
 	
-	/*
-	 * final SendablePacket<T> getClosePacket() { return closePacket; }
-	 */
+	final SendablePacket<T>[] getClosePackets() {
+		return closePackets;
+	}
 	
 	@SuppressWarnings("unchecked")
 	public final void close(final SendablePacket<T> sp) {
@@ -201,14 +243,23 @@ public class MMOConnection<T extends MMOClient<?>> {
 			return;
 		}
 		
+		// the queue itself is lock-free, the monitor only guards the close transition
 		synchronized (getSendQueue()) {
-			if (!pendingClose) {
-				pendingClose = true;
-				sendQueue.clear();
+			if (pendingClose) {
+				return;
+			}
+			
+			if (closeList != null) {
 				for (SendablePacket<T> sp : closeList) {
-					sendQueue.addLast(sp);
+					// a null close packet closes the connection without sending anything more
+					if (sp == null) {
+						break;
+					}
+					sp.client = client;
 				}
 			}
+			closePackets = closeList;
+			pendingClose = true;
 		}
 		
 		try {
@@ -217,7 +268,6 @@ public class MMOConnection<T extends MMOClient<?>> {
 			// ignore
 		}
 		
-		// closePacket = sp;
 		selectorThread.closeConnection(this);
 	}
 	
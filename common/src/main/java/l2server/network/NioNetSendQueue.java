@@ -0,0 +1,83 @@
+/* This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA
+ * 02111-1307, USA.
+ *
+ * http://www.gnu.org/copyleft/gpl.html
+ */
+
+package l2server.network;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Lock-free multi-producer / single-consumer queue.<BR>
+ * Any thread may call {@link #addLast(Object)}, only the selector thread may call {@link #removeFirst()},
+ * {@link #isEmpty()} and {@link #clear()}.<BR>
+ * <BR>
+ * A producer which has swapped the tail but not yet linked its node makes the queue look empty for a short moment,
+ * callers must re-check after clearing their write interest.
+ *
+ * @param <E>
+ */
+public final class NioNetSendQueue<E> {
+	private final AtomicReference<Node<E>> tail;
+	
+	private Node<E> head;
+	
+	public NioNetSendQueue() {
+		head = new Node<>(null);
+		tail = new AtomicReference<>(head);
+	}
+	
+	public final void addLast(final E elem) {
+		final Node<E> node = new Node<>(elem);
+		final Node<E> prev = tail.getAndSet(node);
+		prev.next = node;
+	}
+	
+	/**
+	 * @return the first element or null if the queue is (momentarily) empty
+	 */
+	public final E removeFirst() {
+		final Node<E> next = head.next;
+		if (next == null) {
+			return null;
+		}
+		
+		final E value = next.value;
+		next.value = null;
+		head = next;
+		return value;
+	}
+	
+	public final boolean isEmpty() {
+		return head.next == null;
+	}
+	
+	public final void clear() {
+		while (removeFirst() != null) {
+			// discard
+		}
+	}
+	
+	private static final class Node<E> {
+		private volatile Node<E> next;
+		
+		private E value;
+		
+		Node(final E value) {
+			this.value = value;
+		}
+	}
+}
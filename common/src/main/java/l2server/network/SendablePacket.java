@@ -119,5 +119,30 @@ public abstract class SendablePacket<T extends MMOClient<?>> extends AbstractPac
 		buf.putChar('\000');
 	}
 	
+	/**
+	 * Packets carrying a snapshot of an object state (hp, position...) can return a non zero key here.<BR>
+	 * When a newer packet with the same key is queued on a connection before an older one has been written,
+	 * the older one is dropped and only the newer one is sent.
+	 *
+	 * @return the supersede key or 0 if this packet must always be sent
+	 */
+	public long getSupersedeKey() {
+		return 0;
+	}
+	
+	/**
+	 * @return true if this packet fully replaces the given older queued packet with the same supersede key
+	 */
+	public boolean supersedes(final SendablePacket<?> older) {
+		return older.getClass() == getClass();
+	}
+	
+	/**
+	 * Builds a supersede key unique per packet class, object and discriminator.
+	 */
+	protected final long supersedeKey(final int objectId, final int discriminator) {
+		return (long) (getClass().hashCode() * 31 + discriminator) << 32 | objectId & 0xFFFFFFFFL;
+	}
+	
 	protected abstract void write();
 }
@@ -0,0 +1,231 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package l2server.util;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Scores of ids sorted from the highest to the lowest score (the lowest id first on equal scores).<BR>
+ * Kept in a treap where every node knows the size of its subtree, so that updates, the rank of an id
+ * and the id at a given rank are all O(log n).
+ *
+ * @see #getRank(int)
+ * @see #getTop(int)
+ */
+public final class Leaderboard {
+	private final Map<Integer, Node> nodes = new HashMap<>();
+	private Node root = null;
+
+	/**
+	 * Sets the score of the id, adding it to the board if needed.
+	 */
+	public synchronized void set(int id, long score) {
+		Node node = nodes.get(id);
+		if (node != null) {
+			if (node.score == score) {
+				return;
+			}
+
+			root = remove(root, node);
+		}
+
+		node = new Node(id, score);
+		nodes.put(id, node);
+		root = insert(root, node);
+	}
+
+	public synchronized void remove(int id) {
+		final Node node = nodes.remove(id);
+		if (node != null) {
+			root = remove(root, node);
+		}
+	}
+
+	/**
+	 * @return the score of the id, 0 if not in the board
+	 */
+	public synchronized long getScore(int id) {
+		final Node node = nodes.get(id);
+		return node == null ? 0 : node.score;
+	}
+
+	/**
+	 * @return the 1-based position of the id, 0 if not in the board
+	 */
+	public synchronized int getRank(int id) {
+		final Node node = nodes.get(id);
+		if (node == null) {
+			return 0;
+		}
+
+		int rank = 1;
+		Node current = root;
+		while (current != null) {
+			final int cmp = compare(node, current);
+			if (cmp < 0) {
+				current = current.left;
+			} else {
+				rank += size(current.left);
+				if (cmp == 0) {
+					break;
+				}
+
+				rank++;
+				current = current.right;
+			}
+		}
+		return rank;
+	}
+
+	/**
+	 * @return the ids of the first count positions, best first
+	 */
+	public synchronized int[] getTop(int count) {
+		final int[] ids = new int[Math.max(0, Math.min(count, size(root)))];
+		fill(root, ids, 0);
+		return ids;
+	}
+
+	public synchronized int size() {
+		return nodes.size();
+	}
+
+	public synchronized void clear() {
+		nodes.clear();
+		root = null;
+	}
+
+	private static int fill(Node node, int[] ids, int index) {
+		if (node == null || index >= ids.length) {
+			return index;
+		}
+
+		index = fill(node.left, ids, index);
+		if (index < ids.length) {
+			ids[index++] = node.id;
+		}
+		return fill(node.right, ids, index);
+	}
+
+	/**
+	 * Higher score first, then lower id first.
+	 */
+	private static int compare(Node a, Node b) {
+		if (a.score != b.score) {
+			return a.score > b.score ? -1 : 1;
+		}
+		return Integer.compare(a.id, b.id);
+	}
+
+	private static int size(Node node) {
+		return node == null ? 0 : node.size;
+	}
+
+	private static Node update(Node node) {
+		node.size = 1 + size(node.left) + size(node.right);
+		return node;
+	}
+
+	private static Node insert(Node root, Node node) {
+		if (root == null) {
+			return node;
+		}
+
+		if (node.priority > root.priority) {
+			final Node[] split = split(root, node);
+			node.left = split[0];
+			node.right = split[1];
+			return update(node);
+		}
+
+		if (compare(node, root) < 0) {
+			root.left = insert(root.left, node);
+		} else {
+			root.right = insert(root.right, node);
+		}
+		return update(root);
+	}
+
+	private static Node remove(Node root, Node node) {
+		if (root == null) {
+			return null;
+		}
+
+		if (root == node) {
+			return merge(root.left, root.right);
+		}
+
+		if (compare(node, root) < 0) {
+			root.left = remove(root.left, node);
+		} else {
+			root.right = remove(root.right, node);
+		}
+		return update(root);
+	}
+
+	/**
+	 * @return the nodes before the key and the nodes after it
+	 */
+	private static Node[] split(Node root, Node key) {
+		if (root == null) {
+			return new Node[2];
+		}
+
+		if (compare(root, key) < 0) {
+			final Node[] split = split(root.right, key);
+			root.right = split[0];
+			split[0] = update(root);
+			return split;
+		}
+
+		final Node[] split = split(root.left, key);
+		root.left = split[1];
+		split[1] = update(root);
+		return split;
+	}
+
+	private static Node merge(Node left, Node right) {
+		if (left == null) {
+			return right;
+		}
+		if (right == null) {
+			return left;
+		}
+
+		if (left.priority > right.priority) {
+			left.right = merge(left.right, right);
+			return update(left);
+		}
+
+		right.left = merge(left, right.left);
+		return update(right);
+	}
+
+	private static final class Node {
+		private final int id;
+		private final long score;
+		private final int priority = Rnd.nextInt();
+		private int size = 1;
+		private Node left;
+		private Node right;
+
+		private Node(int id, long score) {
+			this.id = id;
+			this.score = score;
+		}
+	}
+}
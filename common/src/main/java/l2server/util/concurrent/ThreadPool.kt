@@ -18,6 +18,7 @@
  */
 package l2server.util.concurrent
 
+import l2server.util.metrics.MetricsRegistry
 import org.slf4j.LoggerFactory
 import java.util.*
 import java.util.concurrent.*
@@ -102,6 +103,9 @@ object ThreadPool {
 
         scheduleAtFixedRate({ purge() }, 1, 1, TimeUnit.MINUTES)
 
+        MetricsRegistry.getInstance().registerExecutor("shared-scheduled", scheduledThreadPoolExecutor)
+        MetricsRegistry.getInstance().registerExecutor("shared", threadPoolExecutor)
+
         LOGGER.info("Initialized with")
         LOGGER.info("\t... " + scheduledThreadPoolExecutor.poolSize + "/" + scheduledThreadPoolExecutor.poolSize + " scheduled thread(s).") // ScheduledThreadPoolExecutor has a fixed number of threads and maximumPoolSize has no effect
         LOGGER.info("\t... " + threadPoolExecutor.poolSize + "/" + threadPoolExecutor.maximumPoolSize + " thread(s).")
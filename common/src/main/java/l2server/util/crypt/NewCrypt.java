@@ -52,7 +52,7 @@ public class NewCrypt {
 		}
 
 		long chksum = 0;
-		int count = size - 4;
+		int count = offset + size - 4;
 		long check = -1;
 		int i;
 
@@ -79,7 +79,7 @@ public class NewCrypt {
 
 	public static void appendChecksum(byte[] raw, final int offset, final int size) {
 		long chksum = 0;
-		int count = size - 4;
+		int count = offset + size - 4;
 		long ecx;
 		int i;
 
@@ -153,6 +153,36 @@ public class NewCrypt {
 		raw[pos++] = (byte) (ecx >> 24 & 0xFF);
 	}
 
+	/**
+	 * Reverts {@link #encXORPass(byte[], int, int, int)}, the XOR "key" being read from the 4 bytes it was written to.
+	 *
+	 * @param raw    The raw bytes to be decoded
+	 * @param offset The begining of the data to be decoded
+	 * @param size   Length of the data to be decoded
+	 */
+	public static void decXORPass(byte[] raw, final int offset, final int size) {
+		int pos = offset + size - 8;
+		int ecx = raw[pos] & 0xFF;
+		ecx |= (raw[pos + 1] & 0xFF) << 8;
+		ecx |= (raw[pos + 2] & 0xFF) << 16;
+		ecx |= (raw[pos + 3] & 0xFF) << 24;
+
+		for (pos -= 4; pos >= offset + 4; pos -= 4) {
+			int edx = raw[pos] & 0xFF;
+			edx |= (raw[pos + 1] & 0xFF) << 8;
+			edx |= (raw[pos + 2] & 0xFF) << 16;
+			edx |= (raw[pos + 3] & 0xFF) << 24;
+
+			edx ^= ecx;
+			ecx -= edx;
+
+			raw[pos] = (byte) (edx & 0xFF);
+			raw[pos + 1] = (byte) (edx >> 8 & 0xFF);
+			raw[pos + 2] = (byte) (edx >> 16 & 0xFF);
+			raw[pos + 3] = (byte) (edx >> 24 & 0xFF);
+		}
+	}
+
 	public byte[] decrypt(byte[] raw) throws IOException {
 		byte[] result = new byte[raw.length];
 		int count = raw.length / 8;
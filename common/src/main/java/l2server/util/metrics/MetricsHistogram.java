@@ -0,0 +1,123 @@
+/* This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA
+ * 02111-1307, USA.
+ *
+ * http://www.gnu.org/copyleft/gpl.html
+ */
+
+package l2server.util.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free log-linear histogram of durations in nanoseconds, in the spirit of HdrHistogram.<BR>
+ * Every power of two is split in {@link #SUB_BUCKETS} linear buckets, so any recorded value is known
+ * with a relative error below 12.5% whatever its magnitude, for a fixed footprint of a few KB.
+ */
+public final class MetricsHistogram {
+	private static final int SUB_BITS = 3;
+	private static final int SUB_BUCKETS = 1 << SUB_BITS;
+	private static final int BUCKETS = (64 - SUB_BITS + 1) * SUB_BUCKETS;
+	
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+	
+	private final LongAdder count = new LongAdder();
+	
+	private final LongAdder totalNanos = new LongAdder();
+	
+	public final void record(final long nanos) {
+		final long value = nanos < 0 ? 0 : nanos;
+		counts.incrementAndGet(indexOf(value));
+		count.increment();
+		totalNanos.add(value);
+	}
+	
+	public final void recordSince(final long startNanos) {
+		record(System.nanoTime() - startNanos);
+	}
+	
+	public final long getCount() {
+		return count.sum();
+	}
+	
+	public final long getTotalNanos() {
+		return totalNanos.sum();
+	}
+	
+	/**
+	 * @param quantile between 0 and 1
+	 * @return the upper bound of the bucket holding the given quantile, 0 if nothing was recorded
+	 */
+	public final long getValueAtQuantile(final double quantile) {
+		long total = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			total += counts.get(i);
+		}
+		
+		if (total == 0) {
+			return 0;
+		}
+		
+		final long rank = Math.max(1, (long) Math.ceil(quantile * total));
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += counts.get(i);
+			if (seen >= rank) {
+				return upperBoundOf(i);
+			}
+		}
+		return upperBoundOf(BUCKETS - 1);
+	}
+	
+	/**
+	 * @return the upper bound of the highest non empty bucket
+	 */
+	public final long getMaxNanos() {
+		for (int i = BUCKETS - 1; i >= 0; i--) {
+			if (counts.get(i) > 0) {
+				return upperBoundOf(i);
+			}
+		}
+		return 0;
+	}
+	
+	public final void reset() {
+		for (int i = 0; i < BUCKETS; i++) {
+			counts.set(i, 0);
+		}
+		count.reset();
+		totalNanos.reset();
+	}
+	
+	private static int indexOf(final long value) {
+		if (value < SUB_BUCKETS) {
+			return (int) value;
+		}
+		
+		final int exponent = 63 - Long.numberOfLeadingZeros(value);
+		final int mantissa = (int) (value >>> exponent - SUB_BITS) & SUB_BUCKETS - 1;
+		return (exponent - SUB_BITS + 1) * SUB_BUCKETS + mantissa;
+	}
+	
+	private static long upperBoundOf(final int index) {
+		if (index < SUB_BUCKETS) {
+			return index;
+		}
+		
+		final int exponent = index / SUB_BUCKETS + SUB_BITS - 1;
+		final long mantissa = SUB_BUCKETS + index % SUB_BUCKETS;
+		return ((mantissa + 1) << exponent - SUB_BITS) - 1;
+	}
+}
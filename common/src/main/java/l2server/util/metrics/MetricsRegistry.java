@@ -0,0 +1,233 @@
+/* This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA
+ * 02111-1307, USA.
+ *
+ * http://www.gnu.org/copyleft/gpl.html
+ */
+
+package l2server.util.metrics;
+
+import l2server.network.Core;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Holds every metric exposed by a server and renders them in the Prometheus text exposition format.<BR>
+ * <BR>
+ * Values are pulled from suppliers at scrape time, so registering a metric costs nothing on the hot paths.
+ * Subsystems register their own metrics when they are created.
+ */
+public final class MetricsRegistry {
+	private static final double NANOS_PER_SECOND = 1_000_000_000d;
+	private static final double[] QUANTILES = {0.5, 0.9, 0.99};
+	
+	private final Map<String, Family> families = new ConcurrentSkipListMap<>();
+	
+	public static MetricsRegistry getInstance() {
+		return SingletonHolder.instance;
+	}
+	
+	private MetricsRegistry() {
+	}
+	
+	/**
+	 * Registers a value which can go up and down.
+	 *
+	 * @param labels label name / value pairs
+	 */
+	public final void gauge(final String name, final String help, final DoubleSupplier value, final String... labels) {
+		getFamily(name, help, "gauge").series.add(new Series(name, formatLabels(labels), value));
+	}
+	
+	/**
+	 * Registers a monotonically increasing value.
+	 *
+	 * @param labels label name / value pairs
+	 */
+	public final void counter(final String name, final String help, final DoubleSupplier value, final String... labels) {
+		getFamily(name, help, "counter").series.add(new Series(name, formatLabels(labels), value));
+	}
+	
+	/**
+	 * Creates and registers a timer exposed as a summary in seconds, plus a <i>name</i>_max gauge reset on every scrape.
+	 *
+	 * @param labels label name / value pairs
+	 */
+	public final MetricsTimer timer(final String name, final String help, final String... labels) {
+		final MetricsTimer timer = new MetricsTimer();
+		register(name, help, timer, labels);
+		return timer;
+	}
+	
+	/**
+	 * Registers an already existing timer.
+	 *
+	 * @param labels label name / value pairs
+	 */
+	public final void register(final String name, final String help, final MetricsTimer timer, final String... labels) {
+		final String formatted = formatLabels(labels);
+		final Family summary = getFamily(name, help, "summary");
+		summary.series.add(new Series(name + "_count", formatted, timer::getCount));
+		summary.series.add(new Series(name + "_sum", formatted, () -> timer.getTotalNanos() / NANOS_PER_SECOND));
+		getFamily(name + "_max", help + " (max since last scrape)", "gauge").series.add(new Series(name + "_max",
+				formatted,
+				() -> timer.getAndResetMaxNanos() / NANOS_PER_SECOND));
+	}
+	
+	/**
+	 * Registers a histogram exposed as a summary in seconds with the 50th, 90th and 99th percentiles.
+	 *
+	 * @param labels label name / value pairs
+	 */
+	public final void register(final String name, final String help, final MetricsHistogram histogram, final String... labels) {
+		final String formatted = formatLabels(labels);
+		final Family summary = getFamily(name, help, "summary");
+		for (double quantile : QUANTILES) {
+			final String[] quantileLabels = new String[labels.length + 2];
+			System.arraycopy(labels, 0, quantileLabels, 0, labels.length);
+			quantileLabels[labels.length] = "quantile";
+			quantileLabels[labels.length + 1] = String.valueOf(quantile);
+			summary.series.add(new Series(name,
+					formatLabels(quantileLabels),
+					() -> histogram.getValueAtQuantile(quantile) / NANOS_PER_SECOND));
+		}
+		summary.series.add(new Series(name + "_count", formatted, histogram::getCount));
+		summary.series.add(new Series(name + "_sum", formatted, () -> histogram.getTotalNanos() / NANOS_PER_SECOND));
+	}
+	
+	/**
+	 * Registers queue depth, thread and task counters of an executor under the given pool label.
+	 */
+	public final void registerExecutor(final String pool, final ThreadPoolExecutor executor) {
+		gauge("l2_executor_queue_size", "Tasks waiting in the executor queue", () -> executor.getQueue().size(), "pool", pool);
+		gauge("l2_executor_active_threads", "Threads currently running a task", executor::getActiveCount, "pool", pool);
+		gauge("l2_executor_pool_size", "Threads currently in the pool", executor::getPoolSize, "pool", pool);
+		counter("l2_executor_completed_tasks_total", "Tasks completed by the executor", executor::getCompletedTaskCount, "pool", pool);
+	}
+	
+	/**
+	 * Registers traffic and loop timing of a selector thread under the given selector label.
+	 */
+	public final void registerSelector(final String selector, final Core<?> core) {
+		counter("l2_selector_read_bytes_total", "Bytes read from client sockets", core::getBytesRead, "selector", selector);
+		counter("l2_selector_written_bytes_total", "Bytes written to client sockets", core::getBytesWritten, "selector", selector);
+		counter("l2_selector_superseded_packets_total",
+				"Queued packets dropped because a newer one superseded them",
+				core::getSupersededPacketCount,
+				"selector",
+				selector);
+		register("l2_selector_loop_seconds", "Selector loop duration, sleep excluded", core.getLoopTimer(), "selector", selector);
+	}
+	
+	/**
+	 * Registers heap and garbage collector metrics of this JVM.
+	 */
+	public final void registerJvm() {
+		final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+		gauge("l2_jvm_heap_used_bytes", "Used heap memory", () -> memory.getHeapMemoryUsage().getUsed());
+		gauge("l2_jvm_heap_max_bytes", "Max heap memory", () -> memory.getHeapMemoryUsage().getMax());
+		gauge("l2_jvm_threads", "Live JVM threads", () -> ManagementFactory.getThreadMXBean().getThreadCount());
+		
+		for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+			counter("l2_jvm_gc_collections_total", "Garbage collections", gc::getCollectionCount, "gc", gc.getName());
+			counter("l2_jvm_gc_seconds_total", "Time spent in garbage collection", () -> gc.getCollectionTime() / 1000d, "gc", gc.getName());
+		}
+	}
+	
+	/**
+	 * @return all the registered metrics in the Prometheus text format (version 0.0.4)
+	 */
+	public final String scrape() {
+		final StringBuilder sb = new StringBuilder(8 * 1024);
+		for (Family family : families.values()) {
+			sb.append("# HELP ").append(family.name).append(' ').append(family.help).append('\n');
+			sb.append("# TYPE ").append(family.name).append(' ').append(family.type).append('\n');
+			
+			for (Series series : family.series) {
+				double value;
+				try {
+					value = series.value.getAsDouble();
+				} catch (Exception e) {
+					// the subsystem is not ready (or gone), skip it this time
+					continue;
+				}
+				
+				sb.append(series.name).append(series.labels).append(' ');
+				if (value == (long) value) {
+					sb.append((long) value);
+				} else {
+					sb.append(value);
+				}
+				sb.append('\n');
+			}
+		}
+		return sb.toString();
+	}
+	
+	private Family getFamily(final String name, final String help, final String type) {
+		return families.computeIfAbsent(name, k -> new Family(name, help, type));
+	}
+	
+	private static String formatLabels(final String... labels) {
+		if (labels.length == 0) {
+			return "";
+		}
+		
+		final StringBuilder sb = new StringBuilder("{");
+		for (int i = 0; i + 1 < labels.length; i += 2) {
+			if (i > 0) {
+				sb.append(',');
+			}
+			sb.append(labels[i]).append("=\"").append(labels[i + 1].replace("\\", "\\\\").replace("\"", "\\\"")).append('"');
+		}
+		return sb.append('}').toString();
+	}
+	
+	private static final class Family {
+		private final String name;
+		private final String help;
+		private final String type;
+		private final List<Series> series = new CopyOnWriteArrayList<>();
+		
+		private Family(final String name, final String help, final String type) {
+			this.name = name;
+			this.help = help;
+			this.type = type;
+		}
+	}
+	
+	private static final class Series {
+		private final String name;
+		private final String labels;
+		private final DoubleSupplier value;
+		
+		private Series(final String name, final String labels, final DoubleSupplier value) {
+			this.name = name;
+			this.labels = labels;
+			this.value = value;
+		}
+	}
+	
+	private static class SingletonHolder {
+		protected static final MetricsRegistry instance = new MetricsRegistry();
+	}
+}
@@ -0,0 +1,75 @@
+/* This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA
+ * 02111-1307, USA.
+ *
+ * http://www.gnu.org/copyleft/gpl.html
+ */
+
+package l2server.util.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cheap duration recorder: count, total and max since last scrape.<BR>
+ * Safe to be used from any number of threads.
+ */
+public final class MetricsTimer {
+	private final LongAdder count = new LongAdder();
+	
+	private final LongAdder totalNanos = new LongAdder();
+	
+	private final AtomicLong maxNanos = new AtomicLong();
+	
+	public final void record(final long nanos) {
+		count.increment();
+		totalNanos.add(nanos);
+		
+		long max;
+		while (nanos > (max = maxNanos.get())) {
+			if (maxNanos.compareAndSet(max, nanos)) {
+				break;
+			}
+		}
+	}
+	
+	public final void recordSince(final long startNanos) {
+		record(System.nanoTime() - startNanos);
+	}
+	
+	public final long getCount() {
+		return count.sum();
+	}
+	
+	public final long getTotalNanos() {
+		return totalNanos.sum();
+	}
+	
+	public final long getMaxNanos() {
+		return maxNanos.get();
+	}
+	
+	/**
+	 * @return the max duration recorded since the previous call
+	 */
+	public final long getAndResetMaxNanos() {
+		return maxNanos.getAndSet(0);
+	}
+	
+	public final double getAverageMillis() {
+		final long cnt = getCount();
+		return cnt == 0 ? 0 : (double) getTotalNanos() / cnt / TimeUnit.MILLISECONDS.toNanos(1);
+	}
+}
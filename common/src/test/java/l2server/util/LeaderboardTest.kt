@@ -0,0 +1,85 @@
+package l2server.util
+
+import org.junit.Assert.assertArrayEquals
+import org.junit.Assert.assertEquals
+import org.junit.Test
+import java.util.Random
+
+class LeaderboardTest {
+
+	@Test
+	fun testRankAndTop() {
+		val board = Leaderboard()
+		board.set(1, 100)
+		board.set(2, 300)
+		board.set(3, 200)
+		board.set(4, 200)
+
+		assertEquals(1, board.getRank(2))
+		// Equal scores, the lowest id first
+		assertEquals(2, board.getRank(3))
+		assertEquals(3, board.getRank(4))
+		assertEquals(4, board.getRank(1))
+		assertEquals(0, board.getRank(5))
+
+		assertArrayEquals(intArrayOf(2, 3, 4, 1), board.getTop(10))
+		assertArrayEquals(intArrayOf(2, 3), board.getTop(2))
+		assertEquals(0, board.getTop(0).size)
+	}
+
+	@Test
+	fun testUpdate() {
+		val board = Leaderboard()
+		board.set(1, 100)
+		board.set(2, 200)
+		board.set(1, 300)
+
+		assertEquals(2, board.size())
+		assertEquals(300, board.getScore(1))
+		assertEquals(1, board.getRank(1))
+		assertEquals(2, board.getRank(2))
+		assertArrayEquals(intArrayOf(1, 2), board.getTop(2))
+	}
+
+	@Test
+	fun testRemoveDeletedCharacter() {
+		val board = Leaderboard()
+		board.set(1, 100)
+		board.set(2, 200)
+		board.set(3, 300)
+
+		board.remove(2)
+		board.remove(42)
+
+		assertEquals(2, board.size())
+		assertEquals(0, board.getRank(2))
+		assertEquals(0, board.getScore(2))
+		assertEquals(2, board.getRank(1))
+		assertArrayEquals(intArrayOf(3, 1), board.getTop(10))
+	}
+
+	@Test
+	fun testRandomAgainstSort() {
+		val random = Random(7)
+		val board = Leaderboard()
+		val scores = HashMap<Int, Long>()
+		for (i in 0 until 5000) {
+			val id = random.nextInt(300)
+			if (random.nextInt(5) == 0) {
+				board.remove(id)
+				scores.remove(id)
+			} else {
+				val score = random.nextInt(50).toLong()
+				board.set(id, score)
+				scores[id] = score
+			}
+		}
+
+		val expected = scores.entries.sortedWith(compareBy({ -it.value }, { it.key })).map { it.key }
+		assertEquals(expected.size, board.size())
+		assertArrayEquals(expected.toIntArray(), board.getTop(expected.size))
+		for ((index, id) in expected.withIndex()) {
+			assertEquals(index + 1, board.getRank(id))
+		}
+	}
+}
@@ -66,7 +66,7 @@ public class GuillotineFortress extends L2AttackableAIScript {
 			}
 
 			if (Util.contains(npcIds, spawn.getNpcId())) {
-				notifySpawn(spawn.getNpc());
+				notifySpawn(spawn.materialize());
 			}
 		}
 	}
@@ -156,7 +156,7 @@ public class SeedOfAnnihilation extends Quest {
 			}
 			for (SeedRegion element : regionsData) {
 				if (Util.contains(element.elite_mob_ids, spawn.getNpcId())) {
-					MonsterInstance mob = (MonsterInstance) spawn.getNpc();
+					MonsterInstance mob = (MonsterInstance) spawn.materialize();
 					if (mob != null) {
 						spawnGroupOfMinion(mob, element.minion_lists[Rnd.get(element.minion_lists.length)]);
 					}
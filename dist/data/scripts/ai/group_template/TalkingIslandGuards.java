@@ -46,9 +46,9 @@ public class TalkingIslandGuards extends L2AttackableAIScript {
 		for (L2Spawn spawn : SpawnTable.getInstance().getSpawnTable()) {
 			if (spawn != null) {
 				if (spawn.getNpcId() == generalId) {
-					generals.add(spawn.getNpc());
+					generals.add(spawn.materialize());
 				} else if (spawn.getNpcId() == guardId) {
-					guards.add(spawn.getNpc());
+					guards.add(spawn.materialize());
 				}
 			}
 		}
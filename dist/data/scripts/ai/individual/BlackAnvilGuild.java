@@ -41,7 +41,7 @@ public class BlackAnvilGuild extends L2AttackableAIScript {
 			}
 
 			if (Util.contains(guildGolems, spawn.getNpcId())) {
-				notifySpawn(spawn.getNpc());
+				notifySpawn(spawn.materialize());
 			}
 		}
 	}
@@ -53,7 +53,7 @@ public class BloodyHorn extends L2AttackableAIScript {
 			}
 
 			if (spawn.getNpcId() == bloodyHorn) {
-				notifySpawn(spawn.getNpc());
+				notifySpawn(spawn.materialize());
 			}
 		}
 	}
@@ -65,7 +65,7 @@ public class Cocoons extends L2AttackableAIScript {
 			}
 
 			if (spawn.getNpcId() == cocoon || spawn.getNpcId() == largeCocoon) {
-				notifySpawn(spawn.getNpc());
+				notifySpawn(spawn.materialize());
 			}
 		}
 	}
@@ -48,7 +48,7 @@ public class DrChaos extends Quest {
 	public Npc findTemplate(int npcId) {
 		for (L2Spawn spawn : SpawnTable.getInstance().getSpawnTable()) {
 			if (spawn != null && spawn.getNpcId() == npcId) {
-				return spawn.getNpc();
+				return spawn.materialize();
 			}
 		}
 		return null;
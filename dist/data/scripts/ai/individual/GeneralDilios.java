@@ -65,9 +65,9 @@ public class GeneralDilios extends L2AttackableAIScript {
 		for (L2Spawn spawn : SpawnTable.getInstance().getSpawnTable()) {
 			if (spawn != null) {
 				if (spawn.getNpcId() == generalId) {
-					general = spawn.getNpc();
+					general = spawn.materialize();
 				} else if (spawn.getNpcId() == guardId) {
-					guards.add(spawn.getNpc());
+					guards.add(spawn.materialize());
 				}
 			}
 		}
@@ -76,7 +76,7 @@ public class Gordon extends L2AttackableAIScript {
 		Npc npc = null;
 		for (L2Spawn spawn : SpawnTable.getInstance().getSpawnTable()) {
 			if (spawn != null && spawn.getNpcId() == npcId) {
-				npc = spawn.getNpc();
+				npc = spawn.materialize();
 				break;
 			}
 		}
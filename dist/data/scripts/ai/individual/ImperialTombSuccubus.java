@@ -50,7 +50,7 @@ public class ImperialTombSuccubus extends L2AttackableAIScript {
 			}
 
 			if (Util.contains(succubusIds, spawn.getNpcId())) {
-				spawn.getNpc().setShowSummonAnimation(true);
+				spawn.materialize().setShowSummonAnimation(true);
 			}
 		}
 	}
@@ -49,7 +49,7 @@ public class NervaOrcMerchant extends L2AttackableAIScript {
 			}
 
 			if (spawn.getNpcId() == merchant) {
-				this.notifySpawn(spawn.getNpc());
+				this.notifySpawn(spawn.materialize());
 			}
 		}
 	}
@@ -36,9 +36,9 @@ public class SpiculaCaptain extends L2AttackableAIScript {
 			}
 
 			if (spawn.getNpcId() == captain) {
-				spawn.getNpc().setShowSummonAnimation(true);
+				spawn.materialize().setShowSummonAnimation(true);
 
-				for (MonsterInstance a : ((MonsterInstance) spawn.getNpc()).getMinionList().getSpawnedMinions()) {
+				for (MonsterInstance a : ((MonsterInstance) spawn.materialize()).getMinionList().getSpawnedMinions()) {
 					a.setShowSummonAnimation(true);
 				}
 
@@ -54,7 +54,7 @@ public class SpiculaCloneGenerator extends L2AttackableAIScript {
 			}
 
 			if (spawn.getNpcId() == yin || spawn.getNpcId() == yinFragment) {
-				notifySpawn(spawn.getNpc());
+				notifySpawn(spawn.materialize());
 			}
 		}
 	}
@@ -49,7 +49,7 @@ public class SuperMewCatZ extends L2AttackableAIScript {
 			}
 
 			if (spawn.getNpcId() == SUPER_MEW_CAT_Z) {
-				notifySpawn(spawn.getNpc());
+				notifySpawn(spawn.materialize());
 			}
 		}
 	}
@@ -57,7 +57,7 @@ public class Wisps extends L2AttackableAIScript {
 			}
 
 			if (spawn.getNpcId() == wisp || spawn.getNpcId() == largeWisp) {
-				notifySpawn(spawn.getNpc());
+				notifySpawn(spawn.materialize());
 			}
 		}
 	}
@@ -108,6 +108,7 @@ public class MasterHandler {
 		AdminCommandHandler.getInstance().registerAdminCommandHandler(new AdminPForge());
 		AdminCommandHandler.getInstance().registerAdminCommandHandler(new AdminPledge());
 		AdminCommandHandler.getInstance().registerAdminCommandHandler(new AdminPolymorph());
+		AdminCommandHandler.getInstance().registerAdminCommandHandler(new AdminProfiler());
 		AdminCommandHandler.getInstance().registerAdminCommandHandler(new AdminQuest());
 		AdminCommandHandler.getInstance().registerAdminCommandHandler(new AdminRepairChar());
 		AdminCommandHandler.getInstance().registerAdminCommandHandler(new AdminRes());
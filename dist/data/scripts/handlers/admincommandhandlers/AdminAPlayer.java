@@ -1,6 +1,7 @@
 package handlers.admincommandhandlers;
 
 import l2server.gameserver.handler.IAdminCommandHandler;
+import l2server.gameserver.instancemanager.ApSwarmBenchmark;
 import l2server.gameserver.instancemanager.ArtificialPlayersManager;
 import l2server.gameserver.model.actor.instance.ApInstance;
 import l2server.gameserver.model.actor.instance.Player;
@@ -17,14 +18,41 @@ import java.util.StringTokenizer;
  */
 public class AdminAPlayer implements IAdminCommandHandler {
 
-	private static final String[] ADMIN_COMMANDS = {"admin_spawn_aplayer", "admin_spawn_aparty", "admin_delete_all_aplayers"};
+	private static final String[] ADMIN_COMMANDS = {"admin_spawn_aplayer", "admin_spawn_aparty", "admin_delete_all_aplayers", "admin_ap_benchmark",
+			"admin_ap_benchmark_stop"};
 
 	@Override
 	public boolean useAdminCommand(String command, Player activeChar) {
 		StringTokenizer st = new StringTokenizer(command, " ");
 		String param = null;
 
-		if (command.startsWith("admin_spawn_aplayer")) {
+		if (command.equals("admin_ap_benchmark_stop")) {
+			if (ArtificialPlayersManager.getInstance().stopBenchmark()) {
+				activeChar.sendMessage("Stopping the AP benchmark, the report will be in the log folder.");
+			} else {
+				activeChar.sendMessage("No AP benchmark running.");
+			}
+		} else if (command.startsWith("admin_ap_benchmark")) {
+			try {
+				st.nextToken();
+				final int players = Integer.parseInt(st.nextToken());
+				final int duration = Integer.parseInt(st.nextToken());
+				final ApSwarmBenchmark.Scenario scenario =
+						st.hasMoreTokens() ? ApSwarmBenchmark.Scenario.valueOf(st.nextToken().toUpperCase()) : ApSwarmBenchmark.Scenario.COMBAT;
+				final long seed = st.hasMoreTokens() ? Long.parseLong(st.nextToken()) : 1;
+				final int radius = st.hasMoreTokens() ? Integer.parseInt(st.nextToken()) : 2000;
+
+				final ApSwarmBenchmark run =
+						new ApSwarmBenchmark(players, duration, seed, scenario, activeChar.getX(), activeChar.getY(), activeChar.getZ(), radius);
+				if (ArtificialPlayersManager.getInstance().startBenchmark(run)) {
+					activeChar.sendMessage("Starting the " + run + " around you.");
+				} else {
+					activeChar.sendMessage("Already running: " + ArtificialPlayersManager.getInstance().getBenchmark());
+				}
+			} catch (NoSuchElementException | IllegalArgumentException e) {
+				activeChar.sendMessage("use: //ap_benchmark <players> <seconds> [combat | movement | skills] [seed] [radius]");
+			}
+		} else if (command.startsWith("admin_spawn_aplayer")) {
 			try {
 				st.nextToken();
 				param = st.nextToken();
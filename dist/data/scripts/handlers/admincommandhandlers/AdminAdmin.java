@@ -16,11 +16,12 @@
 package handlers.admincommandhandlers;
 
 import l2server.Config;
-import l2server.DatabasePool;
 import l2server.gameserver.GmListTable;
+import l2server.gameserver.datatables.CharNameTable;
 import l2server.gameserver.datatables.NpcTable;
 import l2server.gameserver.datatables.NpcWalkersTable;
 import l2server.gameserver.handler.IAdminCommandHandler;
+import l2server.gameserver.instancemanager.LeaderboardManager;
 import l2server.gameserver.instancemanager.QuestManager;
 import l2server.gameserver.model.actor.instance.Player;
 import l2server.gameserver.model.base.Experience;
@@ -31,8 +32,6 @@ import l2server.gameserver.network.serverpackets.SystemMessage;
 import l2server.util.loader.LoadHolder;
 import l2server.util.loader.Loader;
 
-import java.sql.Connection;
-import java.sql.PreparedStatement;
 import java.util.StringTokenizer;
 
 /**
@@ -109,21 +108,12 @@ public class AdminAdmin implements IAdminCommandHandler {
 			String name = st.nextToken();
 			int Points = Integer.parseInt(st.nextToken());
 
-			Connection coni = null;
-			try {
-				coni = DatabasePool.getInstance().getConnection();
-
-				PreparedStatement statement = coni.prepareStatement("UPDATE characters SET rankedPoints=? WHERE char_name=?");
-				statement.setInt(1, Points);
-				statement.setString(2, name);
-
-				statement.execute();
-				statement.close();
+			final int charId = CharNameTable.getInstance().getIdByName(name);
+			if (charId > 0) {
+				LeaderboardManager.getInstance().setRankedPoints(charId, Points);
 				activeChar.sendMessage("You changed " + name + "'s points to " + Points);
-			} catch (Exception e) {
-				log.error("Failed updating Ranked Points", e);
-			} finally {
-				DatabasePool.close(coni);
+			} else {
+				activeChar.sendMessage("Character " + name + " not found.");
 			}
 		} else if (command.startsWith("admin_diet")) {
 			try {
@@ -16,9 +16,10 @@
 package handlers.admincommandhandlers;
 
 import l2server.Config;
-import l2server.DatabasePool;
+import l2server.gameserver.datatables.CharNameTable;
 import l2server.gameserver.datatables.SkillTable;
 import l2server.gameserver.handler.IAdminCommandHandler;
+import l2server.gameserver.instancemanager.LeaderboardManager;
 import l2server.gameserver.model.Skill;
 import l2server.gameserver.model.World;
 import l2server.gameserver.model.WorldObject;
@@ -31,8 +32,6 @@ import l2server.gameserver.network.serverpackets.*;
 import l2server.gameserver.stats.VisualEffect;
 import l2server.gameserver.util.Broadcast;
 
-import java.sql.Connection;
-import java.sql.PreparedStatement;
 import java.util.Collection;
 import java.util.StringTokenizer;
 
@@ -130,21 +129,12 @@ public class AdminEffects implements IAdminCommandHandler {
 			String name = st.nextToken();
 			int Points = Integer.parseInt(st.nextToken());
 
-			Connection coni = null;
-			try {
-				coni = DatabasePool.getInstance().getConnection();
-
-				PreparedStatement statement = coni.prepareStatement("UPDATE characters SET rankedPoints=? WHERE char_name=?");
-				statement.setInt(1, Points);
-				statement.setString(2, name);
-
-				statement.execute();
-				statement.close();
+			final int charId = CharNameTable.getInstance().getIdByName(name);
+			if (charId > 0) {
+				LeaderboardManager.getInstance().setRankedPoints(charId, Points);
 				activeChar.sendMessage("You changed " + name + "'s points to " + Points);
-			} catch (Exception e) {
-				log.error("Failed updating Ranked Points", e);
-			} finally {
-				DatabasePool.close(coni);
+			} else {
+				activeChar.sendMessage("Character " + name + " not found.");
 			}
 		} else if (command.equals("admin_para_all")) {
 			try {
@@ -0,0 +1,104 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package handlers.admincommandhandlers;
+
+import l2server.gameserver.TaskProfiler;
+import l2server.gameserver.handler.IAdminCommandHandler;
+import l2server.gameserver.model.actor.instance.Player;
+import l2server.gameserver.network.PacketProfiler;
+
+import java.util.StringTokenizer;
+
+/**
+ * Profiler reports.
+ * <p>
+ * //packet_stats [count] - packet types sorted by total run time
+ * //packet_stats reset - reset the packet timings
+ * //task_stats [pool] [count] - thread pool task classes sorted by total run time
+ * //task_stats slow - last tasks reported by the watchdog
+ * //task_stats reset - reset the task timings
+ */
+public class AdminProfiler implements IAdminCommandHandler {
+	private static final String[] ADMIN_COMMANDS = {"admin_packet_stats", "admin_task_stats"};
+
+	@Override
+	public boolean useAdminCommand(String command, Player activeChar) {
+		StringTokenizer st = new StringTokenizer(command);
+		st.nextToken();
+
+		if (command.startsWith("admin_packet_stats")) {
+			int limit = 15;
+			if (st.hasMoreTokens()) {
+				String param = st.nextToken();
+				if (param.equalsIgnoreCase("reset")) {
+					PacketProfiler.getInstance().reset();
+					activeChar.sendMessage("Packet timings have been reset.");
+					return true;
+				}
+
+				try {
+					limit = Integer.parseInt(param);
+				} catch (NumberFormatException e) {
+					activeChar.sendMessage("Usage: //packet_stats [count|reset]");
+					return false;
+				}
+			}
+
+			for (String line : PacketProfiler.getInstance().getStats(limit)) {
+				activeChar.sendMessage(line);
+			}
+		} else if (command.startsWith("admin_task_stats")) {
+			String pool = null;
+			int limit = 10;
+			while (st.hasMoreTokens()) {
+				String param = st.nextToken();
+				if (param.equalsIgnoreCase("reset")) {
+					TaskProfiler.getInstance().reset();
+					activeChar.sendMessage("Task timings have been reset.");
+					return true;
+				}
+
+				if (param.equalsIgnoreCase("slow")) {
+					for (String report : TaskProfiler.getInstance().getSlowTasks()) {
+						for (String line : report.split("\n")) {
+							activeChar.sendMessage(line);
+						}
+					}
+					return true;
+				}
+
+				try {
+					limit = Integer.parseInt(param);
+				} catch (NumberFormatException e) {
+					pool = param;
+				}
+			}
+
+			for (String line : TaskProfiler.getInstance().getPoolStats()) {
+				activeChar.sendMessage(line);
+			}
+			for (String line : TaskProfiler.getInstance().getTaskStats(pool, limit)) {
+				activeChar.sendMessage(line);
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public String[] getAdminCommandList() {
+		return ADMIN_COMMANDS;
+	}
+}
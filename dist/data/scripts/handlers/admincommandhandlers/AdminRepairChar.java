@@ -16,6 +16,7 @@
 package handlers.admincommandhandlers;
 
 import l2server.DatabasePool;
+import l2server.gameserver.cache.PlayerLoadCache;
 import l2server.gameserver.handler.IAdminCommandHandler;
 import l2server.gameserver.model.actor.instance.Player;
 
@@ -78,6 +79,8 @@ public class AdminRepairChar implements IAdminCommandHandler {
 			statement.setInt(1, objId);
 			statement.execute();
 			statement.close();
+			// The shortcuts of its last load must not be restored
+			PlayerLoadCache.getInstance().invalidate(objId);
 
 			//connection = DatabasePool.getInstance().getConnection();
 			statement = connection.prepareStatement("UPDATE items SET loc=\"INVENTORY\" WHERE owner_id=?");
@@ -463,7 +463,7 @@ public class AdminTenkai implements IAdminCommandHandler {
 			spawn.startRespawn();
 			spawn.doSpawn();
 
-			spawn.getNpc().setDisplayEffect(3);
+			spawn.materialize().setDisplayEffect(3);
 
 			if (!permanent) {
 				spawn.stopRespawn();
@@ -17,6 +17,7 @@ package handlers.chathandlers;
 
 import l2server.Config;
 import l2server.gameserver.Announcements;
+import l2server.gameserver.GmListTable;
 import l2server.gameserver.datatables.MapRegionTable;
 import l2server.gameserver.gui.ConsoleTab;
 import l2server.gameserver.gui.ConsoleTab.ConsoleFilter;
@@ -28,6 +29,7 @@ import l2server.gameserver.model.actor.instance.Player;
 import l2server.gameserver.network.serverpackets.CreatureSay;
 
 import java.util.Collection;
+import java.util.Set;
 
 /**
  * Shout chat handler.
@@ -66,30 +68,34 @@ public class ChatShout implements IChatHandler {
 			return;
 		}
 
+		String nearTown = MapRegionTable.getInstance().getClosestTownSimpleName(activeChar);
 		CreatureSay cs = new CreatureSay(activeChar, type, activeChar.getName(), text);
-		CreatureSay csReg = new CreatureSay(activeChar,
-				type,
-				activeChar.getName(),
-				"[" + MapRegionTable.getInstance().getClosestTownSimpleName(activeChar) + "]" + text);
+		CreatureSay csReg = new CreatureSay(activeChar, type, activeChar.getName(), "[" + nearTown + "]" + text);
 
 		Collection<Player> pls = World.getInstance().getAllPlayers().values();
 
 		if (Config.DEFAULT_GLOBAL_CHAT.equalsIgnoreCase("on") || Config.DEFAULT_GLOBAL_CHAT.equalsIgnoreCase("gm") && activeChar.isGM()) {
-			int region = MapRegionTable.getInstance().getMapRegion(activeChar.getX(), activeChar.getY());
-			for (Player player : pls) {
-				/*
-				if (!player.isGM())
-				{
-					if (activeChar.getServerInstanceId() != player.getServerInstanceId())
-						continue;
-				}*/
-
-				if (activeChar.isGM() || region == MapRegionTable.getInstance().getMapRegion(player.getX(), player.getY()) &&
-						!BlockList.isBlocked(player, activeChar) && activeChar.getEvent() == null &&
-						player.getInstanceId() == activeChar.getInstanceId()) {
+			if (activeChar.isGM()) {
+				for (Player player : pls) {
 					player.sendPacket(cs);
-				} else if (player.isGM()) {
-					player.sendPacket(csReg);
+				}
+			} else {
+				int region = MapRegionTable.getInstance().getMapRegion(activeChar.getX(), activeChar.getY());
+				Set<Player> regionPlayers = World.getInstance().getMapRegionPlayers(region);
+				for (Player player : regionPlayers) {
+					if (!BlockList.isBlocked(player, activeChar) && activeChar.getEvent() == null &&
+							player.getInstanceId() == activeChar.getInstanceId()) {
+						player.sendPacket(cs);
+					} else if (player.isGM()) {
+						player.sendPacket(csReg);
+					}
+				}
+
+				// The GMs out of the region read it with the town of the sender
+				for (Player gm : GmListTable.getInstance().getAllGms(true)) {
+					if (!regionPlayers.contains(gm)) {
+						gm.sendPacket(csReg);
+					}
 				}
 			}
 		} else if (Config.DEFAULT_GLOBAL_CHAT.equalsIgnoreCase("global")) {
@@ -106,7 +112,6 @@ public class ChatShout implements IChatHandler {
 			text = text.substring(0, index1) + text.substring(index2);
 		}
 
-		String nearTown = MapRegionTable.getInstance().getClosestTownSimpleName(activeChar);
 		if (!Config.DEFAULT_GLOBAL_CHAT.equalsIgnoreCase("global")) {
 			text = "[" + nearTown + "]" + text;
 		}
@@ -16,6 +16,7 @@
 package handlers.chathandlers;
 
 import l2server.Config;
+import l2server.gameserver.GmListTable;
 import l2server.gameserver.datatables.MapRegionTable;
 import l2server.gameserver.gui.ConsoleTab;
 import l2server.gameserver.gui.ConsoleTab.ConsoleFilter;
@@ -29,6 +30,7 @@ import l2server.gameserver.network.serverpackets.CreatureSay;
 import l2server.gameserver.network.serverpackets.SystemMessage;
 
 import java.util.Collection;
+import java.util.Set;
 
 /**
  * Trade chat handler.
@@ -61,24 +63,29 @@ public class ChatTrade implements IChatHandler {
 			}
 		}
 
+		String nearTown = MapRegionTable.getInstance().getClosestTownSimpleName(activeChar);
 		CreatureSay cs = new CreatureSay(activeChar, type, activeChar.getName(), text);
-		CreatureSay csReg = new CreatureSay(activeChar,
-				type,
-				activeChar.getName(),
-				"[" + MapRegionTable.getInstance().getClosestTownSimpleName(activeChar) + "]" + text);
+		CreatureSay csReg = new CreatureSay(activeChar, type, activeChar.getName(), "[" + nearTown + "]" + text);
 
 		Collection<Player> pls = World.getInstance().getAllPlayers().values();
 
 		if (Config.DEFAULT_TRADE_CHAT.equalsIgnoreCase("on") || Config.DEFAULT_TRADE_CHAT.equalsIgnoreCase("gm") && activeChar.isGM()) {
 			int region = MapRegionTable.getInstance().getMapRegion(activeChar.getX(), activeChar.getY());
-			for (Player player : pls) {
-				if (region == MapRegionTable.getInstance().getMapRegion(player.getX(), player.getY()) && !BlockList.isBlocked(player, activeChar) &&
-						player.getInstanceId() == activeChar.getInstanceId() && activeChar.getEvent() == null) {
+			Set<Player> regionPlayers = World.getInstance().getMapRegionPlayers(region);
+			for (Player player : regionPlayers) {
+				if (!BlockList.isBlocked(player, activeChar) && player.getInstanceId() == activeChar.getInstanceId() && activeChar.getEvent() == null) {
 					player.sendPacket(cs);
 				} else if (player.isGM()) {
 					player.sendPacket(csReg);
 				}
 			}
+
+			// The GMs out of the region read it with the town of the sender
+			for (Player gm : GmListTable.getInstance().getAllGms(true)) {
+				if (!regionPlayers.contains(gm)) {
+					gm.sendPacket(csReg);
+				}
+			}
 		} else if (Config.DEFAULT_TRADE_CHAT.equalsIgnoreCase("global")) {
 			for (Player player : pls) {
 				if (!BlockList.isBlocked(player, activeChar)) {
@@ -93,7 +100,6 @@ public class ChatTrade implements IChatHandler {
 			text = text.substring(0, index1) + text.substring(index2);
 		}
 
-		String nearTown = MapRegionTable.getInstance().getClosestTownSimpleName(activeChar);
 		if (!Config.DEFAULT_TRADE_CHAT.equalsIgnoreCase("global")) {
 			text = "[" + nearTown + "]" + text;
 		}
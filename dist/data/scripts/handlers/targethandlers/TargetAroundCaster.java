@@ -39,6 +39,8 @@ import java.util.ArrayList;
  * @author Unhardcodded by nBd.
  */
 public class TargetAroundCaster implements ISkillTargetTypeHandler {
+	private static final int MAX_TARGETS = 21;
+
 	@Override
 	public WorldObject[] getTargetList(Skill skill, Creature activeChar, boolean onlyFirst, Creature target) {
 		final ArrayList<Creature> result = new ArrayList<Creature>();
@@ -47,6 +49,8 @@ public class TargetAroundCaster implements ISkillTargetTypeHandler {
 		if (activeChar instanceof NpcInstance && ((NpcInstance) activeChar).getOwner() != null) {
 			actualCaster = ((NpcInstance) activeChar).getOwner();
 		}
+		final int limit = skill.getSkillType() == SkillType.AGGDAMAGE ? Integer.MAX_VALUE : MAX_TARGETS;
+		final ArrayList<Creature> candidates = new ArrayList<Creature>();
 		for (Creature obj : activeChar.getKnownList().getKnownCharactersInRadius(skill.getSkillRadius())) {
 			if (skill.getSkillSafeRadius() != 0) {
 				int safeRadius = skill.getSkillSafeRadius();
@@ -62,25 +66,43 @@ public class TargetAroundCaster implements ISkillTargetTypeHandler {
 				continue;
 			}
 
-			if (!GeoEngine.getInstance().canSeeTarget(activeChar, obj)) {
-				continue;
-			}
-
 			if (actualCaster instanceof Player && !((Player) actualCaster).checkPvpSkill(obj, skill)) {
 				continue;
 			}
 
-			if (result.size() > 20 && skill.getSkillType() != SkillType.AGGDAMAGE) {
-				break;
+			candidates.add(obj);
+			// Only as many candidates as targets still missing are checked against the geodata at once
+			if (candidates.size() >= limit - result.size()) {
+				addVisibleTargets(activeChar, candidates, result);
+				if (result.size() >= limit) {
+					break;
+				}
 			}
-
-			result.add(obj);
 		}
 
+		addVisibleTargets(activeChar, candidates, result);
+
 		return result.toArray(new Creature[result.size()]);
 	}
 
-	private final boolean isReachableTarget(final Creature activeChar, final Creature target, SkillTargetDirection td) {
+	/**
+	 * Adds the candidates the caster can see to the result, all the rays start from the caster so they are checked together.
+	 */
+	private static void addVisibleTargets(Creature activeChar, ArrayList<Creature> candidates, ArrayList<Creature> result) {
+		if (candidates.isEmpty()) {
+			return;
+		}
+
+		final boolean[] visible = GeoEngine.getInstance().canSeeTargets(activeChar, candidates);
+		for (int i = 0; i < visible.length; i++) {
+			if (visible[i]) {
+				result.add(candidates.get(i));
+			}
+		}
+		candidates.clear();
+	}
+
+		private final boolean isReachableTarget(final Creature activeChar, final Creature target, SkillTargetDirection td) {
 		if (activeChar instanceof NpcInstance) {
 			final NpcInstance aNpc = (NpcInstance) activeChar;
 
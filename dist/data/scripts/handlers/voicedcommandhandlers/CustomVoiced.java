@@ -16,12 +16,13 @@
 package handlers.voicedcommandhandlers;
 
 import l2server.Config;
-import l2server.DatabasePool;
 import l2server.gameserver.communitybbs.Manager.CustomCommunityBoard;
+import l2server.gameserver.datatables.CharNameTable;
 import l2server.gameserver.events.HiddenChests;
 import l2server.gameserver.handler.IVoicedCommandHandler;
 import l2server.gameserver.instancemanager.CustomOfflineBuffersManager;
 import l2server.gameserver.instancemanager.DiscussionManager;
+import l2server.gameserver.instancemanager.LeaderboardManager;
 import l2server.gameserver.model.actor.Creature;
 import l2server.gameserver.model.actor.instance.Player;
 import l2server.gameserver.network.serverpackets.CharInfo;
@@ -33,8 +34,6 @@ import l2server.gameserver.stats.Stats;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.sql.Connection;
-import java.sql.PreparedStatement;
 import java.text.DecimalFormat;
 import java.util.Calendar;
 import java.util.StringTokenizer;
@@ -84,21 +83,12 @@ public class CustomVoiced implements IVoicedCommandHandler {
 			String name = st.nextToken();
 			int Points = Integer.parseInt(st.nextToken());
 
-			Connection coni = null;
-			try {
-				coni = DatabasePool.getInstance().getConnection();
-
-				PreparedStatement statement = coni.prepareStatement("UPDATE characters SET rankedPoints=? WHERE char_name=?");
-				statement.setInt(1, Points);
-				statement.setString(2, name);
-
-				statement.execute();
-				statement.close();
+			final int charId = CharNameTable.getInstance().getIdByName(name);
+			if (charId > 0) {
+				LeaderboardManager.getInstance().setRankedPoints(charId, Points);
 				player.sendMessage("You changed " + name + "'s points to " + Points);
-			} catch (Exception e) {
-				log.error("Failed updating Ranked Points", e);
-			} finally {
-				DatabasePool.close(coni);
+			} else {
+				player.sendMessage("Character " + name + " not found.");
 			}
 			return true;
 		} else if (command.equalsIgnoreCase("event")) {
@@ -1,6 +1,7 @@
 package l2server.gameserver
 
 import io.ktor.application.call
+import io.ktor.http.ContentType
 import io.ktor.response.respondText
 import io.ktor.routing.get
 import io.ktor.routing.routing
@@ -12,6 +13,7 @@ import l2server.ServerMode
 import l2server.gameserver.idfactory.IdFactory
 import l2server.util.concurrent.ThreadPool
 import l2server.util.loader.Loader
+import l2server.util.metrics.MetricsRegistry
 import org.slf4j.LoggerFactory
 import java.io.File
 
@@ -43,12 +45,17 @@ fun main(args: Array<String>) {
 	// FIXME I'M DIRTY!
 	Server()
 
+	MetricsRegistry.getInstance().registerJvm()
+
 	// Run ktor application
 	val server = embeddedServer(Netty, port = 8087) {
 		routing {
 			get("/") {
 				call.respondText("Ktor UP!")
 			}
+			get("/metrics") {
+				call.respondText(MetricsRegistry.getInstance().scrape(), ContentType.parse("text/plain; version=0.0.4"))
+			}
 		}
 	}
 	server.start(wait = true)
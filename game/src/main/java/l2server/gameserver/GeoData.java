@@ -24,6 +24,8 @@ import l2server.util.Point3D;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.List;
+
 /**
  * @author -Nemesiss-
  */
@@ -78,6 +80,17 @@ public class GeoData {
 		return Math.abs(target.getZ() - cha.getZ()) < 1000;
 	}
 
+	/**
+	 * @return for each target, True if cha can see it (LOS)
+	 */
+	public boolean[] canSeeTargets(WorldObject cha, List<? extends WorldObject> targets) {
+		final boolean[] result = new boolean[targets.size()];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = canSeeTarget(cha, targets.get(i));
+		}
+		return result;
+	}
+
 	public boolean canSeeTarget(WorldObject cha, Point3D worldPosition) {
 		//If geo is off do simple check :]
 		//Don't allow casting on players on different dungeon lvls etc
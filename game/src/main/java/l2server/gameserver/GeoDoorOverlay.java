@@ -0,0 +1,315 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package l2server.gameserver;
+
+import l2server.gameserver.datatables.DoorTable;
+import l2server.gameserver.model.World;
+import l2server.gameserver.model.actor.instance.DoorInstance;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The closed doors of the world (not the instance ones) rasterized over the geodata.<BR>
+ * Each closed door is registered in the blocks of 128x128 it may cross, so a segment only tests the doors of the blocks
+ * along it, and in the geodata cells its footprint covers, whose NSWE is overridden to 0 for the pathfinding.
+ * A door is rasterized when it closes, dies or revives and lifted when it opens.
+ */
+public class GeoDoorOverlay {
+	private static final int BLOCK_SHIFT = 7;
+	/**
+	 * Segments are walked by steps of half a block, a door is registered in the blocks around its footprint as well
+	 */
+	private static final int STEP = 1 << BLOCK_SHIFT - 1;
+	private static final int MARGIN = STEP;
+	/**
+	 * The geodata layers are a bit lower than the zmin of the doors standing on them
+	 */
+	private static final int Z_TOLERANCE = 32;
+
+	private final Map<Integer, DoorInstance[]> blocks = new ConcurrentHashMap<>();
+	private final Map<Integer, DoorInstance[]> cells = new ConcurrentHashMap<>();
+	private final Map<DoorInstance, Footprint> footprints = new HashMap<>();
+
+	public static GeoDoorOverlay getInstance() {
+		return SingletonHolder.instance;
+	}
+
+	private GeoDoorOverlay() {
+	}
+
+	private static final class Footprint {
+		private final int[] blocks;
+		private final int[] cells;
+
+		private Footprint(int[] blocks, int[] cells) {
+			this.blocks = blocks;
+			this.cells = cells;
+		}
+	}
+
+	/**
+	 * Rasterizes or lifts the door according to its current state, to be called when it changes
+	 */
+	public synchronized void updateDoor(DoorInstance door) {
+		final boolean blocking = isBlocking(door) && DoorTable.getInstance().getDoor(door.getDoorId()) == door;
+		final Footprint footprint = footprints.get(door);
+		if (blocking == (footprint != null)) {
+			return;
+		}
+
+		if (blocking) {
+			final Footprint added = rasterize(door);
+			for (int block : added.blocks) {
+				add(blocks, block, door);
+			}
+			for (int cell : added.cells) {
+				add(cells, cell, door);
+			}
+			footprints.put(door, added);
+		} else {
+			for (int block : footprint.blocks) {
+				remove(blocks, block, door);
+			}
+			for (int cell : footprint.cells) {
+				remove(cells, cell, door);
+			}
+			footprints.remove(door);
+		}
+	}
+
+	/**
+	 * Lifts all the doors, the DoorTable being reloaded
+	 */
+	public synchronized void clear() {
+		blocks.clear();
+		cells.clear();
+		footprints.clear();
+	}
+
+	/**
+	 * @return true if a closed door of the world stands between the two points
+	 * @see DoorTable#checkIfDoorsBetween(int, int, int, int, int, int, int, boolean)
+	 */
+	public boolean checkIfDoorsBetween(int x, int y, int z, int tx, int ty, int tz, boolean doubleFaceCheck) {
+		if (blocks.isEmpty()) {
+			return false;
+		}
+
+		final int dx = tx - x;
+		final int dy = ty - y;
+		final int steps = Math.max(Math.abs(dx), Math.abs(dy)) / STEP + 1;
+		List<DoorInstance> checked = null;
+		int lastBlock = 0;
+		for (int i = 0; i <= steps; i++) {
+			final int block = getBlockKey(x + (int) ((long) dx * i / steps), y + (int) ((long) dy * i / steps));
+			if (i > 0 && block == lastBlock) {
+				continue;
+			}
+			lastBlock = block;
+
+			final DoorInstance[] doors = blocks.get(block);
+			if (doors == null) {
+				continue;
+			}
+
+			for (DoorInstance door : doors) {
+				if (checked == null) {
+					checked = new ArrayList<>(2);
+				} else if (checked.contains(door)) {
+					continue;
+				}
+				checked.add(door);
+
+				if (DoorTable.isDoorBetween(door, x, y, z, tx, ty, tz, doubleFaceCheck)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @param geoX geodata cell x
+	 * @param geoY geodata cell y
+	 * @param z    height of the geodata layer
+	 * @return true if the footprint of a closed door covers the cell at this height
+	 */
+	public boolean isCellBlocked(int geoX, int geoY, int z) {
+		if (cells.isEmpty()) {
+			return false;
+		}
+
+		final DoorInstance[] doors = cells.get(geoX << 16 | geoY & 0xffff);
+		if (doors == null) {
+			return false;
+		}
+
+		for (DoorInstance door : doors) {
+			if (z >= door.getZMin() - Z_TOLERANCE && z <= door.getZMax()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static boolean isBlocking(DoorInstance door) {
+		return !door.isDead() && !door.getOpen() && door.checkCollision() && door.getX(0) != 0 && door.getInstanceId() == 0;
+	}
+
+	private static int getBlockKey(int x, int y) {
+		return (x - World.MAP_MIN_X >> BLOCK_SHIFT) << 16 | y - World.MAP_MIN_Y >> BLOCK_SHIFT & 0xffff;
+	}
+
+	private static Footprint rasterize(DoorInstance door) {
+		int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE;
+		int maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE;
+		for (int i = 0; i < 4; i++) {
+			minX = Math.min(minX, door.getX(i));
+			minY = Math.min(minY, door.getY(i));
+			maxX = Math.max(maxX, door.getX(i));
+			maxY = Math.max(maxY, door.getY(i));
+		}
+
+		final List<Integer> blockKeys = new ArrayList<>();
+		for (int bx = minX - MARGIN - World.MAP_MIN_X >> BLOCK_SHIFT; bx <= maxX + MARGIN - World.MAP_MIN_X >> BLOCK_SHIFT; bx++) {
+			for (int by = minY - MARGIN - World.MAP_MIN_Y >> BLOCK_SHIFT; by <= maxY + MARGIN - World.MAP_MIN_Y >> BLOCK_SHIFT; by++) {
+				blockKeys.add(bx << 16 | by & 0xffff);
+			}
+		}
+
+		final List<Integer> cellKeys = new ArrayList<>();
+		for (int gx = minX - World.MAP_MIN_X >> 4; gx <= maxX - World.MAP_MIN_X >> 4; gx++) {
+			for (int gy = minY - World.MAP_MIN_Y >> 4; gy <= maxY - World.MAP_MIN_Y >> 4; gy++) {
+				final int cellX = (gx << 4) + World.MAP_MIN_X;
+				final int cellY = (gy << 4) + World.MAP_MIN_Y;
+				if (coversCell(door, cellX, cellY)) {
+					cellKeys.add(gx << 16 | gy & 0xffff);
+				}
+			}
+		}
+
+		return new Footprint(toArray(blockKeys), toArray(cellKeys));
+	}
+
+	/**
+	 * @return true if the footprint of the door overlaps the 16x16 cell starting at x, y
+	 */
+	private static boolean coversCell(DoorInstance door, int x, int y) {
+		// The center of the cell inside the footprint
+		final double cx = x + 8, cy = y + 8;
+		boolean inside = false;
+		for (int i = 0, j = 3; i < 4; j = i++) {
+			if (door.getY(i) > cy != door.getY(j) > cy &&
+					cx < (double) (door.getX(j) - door.getX(i)) * (cy - door.getY(i)) / (door.getY(j) - door.getY(i)) + door.getX(i)) {
+				inside = !inside;
+			}
+		}
+		if (inside) {
+			return true;
+		}
+
+		// Or an edge of the footprint crossing the cell, thin doors have no cell center inside them
+		for (int i = 0; i < 4; i++) {
+			final int j = i + 1 < 4 ? i + 1 : 0;
+			if (segmentCrossesCell(door.getX(i), door.getY(i), door.getX(j), door.getY(j), x, y)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static boolean segmentCrossesCell(int x1, int y1, int x2, int y2, int x, int y) {
+		// Liang-Barsky clipping against the cell
+		double t0 = 0, t1 = 1;
+		final double dx = x2 - x1, dy = y2 - y1;
+		final double[] p = {-dx, dx, -dy, dy};
+		final double[] q = {x1 - x, x + 16 - x1, y1 - y, y + 16 - y1};
+		for (int i = 0; i < 4; i++) {
+			if (p[i] == 0) {
+				if (q[i] < 0) {
+					return false;
+				}
+				continue;
+			}
+
+			final double t = q[i] / p[i];
+			if (p[i] < 0) {
+				t0 = Math.max(t0, t);
+			} else {
+				t1 = Math.min(t1, t);
+			}
+			if (t0 > t1) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static int[] toArray(List<Integer> keys) {
+		final int[] result = new int[keys.size()];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = keys.get(i);
+		}
+		return result;
+	}
+
+	private static void add(Map<Integer, DoorInstance[]> map, int key, DoorInstance door) {
+		final DoorInstance[] doors = map.get(key);
+		if (doors == null) {
+			map.put(key, new DoorInstance[]{door});
+			return;
+		}
+
+		final DoorInstance[] tmp = new DoorInstance[doors.length + 1];
+		System.arraycopy(doors, 0, tmp, 0, doors.length);
+		tmp[doors.length] = door;
+		map.put(key, tmp);
+	}
+
+	private static void remove(Map<Integer, DoorInstance[]> map, int key, DoorInstance door) {
+		final DoorInstance[] doors = map.get(key);
+		if (doors == null) {
+			return;
+		}
+
+		if (doors.length == 1) {
+			if (doors[0] == door) {
+				map.remove(key);
+			}
+			return;
+		}
+
+		final DoorInstance[] tmp = new DoorInstance[doors.length - 1];
+		int count = 0;
+		for (DoorInstance d : doors) {
+			if (d != door && count < tmp.length) {
+				tmp[count++] = d;
+			}
+		}
+		if (count == tmp.length) {
+			map.put(key, tmp);
+		}
+	}
+
+	@SuppressWarnings("synthetic-access")
+	private static class SingletonHolder {
+		protected static final GeoDoorOverlay instance = new GeoDoorOverlay();
+	}
+}
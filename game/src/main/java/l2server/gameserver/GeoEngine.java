@@ -27,6 +27,7 @@ import l2server.gameserver.model.actor.instance.DefenderInstance;
 import l2server.gameserver.model.actor.instance.DoorInstance;
 import l2server.gameserver.model.actor.instance.Player;
 import l2server.util.Point3D;
+import l2server.util.metrics.MetricsRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -36,7 +37,9 @@ import java.nio.ByteOrder;
 import java.nio.IntBuffer;
 import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
+import java.util.List;
 import java.util.StringTokenizer;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * @author -Nemesiss-
@@ -53,12 +56,72 @@ public class GeoEngine extends GeoData {
 	private static TShortObjectHashMap<IntBuffer> geodataIndex = new TShortObjectHashMap<>();
 	private static BufferedOutputStream geoBugsOut;
 	
+	/**
+	 * Results of the recent LOS ray marches by geodata cells and heights of both ends, so exact. Direct mapped: a new result
+	 * replaces the one in its slot. The doors are checked apart and aren't part of the results.
+	 */
+	private static final LosResult[] losCache = createLosCache();
+	/**
+	 * Changed when the geodata changes, the results of older generations are ignored
+	 */
+	private static volatile int losGeneration = 0;
+	private static final LongAdder losHits = new LongAdder();
+	private static final LongAdder losMisses = new LongAdder();
+	
 	public static GeoEngine getInstance() {
 		return SingletonHolder.instance;
 	}
 	
 	private GeoEngine() {
 		nInitGeodata();
+		
+		MetricsRegistry.getInstance().counter("l2_geo_los_cache_total", "LOS checks answered by the cache", losHits::sum, "result", "hit");
+		MetricsRegistry.getInstance().counter("l2_geo_los_cache_total", "LOS checks answered by the cache", losMisses::sum, "result", "miss");
+	}
+	
+	private static final class LosResult {
+		private final long cells;
+		private final long heights;
+		private final int generation;
+		private final boolean visible;
+		
+		private LosResult(long cells, long heights, int generation, boolean visible) {
+			this.cells = cells;
+			this.heights = heights;
+			this.generation = generation;
+			this.visible = visible;
+		}
+	}
+	
+	/**
+	 * The geodata block read last by a LOS check, reused while the ray stays in it and by the next rays of a batch
+	 */
+	private static final class LosContext {
+		private boolean loaded = false;
+		private short region;
+		private ByteBuffer geo;
+		private IntBuffer index;
+		private int block = -1;
+		private int blockIndex;
+	}
+	
+	private static LosResult[] createLosCache() {
+		if (Config.GEODATA_LOS_CACHE_SIZE <= 0) {
+			return null;
+		}
+		
+		int size = Integer.highestOneBit(Config.GEODATA_LOS_CACHE_SIZE);
+		if (size < Config.GEODATA_LOS_CACHE_SIZE) {
+			size <<= 1;
+		}
+		return new LosResult[size];
+	}
+	
+	/**
+	 * Drops the cached LOS results, to be called when the geodata changes
+	 */
+	public static void clearLosCache() {
+		losGeneration++;
 	}
 	
 	//Public Methods
@@ -119,6 +182,25 @@ public class GeoEngine extends GeoData {
 	 */
 	@Override
 	public boolean canSeeTarget(WorldObject cha, WorldObject target) {
+		return canSeeTarget(cha, target, new LosContext());
+	}
+	
+	/**
+	 * Checks the LOS from cha to each target as canSeeTarget does, reading the geodata blocks shared by the rays only once
+	 *
+	 * @return for each target, true if cha can see it
+	 */
+	@Override
+	public boolean[] canSeeTargets(WorldObject cha, List<? extends WorldObject> targets) {
+		final LosContext context = new LosContext();
+		final boolean[] result = new boolean[targets.size()];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = canSeeTarget(cha, targets.get(i), context);
+		}
+		return result;
+	}
+	
+	private boolean canSeeTarget(WorldObject cha, WorldObject target, LosContext context) {
 		if (cha == null || target == null) {
 			return false;
 		}
@@ -152,7 +234,7 @@ public class GeoEngine extends GeoData {
 		/*if (cha.getZ() >= target.getZ())
             return canSeeTarget(cha.getX(), cha.getY(), z, target.getX(), target.getY(), z2);
 		else*/
-		return canSeeTarget(target.getX(), target.getY(), z2, cha.getX(), cha.getY(), z);
+		return canSeeCached(target.getX(), target.getY(), z2, cha.getX(), cha.getY(), z, context);
 	}
 	
 	/**
@@ -248,7 +330,35 @@ public class GeoEngine extends GeoData {
 	
 	@Override
 	public boolean canSeeTarget(int x, int y, int z, int tx, int ty, int tz) {
-		return canSee(x - World.MAP_MIN_X >> 4, y - World.MAP_MIN_Y >> 4, z, tx - World.MAP_MIN_X >> 4, ty - World.MAP_MIN_Y >> 4, tz);
+		return canSeeCached(x, y, z, tx, ty, tz, new LosContext());
+	}
+	
+	private static boolean canSeeCached(int x, int y, int z, int tx, int ty, int tz, LosContext context) {
+		final int gx = x - World.MAP_MIN_X >> 4;
+		final int gy = y - World.MAP_MIN_Y >> 4;
+		final int gtx = tx - World.MAP_MIN_X >> 4;
+		final int gty = ty - World.MAP_MIN_Y >> 4;
+		if (losCache == null) {
+			return canSee(gx, gy, z, gtx, gty, tz, context);
+		}
+		
+		final long cells = (long) (gx & 0xffff) << 48 | (long) (gy & 0xffff) << 32 | (long) (gtx & 0xffff) << 16 | gty & 0xffff;
+		final long heights = (long) z << 32 | tz & 0xffffffffL;
+		long hash = cells * 0x9E3779B97F4A7C15L ^ heights * 0xC2B2AE3D27D4EB4FL;
+		hash ^= hash >>> 32;
+		final int slot = (int) hash & losCache.length - 1;
+		
+		final int generation = losGeneration;
+		final LosResult cached = losCache[slot];
+		if (cached != null && cached.cells == cells && cached.heights == heights && cached.generation == generation) {
+			losHits.increment();
+			return cached.visible;
+		}
+		
+		losMisses.increment();
+		final boolean visible = canSee(gx, gy, z, gtx, gty, tz, context);
+		losCache[slot] = new LosResult(cells, heights, generation, visible);
+		return visible;
 	}
 	
 	@Override
@@ -259,7 +369,7 @@ public class GeoEngine extends GeoData {
 		return geodata.contains(region);
 	}
 	
-	private static boolean canSee(int x, int y, double z, int tx, int ty, int tz) {
+	private static boolean canSee(int x, int y, double z, int tx, int ty, int tz, LosContext context) {
 		int dx = tx - x;
 		int dy = ty - y;
 		final double dz = tz - z;
@@ -315,13 +425,13 @@ public class GeoEngine extends GeoData {
 					d += delta_B;
 					next_x += inc_x;
 					z += inc_z_directionx;
-					if (!nLOS(x, y, (int) z, inc_x, 0, inc_z_directionx, tz, false)) {
+					if (!nLOS(x, y, (int) z, inc_x, 0, inc_z_directionx, tz, context, false)) {
 						return false;
 					}
 					next_y += inc_y;
 					z += inc_z_directiony;
 					//Logozo.warning("1: next_x:"+next_x+" next_y"+next_y);
-					if (!nLOS(next_x, y, (int) z, 0, inc_y, inc_z_directiony, tz, false)) {
+					if (!nLOS(next_x, y, (int) z, 0, inc_y, inc_z_directiony, tz, context, false)) {
 						return false;
 					}
 				} else {
@@ -329,7 +439,7 @@ public class GeoEngine extends GeoData {
 					next_x += inc_x;
 					//Logozo.warning("2: next_x:"+next_x+" next_y"+next_y);
 					z += inc_z_directionx;
-					if (!nLOS(x, y, (int) z, inc_x, 0, inc_z_directionx, tz, false)) {
+					if (!nLOS(x, y, (int) z, inc_x, 0, inc_z_directionx, tz, context, false)) {
 						return false;
 					}
 				}
@@ -345,13 +455,13 @@ public class GeoEngine extends GeoData {
 					d += delta_B;
 					next_y += inc_y;
 					z += inc_z_directiony;
-					if (!nLOS(x, y, (int) z, 0, inc_y, inc_z_directiony, tz, false)) {
+					if (!nLOS(x, y, (int) z, 0, inc_y, inc_z_directiony, tz, context, false)) {
 						return false;
 					}
 					next_x += inc_x;
 					z += inc_z_directionx;
 					//Logozo.warning("3: next_x:"+next_x+" next_y"+next_y);
-					if (!nLOS(x, next_y, (int) z, inc_x, 0, inc_z_directionx, tz, false)) {
+					if (!nLOS(x, next_y, (int) z, inc_x, 0, inc_z_directionx, tz, context, false)) {
 						return false;
 					}
 				} else {
@@ -359,7 +469,7 @@ public class GeoEngine extends GeoData {
 					next_y += inc_y;
 					//Logozo.warning("4: next_x:"+next_x+" next_y"+next_y);
 					z += inc_z_directiony;
-					if (!nLOS(x, y, (int) z, 0, inc_y, inc_z_directiony, tz, false)) {
+					if (!nLOS(x, y, (int) z, 0, inc_y, inc_z_directiony, tz, context, false)) {
 						return false;
 					}
 				}
@@ -378,6 +488,7 @@ public class GeoEngine extends GeoData {
 	 * Coordinates here are geodata x,y but z coordinate is world coordinate
 	 */
 	private static boolean canSeeDebug(Player gm, int x, int y, double z, int tx, int ty, int tz) {
+		final LosContext context = new LosContext();
 		int dx = tx - x;
 		int dy = ty - y;
 		final double dz = tz - z;
@@ -436,13 +547,13 @@ public class GeoEngine extends GeoData {
 					d += delta_B;
 					next_x += inc_x;
 					z += inc_z_directionx;
-					if (!nLOS(x, y, (int) z, inc_x, 0, inc_z_directionx, tz, true)) {
+					if (!nLOS(x, y, (int) z, inc_x, 0, inc_z_directionx, tz, context, true)) {
 						return false;
 					}
 					next_y += inc_y;
 					z += inc_z_directiony;
 					//Logozo.warning("1: next_x:"+next_x+" next_y"+next_y);
-					if (!nLOS(next_x, y, (int) z, 0, inc_y, inc_z_directiony, tz, true)) {
+					if (!nLOS(next_x, y, (int) z, 0, inc_y, inc_z_directiony, tz, context, true)) {
 						return false;
 					}
 				} else {
@@ -450,7 +561,7 @@ public class GeoEngine extends GeoData {
 					next_x += inc_x;
 					//Logozo.warning("2: next_x:"+next_x+" next_y"+next_y);
 					z += inc_z_directionx;
-					if (!nLOS(x, y, (int) z, inc_x, 0, inc_z_directionx, tz, true)) {
+					if (!nLOS(x, y, (int) z, inc_x, 0, inc_z_directionx, tz, context, true)) {
 						return false;
 					}
 				}
@@ -466,13 +577,13 @@ public class GeoEngine extends GeoData {
 					d += delta_B;
 					next_y += inc_y;
 					z += inc_z_directiony;
-					if (!nLOS(x, y, (int) z, 0, inc_y, inc_z_directiony, tz, true)) {
+					if (!nLOS(x, y, (int) z, 0, inc_y, inc_z_directiony, tz, context, true)) {
 						return false;
 					}
 					next_x += inc_x;
 					z += inc_z_directionx;
 					//Logozo.warning("3: next_x:"+next_x+" next_y"+next_y);
-					if (!nLOS(x, next_y, (int) z, inc_x, 0, inc_z_directionx, tz, true)) {
+					if (!nLOS(x, next_y, (int) z, inc_x, 0, inc_z_directionx, tz, context, true)) {
 						return false;
 					}
 				} else {
@@ -480,7 +591,7 @@ public class GeoEngine extends GeoData {
 					next_y += inc_y;
 					//Logozo.warning("4: next_x:"+next_x+" next_y"+next_y);
 					z += inc_z_directiony;
-					if (!nLOS(x, y, (int) z, 0, inc_y, inc_z_directiony, tz, true)) {
+					if (!nLOS(x, y, (int) z, 0, inc_y, inc_z_directiony, tz, context, true)) {
 						return false;
 					}
 				}
@@ -675,6 +786,7 @@ public class GeoEngine extends GeoData {
 		short regionoffset = (short) ((rx << 5) + ry);
 		geodataIndex.remove(regionoffset);
 		geodata.remove(regionoffset);
+		clearLosCache();
 	}
 	
 	public static boolean loadGeodataFile(byte rx, byte ry) {
@@ -730,6 +842,7 @@ public class GeoEngine extends GeoData {
 				geodataIndex.put(regionoffset, indexs);
 			}
 			geodata.put(regionoffset, geo);
+			clearLosCache();
 			
 			file.close();
 			
@@ -1135,31 +1248,45 @@ public class GeoEngine extends GeoData {
 	 * @param inc_y
 	 * @return True if Char can see target
 	 */
-	private static boolean nLOS(int x, int y, int z, int inc_x, int inc_y, double inc_z, int tz, boolean debug) {
+	private static boolean nLOS(int x, int y, int z, int inc_x, int inc_y, double inc_z, int tz, LosContext context, boolean debug) {
 		short region = getRegionOffset(x, y);
 		int blockX = getBlock(x);
 		int blockY = getBlock(y);
 		int cellX, cellY;
 		short NSWE = 0;
 		
-		int index;
-		final IntBuffer idx = geodataIndex.get(region);
-		//Geodata without index - it is just empty so index can be calculated on the fly
-		if (idx == null) {
-			index = ((blockX << 8) + blockY) * 3;
-		}
-		//Get Index for current block of current region geodata
-		else {
-			index = idx.get((blockX << 8) + blockY);
+		if (!context.loaded || context.region != region) {
+			context.loaded = true;
+			context.region = region;
+			context.geo = geodata.get(region);
+			context.index = geodataIndex.get(region);
+			context.block = -1;
 		}
+		
 		//Buffer that Contains current Region GeoData
-		ByteBuffer geo = geodata.get(region);
+		ByteBuffer geo = context.geo;
 		if (geo == null) {
 			if (Config.DEBUG) {
 				log.warn("Geo Region - Region Offset: " + region + " dosnt exist!!");
 			}
 			return true;
 		}
+		
+		int index;
+		final int block = (blockX << 8) + blockY;
+		if (context.block == block) {
+			index = context.blockIndex;
+		}
+		//Geodata without index - it is just empty so index can be calculated on the fly
+		else if (context.index == null) {
+			index = block * 3;
+		}
+		//Get Index for current block of current region geodata
+		else {
+			index = context.index.get(block);
+		}
+		context.block = block;
+		context.blockIndex = index;
 		//Read current block type: 0-flat,1-complex,2-multilevel
 		byte type = geo.get(index);
 		index++;
@@ -1305,7 +1432,7 @@ public class GeoEngine extends GeoData {
 		index++;
 		if (type == 0)//flat
 		{
-			return 15;
+			NSWE = 15;
 		} else if (type == 1)//complex
 		{
 			cellX = getCell(x);
@@ -1346,6 +1473,9 @@ public class GeoEngine extends GeoData {
 				index += 2;
 			}
 		}
+		if (NSWE != 0 && GeoDoorOverlay.getInstance().isCellBlocked(x, y, z)) {
+			return 0;
+		}
 		return NSWE;
 	}
 	
@@ -1354,6 +1484,15 @@ public class GeoEngine extends GeoData {
 	 */
 	@Override
 	public short getHeightAndNSWE(int x, int y, int z) {
+		final short heightAndNSWE = nGetHeightAndNSWE(x, y, z);
+		// The cells covered by a closed door can't be crossed
+		if ((heightAndNSWE & 0x0F) != 0 && GeoDoorOverlay.getInstance().isCellBlocked(x, y, (short) (heightAndNSWE & 0x0fff0) >> 1)) {
+			return (short) (heightAndNSWE & 0x0fff0);
+		}
+		return heightAndNSWE;
+	}
+	
+	private static short nGetHeightAndNSWE(int x, int y, int z) {
 		short region = getRegionOffset(x, y);
 		int blockX = getBlock(x);
 		int blockY = getBlock(y);
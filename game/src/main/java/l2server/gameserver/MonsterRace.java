@@ -23,15 +23,12 @@ import l2server.util.Rnd;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.lang.reflect.Constructor;
-
 public class MonsterRace {
 	private static Logger log = LoggerFactory.getLogger(MonsterRace.class.getName());
 
 
 
 	private Npc[] monsters;
-	private Constructor<?> constructor;
 	private int[][] speeds;
 	private int[] first, second;
 
@@ -60,9 +57,8 @@ public class MonsterRace {
 
 			try {
 				NpcTemplate template = NpcTable.getInstance().getTemplate(id + random);
-				constructor = Class.forName("l2server.gameserver.model.actor.instance." + template.Type + "Instance").getConstructors()[0];
 				int objectId = IdFactory.getInstance().getNextId();
-				monsters[i] = (Npc) constructor.newInstance(objectId, template);
+				monsters[i] = template.getNpcFactory().create(objectId, template);
 			} catch (Exception e) {
 				log.warn("", e);
 			}
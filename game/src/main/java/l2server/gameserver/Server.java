@@ -26,6 +26,7 @@ import l2server.gameserver.util.DeadLockDetector;
 import l2server.network.Core;
 import l2server.network.CoreConfig;
 import l2server.util.IPv4Filter;
+import l2server.util.metrics.MetricsRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -111,9 +112,11 @@ public class Server {
 		sc.MAX_SEND_PER_PASS = Config.MMO_MAX_SEND_PER_PASS;
 		sc.SLEEP_TIME = Config.MMO_SELECTOR_SLEEP_TIME;
 		sc.HELPER_BUFFER_COUNT = Config.MMO_HELPER_BUFFER_COUNT;
+		sc.SUPERSEDE_PACKETS = Config.MMO_SUPERSEDE_PACKETS;
 		
 		gamePacketHandler = new L2GamePacketHandler();
 		selectorThread = new Core<>(sc, gamePacketHandler, gamePacketHandler, gamePacketHandler, new IPv4Filter());
+		MetricsRegistry.getInstance().registerSelector("game", selectorThread);
 		
 		InetAddress bindAddress = null;
 		if (!Config.GAMESERVER_HOSTNAME.equals("*")) {
@@ -36,7 +36,18 @@ import l2server.gameserver.util.Broadcast;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 /**
  * This class provides the functions for shutting down and restarting the server
@@ -59,6 +70,12 @@ public class Shutdown extends Thread {
 
 	private boolean shuttingDown = false;
 
+	/**
+	 * Players whose store did not complete yet or was skipped after SHUTDOWN_SAVE_DEADLINE, and save tasks which failed
+	 */
+	private final Set<Player> unsavedPlayers = ConcurrentHashMap.newKeySet();
+	private final List<String> failedTasks = new ArrayList<>();
+
 	public void startShutdown(Player activeChar, int seconds, boolean restart) {
 		String text = null;
 		if (activeChar != null) {
@@ -169,21 +186,6 @@ public class Shutdown extends Thread {
 	@Override
 	public void run() {
 		shuttingDown = true;
-		try {
-			if ((Config.OFFLINE_TRADE_ENABLE || Config.OFFLINE_CRAFT_ENABLE) && Config.RESTORE_OFFLINERS) {
-				OfflineTradersTable.INSTANCE.storeOffliners();
-			}
-		} catch (Throwable t) {
-			log.warn("Error saving offline shops.", t);
-		}
-
-		try {
-			if (Config.OFFLINE_BUFFERS_ENABLE && Config.OFFLINE_BUFFERS_RESTORE) {
-				CustomOfflineBuffersManager.getInstance().storeOfflineBuffers();
-			}
-		} catch (Throwable t) {
-			log.warn("Error saving offline buffers.", t);
-		}
 
 		try {
 			disconnectAllCharacters();
@@ -214,6 +216,10 @@ public class Shutdown extends Thread {
 		// last byebye, save all data and quit this server
 		saveData();
 
+		if (!unsavedPlayers.isEmpty() || !failedTasks.isEmpty()) {
+			emergencyDump();
+		}
+
 		// saveData sends messages to exit players, so shutdown selector after it
 		try {
 			Server.gameServer.getSelectorThread().shutdown();
@@ -257,59 +263,90 @@ public class Shutdown extends Thread {
 		/*if (Config.ACTIVATE_POSITION_RECORDER)
 			Universe.getInstance().implode(true);*/
 
-		SpawnDataManager.getInstance().saveDbSpawnData();
-		log.info("SpawnDataManager: All spawn dynamic data saved");
-		GrandBossManager.getInstance().cleanUp();
-		log.info("GrandBossManager: All Grand Boss info saved");
-		TradeController.INSTANCE.dataCountStore();
-		log.info("TradeController: All count Item Saved");
-		ItemAuctionManager.getInstance().shutdown();
-		log.info("Item Auctions shut down");
-		Olympiad.getInstance().saveOlympiadStatus();
-		log.info("Olympiad System: Data saved");
-		HeroesManager.getInstance().shutdown();
-		log.info("Hero System: Data saved");
-		ClanTable.getInstance().storeClanScore();
-		log.info("Clan System: Data saved");
-		ClanWarManager.getInstance().storeWarData();
-		log.info("Clan War System: Data saved");
+		// The managers save independent data, only the few dependencies below must be kept in order
+		final ShutdownSaveGraph graph = new ShutdownSaveGraph("data", "tasks");
+		graph.add("spawn data", () -> {
+			SpawnDataManager.getInstance().saveDbSpawnData();
+			log.info("SpawnDataManager: All spawn dynamic data saved");
+		});
+		graph.add("grand bosses", () -> {
+			GrandBossManager.getInstance().cleanUp();
+			log.info("GrandBossManager: All Grand Boss info saved");
+		});
+		graph.add("trade controller", () -> {
+			TradeController.INSTANCE.dataCountStore();
+			log.info("TradeController: All count Item Saved");
+		});
+		graph.add("item auctions", () -> {
+			ItemAuctionManager.getInstance().shutdown();
+			log.info("Item Auctions shut down");
+		});
+		graph.add("olympiad", () -> {
+			Olympiad.getInstance().saveOlympiadStatus();
+			log.info("Olympiad System: Data saved");
+		});
+		graph.add("heroes", () -> {
+			HeroesManager.getInstance().shutdown();
+			log.info("Hero System: Data saved");
+		}, "olympiad");
+		graph.add("clans", () -> {
+			ClanTable.getInstance().storeClanScore();
+			log.info("Clan System: Data saved");
+		});
+		graph.add("clan wars", () -> {
+			ClanWarManager.getInstance().storeWarData();
+			log.info("Clan War System: Data saved");
+		}, "clans");
 
 		// Save Cursed Weapons data before closing.
-		CursedWeaponsManager.getInstance().saveData();
-		log.info("Cursed Weapon data saved");
+		graph.add("cursed weapons", () -> {
+			CursedWeaponsManager.getInstance().saveData();
+			log.info("Cursed Weapon data saved");
+		});
 
 		// Save all manor data
-		CastleManorManager.getInstance().save();
-		log.info("Manor data saved");
+		graph.add("manor", () -> {
+			CastleManorManager.getInstance().save();
+			log.info("Manor data saved");
+		});
 
 		// Save all global (non-player specific) Quest data that needs to persist after reboot
-		QuestManager.getInstance().save();
-		log.info("Global Quest data saved");
+		graph.add("quests", () -> {
+			QuestManager.getInstance().save();
+			log.info("Global Quest data saved");
+		});
 
-		// Save all global variables data
-		GlobalVariablesManager.getInstance().saveVars();
-		log.info("Global Variables saved");
+		// Save all global variables data, the quests may set some while saving
+		graph.add("global variables", () -> {
+			GlobalVariablesManager.getInstance().saveVars();
+			log.info("Global Variables saved");
+		}, "quests");
 
 		//Save items on ground before closing
 		if (Config.SAVE_DROPPED_ITEM) {
-			ItemsOnGroundManager.getInstance().saveInDb();
-			ItemsOnGroundManager.getInstance().cleanUp();
-			log.info("ItemsOnGroundManager: All items on ground saved!!");
+			graph.add("items on ground", () -> {
+				ItemsOnGroundManager.getInstance().saveInDb();
+				ItemsOnGroundManager.getInstance().cleanUp();
+				log.info("ItemsOnGroundManager: All items on ground saved!!");
+			});
 		}
 
 		if (Config.ENABLE_CUSTOM_DAMAGE_MANAGER) {
-			DamageManager.getInstance().saveData();
+			graph.add("damage manager", () -> DamageManager.getInstance().saveData());
 		}
 
 		if (Config.ENABLE_CUSTOM_LOTTERY) {
-			LotterySystem.getInstance().saveData();
+			graph.add("lottery", () -> LotterySystem.getInstance().saveData());
 		}
+
+		// Waited for without limit, these are not in the emergency dump
+		failedTasks.addAll(graph.run(Config.SHUTDOWN_SAVE_THREADS));
 	}
 
 	/**
 	 * this disconnects all clients from the server
 	 */
-	public void disconnectAllCharacters() {
+	private void disconnectAllCharacters() {
 		Collection<Player> pls = World.getInstance().getAllPlayers().values();
 		//synchronized (World.getInstance().getAllPlayers())
 		{
@@ -331,18 +368,90 @@ public class Shutdown extends Thread {
 				}
 			}
 
+			// The offline shops and buffers are stored before their players are removed from the world
+			final ShutdownSaveGraph graph = new ShutdownSaveGraph("players", "players");
+			graph.add("offline shops", 0, () -> {
+				if ((Config.OFFLINE_TRADE_ENABLE || Config.OFFLINE_CRAFT_ENABLE) && Config.RESTORE_OFFLINERS) {
+					OfflineTradersTable.INSTANCE.storeOffliners();
+				}
+			});
+			graph.add("offline buffers", 0, () -> {
+				if (Config.OFFLINE_BUFFERS_ENABLE && Config.OFFLINE_BUFFERS_RESTORE) {
+					CustomOfflineBuffersManager.getInstance().storeOfflineBuffers();
+				}
+			});
+
+			// Store characters, in batches sharing a db connection. Only this phase is bounded, the players not stored
+			// before its deadline are dumped
+			final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(Config.SHUTDOWN_SAVE_DEADLINE);
+			List<Player> batch = new ArrayList<>(Config.SHUTDOWN_SAVE_BATCH_SIZE);
 			for (Player player : pls) {
 				if (player == null) {
 					continue;
 				}
 
-				// Store character
-				try {
-					player.deleteMe();
-				} catch (Throwable t) {
-					log.warn("Failed to store char " + player, t);
+				unsavedPlayers.add(player);
+				batch.add(player);
+				if (batch.size() >= Config.SHUTDOWN_SAVE_BATCH_SIZE) {
+					addPlayerBatch(graph, batch, deadline);
+					batch = new ArrayList<>(Config.SHUTDOWN_SAVE_BATCH_SIZE);
 				}
 			}
+
+			if (!batch.isEmpty()) {
+				addPlayerBatch(graph, batch, deadline);
+			}
+
+			failedTasks.addAll(graph.run(Config.SHUTDOWN_SAVE_THREADS));
+		}
+	}
+
+	private void addPlayerBatch(ShutdownSaveGraph graph, List<Player> batch, long deadline) {
+		graph.add("players #" + (unsavedPlayers.size() - 1) / Math.max(1, Config.SHUTDOWN_SAVE_BATCH_SIZE), batch.size(), () -> {
+			DatabasePool.getInstance().pinConnection();
+			try {
+				for (Player player : batch) {
+					// Past the deadline the remaining players are left to the emergency dump, never one stored halfway
+					if (System.nanoTime() >= deadline) {
+						break;
+					}
+
+					try {
+						player.deleteMe();
+						unsavedPlayers.remove(player);
+					} catch (Throwable t) {
+						log.warn("Failed to store char " + player, t);
+					}
+				}
+			} finally {
+				DatabasePool.getInstance().unpinConnection();
+			}
+		}, "offline shops", "offline buffers");
+	}
+
+	/**
+	 * Writes as SQL the main data of the players which could not be stored before the deadline (or failed to be stored),
+	 * to be applied by hand before the next start.
+	 */
+	private void emergencyDump() {
+		final File file = new File("log/shutdown-dump-" + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date()) + ".sql");
+		log.warn("Shutdown save incomplete, dumping " + unsavedPlayers.size() + " players to " + file.getPath());
+
+		file.getParentFile().mkdirs();
+		try (PrintWriter out = new PrintWriter(new FileWriter(file))) {
+			out.println("-- Emergency dump of the shutdown, the players were not all stored within " + Config.SHUTDOWN_SAVE_DEADLINE + " seconds.");
+			out.println("-- Failed save tasks: " + failedTasks);
+			out.println("-- Players not stored: " + unsavedPlayers.size() + " (inventories, skills and quests of these players are not included)");
+			for (Player player : unsavedPlayers) {
+				out.println("UPDATE characters SET level=" + player.getStat().getBaseClassLevel() + ",exp=" + player.getStat().getBaseClassExp() +
+						",sp=" + player.getStat().getBaseClassSp() + ",x=" + player.getX() + ",y=" + player.getY() + ",z=" + player.getZ() +
+						",heading=" + player.getHeading() + ",curHp=" + player.getCurrentHp() + ",curMp=" + player.getCurrentMp() + ",curCp=" +
+						player.getCurrentCp() + ",reputation=" + player.getReputation() + ",fame=" + player.getFame() + ",pvpkills=" +
+						player.getPvpKills() + ",pkkills=" + player.getPkKills() + ",online=0 WHERE charId=" + player.getObjectId() + "; -- " +
+						player.getName());
+			}
+		} catch (IOException e) {
+			log.error("Failed writing the shutdown dump.", e);
 		}
 	}
 
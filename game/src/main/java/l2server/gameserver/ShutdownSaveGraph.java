@@ -0,0 +1,220 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package l2server.gameserver;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Save tasks of the {@link Shutdown}, run in parallel on a bounded amount of threads.
+ * A task starts as soon as all the tasks it depends on are finished (successfully or not).<BR>
+ * The progress is logged with an ETA computed from the weight of the finished tasks. The run always waits for all the tasks
+ * to end, so that nothing writes anymore once the database pool is closed: the tasks bounded by a deadline check it themselves.
+ */
+final class ShutdownSaveGraph {
+	private static Logger log = LoggerFactory.getLogger(ShutdownSaveGraph.class.getName());
+
+	private static final long PROGRESS_LOG_INTERVAL = TimeUnit.SECONDS.toNanos(5);
+
+	private final String name;
+	private final String unit;
+	private final Map<String, SaveTask> tasks = new LinkedHashMap<>();
+	private final AtomicLong doneWeight = new AtomicLong();
+	private long totalWeight = 0;
+	private ExecutorService executor;
+	private CountDownLatch remaining;
+
+	/**
+	 * @param unit what the weight of the tasks counts, for the progress log
+	 */
+	ShutdownSaveGraph(String name, String unit) {
+		this.name = name;
+		this.unit = unit;
+	}
+
+	final void add(String taskName, Runnable action, String... dependencies) {
+		add(taskName, 1, action, dependencies);
+	}
+
+	/**
+	 * @param weight       the share of the whole work done by this task, used for the ETA
+	 * @param dependencies names of the tasks, already added, which must be finished before this one starts
+	 */
+	final void add(String taskName, int weight, Runnable action, String... dependencies) {
+		final SaveTask task = new SaveTask(taskName, weight, action);
+		for (String dependency : dependencies) {
+			final SaveTask required = tasks.get(dependency);
+			if (required == null) {
+				throw new IllegalArgumentException("Unknown shutdown save task " + dependency + " required by " + taskName);
+			}
+
+			required.dependents.add(task);
+			task.pendingDependencies.incrementAndGet();
+		}
+
+		tasks.put(taskName, task);
+		totalWeight += weight;
+	}
+
+	/**
+	 * Runs all the tasks and waits until they are all finished.
+	 *
+	 * @return the names of the tasks which failed, empty if all succeeded
+	 */
+	final List<String> run(int threads) {
+		if (tasks.isEmpty()) {
+			return Collections.emptyList();
+		}
+
+		final long start = System.nanoTime();
+		final AtomicInteger threadCount = new AtomicInteger();
+		executor = Executors.newFixedThreadPool(Math.max(1, threads), r -> {
+			final Thread thread = new Thread(r, "ShutdownSave-" + name + "-" + threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		remaining = new CountDownLatch(tasks.size());
+
+		log.info("Shutdown save (" + name + "): " + tasks.size() + " tasks, " + totalWeight + " " + unit + ", " + threads + " threads.");
+		for (SaveTask task : tasks.values()) {
+			if (task.pendingDependencies.get() == 0) {
+				submit(task);
+			}
+		}
+
+		boolean interrupted = false;
+		while (true) {
+			try {
+				if (remaining.await(PROGRESS_LOG_INTERVAL, TimeUnit.NANOSECONDS)) {
+					break;
+				}
+			} catch (InterruptedException e) {
+				// Keep waiting, the tasks still write to the database
+				interrupted = true;
+			}
+
+			logProgress(start);
+		}
+
+		// The threads of the last tasks may still be returning
+		executor.shutdown();
+		try {
+			while (!executor.awaitTermination(PROGRESS_LOG_INTERVAL, TimeUnit.NANOSECONDS)) {
+				logProgress(start);
+			}
+		} catch (InterruptedException e) {
+			interrupted = true;
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+
+		final List<String> failed = new ArrayList<>();
+		for (SaveTask task : tasks.values()) {
+			if (task.failed) {
+				failed.add(task.name);
+			}
+		}
+
+		if (failed.isEmpty()) {
+			log.info("Shutdown save (" + name + "): done in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms.");
+		} else {
+			log.warn("Shutdown save (" + name + "): done in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms, " +
+					failed.size() + " tasks failed: " + failed);
+		}
+		return failed;
+	}
+
+	private void submit(SaveTask task) {
+		try {
+			executor.execute(task);
+		} catch (RejectedExecutionException e) {
+			// Can't happen, the executor is only shut down once all the tasks finished
+			log.error("Shutdown save task " + task.name + " rejected.", e);
+		}
+	}
+
+	private void logProgress(long start) {
+		final long elapsed = System.nanoTime() - start;
+		final long done = doneWeight.get();
+		final StringBuilder sb = new StringBuilder(200);
+		sb.append("Shutdown save (").append(name).append("): ").append(done).append("/").append(totalWeight).append(" ").append(unit)
+				.append(" in ").append(TimeUnit.NANOSECONDS.toSeconds(elapsed)).append("s, ETA ");
+		if (done > 0) {
+			sb.append(TimeUnit.NANOSECONDS.toSeconds(elapsed * (totalWeight - done) / done)).append("s");
+		} else {
+			sb.append("unknown");
+		}
+
+		sb.append(", running:");
+		for (SaveTask task : tasks.values()) {
+			if (task.running) {
+				sb.append(" ").append(task.name);
+			}
+		}
+		log.info(sb.toString());
+	}
+
+	private final class SaveTask implements Runnable {
+		private final String name;
+		private final int weight;
+		private final Runnable action;
+		private final List<SaveTask> dependents = new ArrayList<>();
+		private final AtomicInteger pendingDependencies = new AtomicInteger();
+		private volatile boolean running = false;
+		private volatile boolean failed = false;
+
+		private SaveTask(String name, int weight, Runnable action) {
+			this.name = name;
+			this.weight = weight;
+			this.action = action;
+		}
+
+		@Override
+		public void run() {
+			running = true;
+			try {
+				action.run();
+			} catch (Throwable t) {
+				failed = true;
+				log.warn("Shutdown save task " + name + " failed.", t);
+			} finally {
+				running = false;
+				doneWeight.addAndGet(weight);
+				remaining.countDown();
+			}
+
+			for (SaveTask dependent : dependents) {
+				if (dependent.pendingDependencies.decrementAndGet() == 0) {
+					submit(dependent);
+				}
+			}
+		}
+	}
+}
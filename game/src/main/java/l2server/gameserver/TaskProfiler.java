@@ -0,0 +1,361 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package l2server.gameserver;
+
+import l2server.Config;
+import l2server.util.metrics.MetricsHistogram;
+import l2server.util.metrics.MetricsRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Profiler of the tasks run by the {@link ThreadPoolManager} pools.<BR>
+ * Every task is counted per task class with its run time and its lateness (actual start compared to the planned start,
+ * which for the unscheduled pools is the time spent in the queue).<BR>
+ * A watchdog thread logs the stack trace of the tasks still running after TASK_WATCHDOG_THRESHOLD milliseconds.
+ */
+public final class TaskProfiler {
+	private static Logger log = LoggerFactory.getLogger(TaskProfiler.class.getName());
+
+	private static final int SLOW_TASK_HISTORY = 20;
+
+	private final List<Pool> pools = new CopyOnWriteArrayList<>();
+	private final Map<Thread, RunningTask> runningTasks = new ConcurrentHashMap<>();
+	private final ThreadLocal<RunningTask> currentTask = ThreadLocal.withInitial(() -> {
+		final RunningTask runningTask = new RunningTask(Thread.currentThread());
+		runningTasks.put(runningTask.thread, runningTask);
+		return runningTask;
+	});
+	private final LinkedList<String> slowTasks = new LinkedList<>();
+
+	public static TaskProfiler getInstance() {
+		return SingletonHolder.instance;
+	}
+
+	private TaskProfiler() {
+		if (Config.TASK_PROFILER_ENABLED && Config.TASK_WATCHDOG_THRESHOLD > 0) {
+			new Watchdog().start();
+		}
+	}
+
+	/**
+	 * Starts profiling the tasks of the given executor.
+	 *
+	 * @param name the name of the pool, also used as metrics label
+	 */
+	public Pool registerPool(String name, ThreadPoolExecutor executor) {
+		final Pool pool = new Pool(name, executor);
+		pools.add(pool);
+
+		final MetricsRegistry metrics = MetricsRegistry.getInstance();
+		metrics.register("l2_executor_task_run_seconds", "Task run time", pool.runTime, "pool", name);
+		metrics.register("l2_executor_task_lateness_seconds", "Task start delay compared to the planned start", pool.lateness, "pool", name);
+		metrics.counter("l2_executor_slow_tasks_total", "Tasks reported by the watchdog", pool.slowTasks::sum, "pool", name);
+		metrics.gauge("l2_executor_busy_threads", "Average amount of threads busy running tasks since the last reset", pool::getBusyThreads,
+				"pool", name);
+		return pool;
+	}
+
+	/**
+	 * @param plannedStart System.nanoTime() at which the task should have started, 0 if unknown
+	 * @return the start time to pass to {@link #onTaskEnd(Pool, Runnable, long)}, 0 if the task is not profiled
+	 */
+	final long onTaskStart(Pool pool, Runnable task, long plannedStart) {
+		if (!Config.TASK_PROFILER_ENABLED) {
+			return 0;
+		}
+
+		final long start = System.nanoTime();
+		final RunningTask runningTask = currentTask.get();
+		runningTask.pool = pool;
+		runningTask.task = task;
+		runningTask.lateness = plannedStart == 0 ? -1 : Math.max(0, start - plannedStart);
+		runningTask.startTime = start;
+		return start;
+	}
+
+	final void onTaskEnd(Pool pool, Runnable task, long start) {
+		if (start == 0) {
+			return;
+		}
+
+		final long runTime = System.nanoTime() - start;
+		final RunningTask runningTask = currentTask.get();
+		final long lateness = runningTask.lateness;
+		runningTask.startTime = 0;
+		runningTask.task = null;
+
+		final TaskStats taskStats = pool.getStats(task);
+		taskStats.count.increment();
+		taskStats.runTime.add(runTime);
+		taskStats.updateMax(runTime);
+		pool.runTime.record(runTime);
+		pool.busyNanos.add(runTime);
+		if (lateness >= 0) {
+			taskStats.lateness.add(lateness);
+			pool.lateness.record(lateness);
+		}
+	}
+
+	public List<Pool> getPools() {
+		return pools;
+	}
+
+	/**
+	 * @return one summary line per pool: task count, average busy threads and p99 run time and lateness
+	 */
+	public List<String> getPoolStats() {
+		final List<String> result = new ArrayList<>();
+		result.add("Task profiler: count / busy threads / run p99, max (ms) / late p99 (ms) / slow");
+		for (Pool pool : pools) {
+			result.add(" + " + pool.name + ": " + pool.runTime.getCount() + " / " + String.format("%.2f", pool.getBusyThreads()) + " of " +
+					pool.executor.getCorePoolSize() + " / " + toMillis(pool.runTime.getValueAtQuantile(0.99)) + ", " +
+					toMillis(pool.runTime.getMaxNanos()) + " / " + toMillis(pool.lateness.getValueAtQuantile(0.99)) + " / " + pool.slowTasks.sum());
+		}
+		return result;
+	}
+
+	/**
+	 * @param poolName the pool to report, null for all the pools
+	 * @param limit    maximum amount of task classes to return per pool
+	 * @return a human readable report of the task classes sorted by total run time
+	 */
+	public List<String> getTaskStats(String poolName, int limit) {
+		final List<String> result = new ArrayList<>();
+		for (Pool pool : pools) {
+			if (poolName != null && !pool.name.equalsIgnoreCase(poolName)) {
+				continue;
+			}
+
+			final List<TaskStats> sorted = new ArrayList<>(pool.stats.values());
+			sorted.sort(Comparator.comparingLong((TaskStats s) -> s.runTime.sum()).reversed());
+
+			result.add(pool.name + " - task: count / run avg, max (ms) / late avg (ms) / slow");
+			for (int i = 0; i < sorted.size() && i < limit; i++) {
+				final TaskStats taskStats = sorted.get(i);
+				final long count = taskStats.count.sum();
+				result.add(" " + taskStats.type + ": " + count + " / " +
+						String.format("%.2f", count == 0 ? 0. : taskStats.runTime.sum() / (double) count / 1000000) + ", " +
+						toMillis(taskStats.maxRunTime.get()) + " / " +
+						String.format("%.2f", count == 0 ? 0. : taskStats.lateness.sum() / (double) count / 1000000) + " / " +
+						taskStats.slowCount.sum());
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @return the last reports of the watchdog, newest first
+	 */
+	public List<String> getSlowTasks() {
+		synchronized (slowTasks) {
+			return new ArrayList<>(slowTasks);
+		}
+	}
+
+	public void reset() {
+		for (Pool pool : pools) {
+			pool.stats.clear();
+			pool.runTime.reset();
+			pool.lateness.reset();
+			pool.busyNanos.reset();
+			pool.resetTime = System.nanoTime();
+		}
+		synchronized (slowTasks) {
+			slowTasks.clear();
+		}
+	}
+
+	private void checkRunningTasks() {
+		final long now = System.nanoTime();
+		final long threshold = TimeUnit.MILLISECONDS.toNanos(Config.TASK_WATCHDOG_THRESHOLD);
+		for (RunningTask runningTask : runningTasks.values()) {
+			if (!runningTask.thread.isAlive()) {
+				runningTasks.remove(runningTask.thread);
+				continue;
+			}
+
+			final long start = runningTask.startTime;
+			if (start == 0 || now - start < threshold || runningTask.reportedStart == start) {
+				continue;
+			}
+
+			final Pool pool = runningTask.pool;
+			final Runnable task = runningTask.task;
+			final StackTraceElement[] stackTrace = runningTask.thread.getStackTrace();
+			if (runningTask.startTime != start || task == null) {
+				continue; // finished meanwhile
+			}
+
+			runningTask.reportedStart = start;
+			pool.slowTasks.increment();
+			pool.getStats(task).slowCount.increment();
+
+			final StringBuilder sb = new StringBuilder(1000);
+			sb.append("Slow task in pool ").append(pool.name).append(": ").append(getTaskType(task.getClass())).append(" running for ")
+					.append(TimeUnit.NANOSECONDS.toMillis(now - start)).append(" ms on ").append(runningTask.thread.getName()).append("\n");
+			for (StackTraceElement ste : stackTrace) {
+				sb.append("\tat ").append(ste).append("\n");
+			}
+
+			final String report = sb.toString();
+			log.warn(report);
+			synchronized (slowTasks) {
+				slowTasks.addFirst(report);
+				if (slowTasks.size() > SLOW_TASK_HISTORY) {
+					slowTasks.removeLast();
+				}
+			}
+		}
+	}
+
+	/**
+	 * The JVM spins one class per lambda call site ("Foo$$Lambda$12/1234"), the stats are kept per class so each call site
+	 * has its own line. Only the unreadable address suffix is dropped, the index still tells the call sites of Foo apart.
+	 */
+	private static String getTaskType(Class<?> cls) {
+		String name = cls.getName();
+		final int lambda = name.indexOf("$$Lambda");
+		if (lambda > 0) {
+			final int suffix = name.indexOf('/', lambda);
+			if (suffix > 0) {
+				name = name.substring(0, suffix);
+			}
+		}
+		return name.startsWith("l2server.gameserver.") ? name.substring(20) : name;
+	}
+
+	private static String toMillis(long nanos) {
+		return String.format("%.2f", nanos / 1000000.);
+	}
+
+	public static final class Pool {
+		private final String name;
+		private final ThreadPoolExecutor executor;
+		private final Map<Class<?>, TaskStats> stats = new ConcurrentHashMap<>();
+		private final MetricsHistogram runTime = new MetricsHistogram();
+		private final MetricsHistogram lateness = new MetricsHistogram();
+		private final LongAdder busyNanos = new LongAdder();
+		private final LongAdder slowTasks = new LongAdder();
+		private volatile long resetTime = System.nanoTime();
+
+		private Pool(String name, ThreadPoolExecutor executor) {
+			this.name = name;
+			this.executor = executor;
+		}
+
+		private TaskStats getStats(Runnable task) {
+			final TaskStats taskStats = stats.get(task.getClass());
+			if (taskStats != null) {
+				return taskStats;
+			}
+
+			return stats.computeIfAbsent(task.getClass(), k -> new TaskStats(getTaskType(k)));
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * @return the amount of tasks waiting for a thread, scheduled ones included
+		 */
+		public int getQueueSize() {
+			return executor.getQueue().size();
+		}
+
+		/**
+		 * @return the average amount of threads running a task since the last reset, compare with the pool size to tune THREAD_P_*
+		 */
+		private double getBusyThreads() {
+			final long elapsed = System.nanoTime() - resetTime;
+			return elapsed <= 0 ? 0 : busyNanos.sum() / (double) elapsed;
+		}
+	}
+
+	private static final class TaskStats {
+		private final String type;
+		private final LongAdder count = new LongAdder();
+		private final LongAdder runTime = new LongAdder();
+		private final LongAdder lateness = new LongAdder();
+		private final LongAdder slowCount = new LongAdder();
+		private final AtomicLong maxRunTime = new AtomicLong();
+
+		private TaskStats(String type) {
+			this.type = type;
+		}
+
+		private void updateMax(long value) {
+			long max;
+			while (value > (max = maxRunTime.get())) {
+				if (maxRunTime.compareAndSet(max, value)) {
+					break;
+				}
+			}
+		}
+	}
+
+	private static final class RunningTask {
+		private final Thread thread;
+		private volatile Pool pool;
+		private volatile Runnable task;
+		private volatile long lateness;
+		private volatile long startTime;
+		private long reportedStart;
+
+		private RunningTask(Thread thread) {
+			this.thread = thread;
+		}
+	}
+
+	private class Watchdog extends Thread {
+		private Watchdog() {
+			super("TaskWatchdog");
+			setDaemon(true);
+		}
+
+		@Override
+		public final void run() {
+			final long sleepTime = Math.max(100, Math.min(1000, Config.TASK_WATCHDOG_THRESHOLD / 2));
+			while (true) {
+				try {
+					checkRunningTasks();
+					Thread.sleep(sleepTime);
+				} catch (InterruptedException e) {
+					return;
+				} catch (Exception e) {
+					log.warn("TaskWatchdog: ", e);
+				}
+			}
+		}
+	}
+
+	private static class SingletonHolder {
+		protected static final TaskProfiler instance = new TaskProfiler();
+	}
+}
@@ -16,11 +16,16 @@
 package l2server.gameserver;
 
 import l2server.Config;
+import l2server.gameserver.model.World;
+import l2server.gameserver.model.WorldObject;
 import l2server.util.StringUtil;
+import l2server.util.metrics.MetricsRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.lang.Thread.UncaughtExceptionHandler;
+import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -52,6 +57,10 @@ import java.util.concurrent.atomic.AtomicInteger;
  * <li>A general ThreadPool where everything else that needs to run asynchronously with no delay should be executed ({@link l2server.gameserver.model.actor.knownlist KnownList} updates, SQL updates/inserts...)?</li>
  * </ul>
  * </p>
+ * <p>In region affine mode the AI and effects tasks of a creature scheduled through {@link #scheduleAi(WorldObject, Runnable, long)},
+ * {@link #scheduleEffect(WorldObject, Runnable, long)} and their variants run instead on one of the single threaded "region" pools,
+ * chosen by the group of world regions the creature is in when the task runs. So does the movement of the creatures, see
+ * {@link TimeController}. The client packets stay on the packet pools, they may wait on the database.</p>
  *
  * @author -Wooden-
  */
@@ -60,13 +69,29 @@ public class ThreadPoolManager {
 	
 	private static final class RunnableWrapper implements Runnable {
 		private final Runnable r;
+		private final TaskProfiler.Pool pool;
+		private final long period;
+		private long plannedStart;
 		
 		public RunnableWrapper(final Runnable r) {
+			this(r, null, 0, 0);
+		}
+		
+		/**
+		 * @param pool   the profiled pool running the task
+		 * @param delay  initial delay in milliseconds
+		 * @param period period in milliseconds of a fixed rate task, 0 otherwise
+		 */
+		public RunnableWrapper(final Runnable r, final TaskProfiler.Pool pool, final long delay, final long period) {
 			this.r = r;
+			this.pool = pool;
+			this.period = TimeUnit.MILLISECONDS.toNanos(period);
+			plannedStart = pool != null ? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delay) : 0;
 		}
 		
 		@Override
 		public final void run() {
+			final long start = pool != null ? TaskProfiler.getInstance().onTaskStart(pool, r, plannedStart) : 0;
 			try {
 				r.run();
 			} catch (final Throwable e) {
@@ -75,6 +100,11 @@ public class ThreadPoolManager {
 				if (h != null) {
 					h.uncaughtException(t, e);
 				}
+			} finally {
+				if (start != 0) {
+					TaskProfiler.getInstance().onTaskEnd(pool, r, start);
+				}
+				plannedStart += period;
 			}
 		}
 	}
@@ -85,6 +115,15 @@ public class ThreadPoolManager {
 	private ThreadPoolExecutor generalPacketsThreadPool;
 	private ThreadPoolExecutor ioPacketsThreadPool;
 	private ThreadPoolExecutor generalThreadPool;
+	private ScheduledThreadPoolExecutor[] regionThreadPools;
+	
+	private TaskProfiler.Pool effectsProfile;
+	private TaskProfiler.Pool generalScheduledProfile;
+	private TaskProfiler.Pool aiProfile;
+	private TaskProfiler.Pool packetsProfile;
+	private TaskProfiler.Pool ioPacketsProfile;
+	private TaskProfiler.Pool generalProfile;
+	private TaskProfiler.Pool[] regionProfiles;
 	
 	/**
 	 * temp workaround for VM issue
@@ -118,7 +157,37 @@ public class ThreadPoolManager {
 				new LinkedBlockingQueue<>(), new PriorityThreadFactory("gp", Thread.NORM_PRIORITY));
 		aiScheduledThreadPool = new ScheduledThreadPoolExecutor(Config.AI_MAX_THREAD, new PriorityThreadFactory("ai", Thread.NORM_PRIORITY));
 		
+		final TaskProfiler profiler = TaskProfiler.getInstance();
+		effectsProfile = profiler.registerPool("effects", effectsScheduledThreadPool);
+		generalScheduledProfile = profiler.registerPool("general-scheduled", generalScheduledThreadPool);
+		aiProfile = profiler.registerPool("ai", aiScheduledThreadPool);
+		packetsProfile = profiler.registerPool("packets", generalPacketsThreadPool);
+		ioPacketsProfile = profiler.registerPool("io-packets", ioPacketsThreadPool);
+		generalProfile = profiler.registerPool("general", generalThreadPool);
+		
+		if (Config.REGION_AFFINE_EXECUTION) {
+			regionThreadPools = new ScheduledThreadPoolExecutor[Math.max(1, Config.REGION_EXECUTOR_THREADS)];
+			regionProfiles = new TaskProfiler.Pool[regionThreadPools.length];
+			for (int i = 0; i < regionThreadPools.length; i++) {
+				regionThreadPools[i] = new ScheduledThreadPoolExecutor(1, new PriorityThreadFactory("region-" + i, Thread.NORM_PRIORITY));
+				regionProfiles[i] = profiler.registerPool("region-" + i, regionThreadPools[i]);
+			}
+		}
+		
 		scheduleGeneralAtFixedRate(new PurgeTask(), 10 * 60 * 1000L, 5 * 60 * 1000L);
+		
+		final MetricsRegistry metrics = MetricsRegistry.getInstance();
+		metrics.registerExecutor("effects", effectsScheduledThreadPool);
+		metrics.registerExecutor("general-scheduled", generalScheduledThreadPool);
+		metrics.registerExecutor("ai", aiScheduledThreadPool);
+		metrics.registerExecutor("packets", generalPacketsThreadPool);
+		metrics.registerExecutor("io-packets", ioPacketsThreadPool);
+		metrics.registerExecutor("general", generalThreadPool);
+		if (regionThreadPools != null) {
+			for (int i = 0; i < regionThreadPools.length; i++) {
+				metrics.registerExecutor("region-" + i, regionThreadPools[i]);
+			}
+		}
 	}
 	
 	public static long validateDelay(long delay) {
@@ -133,7 +202,7 @@ public class ThreadPoolManager {
 	public ScheduledFuture<?> scheduleEffect(Runnable r, long delay) {
 		try {
 			delay = ThreadPoolManager.validateDelay(delay);
-			return effectsScheduledThreadPool.schedule(new RunnableWrapper(r), delay, TimeUnit.MILLISECONDS);
+			return effectsScheduledThreadPool.schedule(new RunnableWrapper(r, effectsProfile, delay, 0), delay, TimeUnit.MILLISECONDS);
 		} catch (RejectedExecutionException e) {
 			return null;
 		}
@@ -143,7 +212,7 @@ public class ThreadPoolManager {
 		try {
 			delay = ThreadPoolManager.validateDelay(delay);
 			initial = ThreadPoolManager.validateDelay(initial);
-			return effectsScheduledThreadPool.scheduleAtFixedRate(new RunnableWrapper(r), initial, delay, TimeUnit.MILLISECONDS);
+			return effectsScheduledThreadPool.scheduleAtFixedRate(new RunnableWrapper(r, effectsProfile, initial, delay), initial, delay, TimeUnit.MILLISECONDS);
 		} catch (RejectedExecutionException e) {
 			return null; /* shutdown, ignore */
 		}
@@ -157,7 +226,7 @@ public class ThreadPoolManager {
 	public ScheduledFuture<?> scheduleGeneral(Runnable r, long delay) {
 		try {
 			delay = ThreadPoolManager.validateDelay(delay);
-			return generalScheduledThreadPool.schedule(new RunnableWrapper(r), delay, TimeUnit.MILLISECONDS);
+			return generalScheduledThreadPool.schedule(new RunnableWrapper(r, generalScheduledProfile, delay, 0), delay, TimeUnit.MILLISECONDS);
 		} catch (RejectedExecutionException e) {
 			return null; /* shutdown, ignore */
 		}
@@ -167,7 +236,7 @@ public class ThreadPoolManager {
 		try {
 			delay = ThreadPoolManager.validateDelay(delay);
 			initial = ThreadPoolManager.validateDelay(initial);
-			return generalScheduledThreadPool.scheduleAtFixedRate(new RunnableWrapper(r), initial, delay, TimeUnit.MILLISECONDS);
+			return generalScheduledThreadPool.scheduleAtFixedRate(new RunnableWrapper(r, generalScheduledProfile, initial, delay), initial, delay, TimeUnit.MILLISECONDS);
 		} catch (RejectedExecutionException e) {
 			return null; /* shutdown, ignore */
 		}
@@ -181,7 +250,7 @@ public class ThreadPoolManager {
 	public ScheduledFuture<?> scheduleAi(Runnable r, long delay) {
 		try {
 			delay = ThreadPoolManager.validateDelay(delay);
-			return aiScheduledThreadPool.schedule(new RunnableWrapper(r), delay, TimeUnit.MILLISECONDS);
+			return aiScheduledThreadPool.schedule(new RunnableWrapper(r, aiProfile, delay, 0), delay, TimeUnit.MILLISECONDS);
 		} catch (RejectedExecutionException e) {
 			return null; /* shutdown, ignore */
 		}
@@ -191,34 +260,225 @@ public class ThreadPoolManager {
 		try {
 			delay = ThreadPoolManager.validateDelay(delay);
 			initial = ThreadPoolManager.validateDelay(initial);
-			return aiScheduledThreadPool.scheduleAtFixedRate(new RunnableWrapper(r), initial, delay, TimeUnit.MILLISECONDS);
+			return aiScheduledThreadPool.scheduleAtFixedRate(new RunnableWrapper(r, aiProfile, initial, delay), initial, delay, TimeUnit.MILLISECONDS);
 		} catch (RejectedExecutionException e) {
 			return null; /* shutdown, ignore */
 		}
 	}
 	
+	/**
+	 * Schedules an AI task acting on the owner, on the executor of its region group in region affine mode.
+	 */
+	public ScheduledFuture<?> scheduleAi(WorldObject owner, Runnable r, long delay) {
+		if (regionThreadPools == null) {
+			return scheduleAi(r, delay);
+		}
+		return scheduleRegion(owner, r, delay);
+	}
+	
+	/**
+	 * Schedules an effects task acting on the owner, on the executor of its region group in region affine mode.
+	 */
+	public ScheduledFuture<?> scheduleEffect(WorldObject owner, Runnable r, long delay) {
+		if (regionThreadPools == null) {
+			return scheduleEffect(r, delay);
+		}
+		return scheduleRegion(owner, r, delay);
+	}
+	
+	public ScheduledFuture<?> scheduleEffectAtFixedRate(WorldObject owner, Runnable r, long initial, long delay) {
+		if (regionThreadPools == null) {
+			return scheduleEffectAtFixedRate(r, initial, delay);
+		}
+		
+		try {
+			delay = ThreadPoolManager.validateDelay(delay);
+			initial = ThreadPoolManager.validateDelay(initial);
+			final int group = getRegionGroup(owner);
+			final RegionTask task = new RegionTask(owner, new RunnableWrapper(r, regionProfiles[group], initial, delay), group);
+			return new RegionFuture(regionThreadPools[group].scheduleAtFixedRate(task, initial, delay, TimeUnit.MILLISECONDS), task);
+		} catch (RejectedExecutionException e) {
+			return null; /* shutdown, ignore */
+		}
+	}
+	
+	/**
+	 * Runs an AI task acting on the owner as soon as possible, on the executor of its region group in region affine mode.
+	 */
+	public void executeAi(WorldObject owner, Runnable r) {
+		if (regionThreadPools == null) {
+			executeAi(r);
+			return;
+		}
+		
+		executeRegion(owner, new RunnableWrapper(r, regionProfiles[getRegionGroup(owner)], 0, 0));
+	}
+	
+	private ScheduledFuture<?> scheduleRegion(WorldObject owner, Runnable r, long delay) {
+		try {
+			delay = ThreadPoolManager.validateDelay(delay);
+			final int group = getRegionGroup(owner);
+			final RegionTask task = new RegionTask(owner, new RunnableWrapper(r, regionProfiles[group], delay, 0), group);
+			return new RegionFuture(regionThreadPools[group].schedule(task, delay, TimeUnit.MILLISECONDS), task);
+		} catch (RejectedExecutionException e) {
+			return null; /* shutdown, ignore */
+		}
+	}
+	
+	private void executeRegion(WorldObject owner, Runnable r) {
+		final int group = getRegionGroup(owner);
+		try {
+			regionThreadPools[group].execute(new RegionTask(owner, r, group));
+		} catch (RejectedExecutionException e) {
+			/* shutdown, ignore */
+		}
+	}
+	
+	/**
+	 * Runs the task on the executor of a group of world regions, without checking where its objects are.
+	 *
+	 * @return false if the executor is shut down
+	 */
+	public boolean executeRegionGroup(int group, Runnable r) {
+		try {
+			regionThreadPools[group].execute(new RunnableWrapper(r, regionProfiles[group], 0, 0));
+			return true;
+		} catch (RejectedExecutionException e) {
+			return false; /* shutdown */
+		}
+	}
+	
+	public boolean isRegionAffine() {
+		return regionThreadPools != null;
+	}
+	
+	public int getRegionGroupCount() {
+		return regionThreadPools == null ? 0 : regionThreadPools.length;
+	}
+	
+	/**
+	 * @return the index of the executor of the group of world regions the owner is in
+	 */
+	public int getRegionGroup(WorldObject owner) {
+		if (owner == null) {
+			return 0;
+		}
+		
+		final int size = Math.max(1, Config.REGION_GROUP_SIZE);
+		final int regionX = ((owner.getX() >> World.SHIFT_BY) + World.OFFSET_X) / size;
+		final int regionY = ((owner.getY() >> World.SHIFT_BY) + World.OFFSET_Y) / size;
+		return Math.floorMod(regionX * 31 + regionY, regionThreadPools.length);
+	}
+	
+	/**
+	 * Task of a region executor, handed off to the executor of the new region group of its owner if it moved since the task was scheduled.
+	 */
+	private final class RegionTask implements Runnable {
+		private final WorldObject owner;
+		private final Runnable r;
+		private final int group;
+		/**
+		 * Set by the {@link RegionFuture} of the task, the runs already handed off to another executor check it as well
+		 */
+		private volatile boolean cancelled = false;
+		
+		private RegionTask(WorldObject owner, Runnable r, int group) {
+			this.owner = owner;
+			this.r = r;
+			this.group = group;
+		}
+		
+		@Override
+		public void run() {
+			if (cancelled) {
+				return;
+			}
+			
+			if (getRegionGroup(owner) != group) {
+				executeRegion(owner, () -> {
+					if (!cancelled) {
+						r.run();
+					}
+				});
+				return;
+			}
+			
+			r.run();
+		}
+	}
+	
+	/**
+	 * The future of a scheduled {@link RegionTask}, its cancellation also stops the runs handed off to another executor.
+	 */
+	private static final class RegionFuture implements ScheduledFuture<Object> {
+		private final ScheduledFuture<?> future;
+		private final RegionTask task;
+		
+		private RegionFuture(ScheduledFuture<?> future, RegionTask task) {
+			this.future = future;
+			this.task = task;
+		}
+		
+		@Override
+		public boolean cancel(boolean mayInterruptIfRunning) {
+			task.cancelled = true;
+			return future.cancel(mayInterruptIfRunning);
+		}
+		
+		@Override
+		public boolean isCancelled() {
+			return future.isCancelled();
+		}
+		
+		@Override
+		public boolean isDone() {
+			return future.isDone();
+		}
+		
+		@Override
+		public Object get() throws InterruptedException, ExecutionException {
+			return future.get();
+		}
+		
+		@Override
+		public Object get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+			return future.get(timeout, unit);
+		}
+		
+		@Override
+		public long getDelay(TimeUnit unit) {
+			return future.getDelay(unit);
+		}
+		
+		@Override
+		public int compareTo(Delayed o) {
+			return future.compareTo(o);
+		}
+	}
+	
 	public void executePacket(Runnable pkt) {
-		generalPacketsThreadPool.execute(pkt);
+		generalPacketsThreadPool.execute(new RunnableWrapper(pkt, packetsProfile, 0, 0));
 	}
 	
 	public void executeCommunityPacket(Runnable r) {
-		generalPacketsThreadPool.execute(r);
+		generalPacketsThreadPool.execute(new RunnableWrapper(r, packetsProfile, 0, 0));
 	}
 	
 	public void executeIOPacket(Runnable pkt) {
-		ioPacketsThreadPool.execute(pkt);
+		ioPacketsThreadPool.execute(new RunnableWrapper(pkt, ioPacketsProfile, 0, 0));
 	}
 	
 	public void executeTask(Runnable r) {
-		generalThreadPool.execute(r);
+		generalThreadPool.execute(new RunnableWrapper(r, generalProfile, 0, 0));
 	}
 	
 	public void executeAi(Runnable r) {
-		aiScheduledThreadPool.execute(new RunnableWrapper(r));
+		aiScheduledThreadPool.execute(new RunnableWrapper(r, aiProfile, 0, 0));
 	}
 	
 	public String[] getStats() {
-		return new String[]{"STP:", " + Effects:", " |- ActiveThreads:   " + effectsScheduledThreadPool.getActiveCount(),
+		final List<String> profile = TaskProfiler.getInstance().getPoolStats();
+		final String[] stats = new String[]{"STP:", " + Effects:", " |- ActiveThreads:   " + effectsScheduledThreadPool.getActiveCount(),
 				" |- getCorePoolSize: " + effectsScheduledThreadPool.getCorePoolSize(),
 				" |- PoolSize:		" + effectsScheduledThreadPool.getPoolSize(),
 				" |- MaximumPoolSize: " + effectsScheduledThreadPool.getMaximumPoolSize(),
@@ -251,6 +511,12 @@ public class ThreadPoolManager {
 				" |- MaximumPoolSize: " + generalThreadPool.getMaximumPoolSize(), " |- LargestPoolSize: " + generalThreadPool.getLargestPoolSize(),
 				" |- PoolSize:		" + generalThreadPool.getPoolSize(), " |- CompletedTasks:  " + generalThreadPool.getCompletedTaskCount(),
 				" |- QueuedTasks:	 " + generalThreadPool.getQueue().size(), " | -------"};
+		
+		final String[] result = Arrays.copyOf(stats, stats.length + profile.size());
+		for (int i = 0; i < profile.size(); i++) {
+			result[stats.length + i] = profile.get(i);
+		}
+		return result;
 	}
 	
 	private static class PriorityThreadFactory implements ThreadFactory {
@@ -293,6 +559,11 @@ public class ThreadPoolManager {
 			generalScheduledThreadPool.shutdown();
 			aiScheduledThreadPool.shutdown();
 			generalThreadPool.shutdown();
+			if (regionThreadPools != null) {
+				for (ScheduledThreadPoolExecutor pool : regionThreadPools) {
+					pool.shutdown();
+				}
+			}
 			log.info("All ThreadPools are now stopped");
 		} catch (InterruptedException e) {
 			log.warn("", e);
@@ -420,6 +691,11 @@ public class ThreadPoolManager {
 			effectsScheduledThreadPool.purge();
 			generalScheduledThreadPool.purge();
 			aiScheduledThreadPool.purge();
+			if (regionThreadPools != null) {
+				for (ScheduledThreadPoolExecutor pool : regionThreadPools) {
+					pool.purge();
+				}
+			}
 		}
 	}
 	
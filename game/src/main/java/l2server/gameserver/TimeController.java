@@ -20,12 +20,24 @@ import l2server.gameserver.ai.CtrlEvent;
 import l2server.gameserver.instancemanager.DayNightSpawnManager;
 import l2server.gameserver.model.actor.Creature;
 import l2server.util.loader.annotations.Load;
+import l2server.util.metrics.MetricsHistogram;
+import l2server.util.metrics.MetricsRegistry;
+import l2server.util.metrics.MetricsTimer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Removed TimerThread watcher [DrHouse]
@@ -51,6 +63,27 @@ public class TimeController {
 	
 	private static final ConcurrentHashMap<Integer, Creature> movingObjects = new ConcurrentHashMap<>();
 	
+	/**
+	 * The creatures each region group is still moving, in region affine mode
+	 */
+	private static AtomicReferenceArray<List<Creature>> pendingMoves;
+	
+	private static final MetricsTimer tickTimer =
+			MetricsRegistry.getInstance().timer("l2_game_tick_seconds", "Time spent moving objects in a game tick");
+	
+	/**
+	 * The tick times again with their distribution, sampled and reset by the artificial players benchmark
+	 */
+	private static final MetricsHistogram tickHistogram = new MetricsHistogram();
+	
+	private static final LongAdder deferredMoves = new LongAdder();
+	
+	static {
+		MetricsRegistry.getInstance()
+				.counter("l2_game_tick_deferred_moves_total", "Game ticks which didn't wait for a busy region group to move its creatures",
+						deferredMoves::sum);
+	}
+	
 	protected static TimerThread timer;
 	
 	/**
@@ -71,6 +104,8 @@ public class TimeController {
 		timer = new TimerThread();
 		timer.start();
 		
+		MetricsRegistry.getInstance().gauge("l2_game_moving_objects", "Creatures currently registered as moving", movingObjects::size);
+		
 		ThreadPoolManager.getInstance().scheduleGeneralAtFixedRate(new BroadcastSunState(), 0, 600000);
 	}
 	
@@ -82,6 +117,14 @@ public class TimeController {
 		return gameTicks / (TICKS_PER_SECOND * 10);
 	}
 	
+	public static MetricsHistogram getTickHistogram() {
+		return tickHistogram;
+	}
+	
+	public static int getMovingObjectCount() {
+		return movingObjects.size();
+	}
+	
 	public static int getGameTicks() {
 		return gameTicks;
 	}
@@ -114,6 +157,11 @@ public class TimeController {
 	 * <li>Create a task to update the knownObject and knowPlayers of each Creature that finished its movement and of their already known WorldObject then notify AI with EVT_ARRIVED </li><BR><BR>
 	 */
 	protected void moveObjects() {
+		if (ThreadPoolManager.getInstance().isRegionAffine()) {
+			moveObjectsByRegionGroup();
+			return;
+		}
+		
 		// Go throw the table containing Creature in movement
 		Iterator<Map.Entry<Integer, Creature>> it = movingObjects.entrySet().iterator();
 		while (it.hasNext()) {
@@ -127,6 +175,92 @@ public class TimeController {
 		}
 	}
 	
+	/**
+	 * In region affine mode the creatures are moved by the executors of their region groups. The tick waits for them at
+	 * most one tick: a group still busy with the moves of a previous tick, for example behind a slow task, isn't given new
+	 * moves and its creatures are skipped wherever they are until it's done, so that a creature is never moved by two
+	 * executors at once. The positions catch up on the next move, they are computed from the game ticks.
+	 */
+	@SuppressWarnings("unchecked")
+	private void moveObjectsByRegionGroup() {
+		final ThreadPoolManager threadPools = ThreadPoolManager.getInstance();
+		if (pendingMoves == null) {
+			pendingMoves = new AtomicReferenceArray<>(threadPools.getRegionGroupCount());
+		}
+		
+		Set<Creature> busy = null;
+		for (int group = 0; group < pendingMoves.length(); group++) {
+			final List<Creature> pending = pendingMoves.get(group);
+			if (pending != null) {
+				if (busy == null) {
+					busy = Collections.newSetFromMap(new IdentityHashMap<>());
+				}
+				busy.addAll(pending);
+			}
+		}
+		
+		final List<Creature>[] groups = new List[pendingMoves.length()];
+		int groupCount = 0;
+		for (Creature ch : movingObjects.values()) {
+			if (busy != null && busy.contains(ch)) {
+				continue;
+			}
+			
+			final int group = threadPools.getRegionGroup(ch);
+			if (pendingMoves.get(group) != null) {
+				continue;
+			}
+			
+			if (groups[group] == null) {
+				groups[group] = new ArrayList<>();
+				groupCount++;
+			}
+			groups[group].add(ch);
+		}
+		
+		if (groupCount == 0) {
+			return;
+		}
+		
+		final int ticks = gameTicks;
+		final CountDownLatch moved = new CountDownLatch(groupCount);
+		for (int group = 0; group < groups.length; group++) {
+			final List<Creature> creatures = groups[group];
+			if (creatures == null) {
+				continue;
+			}
+			
+			final int movingGroup = group;
+			pendingMoves.set(group, creatures);
+			final boolean executed = threadPools.executeRegionGroup(group, () -> {
+				try {
+					for (Creature ch : creatures) {
+						if (ch.updatePosition(ticks)) {
+							movingObjects.remove(ch.getObjectId(), ch);
+							threadPools.executeAi(ch, new MovingObjectArrived(ch));
+						}
+					}
+				} finally {
+					pendingMoves.set(movingGroup, null);
+					moved.countDown();
+				}
+			});
+			if (!executed) {
+				pendingMoves.set(group, null);
+				moved.countDown();
+			}
+		}
+		
+		try {
+			if (!moved.await(MILLIS_IN_TICK, TimeUnit.MILLISECONDS)) {
+				deferredMoves.increment();
+			}
+		} catch (InterruptedException e) {
+			// Stopping the timer
+			Thread.currentThread().interrupt();
+		}
+	}
+	
 	public void stopTimer() {
 		interruptRequest = true;
 		timer.interrupt();
@@ -153,7 +287,10 @@ public class TimeController {
 					gameTicks = (int) (runtime / MILLIS_IN_TICK); // new ticks value (ticks now)
 					
 					if (oldTicks != gameTicks) {
+						final long tickStart = System.nanoTime();
 						moveObjects(); // Runs possibly too often
+						tickTimer.recordSince(tickStart);
+						tickHistogram.recordSince(tickStart);
 					}
 					
 					runtime = System.currentTimeMillis() - gameStartTime - runtime;
@@ -18,9 +18,16 @@ package l2server.gameserver.cache;
 import l2server.Config;
 import l2server.DatabasePool;
 import l2server.gameserver.datatables.ClanTable;
+import l2server.gameserver.datatables.ImageTable;
 import l2server.gameserver.idfactory.IdFactory;
 import l2server.gameserver.model.L2Clan;
+import l2server.gameserver.network.L2GameClient;
+import l2server.gameserver.network.serverpackets.AllyCrest;
+import l2server.gameserver.network.serverpackets.ExPledgeCrestLarge;
+import l2server.gameserver.network.serverpackets.PledgeCrest;
+import l2server.gameserver.network.serverpackets.SerializedPacket;
 import l2server.util.loader.annotations.Load;
+import l2server.util.metrics.MetricsRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -29,8 +36,11 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
+ * The crests are sent as packets written once and shared by all the clients asking for them.
+ *
  * @author Layane
  */
 public class CrestCache {
@@ -43,6 +53,19 @@ public class CrestCache {
 
 	private ConcurrentHashMap<Integer, byte[]> mapAlly = new ConcurrentHashMap<>();
 
+	private final ConcurrentHashMap<Integer, SerializedPacket> pledgePackets = new ConcurrentHashMap<>();
+
+	private final ConcurrentHashMap<Integer, SerializedPacket[]> pledgeLargePackets = new ConcurrentHashMap<>();
+
+	private final ConcurrentHashMap<Integer, SerializedPacket> allyPackets = new ConcurrentHashMap<>();
+
+	private final LongAdder pledgeSent = new LongAdder();
+	private final LongAdder pledgeBytes = new LongAdder();
+	private final LongAdder pledgeLargeSent = new LongAdder();
+	private final LongAdder pledgeLargeBytes = new LongAdder();
+	private final LongAdder allySent = new LongAdder();
+	private final LongAdder allyBytes = new LongAdder();
+
 	private int loadedFiles;
 
 	private long bytesBuffLen;
@@ -52,6 +75,13 @@ public class CrestCache {
 	}
 
 	private CrestCache() {
+		final MetricsRegistry metrics = MetricsRegistry.getInstance();
+		metrics.counter("l2_crest_packets_total", "Crest and image packets sent", pledgeSent::sum, "type", "pledge");
+		metrics.counter("l2_crest_packets_total", "Crest and image packets sent", pledgeLargeSent::sum, "type", "pledge_large");
+		metrics.counter("l2_crest_packets_total", "Crest and image packets sent", allySent::sum, "type", "ally");
+		metrics.counter("l2_crest_bytes_total", "Bytes of the crest and image packets sent", pledgeBytes::sum, "type", "pledge");
+		metrics.counter("l2_crest_bytes_total", "Bytes of the crest and image packets sent", pledgeLargeBytes::sum, "type", "pledge_large");
+		metrics.counter("l2_crest_bytes_total", "Bytes of the crest and image packets sent", allyBytes::sum, "type", "ally");
 	}
 	
 	@Load
@@ -74,6 +104,10 @@ public class CrestCache {
 			mapPledge.clear();
 			mapPledgeLarge.clear();
 			mapAlly.clear();
+
+			pledgePackets.clear();
+			pledgeLargePackets.clear();
+			allyPackets.clear();
 		}
 
 		for (File file : files) {
@@ -178,9 +212,75 @@ public class CrestCache {
 		return mapAlly.get(id);
 	}
 
+	/**
+	 * Sends a pledge crest to a client asking for it. The custom images share the ids of the pledge crests.
+	 */
+	public void sendPledgeCrest(L2GameClient client, int crestId) {
+		client.addKnownCrest(crestId);
+
+		final SerializedPacket packet;
+		final byte[] data = mapPledge.get(crestId);
+		if (data != null) {
+			packet = pledgePackets.computeIfAbsent(crestId, id -> new SerializedPacket(new PledgeCrest(id, data), data.length + 32));
+		} else {
+			packet = ImageTable.getInstance().getImage(crestId);
+		}
+
+		if (packet == null) {
+			client.sendPacket(new PledgeCrest(crestId, null));
+			return;
+		}
+
+		client.sendPacket(packet);
+		pledgeSent.increment();
+		pledgeBytes.add(packet.getSize());
+	}
+
+	public void sendPledgeCrestLarge(L2GameClient client, int crestId) {
+		final byte[][] data = mapPledgeLarge.get(crestId);
+		if (data == null) {
+			return;
+		}
+
+		final SerializedPacket[] packets = pledgeLargePackets.computeIfAbsent(crestId, id -> {
+			int parts = 0;
+			while (parts < data.length && data[parts] != null && data[parts].length > 0) {
+				parts++;
+			}
+
+			SerializedPacket[] serialized = new SerializedPacket[parts];
+			for (int i = 0; i < parts; i++) {
+				serialized[i] = new SerializedPacket(new ExPledgeCrestLarge(id, i, data[i]), data[i].length + 32);
+			}
+			return serialized;
+		});
+
+		for (SerializedPacket packet : packets) {
+			client.sendPacket(packet);
+			pledgeLargeSent.increment();
+			pledgeLargeBytes.add(packet.getSize());
+		}
+	}
+
+	public void sendAllyCrest(L2GameClient client, int crestId) {
+		client.addKnownAllyCrest(crestId);
+
+		final byte[] data = mapAlly.get(crestId);
+		if (data == null) {
+			client.sendPacket(new AllyCrest(crestId));
+			return;
+		}
+
+		final SerializedPacket packet = allyPackets.computeIfAbsent(crestId, id -> new SerializedPacket(new AllyCrest(id), data.length + 32));
+		client.sendPacket(packet);
+		allySent.increment();
+		allyBytes.add(packet.getSize());
+	}
+
 	public void removePledgeCrest(int id) {
 		File crestFile = new File(Config.DATAPACK_ROOT, Config.DATA_FOLDER + "crests/Crest_" + id + ".bmp");
 		mapPledge.remove(id);
+		pledgePackets.remove(id);
 		try {
 			crestFile.delete();
 		} catch (Exception e) {
@@ -191,6 +291,7 @@ public class CrestCache {
 	public void removePledgeCrestLarge(int id) {
 		File crestFile = new File(Config.DATAPACK_ROOT, Config.DATA_FOLDER + "crests/Crest_Large_" + id + ".bmp");
 		mapPledgeLarge.remove(id);
+		pledgeLargePackets.remove(id);
 		try {
 			crestFile.delete();
 		} catch (Exception e) {
@@ -210,6 +311,7 @@ public class CrestCache {
 	public void removeAllyCrest(int id) {
 		File crestFile = new File(Config.DATAPACK_ROOT, Config.DATA_FOLDER + "crests/AllyCrest_" + id + ".bmp");
 		mapAlly.remove(id);
+		allyPackets.remove(id);
 		try {
 			crestFile.delete();
 		} catch (Exception e) {
@@ -224,6 +326,7 @@ public class CrestCache {
 			out = new FileOutputStream(crestFile);
 			out.write(data);
 			mapPledge.put(newId, data);
+			pledgePackets.remove(newId);
 			return true;
 		} catch (IOException e) {
 			log.info("Error saving pledge crest" + crestFile + ":", e);
@@ -249,6 +352,7 @@ public class CrestCache {
 			}
 			array[subId] = data;
 			mapPledgeLarge.put(newId, array);
+			pledgeLargePackets.remove(newId);
 			return true;
 		} catch (IOException e) {
 			log.info("Error saving Large pledge crest" + crestFile + ":", e);
@@ -269,6 +373,7 @@ public class CrestCache {
 			out = new FileOutputStream(crestFile);
 			out.write(data);
 			mapAlly.put(newId, data);
+			allyPackets.remove(newId);
 			return true;
 		} catch (IOException e) {
 			log.info("Error saving ally crest" + crestFile + ":", e);
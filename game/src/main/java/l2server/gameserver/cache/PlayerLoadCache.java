@@ -0,0 +1,309 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package l2server.gameserver.cache;
+
+import l2server.Config;
+import l2server.DatabasePool;
+import l2server.gameserver.Shutdown;
+import l2server.gameserver.ThreadPoolManager;
+import l2server.gameserver.model.World;
+import l2server.util.metrics.MetricsRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.rowset.CachedRowSet;
+import javax.sql.rowset.RowSetFactory;
+import javax.sql.rowset.RowSetProvider;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps the results of the character load queries of the characters sent back to the character selection for
+ * CHAR_LOAD_CACHE_TIME seconds, so that a character switch restores them without database round trips.<BR>
+ * Only the sections owned by the character itself (subclasses, skills, macros, shortcuts, hennas, bookmarks, recipes, UI settings)
+ * go through this cache, whatever writes them while the character is offline must {@link #invalidate(int)} it.
+ * The queries run during the load are recorded, run again once the character has been stored on restart, and their results
+ * are consumed by the next load. A real logout doesn't fetch anything, the record is dropped by the cleanup task.
+ *
+ * @see #query(Connection, int, String, Object...)
+ */
+public final class PlayerLoadCache {
+	private static Logger log = LoggerFactory.getLogger(PlayerLoadCache.class.getName());
+
+	private final Map<Integer, CachedCharacter> characters = new ConcurrentHashMap<>();
+	private final RowSetFactory rowSetFactory;
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+
+	public static PlayerLoadCache getInstance() {
+		return SingletonHolder.instance;
+	}
+
+	private PlayerLoadCache() {
+		RowSetFactory factory = null;
+		try {
+			factory = RowSetProvider.newFactory();
+		} catch (SQLException e) {
+			log.error("PlayerLoadCache: could not create the row set factory.", e);
+		}
+		rowSetFactory = factory;
+
+		if (Config.CHAR_LOAD_CACHE_TIME > 0) {
+			ThreadPoolManager.getInstance().scheduleGeneralAtFixedRate(new CleanupTask(), 60000, 60000);
+		}
+
+		final MetricsRegistry metrics = MetricsRegistry.getInstance();
+		metrics.counter("l2_char_load_cache_queries_total", "Character load queries", hits::sum, "result", "hit");
+		metrics.counter("l2_char_load_cache_queries_total", "Character load queries", misses::sum, "result", "miss");
+		metrics.gauge("l2_char_load_cache_characters", "Logged out characters with cached load data", this::getCachedCount);
+	}
+
+	/**
+	 * Called before loading the character, starts recording its load queries.
+	 */
+	public void onLoadStart(int charId) {
+		if (Config.CHAR_LOAD_CACHE_TIME <= 0 || rowSetFactory == null) {
+			return;
+		}
+
+		final CachedCharacter character = characters.computeIfAbsent(charId, k -> new CachedCharacter());
+		synchronized (character) {
+			character.loading = true;
+			character.queries.clear();
+		}
+	}
+
+	/**
+	 * Runs a select of the character load, or returns its cached result if the character restarted recently.
+	 * Only the returned ResultSet must be closed by the caller, it closes its statement.
+	 *
+	 * @param charId the character being loaded
+	 * @param params the statement parameters, in order
+	 */
+	public ResultSet query(Connection con, int charId, String sql, Object... params) throws SQLException {
+		final QueryKey key = new QueryKey(sql, params);
+		final CachedCharacter character = characters.get(charId);
+		if (character != null) {
+			synchronized (character) {
+				if (character.loading) {
+					character.queries.add(key);
+					final CachedRowSet cached = character.results == null ? null : character.results.get(key);
+					if (cached != null && character.expireTime > System.currentTimeMillis()) {
+						hits.increment();
+						return cached.createCopy();
+					}
+				}
+			}
+		}
+
+		misses.increment();
+		final PreparedStatement statement = prepare(con, key);
+		try {
+			return closingStatement(statement.executeQuery(), statement);
+		} catch (SQLException | RuntimeException e) {
+			statement.close();
+			throw e;
+		}
+	}
+
+	private static PreparedStatement prepare(Connection con, QueryKey key) throws SQLException {
+		final PreparedStatement statement = con.prepareStatement(key.sql);
+		for (int i = 0; i < key.params.length; i++) {
+			statement.setObject(i + 1, key.params[i]);
+		}
+		return statement;
+	}
+
+	/**
+	 * @return the live ResultSet, closing its statement along with it
+	 */
+	private static ResultSet closingStatement(ResultSet rset, PreparedStatement statement) {
+		return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[]{ResultSet.class}, (p, method, args) -> {
+			try {
+				return method.invoke(rset, args);
+			} catch (InvocationTargetException e) {
+				throw e.getCause();
+			} finally {
+				if (method.getName().equals("close")) {
+					statement.close();
+				}
+			}
+		});
+	}
+
+	private CachedRowSet fetch(Connection con, QueryKey key) throws SQLException {
+		try (PreparedStatement statement = prepare(con, key); ResultSet rset = statement.executeQuery()) {
+			final CachedRowSet result = rowSetFactory.createCachedRowSet();
+			result.populate(rset);
+			return result;
+		}
+	}
+
+	/**
+	 * Called once the character has been loaded: the cached results have been used and become stale as soon as the character plays.
+	 */
+	public void onLoaded(int charId) {
+		final CachedCharacter character = characters.get(charId);
+		if (character == null) {
+			return;
+		}
+
+		synchronized (character) {
+			character.loading = false;
+			character.results = null;
+			character.generation++;
+			character.lastLoad = System.currentTimeMillis();
+		}
+	}
+
+	/**
+	 * Called once the character sent back to the character selection has been stored, fetches the current result of the
+	 * queries of its load.
+	 */
+	public void onRestart(int charId) {
+		final CachedCharacter character = characters.get(charId);
+		if (character == null) {
+			return;
+		}
+
+		if (Config.CHAR_LOAD_CACHE_TIME <= 0 || rowSetFactory == null || Shutdown.getInstance().isShuttingDown()) {
+			characters.remove(charId);
+			return;
+		}
+
+		final int generation;
+		final QueryKey[] keys;
+		synchronized (character) {
+			generation = character.generation;
+			keys = character.queries.toArray(new QueryKey[character.queries.size()]);
+		}
+
+		final Map<QueryKey, CachedRowSet> results = new HashMap<>();
+		DatabasePool.getInstance().pinConnection();
+		try {
+			final Connection con = DatabasePool.getInstance().getConnection();
+			for (QueryKey key : keys) {
+				results.put(key, fetch(con, key));
+			}
+		} catch (SQLException e) {
+			log.warn("PlayerLoadCache: could not cache the data of character " + charId + ": " + e.getMessage(), e);
+			characters.remove(charId);
+			return;
+		} finally {
+			DatabasePool.getInstance().unpinConnection();
+		}
+
+		synchronized (character) {
+			// Loaded again meanwhile, the results may already be outdated
+			if (character.generation != generation) {
+				return;
+			}
+
+			character.results = results;
+			character.expireTime = System.currentTimeMillis() + Config.CHAR_LOAD_CACHE_TIME * 1000L;
+		}
+	}
+
+	/**
+	 * Drops the cached data of a character modified while offline (deletion, GM edition...).
+	 */
+	public void invalidate(int charId) {
+		characters.remove(charId);
+	}
+
+	public int getCachedCount() {
+		int count = 0;
+		for (CachedCharacter character : characters.values()) {
+			if (character.results != null) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	private static final class CachedCharacter {
+		private final Set<QueryKey> queries = new LinkedHashSet<>();
+		private volatile Map<QueryKey, CachedRowSet> results;
+		private long expireTime;
+		private long lastLoad = System.currentTimeMillis();
+		private int generation;
+		private boolean loading;
+	}
+
+	private static final class QueryKey {
+		private final String sql;
+		private final Object[] params;
+		private final int hashCode;
+
+		private QueryKey(String sql, Object[] params) {
+			this.sql = sql;
+			this.params = params;
+			hashCode = sql.hashCode() * 31 + Arrays.hashCode(params);
+		}
+
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof QueryKey)) {
+				return false;
+			}
+
+			final QueryKey key = (QueryKey) o;
+			return sql.equals(key.sql) && Arrays.equals(params, key.params);
+		}
+	}
+
+	private class CleanupTask implements Runnable {
+		@Override
+		public void run() {
+			final long now = System.currentTimeMillis();
+			final long cacheTime = Config.CHAR_LOAD_CACHE_TIME * 1000L;
+			for (Map.Entry<Integer, CachedCharacter> entry : characters.entrySet()) {
+				final CachedCharacter character = entry.getValue();
+				synchronized (character) {
+					if (character.results != null) {
+						if (character.expireTime < now) {
+							characters.remove(entry.getKey());
+						}
+					}
+					// Loaded without ever being logged in the world (rankings, offline commands...)
+					else if (now - character.lastLoad > cacheTime && World.getInstance().getPlayer(entry.getKey()) == null) {
+						characters.remove(entry.getKey());
+					}
+				}
+			}
+		}
+	}
+
+	private static class SingletonHolder {
+		protected static final PlayerLoadCache instance = new PlayerLoadCache();
+	}
+}
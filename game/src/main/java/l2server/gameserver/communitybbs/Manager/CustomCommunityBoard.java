@@ -4,6 +4,7 @@ import l2server.Config;
 import l2server.DatabasePool;
 import l2server.gameserver.Ranked1v1;
 import l2server.gameserver.cache.HtmCache;
+import l2server.gameserver.datatables.CharNameTable;
 import l2server.gameserver.datatables.ClanTable;
 import l2server.gameserver.datatables.NpcTable;
 import l2server.gameserver.datatables.NpcTable.DropChances;
@@ -1086,26 +1087,7 @@ public class CustomCommunityBoard {
 	}
 
 	public int getRankedPoints(Player player) {
-		Connection get = null;
-
-		try {
-			get = DatabasePool.getInstance().getConnection();
-			PreparedStatement statement = get.prepareStatement("SELECT rankedPoints FROM characters WHERE charId = ?");
-			statement.setInt(1, player.getObjectId());
-			ResultSet rset = statement.executeQuery();
-
-			if (rset.next()) {
-				int currentPoints = rset.getInt("rankedPoints");
-				return (currentPoints);
-			}
-			rset.close();
-			statement.close();
-		} catch (Exception e) {
-			log.warn("Couldn't get current ranked points : " + e.getMessage(), e);
-		} finally {
-			DatabasePool.close(get);
-		}
-		return 0;
+		return LeaderboardManager.getInstance().getRankedPoints(player.getObjectId());
 	}
 
 	private String getCustomBuyPage(int pageToShow, int type, Player player) {
@@ -1217,41 +1199,24 @@ public class CustomCommunityBoard {
 		sb.append("<table align=center><tr><td align=center FIXWIDTH=5%></td><td align=center FIXWIDTH=60%>TOP 10</td><td></td></tr></table>");
 		sb.append("<table align=center bgcolor=3333333><tr>" + "<td align=center FIXWIDTH=60%>N°</td>" + "<td align=center FIXWIDTH=60%>Name</td>" +
 				"<td align=center FIXWIDTH=60%>Points</td>" + "</tr></table><br>");
-		Connection get = null;
 		int n = 1;
-		try {
-			get = DatabasePool.getInstance().getConnection();
-			PreparedStatement statement = get.prepareStatement(
-					"SELECT rankedPoints,char_name, charId FROM characters WHERE rankedPoints>0 order by rankedPoints desc limit 10");
-			ResultSet rset = statement.executeQuery();
-			while (rset.next()) {
-
-				String id = rset.getString("charId");
-				Integer x = Integer.valueOf(id);
-
-				if (n % 2 == 1) {
-					sb.append("<table  bgcolor=999999><tr>");
-				} else {
-					sb.append("<table ><tr>");
-				}
-				sb.append("" + "<td align=center FIXWIDTH=60% >" + n + "</td>" + "<td align=center FIXWIDTH=60%>" + rset.getString("char_name") +
-						"</td>" + "<td align=center FIXWIDTH=60%>" + rset.getString("rankedPoints") + "</td>");
-				if (player.isGM()) {
-					sb.append("<td>" + "<button value=\"-\" width=20 height=20 action=\"bypass _bbscustom;action;gEvent;reduce;" + x + ";1\" " +
-							"fore=L2UI_CT1.Button_DF_Calculator back=L2UI_CT1.Button_DF_Calculator_Over></button>" + "</td></tr></table>");
-				} else {
-					sb.append("</tr></table>");
-				}
-
-				n++;
+		for (int x : LeaderboardManager.getInstance().getTopRanked(10)) {
+			if (n % 2 == 1) {
+				sb.append("<table  bgcolor=999999><tr>");
+			} else {
+				sb.append("<table ><tr>");
+			}
+			sb.append("" + "<td align=center FIXWIDTH=60% >" + n + "</td>" + "<td align=center FIXWIDTH=60%>" +
+					CharNameTable.getInstance().getNameById(x) + "</td>" + "<td align=center FIXWIDTH=60%>" +
+					LeaderboardManager.getInstance().getRankedPoints(x) + "</td>");
+			if (player.isGM()) {
+				sb.append("<td>" + "<button value=\"-\" width=20 height=20 action=\"bypass _bbscustom;action;gEvent;reduce;" + x + ";1\" " +
+						"fore=L2UI_CT1.Button_DF_Calculator back=L2UI_CT1.Button_DF_Calculator_Over></button>" + "</td></tr></table>");
+			} else {
+				sb.append("</tr></table>");
 			}
 
-			rset.close();
-			statement.close();
-		} catch (Exception e) {
-			log.warn("Couldn't get current ranked points : " + e.getMessage(), e);
-		} finally {
-			DatabasePool.close(get);
+			n++;
 		}
 
 		sb.append("</center><br><br></body></html>");
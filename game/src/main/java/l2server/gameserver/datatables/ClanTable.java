@@ -23,6 +23,7 @@ import l2server.gameserver.idfactory.IdFactory;
 import l2server.gameserver.instancemanager.CastleSiegeManager;
 import l2server.gameserver.instancemanager.FortManager;
 import l2server.gameserver.instancemanager.FortSiegeManager;
+import l2server.gameserver.instancemanager.LeaderboardManager;
 import l2server.gameserver.model.L2Clan;
 import l2server.gameserver.model.L2ClanMember;
 import l2server.gameserver.model.L2PledgeSkillLearn;
@@ -53,27 +54,15 @@ public class ClanTable {
 
 
 	
-	/**
-	 * Sorts by member count - descending
-	 */
-	class ClanByMemberCountComparator implements Comparator<L2Clan> {
-		@Override
-		public int compare(L2Clan o1, L2Clan o2) {
-			if (o1.getMembersCount() < o2.getMembersCount()) {
-				return -1;
-			} else if (o1.getMembersCount() > o2.getMembersCount()) {
-				return 1;
-			} else {
-				return 0;
-			}
-		}
-	}
 	private Map<Integer, L2Clan> clans = new HashMap<>();
 
 	// Tenkai custom - block recruiting if requesting clan is too big compared to others
-	private L2Clan[] topClansByMemberCount = new L2Clan[10];
-
 	public L2Clan[] getTopTenClansByMemberCount() {
+		final L2Clan[] topClansByMemberCount = new L2Clan[10];
+		final int[] clanIds = LeaderboardManager.getInstance().getTopClansByMemberCount(topClansByMemberCount.length);
+		for (int i = 0; i < clanIds.length; i++) {
+			topClansByMemberCount[i] = getClan(clanIds[i]);
+		}
 		return topClansByMemberCount;
 	}
 
@@ -124,22 +113,6 @@ public class ClanTable {
 		}
 		
 		allianceCheck();
-		
-		if (Config.isServer(Config.TENKAI)) {
-			ThreadPoolManager.getInstance().scheduleGeneralAtFixedRate(this::determineTopClansByMemberCount, 0, 3600000);
-		}
-	}
-	
-	private synchronized void determineTopClansByMemberCount() {
-		Comparator<L2Clan> byMemberCount = new ClanByMemberCountComparator();
-
-		ArrayList<L2Clan> sortedClans = new ArrayList<>(clans.values());
-		Collections.sort(sortedClans, byMemberCount);
-
-		List<L2Clan> temp = sortedClans.subList(0, Math.min(10, sortedClans.size()));
-		for (int i = 0; i < topClansByMemberCount.length && i < temp.size(); i++) {
-			topClansByMemberCount[i] = temp.get(i);
-		}
 	}
 
 	public L2Clan getClan(int clanId) {
@@ -292,6 +265,7 @@ public class ClanTable {
 		}
 
 		clans.remove(clanId);
+		LeaderboardManager.getInstance().onClanRemoved(clanId);
 		IdFactory.getInstance().releaseId(clanId);
 
 		Connection con = null;
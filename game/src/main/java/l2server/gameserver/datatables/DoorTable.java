@@ -16,6 +16,7 @@
 package l2server.gameserver.datatables;
 
 import l2server.Config;
+import l2server.gameserver.GeoDoorOverlay;
 import l2server.gameserver.idfactory.IdFactory;
 import l2server.gameserver.instancemanager.ClanHallManager;
 import l2server.gameserver.instancemanager.InstanceManager;
@@ -57,6 +58,7 @@ public class DoorTable {
 		doors.clear();
 		regions.clear();
 		groups.clear();
+		GeoDoorOverlay.getInstance().clear();
 		File file = new File(Config.DATAPACK_ROOT, Config.DATA_FOLDER + "doorData.xml");
 		XmlDocument doc = new XmlDocument(file);
 
@@ -162,6 +164,7 @@ public class DoorTable {
 
 	public void putDoor(DoorInstance door, int region) {
 		doors.put(door.getDoorId(), door);
+		GeoDoorOverlay.getInstance().updateDoor(door);
 
 		if (regions.containsKey(region)) {
 			regions.get(region).add(door);
@@ -185,45 +188,53 @@ public class DoorTable {
 	}
 
 	public boolean checkIfDoorsBetween(int x, int y, int z, int tx, int ty, int tz, int instanceId, boolean doubleFaceCheck) {
-		ArrayList<DoorInstance> allDoors;
-		if (instanceId > 0 && InstanceManager.getInstance().getInstance(instanceId) != null) {
-			allDoors = InstanceManager.getInstance().getInstance(instanceId).getDoors();
-		} else {
-			allDoors = regions.get(MapRegionTable.getInstance().getMapRegion(x, y));
+		if (instanceId <= 0 || InstanceManager.getInstance().getInstance(instanceId) == null) {
+			return GeoDoorOverlay.getInstance().checkIfDoorsBetween(x, y, z, tx, ty, tz, doubleFaceCheck);
 		}
 
+		final ArrayList<DoorInstance> allDoors = InstanceManager.getInstance().getInstance(instanceId).getDoors();
 		if (allDoors == null) {
 			return false;
 		}
 
 		for (DoorInstance doorInst : allDoors) {
-			//check dead and open
-			if (doorInst.isDead() || doorInst.getOpen() || !doorInst.checkCollision() || doorInst.getX(0) == 0) {
-				continue;
+			if (isDoorBetween(doorInst, x, y, z, tx, ty, tz, doubleFaceCheck)) {
+				return true;
 			}
+		}
+		return false;
+	}
 
-			boolean intersectFace = false;
-			for (int i = 0; i < 4; i++) {
-				int j = i + 1 < 4 ? i + 1 : 0;
-				// lower part of the multiplier fraction, if it is 0 we avoid an error and also know that the lines are parallel
-				int denominator = (ty - y) * (doorInst.getX(i) - doorInst.getX(j)) - (tx - x) * (doorInst.getY(i) - doorInst.getY(j));
-				if (denominator == 0) {
-					continue;
-				}
+	/**
+	 * @return true if the door is closed and the segment crosses it
+	 */
+	public static boolean isDoorBetween(DoorInstance doorInst, int x, int y, int z, int tx, int ty, int tz, boolean doubleFaceCheck) {
+		//check dead and open
+		if (doorInst.isDead() || doorInst.getOpen() || !doorInst.checkCollision() || doorInst.getX(0) == 0) {
+			return false;
+		}
+
+		boolean intersectFace = false;
+		for (int i = 0; i < 4; i++) {
+			int j = i + 1 < 4 ? i + 1 : 0;
+			// lower part of the multiplier fraction, if it is 0 we avoid an error and also know that the lines are parallel
+			int denominator = (ty - y) * (doorInst.getX(i) - doorInst.getX(j)) - (tx - x) * (doorInst.getY(i) - doorInst.getY(j));
+			if (denominator == 0) {
+				continue;
+			}
 
-				// multipliers to the equations of the lines. If they are lower than 0 or bigger than 1, we know that segments don't intersect
-				float multiplier1 = (float) ((doorInst.getX(j) - doorInst.getX(i)) * (y - doorInst.getY(i)) -
-						(doorInst.getY(j) - doorInst.getY(i)) * (x - doorInst.getX(i))) / denominator;
-				float multiplier2 = (float) ((tx - x) * (y - doorInst.getY(i)) - (ty - y) * (x - doorInst.getX(i))) / denominator;
-				if (multiplier1 >= 0 && multiplier1 <= 1 && multiplier2 >= 0 && multiplier2 <= 1) {
-					int intersectZ = Math.round(z + multiplier1 * (tz - z));
-					// now checking if the resulting point is between door's min and max z
-					if (intersectZ > doorInst.getZMin() && intersectZ < doorInst.getZMax()) {
-						if (!doubleFaceCheck || intersectFace) {
-							return true;
-						}
-						intersectFace = true;
+			// multipliers to the equations of the lines. If they are lower than 0 or bigger than 1, we know that segments don't intersect
+			float multiplier1 = (float) ((doorInst.getX(j) - doorInst.getX(i)) * (y - doorInst.getY(i)) -
+					(doorInst.getY(j) - doorInst.getY(i)) * (x - doorInst.getX(i))) / denominator;
+			float multiplier2 = (float) ((tx - x) * (y - doorInst.getY(i)) - (ty - y) * (x - doorInst.getX(i))) / denominator;
+			if (multiplier1 >= 0 && multiplier1 <= 1 && multiplier2 >= 0 && multiplier2 <= 1) {
+				int intersectZ = Math.round(z + multiplier1 * (tz - z));
+				// now checking if the resulting point is between door's min and max z
+				if (intersectZ > doorInst.getZMin() && intersectZ < doorInst.getZMax()) {
+					if (!doubleFaceCheck || intersectFace) {
+						return true;
 					}
+					intersectFace = true;
 				}
 			}
 		}
@@ -141,7 +141,8 @@ public class GlobalDropTable {
 
 	private static GlobalDropTable instance;
 
-	private static List<GlobalDropCategory> globalDropCategories = new ArrayList<>();
+	// Replaced on reload, so that the drop tables compiled from the previous list can tell they are outdated
+	private static volatile List<GlobalDropCategory> globalDropCategories = new ArrayList<>();
 
 	ScheduledFuture<?> resetSchedule = null;
 
@@ -159,7 +160,7 @@ public class GlobalDropTable {
 	@Reload("globaldrops")
 	@Load
 	public boolean load() {
-		globalDropCategories.clear();
+		List<GlobalDropCategory> categories = new ArrayList<>();
 		File file = new File(Config.DATAPACK_ROOT, Config.DATA_FOLDER + "globalDrops.xml");
 		XmlDocument doc = new XmlDocument(file);
 
@@ -183,9 +184,10 @@ public class GlobalDropTable {
 						drop.addItem(itemId);
 					}
 				}
-				globalDropCategories.add(drop);
+				categories.add(drop);
 			}
 		}
+		globalDropCategories = categories;
 
 		if (resetSchedule != null) {
 			resetSchedule.cancel(false);
@@ -2,17 +2,23 @@ package l2server.gameserver.datatables;
 
 import gov.nasa.worldwind.formats.dds.DDSConverter;
 import l2server.Config;
-import l2server.gameserver.model.actor.instance.Player;
+import l2server.gameserver.network.L2GameClient;
 import l2server.gameserver.network.serverpackets.PledgeCrest;
+import l2server.gameserver.network.serverpackets.SerializedPacket;
 import l2server.util.loader.annotations.Load;
+import l2server.util.metrics.MetricsRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
+ * Custom images, shown in the htmls as pledge crests.<BR>
+ * An image is only sent to a client when an html it receives shows it, and only once per session.
+ *
  * @author Pere
  */
 public class ImageTable {
@@ -21,7 +27,14 @@ public class ImageTable {
 
 	private static ImageTable instance;
 
-	private static Map<Integer, PledgeCrest> images = new HashMap<>();
+	private static final String IMAGE_PREFIX = "Crest.pledge_crest_";
+
+	private static Map<Integer, SerializedPacket> images = new HashMap<>();
+
+	private final LongAdder sent = new LongAdder();
+	private final LongAdder sentBytes = new LongAdder();
+	private final LongAdder skipped = new LongAdder();
+	private final LongAdder skippedBytes = new LongAdder();
 
 	public static ImageTable getInstance() {
 		if (instance == null) {
@@ -32,6 +45,12 @@ public class ImageTable {
 	}
 
 	private ImageTable() {
+		final MetricsRegistry metrics = MetricsRegistry.getInstance();
+		metrics.counter("l2_crest_packets_total", "Crest and image packets sent", sent::sum, "type", "image");
+		metrics.counter("l2_crest_bytes_total", "Bytes of the crest and image packets sent", sentBytes::sum, "type", "image");
+		metrics.counter("l2_image_pushes_skipped_total", "Images shown by an html which the client already had", skipped::sum);
+		metrics.counter("l2_image_bytes_skipped_total", "Bytes of the images shown by an html which the client already had", skippedBytes::sum);
+		metrics.gauge("l2_image_bytes", "Bytes of all the custom images, formerly sent on every login", this::getTotalSize);
 	}
 
 	@Load
@@ -52,7 +71,7 @@ public class ImageTable {
 
 				id = Integer.valueOf(imgName.substring(0, imgName.length() - 4));
 				byte[] array = DDSConverter.convertToDDS(image).array();
-				images.put(id, new PledgeCrest(id, array));
+				images.put(id, new SerializedPacket(new PledgeCrest(id, array), array.length + 32));
 			}
 		} catch (Exception e) {
 			log.warn("Image table: error loading image id " + id + ": " + e);
@@ -70,7 +89,7 @@ public class ImageTable {
 				}
 				id = Integer.valueOf(image.getName().substring(0, image.getName().length() - 4));
 				byte[] array = DDSConverter.convertToDDS(image).array();
-				images.put(id, new PledgeCrest(id, array));
+				images.put(id, new SerializedPacket(new PledgeCrest(id, array), array.length + 32));
 			}
 		} catch (Exception e) {
 			log.warn("Image table: error loading image id " + id + ": " + e);
@@ -80,11 +99,66 @@ public class ImageTable {
 		log.info("ImageTable: Loaded " + images.size() + " custom images.");
 	}
 
-	public void sendImages(Player player) {
-		for (int imageId : images.keySet()) {
-			if (images.get(imageId) != null) {
-				player.sendPacket(images.get(imageId));
+	public SerializedPacket getImage(int id) {
+		return images.get(id);
+	}
+
+	private double getTotalSize() {
+		long size = 0;
+		for (SerializedPacket image : images.values()) {
+			size += image.getSize();
+		}
+		return size;
+	}
+
+	/**
+	 * Sends the images shown by an html which the client doesn't have yet.
+	 *
+	 * @param html an html with images such as Crest.pledge_crest_[server id]_[image id]
+	 */
+	public void sendImages(L2GameClient client, String html) {
+		if (images.isEmpty()) {
+			return;
+		}
+
+		int index = html.indexOf(IMAGE_PREFIX);
+		while (index >= 0) {
+			// Skip the server id
+			int end = html.indexOf('_', index + IMAGE_PREFIX.length()) + 1;
+			if (end == 0) {
+				break;
+			}
+
+			int id = 0;
+			int digits = 0;
+			while (end < html.length() && digits < 9 && Character.isDigit(html.charAt(end))) {
+				id = id * 10 + html.charAt(end) - '0';
+				digits++;
+				end++;
+			}
+
+			if (digits > 0) {
+				sendImage(client, id);
 			}
+
+			index = html.indexOf(IMAGE_PREFIX, end);
+		}
+	}
+
+	private void sendImage(L2GameClient client, int id) {
+		final SerializedPacket image = images.get(id);
+		if (image == null) {
+			return;
 		}
+
+		if (!client.addKnownCrest(id)) {
+			skipped.increment();
+			skippedBytes.add(image.getSize());
+			return;
+		}
+
+		client.sendPacket(image);
+		sent.increment();
+		sentBytes.add(image.getSize());
 	}
 }
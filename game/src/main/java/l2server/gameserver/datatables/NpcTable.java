@@ -91,6 +91,7 @@ public class NpcTable {
 						dc.getAllDrops().remove(dd);
 					}
 				}
+				npc.invalidateDrops();
 			}
 		}
 		
@@ -19,6 +19,7 @@ import l2server.Config
 import l2server.DatabasePool
 import l2server.gameserver.LoginServerThread
 import l2server.gameserver.Server
+import l2server.gameserver.ThreadPoolManager
 import l2server.gameserver.model.L2ManufactureItem
 import l2server.gameserver.model.L2ManufactureList
 import l2server.gameserver.model.World
@@ -28,7 +29,9 @@ import l2server.gameserver.network.L2GameClient.GameClientState
 import l2server.util.loader.annotations.Load
 import org.slf4j.LoggerFactory
 import java.sql.Connection
+import java.sql.PreparedStatement
 import java.util.*
+import java.util.concurrent.ConcurrentHashMap
 
 object OfflineTradersTable {
 
@@ -38,40 +41,37 @@ object OfflineTradersTable {
     private const val SAVE_OFFLINE_STATUS = "INSERT INTO character_offline_trade (`charId`,`time`,`type`,`title`) VALUES (?,?,?,?)"
     private const val SAVE_ITEMS = "INSERT INTO character_offline_trade_items (`charId`,`item`,`count`,`price`) VALUES (?,?,?,?)"
     private const val SAVE_PRICES = "INSERT INTO character_offline_trade_item_prices (`charId`,`item`,`priceId`,`count`) VALUES (?,?,?,?)"
-    private const val CLEAR_OFFLINE_TABLE = "DELETE FROM character_offline_trade"
-    private const val CLEAR_OFFLINE_TABLE_ITEMS = "DELETE FROM character_offline_trade_items"
-    private const val CLEAR_OFFLINE_TABLE_PRICES = "DELETE FROM character_offline_trade_item_prices"
+    private const val DELETE_OFFLINE_TRADER = "DELETE FROM character_offline_trade WHERE charId=?"
+    private const val DELETE_OFFLINE_TRADER_ITEMS = "DELETE FROM character_offline_trade_items WHERE charId=?"
+    private const val DELETE_OFFLINE_TRADER_PRICES = "DELETE FROM character_offline_trade_item_prices WHERE charId=?"
     private const val LOAD_OFFLINE_STATUS = "SELECT * FROM character_offline_trade"
-    private const val LOAD_OFFLINE_ITEMS = "SELECT * FROM character_offline_trade_items WHERE charId = ?"
-    private const val LOAD_OFFLINE_PRICES = "SELECT * FROM character_offline_trade_item_prices WHERE charId = ? AND item = ?"
+    private const val LOAD_OFFLINE_ITEMS = "SELECT * FROM character_offline_trade_items"
+    private const val LOAD_OFFLINE_PRICES = "SELECT * FROM character_offline_trade_item_prices"
 
+    /**
+     * The traders read on start and not restored yet, their rows stay in the tables until they are
+     */
+    private val pendingTraders: MutableMap<Int, OfflineTrader> = ConcurrentHashMap()
+
+    /**
+     * Stores the traders in the world. The rows of the traders not restored yet since the start are kept.
+     */
     fun storeOffliners() {
         var con: Connection? = null
         try {
 			con = DatabasePool.getInstance().connection
-            var stm = con!!.prepareStatement(CLEAR_OFFLINE_TABLE)
-            stm.execute()
-            stm.close()
-            stm = con.prepareStatement(CLEAR_OFFLINE_TABLE_ITEMS)
-            stm.execute()
-            stm.close()
-            stm = con.prepareStatement(CLEAR_OFFLINE_TABLE_PRICES)
-            stm.execute()
-            stm.close()
-
-            stm = con.prepareStatement(SAVE_OFFLINE_STATUS)
+            // All the rows are sent as batches, the traders are written once all of them have been read
+            var stm = con!!.prepareStatement(SAVE_OFFLINE_STATUS)
             val stm_items = con.prepareStatement(SAVE_ITEMS)
             val stm_prices = con.prepareStatement(SAVE_PRICES)
 
-            //StringBuilder items = StringBuilder.newInstance();
+            var nTraders = 0
+            val storedIds = ArrayList<Int>()
             val checkInactiveStores = Config.isServer(Config.TENKAI) && System.currentTimeMillis() - Server.dateTimeServerStarted.timeInMillis > 36000000
             loop@for (pc in World.getInstance().allPlayers.values) {
                 try {
                     if (pc.privateStoreType != Player.STORE_PRIVATE_NONE && (pc.client == null || pc.client.isDetached) &&
                             (!checkInactiveStores || pc.hadStoreActivity())) {
-                        stm.setInt(1, pc.objectId) //Char Id
-                        stm.setLong(2, pc.offlineStartTime)
-                        stm.setInt(3, pc.privateStoreType) //store type
                         var title: String? = null
 
                         when (pc.privateStoreType) {
@@ -81,12 +81,7 @@ object OfflineTradersTable {
                                 }
                                 title = pc.buyList.title
                                 for (i in pc.buyList.items) {
-                                    stm_items.setInt(1, pc.objectId)
-                                    stm_items.setInt(2, i.item.itemId)
-                                    stm_items.setLong(3, i.count)
-                                    stm_items.setLong(4, i.price)
-                                    stm_items.executeUpdate()
-                                    stm_items.clearParameters()
+                                    addItem(stm_items, pc.objectId, i.item.itemId, i.count, i.price)
                                 }
                             }
                             Player.STORE_PRIVATE_SELL, Player.STORE_PRIVATE_PACKAGE_SELL -> {
@@ -95,12 +90,7 @@ object OfflineTradersTable {
                                 }
                                 title = pc.sellList.title
                                 for (i in pc.sellList.items) {
-                                    stm_items.setInt(1, pc.objectId)
-                                    stm_items.setInt(2, i.objectId)
-                                    stm_items.setLong(3, i.count)
-                                    stm_items.setLong(4, i.price)
-                                    stm_items.executeUpdate()
-                                    stm_items.clearParameters()
+                                    addItem(stm_items, pc.objectId, i.objectId, i.count, i.price)
                                 }
                             }
                             Player.STORE_PRIVATE_MANUFACTURE -> {
@@ -109,12 +99,7 @@ object OfflineTradersTable {
                                 }
                                 title = pc.createList.storeName
                                 for (i in pc.createList.list) {
-                                    stm_items.setInt(1, pc.objectId)
-                                    stm_items.setInt(2, i.recipeId)
-                                    stm_items.setLong(3, 0)
-                                    stm_items.setLong(4, i.cost)
-                                    stm_items.executeUpdate()
-                                    stm_items.clearParameters()
+                                    addItem(stm_items, pc.objectId, i.recipeId, 0, i.cost)
                                 }
                             }
                             Player.STORE_PRIVATE_CUSTOM_SELL -> {
@@ -123,28 +108,25 @@ object OfflineTradersTable {
                                 }
                                 title = pc.customSellList.title
                                 for (i in pc.customSellList.items) {
-                                    stm_items.setInt(1, pc.objectId)
-                                    stm_items.setInt(2, i.objectId)
-                                    stm_items.setLong(3, i.count)
-                                    stm_items.setLong(4, 0)
-                                    stm_items.executeUpdate()
-                                    stm_items.clearParameters()
-
-                                    for (priceItem in i.priceItems.keys) {
-                                        val count = i.priceItems[priceItem]!!
+                                    addItem(stm_items, pc.objectId, i.objectId, i.count, 0)
+
+                                    for ((priceItem, count) in i.priceItems) {
                                         stm_prices.setInt(1, pc.objectId)
                                         stm_prices.setInt(2, i.objectId)
                                         stm_prices.setInt(3, priceItem.itemId)
                                         stm_prices.setLong(4, count)
-                                        stm_prices.executeUpdate()
-                                        stm_prices.clearParameters()
+                                        stm_prices.addBatch()
                                     }
                                 }
                             }
                         }
+                        stm.setInt(1, pc.objectId) //Char Id
+                        stm.setLong(2, pc.offlineStartTime)
+                        stm.setInt(3, pc.privateStoreType) //store type
                         stm.setString(4, title)
-                        stm.executeUpdate()
-                        stm.clearParameters()
+                        stm.addBatch()
+                        storedIds.add(pc.objectId)
+                        nTraders++
                     }
                 } catch (e: Exception) {
                     log.warn(
@@ -153,10 +135,14 @@ object OfflineTradersTable {
                 }
 
             }
+            deleteTraders(con, storedIds)
+            stm_items.executeBatch()
+            stm_prices.executeBatch()
+            stm.executeBatch()
             stm.close()
             stm_items.close()
             stm_prices.close()
-            log.info("Offline traders stored.")
+            log.info("$nTraders offline traders stored.")
         } catch (e: Exception) {
             log.warn("OfflineTradersTable[storeTradeItems()]: Error while saving offline traders: $e", e)
         } finally {
@@ -164,6 +150,56 @@ object OfflineTradersTable {
         }
     }
 
+    /**
+     * Deletes the rows of these traders from the three tables, in batches.
+     */
+    private fun deleteTraders(con: Connection, charIds: Collection<Int>) {
+        if (charIds.isEmpty()) {
+            return
+        }
+
+        for (sql in arrayOf(DELETE_OFFLINE_TRADER, DELETE_OFFLINE_TRADER_ITEMS, DELETE_OFFLINE_TRADER_PRICES)) {
+            con.prepareStatement(sql).use { stm ->
+                for (charId in charIds) {
+                    stm.setInt(1, charId)
+                    stm.addBatch()
+                }
+                stm.executeBatch()
+            }
+        }
+    }
+
+    /**
+     * Called when the character is selected to log in: its offline shop is not restored anymore. If it is being restored,
+     * waits until it is in the world, so that it is found there as a double login.
+     */
+    fun onCharacterSelected(charId: Int) {
+        val trader = pendingTraders[charId] ?: return
+        synchronized(trader) {
+            if (!pendingTraders.remove(charId, trader)) {
+                return
+            }
+        }
+
+        var con: Connection? = null
+        try {
+			con = DatabasePool.getInstance().connection
+            deleteTraders(con!!, listOf(charId))
+        } catch (e: Exception) {
+            log.warn("OfflineTradersTable: Error while deleting the offline shop of $charId: $e", e)
+        } finally {
+			DatabasePool.close(con)
+        }
+    }
+
+    private fun addItem(stm: PreparedStatement, charId: Int, item: Int, count: Long, price: Long) {
+        stm.setInt(1, charId)
+        stm.setInt(2, item)
+        stm.setLong(3, count)
+        stm.setLong(4, price)
+        stm.addBatch()
+    }
+
     @Load(dependencies = [World::class, ItemTable::class])
     fun restoreOfflineTraders() {
         if (!(((Config.OFFLINE_TRADE_ENABLE || Config.OFFLINE_CRAFT_ENABLE) && Config.RESTORE_OFFLINERS))) {
@@ -173,134 +209,219 @@ object OfflineTradersTable {
         log.info("Loading offline traders...")
 
         val restoreThread = Thread {
-            var con: Connection? = null
-            var nTraders = 0
+            val traders = loadOfflineTraders()
+            if (traders.isNotEmpty()) {
+                RestoreTask(traders, System.nanoTime()).run()
+            }
+        }
+        restoreThread.priority = Thread.MIN_PRIORITY
+		restoreThread.name = "offt"
+        restoreThread.start()
+    }
+
+    /**
+     * Reads the whole offline trade tables with one query each, the stores are then joined in memory.
+     * The rows of the expired stores are deleted, the others once their trader is restored.
+     */
+    private fun loadOfflineTraders(): List<OfflineTrader> {
+        val traders = LinkedHashMap<Int, OfflineTrader>()
+        val expired = ArrayList<Int>()
+        var con: Connection? = null
+        try {
+			con = DatabasePool.getInstance().connection
+            var stm = con!!.prepareStatement(LOAD_OFFLINE_STATUS)
+            var rs = stm.executeQuery()
+            while (rs.next()) {
+                val time = rs.getLong("time")
+                if (Config.OFFLINE_MAX_DAYS > 0) {
+                    val cal = Calendar.getInstance()
+                    cal.timeInMillis = time
+                    cal.add(Calendar.DAY_OF_YEAR, Config.OFFLINE_MAX_DAYS)
+                    if (cal.timeInMillis <= System.currentTimeMillis()) {
+                        expired.add(rs.getInt("charId"))
+                        continue
+                    }
+                }
+
+                val type = rs.getInt("type")
+                if (type == Player.STORE_PRIVATE_NONE) {
+                    expired.add(rs.getInt("charId"))
+                    continue
+                }
+
+                val charId = rs.getInt("charId")
+                traders[charId] = OfflineTrader(charId, time, type, rs.getString("title"))
+            }
+            rs.close()
+            stm.close()
+
+            stm = con.prepareStatement(LOAD_OFFLINE_ITEMS)
+            rs = stm.executeQuery()
+            while (rs.next()) {
+                traders[rs.getInt("charId")]?.items?.add(OfflineTradeItem(rs.getInt("item"), rs.getLong("count"), rs.getLong("price")))
+            }
+            rs.close()
+            stm.close()
+
+            stm = con.prepareStatement(LOAD_OFFLINE_PRICES)
+            rs = stm.executeQuery()
+            while (rs.next()) {
+                val trader = traders[rs.getInt("charId")] ?: continue
+                trader.prices.getOrPut(rs.getInt("item")) { ArrayList() }.add(longArrayOf(rs.getLong("priceId"), rs.getLong("count")))
+            }
+            rs.close()
+            stm.close()
+
+            deleteTraders(con, expired)
+        } catch (e: Exception) {
+            log.warn("OfflineTradersTable[loadOffliners()]: Error while loading offline traders: ", e)
+        } finally {
+			DatabasePool.close(con)
+        }
+        pendingTraders.putAll(traders)
+        return ArrayList(traders.values)
+    }
+
+    /**
+     * Restores the trader unless its character was selected to log in meanwhile, see [onCharacterSelected].
+     */
+    private fun restoreOfflineTrader(trader: OfflineTrader): Boolean {
+        synchronized(trader) {
+            if (pendingTraders[trader.charId] !== trader) {
+                return false
+            }
 
-            val startTime = System.nanoTime()
             try {
-				con = DatabasePool.getInstance().connection
-                var stm = con!!.prepareStatement(LOAD_OFFLINE_STATUS)
-                val rs = stm.executeQuery()
-                while (rs.next()) {
-                    val time = rs.getLong("time")
-                    if (Config.OFFLINE_MAX_DAYS > 0) {
-                        val cal = Calendar.getInstance()
-                        cal.timeInMillis = time
-                        cal.add(Calendar.DAY_OF_YEAR, Config.OFFLINE_MAX_DAYS)
-                        if (cal.timeInMillis <= System.currentTimeMillis()) {
-                            continue
+                return restoreOfflineTraderInWorld(trader)
+            } finally {
+                pendingTraders.remove(trader.charId, trader)
+            }
+        }
+    }
+
+    private fun restoreOfflineTraderInWorld(trader: OfflineTrader): Boolean {
+        // Logged in before the stores were read
+        if (World.getInstance().getPlayer(trader.charId) != null) {
+            return false
+        }
+
+        var player: Player? = null
+        try {
+            val client = L2GameClient(null)
+            client.isDetached = true
+            player = Player.load(trader.charId)
+            client.activeChar = player
+            player!!.setOnlineStatus(true, false)
+            client.accountName = player.accountNamePlayer
+            client.state = GameClientState.IN_GAME
+            player.client = client
+            player.offlineStartTime = trader.time
+            player.spawnMe(player.x, player.y, player.z)
+            LoginServerThread.getInstance().addGameServerLogin(player.accountName, client)
+
+            when (trader.type) {
+                Player.STORE_PRIVATE_BUY -> {
+                    for (item in trader.items) {
+                        if (player.buyList.addItemByItemId(item.id, item.count, item.price) == null) {
+                            throw NullPointerException()
                         }
                     }
-
-                    val type = rs.getInt("type")
-                    if (type == Player.STORE_PRIVATE_NONE) {
-                        continue
+                    player.buyList.title = trader.title
+                }
+                Player.STORE_PRIVATE_SELL, Player.STORE_PRIVATE_PACKAGE_SELL -> {
+                    for (item in trader.items) {
+                        if (player.sellList.addItem(item.id, item.count, item.price) == null) {
+                            throw NullPointerException()
+                        }
+                    }
+                    player.sellList.title = trader.title
+                    player.sellList.isPackaged = trader.type == Player.STORE_PRIVATE_PACKAGE_SELL
+                }
+                Player.STORE_PRIVATE_MANUFACTURE -> {
+                    val createList = L2ManufactureList()
+                    for (item in trader.items) {
+                        createList.add(L2ManufactureItem(item.id, item.price))
                     }
+                    player.createList = createList
+                    player.createList.storeName = trader.title
+                }
+                Player.STORE_PRIVATE_CUSTOM_SELL -> {
+                    for (item in trader.items) {
+                        val sellItem = player.customSellList.addItem(item.id, item.count) ?: throw NullPointerException()
 
-                    var player: Player? = null
-
-                    try {
-                        val client = L2GameClient(null)
-                        client.isDetached = true
-                        player = Player.load(rs.getInt("charId"))
-                        client.activeChar = player
-                        player!!.setOnlineStatus(true, false)
-                        client.accountName = player.accountNamePlayer
-                        client.state = GameClientState.IN_GAME
-                        player.client = client
-                        player.offlineStartTime = time
-                        player.spawnMe(player.x, player.y, player.z)
-                        LoginServerThread.getInstance().addGameServerLogin(player.accountName, client)
-                        val stm_items = con.prepareStatement(LOAD_OFFLINE_ITEMS)
-                        stm_items.setInt(1, player.objectId)
-                        val items = stm_items.executeQuery()
-
-                        when (type) {
-                            Player.STORE_PRIVATE_BUY -> {
-                                while (items.next()) {
-                                    if (player.buyList.addItemByItemId(items.getInt(2), items.getLong(3), items.getLong(4)) == null) {
-                                        throw NullPointerException()
-                                    }
-                                }
-                                player.buyList.title = rs.getString("title")
-                            }
-                            Player.STORE_PRIVATE_SELL, Player.STORE_PRIVATE_PACKAGE_SELL -> {
-                                while (items.next()) {
-                                    if (player.sellList.addItem(items.getInt(2), items.getLong(3), items.getLong(4)) == null) {
-                                        throw NullPointerException()
-                                    }
-                                }
-                                player.sellList.title = rs.getString("title")
-                                player.sellList.isPackaged = type == Player.STORE_PRIVATE_PACKAGE_SELL
-                            }
-                            Player.STORE_PRIVATE_MANUFACTURE -> {
-                                val createList = L2ManufactureList()
-                                while (items.next()) {
-                                    createList.add(L2ManufactureItem(items.getInt(2), items.getLong(4)))
-                                }
-                                player.createList = createList
-                                player.createList.storeName = rs.getString("title")
-                            }
-                            Player.STORE_PRIVATE_CUSTOM_SELL -> {
-                                while (items.next()) {
-                                    val item = player.customSellList.addItem(items.getInt(2), items.getLong(3))
-                                            ?: throw NullPointerException()
-
-                                    val stm_prices = con.prepareStatement(LOAD_OFFLINE_PRICES)
-                                    stm_prices.setInt(1, player.objectId)
-                                    stm_prices.setInt(2, items.getInt(2))
-                                    val prices = stm_prices.executeQuery()
-                                    while (prices.next()) {
-                                        val i = ItemTable.getInstance().getTemplate(prices.getInt("priceId"))
-                                                ?: throw NullPointerException()
-
-                                        item.priceItems[i] = prices.getLong("count")
-                                    }
-                                }
-                                player.customSellList.title = rs.getString("title")
-                            }
-                        }
-                        items.close()
-                        stm_items.close()
+                        for (price in trader.prices[item.id] ?: emptyList<LongArray>()) {
+                            val i = ItemTable.getInstance().getTemplate(price[0].toInt()) ?: throw NullPointerException()
 
-                        player.sitDown()
-                        if (Config.OFFLINE_SET_NAME_COLOR) {
-                            player.appearance.nameColor = Config.OFFLINE_NAME_COLOR
+                            sellItem.priceItems[i] = price[1]
                         }
-                        player.privateStoreType = type
-                        player.setOnlineStatus(true, true)
-                        player.restoreEffects()
-                        player.broadcastUserInfo()
+                    }
+                    player.customSellList.title = trader.title
+                }
+            }
+
+            player.sitDown()
+            if (Config.OFFLINE_SET_NAME_COLOR) {
+                player.appearance.nameColor = Config.OFFLINE_NAME_COLOR
+            }
+            player.privateStoreType = trader.type
+            player.setOnlineStatus(true, true)
+            player.restoreEffects()
+            player.broadcastUserInfo()
+
+            player.setIsInvul(true)
+            return true
+        } catch (e: Exception) {
+            log.warn("OfflineTradersTable[loadOffliners()]: Error loading trader: " + (player ?: trader.charId), e)
+            player?.deleteMe()
+            return false
+        }
+    }
+
+    private class OfflineTradeItem(val id: Int, val count: Long, val price: Long)
 
-                        player.setIsInvul(true)
+    private class OfflineTrader(val charId: Int, val time: Long, val type: Int, val title: String?) {
+        val items = ArrayList<OfflineTradeItem>()
 
+        /**
+         * Custom sell prices per item object id: {price item id, count}
+         */
+        val prices = HashMap<Int, MutableList<LongArray>>()
+    }
+
+    /**
+     * Restores OFFLINE_RESTORE_BATCH_SIZE traders on one db connection and deletes their rows, then schedules the next
+     * batch OFFLINE_RESTORE_BATCH_DELAY ms later so the players logging in after the start get the db too.
+     */
+    private class RestoreTask(private val traders: List<OfflineTrader>, private val startTime: Long) : Runnable {
+        private var index = 0
+        private var nTraders = 0
+
+        override fun run() {
+            val start = index
+            val end = Math.min(traders.size, index + Math.max(1, Config.OFFLINE_RESTORE_BATCH_SIZE))
+            DatabasePool.getInstance().pinConnection()
+            try {
+                while (index < end) {
+                    if (restoreOfflineTrader(traders[index++])) {
                         nTraders++
-                    } catch (e: Exception) {
-                        log.warn("OfflineTradersTable[loadOffliners()]: Error loading trader: " + player!!, e)
-                        player.deleteMe()
                     }
-
                 }
-                rs.close()
-                stm.close()
-                stm = con.prepareStatement(CLEAR_OFFLINE_TABLE)
-                stm.execute()
-                stm.close()
-                stm = con.prepareStatement(CLEAR_OFFLINE_TABLE_ITEMS)
-                stm.execute()
-                stm.close()
+
+                // Restored, failed or logged in, the next shutdown stores them again if they are still trading
+                deleteTraders(DatabasePool.getInstance().connection, traders.subList(start, end).map { it.charId })
             } catch (e: Exception) {
-                log.warn("OfflineTradersTable[loadOffliners()]: Error while loading offline traders: ", e)
-                e.printStackTrace()
+                log.warn("OfflineTradersTable: Error while deleting the restored offline traders: $e", e)
             } finally {
-				DatabasePool.close(con)
+                DatabasePool.getInstance().unpinConnection()
+            }
+
+            if (index < traders.size) {
+                ThreadPoolManager.getInstance().scheduleGeneral(this, Config.OFFLINE_RESTORE_BATCH_DELAY.toLong())
+                return
             }
 
             val finishTime = System.nanoTime()
             log.info("Asynch restoring of " + nTraders + " offline traders took " + (finishTime - startTime) / 1000000 + " ms")
         }
-        restoreThread.priority = Thread.MIN_PRIORITY
-		restoreThread.name = "offt"
-        restoreThread.start()
     }
 }
@@ -20,6 +20,7 @@ import l2server.gameserver.instancemanager.CastleManager;
 import l2server.gameserver.model.L2Spawn;
 import l2server.gameserver.model.SpawnGroup;
 import l2server.gameserver.model.World;
+import l2server.gameserver.model.WorldRegion;
 import l2server.gameserver.model.actor.Npc;
 import l2server.gameserver.model.actor.instance.MonsterInstance;
 import l2server.gameserver.model.actor.instance.Player;
@@ -34,6 +35,7 @@ import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -111,7 +113,7 @@ public class SpawnTable {
 			
 			spawn.stopRespawn();
 			
-			Npc npc = spawn.getNpc();
+			Npc npc = spawn.materialize();
 			if (npc != null) {
 				npc.deleteMe();
 			}
@@ -124,6 +126,9 @@ public class SpawnTable {
 			return;
 		}
 		
+		// Spawned all together once loaded, see spawnAll()
+		List<L2Spawn> toSpawn = new ArrayList<>();
+		
 		int count = 0;
 		for (NpcTemplate t : NpcTable.getInstance().getAllTemplates()) {
 			for (SpawnData sp : t.getSpawns()) {
@@ -142,7 +147,7 @@ public class SpawnTable {
 						spawn.startRespawn();
 					}
 					
-					spawn.doSpawn();
+					toSpawn.add(spawn);
 					
 					spawnTable.add(spawn);
 					
@@ -162,6 +167,7 @@ public class SpawnTable {
 		File dir = new File(Config.DATAPACK_ROOT, Config.DATA_FOLDER + "spawns");
 		if (!dir.exists()) {
 			log.warn("Dir " + dir.getAbsolutePath() + " doesn't exist");
+			spawnAll(toSpawn);
 			return;
 		}
 		
@@ -180,7 +186,7 @@ public class SpawnTable {
 			
 			try {
 				XmlDocument doc = new XmlDocument(f);
-				List<L2Spawn> spawns = loadSpawns(doc.getRoot(), true);
+				List<L2Spawn> spawns = loadSpawns(doc.getRoot(), toSpawn);
 				//for (L2Spawn spawn : spawns)
 				//	spawn.doSpawn();
 				spawnTable.addAll(spawns);
@@ -192,20 +198,87 @@ public class SpawnTable {
 		
 		log.info("SpawnTable: Loaded " + count + " global spawns!");
 		log.info("SpawnTable: Loaded " + specificSpawnTable.size() + " specific spawn tables!");
+		
+		spawnAll(toSpawn);
+	}
+	
+	/**
+	 * Spawns many npcs at once: their positions (random points and geodata heights) are computed in parallel,
+	 * one task per world region (or spawn group), then the npcs are added to the world region by region.
+	 */
+	public void spawnAll(List<L2Spawn> spawns) {
+		long start = System.currentTimeMillis();
+		
+		Map<Object, List<L2Spawn>> toPrepare = new HashMap<>();
+		for (L2Spawn spawn : spawns) {
+			Object key = spawn.getGroup();
+			if (key == null) {
+				key = getRegion(spawn);
+			}
+			toPrepare.computeIfAbsent(key, k -> new ArrayList<>()).add(spawn);
+		}
+		
+		toPrepare.values().parallelStream().forEach(regionSpawns -> {
+			for (L2Spawn spawn : regionSpawns) {
+				try {
+					spawn.prepareSpawn();
+				} catch (Exception e) {
+					log.warn("Could not prepare the spawn " + spawn, e);
+				}
+			}
+		});
+		
+		// Adding to the world isn't thread safe, it is done from here region after region
+		Map<WorldRegion, List<L2Spawn>> toPublish = new LinkedHashMap<>();
+		for (L2Spawn spawn : spawns) {
+			toPublish.computeIfAbsent(getRegion(spawn), k -> new ArrayList<>()).add(spawn);
+		}
+		
+		int count = 0;
+		for (List<L2Spawn> regionSpawns : toPublish.values()) {
+			for (L2Spawn spawn : regionSpawns) {
+				try {
+					if (spawn.doSpawn()) {
+						count++;
+					}
+				} catch (Exception e) {
+					log.warn("Could not spawn " + spawn, e);
+				}
+			}
+		}
+		
+		log.info("SpawnTable: Spawned " + count + " npcs in " + toPublish.size() + " regions in " + (System.currentTimeMillis() - start) + " ms.");
+	}
+	
+	/**
+	 * @return the region of the position of the spawn, null if it is outside the map (or not known before preparing the spawn)
+	 */
+	private static WorldRegion getRegion(L2Spawn spawn) {
+		int x = spawn.getX();
+		int y = spawn.getY();
+		if (x < World.MAP_MIN_X || x > World.MAP_MAX_X || y < World.MAP_MIN_Y || y > World.MAP_MAX_Y) {
+			return null;
+		}
+		return World.getInstance().getRegion(x, y);
 	}
 	
-	private List<L2Spawn> loadSpawns(XmlNode node, boolean isRoot) {
+	/**
+	 * @param toSpawn where the spawns of the root node are added to be spawned, null for a specific spawn list
+	 */
+	private List<L2Spawn> loadSpawns(XmlNode node, List<L2Spawn> toSpawn) {
+		final boolean isRoot = toSpawn != null;
 		List<L2Spawn> spawns = new ArrayList<>();
 		for (XmlNode npcNode : node.getChildren()) {
 			if (npcNode.getName().equalsIgnoreCase("specificSpawnList") && isRoot) {
 				String name = npcNode.getString("name");
-				specificSpawnTable.put(name, loadSpawns(npcNode, false));
+				specificSpawnTable.put(name, loadSpawns(npcNode, null));
 			} else if (npcNode.getName().equalsIgnoreCase("group") && isRoot) {
 				SpawnGroup spawnGroup = new SpawnGroup(npcNode);
 				
 				spawnGroups.add(spawnGroup);
 				
 				spawnTable.addAll(spawnGroup.getSpawns());
+				toSpawn.addAll(spawnGroup.getSpawns());
 			} else if (npcNode.getName().equalsIgnoreCase("spawn")) {
 				int npcId = npcNode.getInt("npcId");
 				List<int[]> randomCoords = null;
@@ -278,7 +351,7 @@ public class SpawnTable {
 				}
 				
 				if (isRoot) {
-					newSpawn.doSpawn();
+					toSpawn.add(newSpawn);
 				}
 				
 				spawns.add(newSpawn);
@@ -407,7 +480,8 @@ public class SpawnTable {
 	
 	public L2Spawn getRandomMonsterSpawn() {
 		L2Spawn spawn = null;
-		while (spawn == null || spawn.getNpc() == null || !(spawn.getNpc() instanceof MonsterInstance)) {
+		// Dormant spawns are always monsters, no need to materialize them to check
+		while (spawn == null || !spawn.isDormant() && !(spawn.getNpc() instanceof MonsterInstance)) {
 			int randomId = Rnd.get(spawnTable.size());
 			int i = 0;
 			for (L2Spawn s : spawnTable) {
@@ -449,6 +523,13 @@ public class SpawnTable {
 				continue;
 			}
 			
+			// Dormant npcs are in inactive regions, without anybody around
+			if (spawn.isDormant()) {
+				totalDistributedSpawnWeight += 1.0;
+				distributedSpawnWeights.put(spawn, 1.0);
+				continue;
+			}
+			
 			Npc npc = spawn.getNpc();
 			if (npc == null) {
 				continue;
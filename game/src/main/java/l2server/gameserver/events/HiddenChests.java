@@ -53,10 +53,10 @@ public class HiddenChests {
 				boolean found = false;
 				while (!found) {
 					L2Spawn randomSpawn = SpawnTable.getInstance().getRandomDistributedSpawn();
-					Npc randomNpc = randomSpawn.getNpc();
-					while (randomSpawn.getNpc().getX() < 150000 || randomSpawn.getNpc().getY() > 227000 ||
-							randomSpawn.getNpc().isInsideZone(Creature.ZONE_CASTLE) || randomSpawn.getNpc().isInsideZone(Creature.ZONE_CLANHALL) ||
-							randomSpawn.getNpc().isInsideZone(Creature.ZONE_FORT)) {
+					Npc randomNpc = randomSpawn.materialize();
+					while (randomSpawn.materialize().getX() < 150000 || randomSpawn.materialize().getY() > 227000 ||
+							randomSpawn.materialize().isInsideZone(Creature.ZONE_CASTLE) || randomSpawn.materialize().isInsideZone(Creature.ZONE_CLANHALL) ||
+							randomSpawn.materialize().isInsideZone(Creature.ZONE_FORT)) {
 						randomSpawn = SpawnTable.getInstance().getRandomDistributedSpawn();
 					}
 					
@@ -157,10 +157,10 @@ public class HiddenChests {
 				boolean found = false;
 				while (!found) {
 					L2Spawn randomSpawn = SpawnTable.getInstance().getRandomDistributedSpawn();
-					Npc randomNpc = randomSpawn.getNpc();
-					while (randomSpawn.getNpc().getX() < 150000 || randomSpawn.getNpc().getY() > 227000 ||
-							randomSpawn.getNpc().isInsideZone(Creature.ZONE_CASTLE) || randomSpawn.getNpc().isInsideZone(Creature.ZONE_CLANHALL) ||
-							randomSpawn.getNpc().isInsideZone(Creature.ZONE_FORT)) {
+					Npc randomNpc = randomSpawn.materialize();
+					while (randomSpawn.materialize().getX() < 150000 || randomSpawn.materialize().getY() > 227000 ||
+							randomSpawn.materialize().isInsideZone(Creature.ZONE_CASTLE) || randomSpawn.materialize().isInsideZone(Creature.ZONE_CLANHALL) ||
+							randomSpawn.materialize().isInsideZone(Creature.ZONE_FORT)) {
 						randomSpawn = SpawnTable.getInstance().getRandomDistributedSpawn();
 					}
 					
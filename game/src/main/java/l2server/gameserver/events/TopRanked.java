@@ -1,8 +1,8 @@
 package l2server.gameserver.events;
 
-import l2server.DatabasePool;
 import l2server.gameserver.Announcements;
 import l2server.gameserver.ThreadPoolManager;
+import l2server.gameserver.instancemanager.LeaderboardManager;
 import l2server.gameserver.instancemanager.MailManager;
 import l2server.gameserver.model.actor.instance.Player;
 import l2server.gameserver.model.entity.Message;
@@ -11,9 +11,6 @@ import l2server.gameserver.network.serverpackets.NpcHtmlMessage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.sql.Connection;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
 import java.util.Calendar;
 
 /**
@@ -26,62 +23,21 @@ public class TopRanked {
 	private StartTask task;
 
 	public int getRankedPoints(int id) {
-		Connection get = null;
-
-		try {
-			get = DatabasePool.getInstance().getConnection();
-			PreparedStatement statement = get.prepareStatement("SELECT rankedPoints FROM characters WHERE charId = ?");
-			statement.setInt(1, id);
-			ResultSet rset = statement.executeQuery();
-
-			if (rset.next()) {
-				int currentPoints = rset.getInt("rankedPoints");
-				return (currentPoints);
-			}
-			rset.close();
-			statement.close();
-		} catch (Exception e) {
-			log.warn("Couldn't get current ranked points : " + e.getMessage(), e);
-		} finally {
-			DatabasePool.close(get);
-		}
-		return 0;
+		return LeaderboardManager.getInstance().getRankedPoints(id);
 	}
 
 	public void setRankedPoints(int id, int amount) {
-		Connection con = null;
-		try {
-			con = DatabasePool.getInstance().getConnection();
-
-			PreparedStatement statement = con.prepareStatement("UPDATE characters SET rankedPoints=? WHERE charId=?");
-			statement.setInt(1, amount);
-			statement.setInt(2, id);
-
-			statement.execute();
-			statement.close();
-		} catch (Exception e) {
-			log.error("Failed updating Ranked Points", e);
-		} finally {
-			DatabasePool.close(con);
-		}
+		LeaderboardManager.getInstance().setRankedPoints(id, amount);
 	}
 
 	public void test() {
 		int position = 1;
-		Connection get = null;
 		int amount = 0;
 		int currentPoints = 0;
 		Message msg;
 		Announcements.getInstance().announceToAll("Ranked rewards delivered !");
 		try {
-			get = DatabasePool.getInstance().getConnection();
-			PreparedStatement statement =
-					get.prepareStatement("SELECT rankedPoints,charId FROM characters WHERE rankedPoints>0 order by rankedPoints desc limit 15");
-			ResultSet rset = statement.executeQuery();
-			while (rset.next()) {
-
-				String id = rset.getString("charId");
-				Integer x = Integer.valueOf(id);
+			for (int x : LeaderboardManager.getInstance().getTopRanked(15)) {
 				currentPoints = getRankedPoints(x);
 
 				amount = (int) ((Math.pow(currentPoints, 0.75)) + (15 / position)) + 1;
@@ -130,12 +86,8 @@ public class TopRanked {
 				}
 				position++;
 			}
-			rset.close();
-			statement.close();
 		} catch (Exception e) {
 			log.warn("Couldn't get current ranked points : " + e.getMessage(), e);
-		} finally {
-			DatabasePool.close(get);
 		}
 	}
 
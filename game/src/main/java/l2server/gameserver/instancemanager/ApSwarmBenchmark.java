@@ -0,0 +1,504 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package l2server.gameserver.instancemanager;
+
+import l2server.DatabasePool;
+import l2server.gameserver.GeoEngine;
+import l2server.gameserver.TaskProfiler;
+import l2server.gameserver.ThreadPoolManager;
+import l2server.gameserver.TimeController;
+import l2server.gameserver.ai.CtrlIntention;
+import l2server.gameserver.ai.PlayerAI;
+import l2server.gameserver.datatables.CharNameTable;
+import l2server.gameserver.model.L2CharPosition;
+import l2server.gameserver.model.L2Party;
+import l2server.gameserver.model.Skill;
+import l2server.gameserver.model.actor.instance.ApInstance;
+import l2server.gameserver.model.actor.instance.Player;
+import l2server.util.metrics.MetricsHistogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.text.SimpleDateFormat;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * In-process load test: spawns a swarm of artificial players around a location, without any network client, and drives them
+ * with a seeded scenario while sampling the game tick, the queues of the thread pools, the allocation rate and the garbage
+ * collections. The report is logged and written to the log folder at the end of the run.<BR>
+ * The class mix, the parties, the spawn points and the orders of the scenario only depend on the seed, so two runs with the
+ * same settings can be compared. The decisions taken by the APlayerAI during a combat are not seeded.<BR>
+ * The characters are stored on the {@link #ACCOUNT} account and reused by the next runs, only the missing classes are created.
+ */
+public class ApSwarmBenchmark {
+	private static Logger log = LoggerFactory.getLogger(ApSwarmBenchmark.class.getName());
+
+	public static final String ACCOUNT = "!bench";
+
+	private static final int SAMPLE_INTERVAL = 5000;
+	private static final int ORDER_INTERVAL = 1000;
+	private static final int PARTY_SIZE = 7;
+
+	/**
+	 * The class ranges of a party slot: healer, enchanter, tank, warrior, rogue, archer and wizard, as in the random parties
+	 */
+	private static final int[][] PARTY_CLASSES = {{179, 3}, {171, 5}, {148, 4}, {152, 5}, {158, 4}, {162, 4}, {166, 5}};
+
+	public enum Scenario {
+		/**
+		 * Flagged parties fighting each other, driven by their APlayerAI
+		 */
+		COMBAT,
+		/**
+		 * Players walking to seeded points of the area
+		 */
+		MOVEMENT,
+		/**
+		 * Flagged players casting their active skills on seeded targets
+		 */
+		SKILLS
+	}
+
+	private final int playerCount;
+	private final int duration;
+	private final long seed;
+	private final Scenario scenario;
+	private final int x;
+	private final int y;
+	private final int z;
+	private final int radius;
+
+	private final Random random;
+	private final List<ApInstance> swarm = new ArrayList<>();
+	private final List<L2Party> parties = new ArrayList<>();
+	private final Map<ApInstance, int[]> spawnPoints = new HashMap<>();
+	private final Map<ApInstance, Skill[]> skills = new HashMap<>();
+
+	private final List<String> samples = new ArrayList<>();
+	private final Map<String, Integer> maxQueueSizes = new LinkedHashMap<>();
+	private final MetricsHistogram tickTotals = new MetricsHistogram();
+	private final Map<Long, Long> allocatedBytes = new HashMap<>();
+	private long allocatedTotal;
+	private long gcCount;
+	private long gcMillis;
+	private long gcCountStart;
+	private long gcMillisStart;
+	private long maxHeap;
+
+	private long start;
+	private long lastSample;
+	private ScheduledFuture<?> orderTask;
+	private ScheduledFuture<?> sampleTask;
+	private ScheduledFuture<?> endTask;
+	private volatile boolean finished;
+
+	public ApSwarmBenchmark(int playerCount, int duration, long seed, Scenario scenario, int x, int y, int z, int radius) {
+		this.playerCount = playerCount;
+		this.duration = duration;
+		this.seed = seed;
+		this.scenario = scenario;
+		this.x = x;
+		this.y = y;
+		this.z = z;
+		this.radius = Math.max(100, radius);
+		random = new Random(seed);
+	}
+
+	/**
+	 * Loads or creates the characters, spawns them and starts the scenario. Slow, to be called out of the game threads.
+	 */
+	public void start() {
+		log.info("AP benchmark: preparing " + playerCount + " players, scenario " + scenario + ", seed " + seed + ".");
+		final long prepareStart = System.currentTimeMillis();
+		final List<ApInstance> members = new ArrayList<>();
+		final Map<Integer, Deque<Integer>> pool = loadCharacterPool();
+		for (int i = 0; i < playerCount && !finished; i++) {
+			final int[] slot = PARTY_CLASSES[i % PARTY_SIZE];
+			final int classId = slot[0] + random.nextInt(slot[1]);
+
+			final ApInstance player = loadOrCreate(classId, pool);
+			if (player == null) {
+				log.warn("AP benchmark: couldn't get a character of class " + classId + ".");
+				continue;
+			}
+
+			members.add(player);
+			if (members.size() == PARTY_SIZE || i == playerCount - 1) {
+				spawnParty(members);
+				members.clear();
+			}
+		}
+
+		synchronized (this) {
+			if (finished) {
+				despawn();
+				return;
+			}
+
+			startScenario(prepareStart);
+		}
+	}
+
+	private void startScenario(long prepareStart) {
+		log.info("AP benchmark: " + swarm.size() + " players in " + parties.size() + " parties spawned in " +
+				(System.currentTimeMillis() - prepareStart) / 1000 + " s, running for " + duration + " s.");
+
+		TaskProfiler.getInstance().reset();
+		TimeController.getTickHistogram().reset();
+		sampleAllocations();
+		final long[] gc = getGcTotals();
+		gcCountStart = gc[0];
+		gcMillisStart = gc[1];
+		allocatedTotal = 0;
+		start = lastSample = System.nanoTime();
+
+		orderTask = ThreadPoolManager.getInstance().scheduleGeneralAtFixedRate(this::giveOrders, ORDER_INTERVAL, ORDER_INTERVAL);
+		sampleTask = ThreadPoolManager.getInstance().scheduleGeneralAtFixedRate(this::sample, SAMPLE_INTERVAL, SAMPLE_INTERVAL);
+		endTask = ThreadPoolManager.getInstance().scheduleGeneral(this::stop, duration * 1000L);
+	}
+
+	/**
+	 * Ends the run, writes the report and removes the players from the world
+	 */
+	public synchronized void stop() {
+		if (finished) {
+			return;
+		}
+		finished = true;
+
+		if (orderTask == null) {
+			// Still spawning, the preparation cleans up
+			return;
+		}
+
+		orderTask.cancel(false);
+		sampleTask.cancel(false);
+		endTask.cancel(false);
+
+		sample();
+		writeReport();
+		despawn();
+	}
+
+	public boolean isFinished() {
+		return finished;
+	}
+
+	/**
+	 * @return the ids of the stored benchmark characters, by class
+	 */
+	private Map<Integer, Deque<Integer>> loadCharacterPool() {
+		final Map<Integer, Deque<Integer>> pool = new HashMap<>();
+		try (Connection con = DatabasePool.getInstance().getConnection();
+		     PreparedStatement statement = con.prepareStatement("SELECT charId, classid FROM characters WHERE account_name = ? ORDER BY charId")) {
+			statement.setString(1, ACCOUNT);
+			try (ResultSet rset = statement.executeQuery()) {
+				while (rset.next()) {
+					pool.computeIfAbsent(rset.getInt("classid"), k -> new ArrayDeque<>()).add(rset.getInt("charId"));
+				}
+			}
+		} catch (Exception e) {
+			log.warn("AP benchmark: couldn't load the stored characters: " + e.getMessage(), e);
+		}
+		return pool;
+	}
+
+	private ApInstance loadOrCreate(int classId, Map<Integer, Deque<Integer>> pool) {
+		final Deque<Integer> stored = pool.get(classId);
+		while (stored != null && !stored.isEmpty()) {
+			final Player player = Player.load(stored.poll());
+			if (player instanceof ApInstance) {
+				return (ApInstance) player;
+			}
+		}
+
+		return ArtificialPlayersManager.getInstance().createChar(classId, ACCOUNT);
+	}
+
+	private void spawnParty(List<ApInstance> members) {
+		final int[] center = getRandomPoint(radius);
+		for (ApInstance member : members) {
+			final int[] point = {center[0] + random.nextInt(301) - 150, center[1] + random.nextInt(301) - 150, 0};
+			point[2] = GeoEngine.getInstance().getHeight(point[0], point[1], z);
+			spawnPoints.put(member, point);
+
+			member.setXYZInvisible(point[0], point[1], point[2]);
+			CharNameTable.getInstance().addName(member);
+			member.setOnlineStatus(true, false);
+			member.spawnMe();
+			member.setCurrentHpMp(member.getMaxHp(), member.getMaxMp());
+			member.setCurrentCp(member.getMaxCp());
+
+			if (scenario == Scenario.COMBAT) {
+				// A new APlayerAI, the one of a previous run was cancelled when the player left
+				member.setAI(null);
+				member.getAI();
+			} else {
+				member.setAI(new PlayerAI(member));
+			}
+
+			if (scenario != Scenario.MOVEMENT) {
+				member.setPvpFlagLasts(System.currentTimeMillis() + duration * 1000L + 60000L);
+				member.startPvPFlag();
+			}
+
+			final List<Skill> active = new ArrayList<>();
+			for (Skill skill : member.getAllSkills()) {
+				if (skill.isActive() && !skill.isToggle()) {
+					active.add(skill);
+				}
+			}
+			active.sort(Comparator.comparingInt(Skill::getId));
+			skills.put(member, active.toArray(new Skill[active.size()]));
+
+			swarm.add(member);
+		}
+
+		if (members.size() > 1) {
+			final L2Party party = new L2Party(members.get(0), L2Party.ITEM_RANDOM);
+			for (ApInstance member : members) {
+				party.addPartyMember(member);
+				member.setParty(party);
+			}
+			parties.add(party);
+		}
+	}
+
+	private int[] getRandomPoint(int range) {
+		final int pointX = x + random.nextInt(range * 2 + 1) - range;
+		final int pointY = y + random.nextInt(range * 2 + 1) - range;
+		return new int[]{pointX, pointY, GeoEngine.getInstance().getHeight(pointX, pointY, z)};
+	}
+
+	/**
+	 * The seeded part of the scenario, one order per player and second at most
+	 */
+	private synchronized void giveOrders() {
+		if (finished) {
+			return;
+		}
+
+		try {
+			for (ApInstance player : swarm) {
+				// Drawn for every player, whatever its state, so that the sequence only depends on the seed
+				final int roll = random.nextInt(100);
+				final int[] point = getRandomPoint(radius);
+				final int targetIndex = random.nextInt(swarm.size());
+				final int skillIndex = random.nextInt(Integer.MAX_VALUE);
+
+				if (player.isDead()) {
+					if (scenario != Scenario.COMBAT) {
+						player.doRevive();
+					}
+					continue;
+				}
+
+				final int[] spawn = spawnPoints.get(player);
+				if (!player.isInsideRadius(spawn[0], spawn[1], radius * 2, false)) {
+					// Revived in a town by its AI
+					player.teleToLocation(spawn[0], spawn[1], spawn[2], false);
+					continue;
+				}
+
+				switch (scenario) {
+					case MOVEMENT:
+						if (roll < 30) {
+							player.getAI().setIntention(CtrlIntention.AI_INTENTION_MOVE_TO, new L2CharPosition(point[0], point[1], point[2], 0));
+						}
+						break;
+					case SKILLS:
+						final Skill[] available = skills.get(player);
+						if (roll < 50 && available.length > 0 && !player.isCastingNow()) {
+							final Skill skill = available[skillIndex % available.length];
+							final ApInstance target = swarm.get(targetIndex);
+							player.setTarget(skill.isOffensive() || target.getParty() != player.getParty() ? target : player);
+							player.useMagic(skill, skill.isOffensive(), false);
+						}
+						player.setCurrentMp(player.getMaxMp());
+						break;
+					default:
+						break;
+				}
+			}
+		} catch (Exception e) {
+			log.warn("AP benchmark: error while giving the orders: " + e.getMessage(), e);
+		}
+	}
+
+	private synchronized void sample() {
+		final long now = System.nanoTime();
+		final double seconds = Math.max(1, now - lastSample) / 1e9;
+		lastSample = now;
+
+		final MetricsHistogram ticks = TimeController.getTickHistogram();
+		final long tickCount = ticks.getCount();
+		final long tickP50 = ticks.getValueAtQuantile(0.5);
+		final long tickP99 = ticks.getValueAtQuantile(0.99);
+		final long tickMax = ticks.getMaxNanos();
+		ticks.reset();
+		tickTotals.record(tickP99);
+
+		final long allocated = sampleAllocations();
+		allocatedTotal += Math.max(0, allocated);
+
+		final long[] gc = getGcTotals();
+		final long newGcCount = gc[0] - gcCountStart - gcCount;
+		final long newGcMillis = gc[1] - gcMillisStart - gcMillis;
+		gcCount += newGcCount;
+		gcMillis += newGcMillis;
+
+		final long heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+		maxHeap = Math.max(maxHeap, heap);
+
+		int dead = 0;
+		for (ApInstance player : swarm) {
+			if (player.isDead()) {
+				dead++;
+			}
+		}
+
+		final StringBuilder queues = new StringBuilder();
+		for (TaskProfiler.Pool pool : TaskProfiler.getInstance().getPools()) {
+			final int size = pool.getQueueSize();
+			maxQueueSizes.merge(pool.getName(), size, Math::max);
+			queues.append(' ').append(pool.getName()).append('=').append(size);
+		}
+
+		final String sample = String.format("%6d %6d %5d %7d %6d %7.2f %7.2f %7.2f %9s %4d %6d %7d  %s", (now - start) / 1000000000L,
+				swarm.size() - dead, dead, TimeController.getMovingObjectCount(), tickCount, tickP50 / 1e6, tickP99 / 1e6, tickMax / 1e6,
+				allocated < 0 ? "n/a" : String.format("%.1f", allocated / seconds / 1048576), newGcCount, newGcMillis, heap / 1048576,
+				queues.toString().trim());
+		samples.add(sample);
+		log.info("AP benchmark: " + sample);
+	}
+
+	/**
+	 * @return the bytes allocated by all the threads since the previous call, -1 if the JVM can't tell
+	 */
+	private long sampleAllocations() {
+		final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		if (!(threads instanceof com.sun.management.ThreadMXBean)) {
+			return -1;
+		}
+
+		final com.sun.management.ThreadMXBean sunThreads = (com.sun.management.ThreadMXBean) threads;
+		if (!sunThreads.isThreadAllocatedMemorySupported() || !sunThreads.isThreadAllocatedMemoryEnabled()) {
+			return -1;
+		}
+
+		final long[] ids = sunThreads.getAllThreadIds();
+		final long[] bytes = sunThreads.getThreadAllocatedBytes(ids);
+		final Map<Long, Long> previous = new HashMap<>(allocatedBytes);
+		allocatedBytes.clear();
+
+		long total = 0;
+		for (int i = 0; i < ids.length; i++) {
+			if (bytes[i] < 0) {
+				continue;
+			}
+
+			// The threads which ended since the previous sample are lost, the new ones counted from their start
+			total += bytes[i] - previous.getOrDefault(ids[i], 0L);
+			allocatedBytes.put(ids[i], bytes[i]);
+		}
+		return total;
+	}
+
+	private static long[] getGcTotals() {
+		long count = 0;
+		long millis = 0;
+		for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+			count += Math.max(0, gc.getCollectionCount());
+			millis += Math.max(0, gc.getCollectionTime());
+		}
+		return new long[]{count, millis};
+	}
+
+	private void writeReport() {
+		final double seconds = (System.nanoTime() - start) / 1e9;
+		final List<String> report = new ArrayList<>();
+		report.add("AP benchmark: " + swarm.size() + " players in " + parties.size() + " parties, scenario " + scenario + ", seed " + seed + ", " +
+				radius + " around " + x + ", " + y + ", " + z + ", " + String.format("%.0f", seconds) + " s");
+		report.add("");
+		report.add(String.format("%6s %6s %5s %7s %6s %7s %7s %7s %9s %4s %6s %7s  %s", "time s", "alive", "dead", "moving", "ticks", "p50 ms",
+				"p99 ms", "max ms", "alloc MB/s", "gc", "gc ms", "heap MB", "pool queues"));
+		report.addAll(samples);
+		report.add("");
+		report.add(String.format("Tick p99 over the samples: median %.2f ms, worst %.2f ms", tickTotals.getValueAtQuantile(0.5) / 1e6,
+				tickTotals.getMaxNanos() / 1e6));
+		report.add(String.format("Allocations: %.1f MB/s on average, %d MB in total", allocatedTotal / seconds / 1048576, allocatedTotal / 1048576));
+		report.add("Garbage collections: " + gcCount + ", " + gcMillis + " ms in total, heap peak " + maxHeap / 1048576 + " MB");
+		report.add("Pool queues peak: " + maxQueueSizes);
+		report.add("");
+		report.addAll(TaskProfiler.getInstance().getPoolStats());
+		report.addAll(TaskProfiler.getInstance().getTaskStats(null, 10));
+
+		final StringBuilder sb = new StringBuilder();
+		for (String line : report) {
+			sb.append(line).append('\n');
+		}
+		log.info(sb.toString());
+
+		final File file = new File("log/ap-benchmark-" + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date()) + ".txt");
+		file.getParentFile().mkdirs();
+		try (PrintWriter out = new PrintWriter(new FileWriter(file))) {
+			out.print(sb);
+			log.info("AP benchmark: report written to " + file.getPath());
+		} catch (IOException e) {
+			log.warn("AP benchmark: couldn't write the report: " + e.getMessage(), e);
+		}
+	}
+
+	private void despawn() {
+		for (ApInstance player : swarm) {
+			try {
+				player.deleteMe();
+			} catch (Exception e) {
+				log.warn("AP benchmark: couldn't remove " + player.getName() + ": " + e.getMessage(), e);
+			}
+		}
+		swarm.clear();
+		parties.clear();
+		spawnPoints.clear();
+		skills.clear();
+	}
+
+	@Override
+	public String toString() {
+		return "AP benchmark of " + playerCount + " players, scenario " + scenario + ", seed " + seed +
+				(start == 0 ? ", spawning" : ", running for " + (System.nanoTime() - start) / 1000000000L + " of " + duration + " s");
+	}
+}
@@ -60,6 +60,8 @@ public class ArtificialPlayersManager {
 	ScheduledFuture<?> pvpCheck = null;
 	List<L2Party> partiesSent = new ArrayList<>();
 
+	private ApSwarmBenchmark benchmark = null;
+
 	private ArtificialPlayersManager() {
 	}
 
@@ -189,6 +191,19 @@ public class ArtificialPlayersManager {
 	 * @return a new (and spawned) ApInstance
 	 */
 	public ApInstance createChar(int classId) {
+		ApInstance player = createChar(classId, "!");
+		if (player != null) {
+			players.add(player);
+		}
+		return player;
+	}
+
+	/**
+	 * Creates and stores a new ApInstance on the given account, without adding it to the artificial players of this manager
+	 *
+	 * @param accountName the account of the character, starting with "!"
+	 */
+	public ApInstance createChar(int classId, String accountName) {
 		PcTemplate template = CharTemplateTable.getInstance().getTemplate(Rnd.get(6) * 2 + Rnd.get(2));
 		PlayerClass cl = PlayerClassTable.getInstance().getClassById(classId);
 		switch (cl.getParent().getAwakeningClassId()) {
@@ -215,7 +230,7 @@ public class ArtificialPlayersManager {
 
 		int objectId = IdFactory.getInstance().getNextId();
 		Player newChar =
-				Player.create(objectId, template, "!", name, (byte) Rnd.get(5), (byte) Rnd.get(4), (byte) Rnd.get(3), Rnd.get(2) == 0, classId);
+				Player.create(objectId, template, accountName, name, (byte) Rnd.get(5), (byte) Rnd.get(4), (byte) Rnd.get(3), Rnd.get(2) == 0, classId);
 
 		newChar.setCurrentHp(newChar.getMaxHp());
 		newChar.setCurrentCp(newChar.getMaxCp());
@@ -266,7 +281,6 @@ public class ArtificialPlayersManager {
 
 		//player.setOnlineStatus(true, false);
 		//player.spawnMe();
-		players.add(player);
 
 		return player;
 	}
@@ -364,6 +378,40 @@ public class ArtificialPlayersManager {
 		return players;
 	}
 
+	/**
+	 * Spawns and runs the benchmark in the background, one run at a time
+	 *
+	 * @return false if the previous run isn't finished yet
+	 */
+	public synchronized boolean startBenchmark(ApSwarmBenchmark run) {
+		if (benchmark != null && !benchmark.isFinished()) {
+			return false;
+		}
+
+		benchmark = run;
+		ThreadPoolManager.getInstance().executeTask(run::start);
+		return true;
+	}
+
+	/**
+	 * Ends the current benchmark run before its time, writing its report
+	 *
+	 * @return false if there was no run going on
+	 */
+	public synchronized boolean stopBenchmark() {
+		if (benchmark == null || benchmark.isFinished()) {
+			return false;
+		}
+
+		final ApSwarmBenchmark run = benchmark;
+		ThreadPoolManager.getInstance().executeTask(run::stop);
+		return true;
+	}
+
+	public synchronized ApSwarmBenchmark getBenchmark() {
+		return benchmark;
+	}
+
 	@SuppressWarnings("synthetic-access")
 	private static class SingletonHolder {
 		protected static final ArtificialPlayersManager instance = new ArtificialPlayersManager();
@@ -160,6 +160,7 @@ public class FarmZoneManager {
 							dc.getAllDrops().remove(dd);
 						}
 					}
+					npc.invalidateDrops();
 				}
 			} else if (farmNode.getName().equalsIgnoreCase("customFarm")) {
 				Set<NpcTemplate> mobs = new HashSet<>();
@@ -199,7 +200,7 @@ public class FarmZoneManager {
 						try {
 							L2Spawn spawn = new L2Spawn(baseMobTemplate);
 							spawn.doSpawn();
-							Npc baseMob = spawn.getNpc();
+							Npc baseMob = spawn.materialize();
 							baseMobFarmCost = baseMob.getMaxHp() * (float) (baseMob.getPDef(null) + baseMob.getMDef(null, null));
 							baseMob.deleteMe();
 							if (baseMob.getSpawn() != null) {
@@ -266,7 +267,7 @@ public class FarmZoneManager {
 						try {
 							L2Spawn spawn = new L2Spawn(mob);
 							spawn.doSpawn();
-							Npc mobInstance = spawn.getNpc();
+							Npc mobInstance = spawn.materialize();
 							float mobFarmCost = mobInstance.getMaxHp() * (float) (mobInstance.getPDef(null) + mobInstance.getMDef(null, null));
 							dropMultiplier = mobFarmCost / baseMobFarmCost;
 							mobInstance.deleteMe();
@@ -293,6 +294,7 @@ public class FarmZoneManager {
 						mob.getMultiDropData().clear();
 						mob.getDropData().clear();
 						mob.getSpoilData().clear();
+						mob.invalidateDrops();
 					}
 
 					for (L2DropData drop : drops) {
@@ -0,0 +1,155 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package l2server.gameserver.instancemanager;
+
+import l2server.DatabasePool;
+import l2server.gameserver.model.L2Clan;
+import l2server.util.Leaderboard;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+
+/**
+ * In memory rankings, updated when the ranked value changes instead of sorting the characters or clans on every request.<BR>
+ * The ranked points are owned by this manager: they are read from memory and written to the characters table when changed.
+ * They are loaded on first use only, the column exists only on the servers running the ranked events.
+ */
+public class LeaderboardManager {
+	private static Logger log = LoggerFactory.getLogger(LeaderboardManager.class.getName());
+
+	private final Leaderboard rankedPoints = new Leaderboard();
+	private volatile boolean rankedPointsLoaded = false;
+
+	private final Leaderboard clanMembers = new Leaderboard();
+
+	public static LeaderboardManager getInstance() {
+		return SingletonHolder.instance;
+	}
+
+	private LeaderboardManager() {
+	}
+
+	private Leaderboard getRankedPointsBoard() {
+		if (!rankedPointsLoaded) {
+			synchronized (rankedPoints) {
+				if (!rankedPointsLoaded) {
+					loadRankedPoints();
+					rankedPointsLoaded = true;
+				}
+			}
+		}
+		return rankedPoints;
+	}
+
+	private void loadRankedPoints() {
+		Connection con = null;
+		try {
+			con = DatabasePool.getInstance().getConnection();
+			PreparedStatement statement = con.prepareStatement("SELECT charId, rankedPoints FROM characters WHERE rankedPoints>0");
+			ResultSet rset = statement.executeQuery();
+			while (rset.next()) {
+				rankedPoints.set(rset.getInt("charId"), rset.getInt("rankedPoints"));
+			}
+			rset.close();
+			statement.close();
+		} catch (Exception e) {
+			log.warn("Couldn't load the ranked points: " + e.getMessage(), e);
+		} finally {
+			DatabasePool.close(con);
+		}
+		log.info("LeaderboardManager: Loaded " + rankedPoints.size() + " characters with ranked points.");
+	}
+
+	public int getRankedPoints(int charId) {
+		return (int) getRankedPointsBoard().getScore(charId);
+	}
+
+	public void setRankedPoints(int charId, int amount) {
+		if (amount > 0) {
+			getRankedPointsBoard().set(charId, amount);
+		} else {
+			getRankedPointsBoard().remove(charId);
+		}
+
+		Connection con = null;
+		try {
+			con = DatabasePool.getInstance().getConnection();
+
+			PreparedStatement statement = con.prepareStatement("UPDATE characters SET rankedPoints=? WHERE charId=?");
+			statement.setInt(1, amount);
+			statement.setInt(2, charId);
+
+			statement.execute();
+			statement.close();
+		} catch (Exception e) {
+			log.error("Failed updating Ranked Points", e);
+		} finally {
+			DatabasePool.close(con);
+		}
+	}
+
+	/**
+	 * @return the position of the character in the ranked points, 0 if it has no points
+	 */
+	public int getRankedPosition(int charId) {
+		return getRankedPointsBoard().getRank(charId);
+	}
+
+	/**
+	 * @return the ids of the characters with the most ranked points, best first
+	 */
+	public int[] getTopRanked(int count) {
+		return getRankedPointsBoard().getTop(count);
+	}
+
+	/**
+	 * Called once the character has been deleted from the database, so that it isn't ranked nor rewarded anymore.
+	 */
+	public void onCharacterDeleted(int charId) {
+		synchronized (rankedPoints) {
+			// Not loaded yet, the deleted row won't be
+			if (rankedPointsLoaded) {
+				rankedPoints.remove(charId);
+			}
+		}
+	}
+
+	/**
+	 * Called when a member joins or leaves the clan.
+	 */
+	public void onClanMembersChanged(L2Clan clan) {
+		clanMembers.set(clan.getClanId(), clan.getMembersCount());
+	}
+
+	public void onClanRemoved(int clanId) {
+		clanMembers.remove(clanId);
+	}
+
+	/**
+	 * @return the ids of the clans with the most members, biggest first
+	 */
+	public int[] getTopClansByMemberCount(int count) {
+		return clanMembers.getTop(count);
+	}
+
+	@SuppressWarnings("synthetic-access")
+	private static class SingletonHolder {
+		protected static final LeaderboardManager instance = new LeaderboardManager();
+	}
+}
@@ -34,9 +34,15 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
 
 /**
  * @author Pere, DS
@@ -44,9 +50,22 @@ import java.util.concurrent.ConcurrentHashMap;
 public class MailManager {
 	
 	private static Logger log = LoggerFactory.getLogger(MailManager.class.getName());
+
+	private static final int EXPIRATION_CHECK_INTERVAL = 10000;
 	
 	private Map<Integer, Message> messages = new ConcurrentHashMap<>();
 
+	/**
+	 * Inbox, outbox and unread count of every character, kept up to date on send, read, delete and expiration
+	 */
+	private final Map<Integer, Mailbox> mailboxes = new ConcurrentHashMap<>();
+
+	/**
+	 * All the messages by expiration, checked by a single task instead of one scheduled task per message
+	 */
+	private final NavigableSet<Message> expirationQueue =
+			new ConcurrentSkipListSet<>(Comparator.comparingLong(Message::getExpiration).thenComparingInt(Message::getId));
+
 	public static MailManager getInstance() {
 		return SingletonHolder.instance;
 	}
@@ -63,107 +82,152 @@ public class MailManager {
 		int readed = 0;
 		Connection con = null;
 		PreparedStatement stmt1 = null;
-		PreparedStatement stmt2 = null;
 		try {
 			con = DatabasePool.getInstance().getConnection();
 
+			// The attachments are restored when the message is opened, see Message.getAttachments()
 			stmt1 = con.prepareStatement("SELECT * FROM messages ORDER BY expiration");
-			stmt2 = con.prepareStatement("SELECT * FROM attachments WHERE messageId = ?");
 
 			ResultSet rset1 = stmt1.executeQuery();
 			while (rset1.next()) {
 
 				Message msg = new Message(rset1);
-
-				int msgId = msg.getId();
-				messages.put(msgId, msg);
+				addMessage(msg);
 
 				readed++;
-
-				long expiration = msg.getExpiration();
-
-				if (expiration < System.currentTimeMillis()) {
-					ThreadPoolManager.getInstance().scheduleGeneral(new MessageDeletionTask(msgId), 10000);
-				} else {
-					ThreadPoolManager.getInstance().scheduleGeneral(new MessageDeletionTask(msgId), expiration - System.currentTimeMillis());
-				}
 			}
 			stmt1.close();
-			stmt2.close();
 		} catch (SQLException e) {
 			log.warn("Mail Manager: Error loading from database:" + e.getMessage(), e);
 		} finally {
 			DatabasePool.close(con);
 		}
+
+		// The already expired messages are deleted at the first check
+		ThreadPoolManager.getInstance().scheduleGeneralAtFixedRate(new MessageDeletionTask(), EXPIRATION_CHECK_INTERVAL, EXPIRATION_CHECK_INTERVAL);
 		log.info("Mail Manager: Successfully loaded " + readed + " messages.");
 	}
 
+	private void addMessage(Message msg) {
+		messages.put(msg.getId(), msg);
+		expirationQueue.add(msg);
+
+		if (!msg.isDeletedByReceiver()) {
+			mailboxes.compute(msg.getReceiverId(), (objectId, mailbox) -> {
+				if (mailbox == null) {
+					mailbox = new Mailbox();
+				}
+				synchronized (mailbox) {
+					mailbox.inbox.add(msg);
+					if (msg.isUnread()) {
+						mailbox.unread.add(msg);
+					}
+				}
+				return mailbox;
+			});
+		}
+
+		if (!msg.isDeletedBySender()) {
+			mailboxes.compute(msg.getSenderId(), (objectId, mailbox) -> {
+				if (mailbox == null) {
+					mailbox = new Mailbox();
+				}
+				synchronized (mailbox) {
+					mailbox.outbox.add(msg);
+				}
+				return mailbox;
+			});
+		}
+	}
+
+	/**
+	 * The mailboxes are only modified inside the compute methods of the map, so that a message is never added to a mailbox
+	 * being removed as empty.
+	 */
+	private void removeFromInbox(Message msg) {
+		mailboxes.computeIfPresent(msg.getReceiverId(), (objectId, mailbox) -> {
+			synchronized (mailbox) {
+				mailbox.inbox.remove(msg);
+				mailbox.unread.remove(msg);
+				return mailbox.isEmpty() ? null : mailbox;
+			}
+		});
+	}
+
+	private void removeFromOutbox(Message msg) {
+		mailboxes.computeIfPresent(msg.getSenderId(), (objectId, mailbox) -> {
+			synchronized (mailbox) {
+				mailbox.outbox.remove(msg);
+				return mailbox.isEmpty() ? null : mailbox;
+			}
+		});
+	}
+
 	public final Message getMessage(int msgId) {
 		return messages.get(msgId);
 	}
 
 	public final boolean hasUnreadPost(Player player) {
-		final int objectId = player.getObjectId();
-		for (Message msg : messages.values()) {
-			if (msg != null && msg.getReceiverId() == objectId && msg.isUnread()) {
-				return true;
-			}
-		}
-		return false;
+		return getUnreadInboxSize(player.getObjectId()) > 0;
 	}
 
 	public final int getUnreadInboxSize(int objectId) {
-		int size = 0;
-		for (Message msg : messages.values()) {
-			if (msg != null && msg.getReceiverId() == objectId && !msg.isDeletedByReceiver() && msg.isUnread()) {
-				size++;
-			}
+		final Mailbox mailbox = mailboxes.get(objectId);
+		if (mailbox == null) {
+			return 0;
+		}
+
+		synchronized (mailbox) {
+			return mailbox.unread.size();
 		}
-		return size;
 	}
 
 	public final int getInboxSize(int objectId) {
-		int size = 0;
-		for (Message msg : messages.values()) {
-			if (msg != null && msg.getReceiverId() == objectId && !msg.isDeletedByReceiver()) {
-				size++;
-			}
+		final Mailbox mailbox = mailboxes.get(objectId);
+		if (mailbox == null) {
+			return 0;
+		}
+
+		synchronized (mailbox) {
+			return mailbox.inbox.size();
 		}
-		return size;
 	}
 
 	public final int getOutboxSize(int objectId) {
-		int size = 0;
-		for (Message msg : messages.values()) {
-			if (msg != null && msg.getSenderId() == objectId && !msg.isDeletedBySender()) {
-				size++;
-			}
+		final Mailbox mailbox = mailboxes.get(objectId);
+		if (mailbox == null) {
+			return 0;
+		}
+
+		synchronized (mailbox) {
+			return mailbox.outbox.size();
 		}
-		return size;
 	}
 
 	public final List<Message> getInbox(int objectId) {
-		List<Message> inbox = new ArrayList<>();
-		for (Message msg : messages.values()) {
-			if (msg != null && msg.getReceiverId() == objectId && !msg.isDeletedByReceiver()) {
-				inbox.add(msg);
-			}
+		final Mailbox mailbox = mailboxes.get(objectId);
+		if (mailbox == null) {
+			return new ArrayList<>();
+		}
+
+		synchronized (mailbox) {
+			return new ArrayList<>(mailbox.inbox);
 		}
-		return inbox;
 	}
 
 	public final List<Message> getOutbox(int objectId) {
-		List<Message> outbox = new ArrayList<>();
-		for (Message msg : messages.values()) {
-			if (msg != null && msg.getSenderId() == objectId && !msg.isDeletedBySender()) {
-				outbox.add(msg);
-			}
+		final Mailbox mailbox = mailboxes.get(objectId);
+		if (mailbox == null) {
+			return new ArrayList<>();
+		}
+
+		synchronized (mailbox) {
+			return new ArrayList<>(mailbox.outbox);
 		}
-		return outbox;
 	}
 
 	public void sendMessage(Message msg) {
-		messages.put(msg.getId(), msg);
+		addMessage(msg);
 
 		Connection con = null;
 		PreparedStatement stmt = null;
@@ -182,24 +246,35 @@ public class MailManager {
 		if (receiver != null) {
 			receiver.sendPacket(ExNoticePostArrived.valueOf(true));
 		}
-
-		ThreadPoolManager.getInstance().scheduleGeneral(new MessageDeletionTask(msg.getId()), msg.getExpiration() - System.currentTimeMillis());
 	}
 
-	class MessageDeletionTask implements Runnable {
-		final int msgId;
+	private static class Mailbox {
+		private final Set<Message> inbox = new LinkedHashSet<>();
+		private final Set<Message> outbox = new LinkedHashSet<>();
+		private final Set<Message> unread = new HashSet<>();
 
-		public MessageDeletionTask(int msgId) {
-			this.msgId = msgId;
+		private boolean isEmpty() {
+			return inbox.isEmpty() && outbox.isEmpty();
 		}
+	}
 
+	class MessageDeletionTask implements Runnable {
 		@Override
 		public void run() {
-			final Message msg = getMessage(msgId);
-			if (msg == null) {
-				return;
+			final long now = System.currentTimeMillis();
+			for (Message msg : expirationQueue) {
+				if (msg.getExpiration() > now) {
+					break;
+				}
+
+				expirationQueue.remove(msg);
+				if (getMessage(msg.getId()) == msg) {
+					expire(msg);
+				}
 			}
+		}
 
+		private void expire(Message msg) {
 			if (msg.hasAttachments()) {
 				try {
 					final Player sender = World.getInstance().getPlayer(msg.getSenderId());
@@ -227,7 +302,20 @@ public class MailManager {
 		}
 	}
 
+	/**
+	 * Called once the message has been read, updates the unread count of the receiver.
+	 */
 	public final void markAsReadInDb(int msgId) {
+		final Message msg = messages.get(msgId);
+		if (msg != null) {
+			final Mailbox mailbox = mailboxes.get(msg.getReceiverId());
+			if (mailbox != null) {
+				synchronized (mailbox) {
+					mailbox.unread.remove(msg);
+				}
+			}
+		}
+
 		Connection con = null;
 		PreparedStatement stmt = null;
 		try {
@@ -244,6 +332,11 @@ public class MailManager {
 	}
 
 	public final void markAsDeletedBySenderInDb(int msgId) {
+		final Message msg = messages.get(msgId);
+		if (msg != null) {
+			removeFromOutbox(msg);
+		}
+
 		Connection con = null;
 		PreparedStatement stmt = null;
 		try {
@@ -263,6 +356,11 @@ public class MailManager {
 	}
 
 	public final void markAsDeletedByReceiverInDb(int msgId) {
+		final Message msg = messages.get(msgId);
+		if (msg != null) {
+			removeFromInbox(msg);
+		}
+
 		Connection con = null;
 		PreparedStatement stmt = null;
 		try {
@@ -318,7 +416,12 @@ public class MailManager {
 			DatabasePool.close(con);
 		}
 
-		messages.remove(msgId);
+		final Message msg = messages.remove(msgId);
+		if (msg != null) {
+			expirationQueue.remove(msg);
+			removeFromInbox(msg);
+			removeFromOutbox(msg);
+		}
 		IdFactory.getInstance().releaseId(msgId);
 	}
 
@@ -19,9 +19,10 @@ import l2server.gameserver.communitybbs.Manager.CustomCommunityBoard;
 import l2server.gameserver.datatables.ItemTable;
 import l2server.gameserver.datatables.NpcTable;
 import l2server.gameserver.datatables.NpcTable.DropChances;
-import l2server.gameserver.model.L2DropCategory;
 import l2server.gameserver.model.L2DropData;
 import l2server.gameserver.model.L2Spawn;
+import l2server.gameserver.model.NpcDrops;
+import l2server.gameserver.model.NpcDrops.ItemDrop;
 import l2server.gameserver.model.actor.instance.Player;
 import l2server.gameserver.templates.chars.NpcTemplate;
 import l2server.gameserver.templates.item.ItemTemplate;
@@ -122,52 +123,22 @@ public class SearchDropManager {
 			overrideDrops(temp);
 		}
 		
-		Map<L2DropData, Float> drops = new HashMap<>();
-		Map<L2DropData, Float> spoilDrop = new HashMap<>();
-		
-		if (!temp.getMultiDropData().isEmpty()) {
-			for (L2DropCategory catDrop : temp.getMultiDropData()) {
-				if (catDrop == null) {
-					continue;
-				}
-				
-				if (catDrop.getAllDrops() != null) {
-					for (L2DropData drop : catDrop.getAllDrops()) {
-						drops.put(drop, catDrop.getChance());
-					}
-				}
-			}
-		}
-		
-		if (!temp.getDropData().isEmpty()) {
-			for (L2DropData drop : temp.getDropData()) {
-				drops.put(drop, 100.0f);
-			}
-		}
-		
-		if (!temp.getSpoilData().isEmpty()) {
-			for (L2DropData drop : temp.getSpoilData()) {
-				spoilDrop.put(drop, 100.0f);
-			}
-		}
-		
-		for (Entry<L2DropData, Float> i : drops.entrySet()) {
-			L2DropData data = i.getKey();
-			if (allDrops.containsKey(data.getItemId())) {
-				allDrops.get(data.getItemId()).addMonster(temp, false);
+		NpcDrops drops = temp.getCompiledDrops();
+		for (int itemId : drops.getDropItemIds()) {
+			if (allDrops.containsKey(itemId)) {
+				allDrops.get(itemId).addMonster(temp, false);
 			} else {
-				Drops d = new Drops(data.getItemId(), temp, false);
-				allDrops.put(data.getItemId(), d);
+				Drops d = new Drops(itemId, temp, false);
+				allDrops.put(itemId, d);
 			}
 		}
 		
-		for (Entry<L2DropData, Float> i : spoilDrop.entrySet()) {
-			L2DropData data = i.getKey();
-			if (allDrops.containsKey(data.getItemId())) {
-				allDrops.get(data.getItemId()).addMonster(temp, true);
+		for (int itemId : drops.getSpoilItemIds()) {
+			if (allDrops.containsKey(itemId)) {
+				allDrops.get(itemId).addMonster(temp, true);
 			} else {
-				Drops d = new Drops(data.getItemId(), temp, true);
-				allDrops.put(data.getItemId(), d);
+				Drops d = new Drops(itemId, temp, true);
+				allDrops.put(itemId, d);
 			}
 		}
 	}
@@ -268,32 +239,17 @@ public class SearchDropManager {
 	}
 	
 	private DropChances getDropChance(NpcTemplate temp, Player pl, int itemId, boolean isSpoil) {
+		NpcDrops drops = temp.getCompiledDrops();
 		if (isSpoil) {
-			if (!temp.getSpoilData().isEmpty()) {
-				for (L2DropData drop : temp.getSpoilData()) {
-					if (drop.getItemId() == itemId) {
-						return NpcTable.getInstance().calculateRewardChances(temp, pl, drop, 100.0f, 0, false, null);
-					}
-				}
-			}
-		}
-		
-		if (!temp.getDropData().isEmpty()) {
-			for (L2DropData drop : temp.getDropData()) {
-				if (drop.getItemId() == itemId) {
-					return NpcTable.getInstance().calculateRewardChances(temp, pl, drop, 100.0f, 0, false, null);
-				}
+			L2DropData drop = drops.getSpoilDrop(itemId);
+			if (drop != null) {
+				return NpcTable.getInstance().calculateRewardChances(temp, pl, drop, 100.0f, 0, false, null);
 			}
 		}
 		
-		if (!temp.getMultiDropData().isEmpty()) {
-			for (L2DropCategory catDrop : temp.getMultiDropData()) {
-				for (L2DropData drop : catDrop.getAllDrops()) {
-					if (drop.getItemId() == itemId) {
-						return NpcTable.getInstance().calculateRewardChances(temp, pl, drop, catDrop.getChance(), 0, false, null);
-					}
-				}
-			}
+		ItemDrop drop = drops.getDrop(itemId);
+		if (drop != null) {
+			return NpcTable.getInstance().calculateRewardChances(temp, pl, drop.getDrop(), drop.getCategoryChance(), 0, false, null);
 		}
 		return null;
 	}
@@ -86,6 +86,7 @@ public class Abnormal {
 
 	// function templates
 	private final FuncTemplate[] funcTemplates;
+	private volatile Func[] statFuncs;
 
 	//initial count
 	private int totalCount;
@@ -311,9 +312,9 @@ public class Abnormal {
 			stopEffectTask();
 			final int initialDelay = Math.max((duration - periodFirstTime) * 1000, 5);
 			if (count > 1) {
-				currentFuture = ThreadPoolManager.getInstance().scheduleEffectAtFixedRate(new AbnormalTask(), initialDelay, duration * 1000);
+				currentFuture = ThreadPoolManager.getInstance().scheduleEffectAtFixedRate(getEffected(), new AbnormalTask(), initialDelay, duration * 1000);
 			} else {
-				currentFuture = ThreadPoolManager.getInstance().scheduleEffect(new AbnormalTask(), initialDelay);
+				currentFuture = ThreadPoolManager.getInstance().scheduleEffect(getEffected(), new AbnormalTask(), initialDelay);
 			}
 		}
 		if (state == AbnormalState.ACTING) {
@@ -540,12 +541,12 @@ public class Abnormal {
 		if (funcTemplates == null) {
 			return emptyFunctionSet;
 		}
+		// Created once, the stacking of the effects removes and adds them back
+		if (statFuncs != null) {
+			return statFuncs;
+		}
 		ArrayList<Func> funcs = new ArrayList<>(funcTemplates.length);
 
-		Env env = new Env();
-		env.player = getEffector();
-		env.target = getEffected();
-		env.skill = getSkill();
 		Func f;
 
 		for (FuncTemplate t : funcTemplates) {
@@ -555,10 +556,12 @@ public class Abnormal {
 			}
 		}
 		if (funcs.isEmpty()) {
-			return emptyFunctionSet;
+			statFuncs = emptyFunctionSet;
+		} else {
+			statFuncs = funcs.toArray(new Func[funcs.size()]);
 		}
 
-		return funcs.toArray(new Func[funcs.size()]);
+		return statFuncs;
 	}
 
 	public final void addIcon(AbnormalStatusUpdate mi) {
@@ -456,8 +456,9 @@ public class AutoSpawnHandler {
 				// Add the new spawn information to the spawn table, but do not
 				// store it.
 				SpawnTable.getInstance().addNewSpawn(newSpawn, false);
-				Npc npcInst = newSpawn.getNpc();
 				newSpawn.doSpawn();
+				// The instance is tracked to be despawned, it can't stay dormant
+				Npc npcInst = newSpawn.materialize();
 				spawnInst.addNpcInstance(npcInst);
 				
 				String nearestTown = MapRegionTable.getInstance().getClosestTownName(npcInst);
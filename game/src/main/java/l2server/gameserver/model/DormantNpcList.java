@@ -0,0 +1,144 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package l2server.gameserver.model;
+
+import java.util.Arrays;
+
+/**
+ * Compact storage of the dormant NPCs of a {@link WorldRegion}.<BR>
+ * Every entry is the state needed to rebuild the NpcInstance of a spawn (same object id, position, heading and HP),
+ * kept in parallel arrays instead of one full Npc object per spawn.<BR>
+ * Not thread safe, the owning region synchronizes the accesses.
+ */
+final class DormantNpcList {
+	private static final int INITIAL_CAPACITY = 16;
+
+	private L2Spawn[] spawns = new L2Spawn[0];
+	private int[] objectIds = new int[0];
+	private int[] templateIds = new int[0];
+	private int[] xs = new int[0];
+	private int[] ys = new int[0];
+	private int[] zs = new int[0];
+	private int[] headings = new int[0];
+	private double[] hps = new double[0];
+	private int size = 0;
+
+	final void add(L2Spawn spawn, int objectId, int templateId, int x, int y, int z, int heading, double hp) {
+		if (size == spawns.length) {
+			grow();
+		}
+
+		spawns[size] = spawn;
+		objectIds[size] = objectId;
+		templateIds[size] = templateId;
+		xs[size] = x;
+		ys[size] = y;
+		zs[size] = z;
+		headings[size] = heading;
+		hps[size] = hp;
+		size++;
+	}
+
+	/**
+	 * Removes the entry by moving the last one in its place.
+	 */
+	final void remove(int index) {
+		size--;
+		spawns[index] = spawns[size];
+		objectIds[index] = objectIds[size];
+		templateIds[index] = templateIds[size];
+		xs[index] = xs[size];
+		ys[index] = ys[size];
+		zs[index] = zs[size];
+		headings[index] = headings[size];
+		hps[index] = hps[size];
+		spawns[size] = null;
+
+		// Give the memory back once the whole region has been materialized
+		if (size == 0) {
+			clear();
+		}
+	}
+
+	final int indexOf(L2Spawn spawn) {
+		for (int i = 0; i < size; i++) {
+			if (spawns[i] == spawn) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	final void clear() {
+		spawns = new L2Spawn[0];
+		objectIds = new int[0];
+		templateIds = new int[0];
+		xs = new int[0];
+		ys = new int[0];
+		zs = new int[0];
+		headings = new int[0];
+		hps = new double[0];
+		size = 0;
+	}
+
+	private void grow() {
+		final int capacity = Math.max(INITIAL_CAPACITY, spawns.length * 2);
+		spawns = Arrays.copyOf(spawns, capacity);
+		objectIds = Arrays.copyOf(objectIds, capacity);
+		templateIds = Arrays.copyOf(templateIds, capacity);
+		xs = Arrays.copyOf(xs, capacity);
+		ys = Arrays.copyOf(ys, capacity);
+		zs = Arrays.copyOf(zs, capacity);
+		headings = Arrays.copyOf(headings, capacity);
+		hps = Arrays.copyOf(hps, capacity);
+	}
+
+	final int size() {
+		return size;
+	}
+
+	final L2Spawn getSpawn(int index) {
+		return spawns[index];
+	}
+
+	final int getObjectId(int index) {
+		return objectIds[index];
+	}
+
+	final int getTemplateId(int index) {
+		return templateIds[index];
+	}
+
+	final int getX(int index) {
+		return xs[index];
+	}
+
+	final int getY(int index) {
+		return ys[index];
+	}
+
+	final int getZ(int index) {
+		return zs[index];
+	}
+
+	final int getHeading(int index) {
+		return headings[index];
+	}
+
+	final double getHp(int index) {
+		return hps[index];
+	}
+}
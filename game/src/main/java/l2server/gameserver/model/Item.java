@@ -107,6 +107,11 @@ public final class Item extends WorldObject implements ItemInstanceInfo {
 	 */
 	private final ItemTemplate item;
 	
+	/**
+	 * The stat Funcs of the item, created on its first equip
+	 */
+	private volatile Func[] statFuncs;
+	
 	/**
 	 * Location of the item : Inventory, PaperDoll, WareHouse
 	 */
@@ -1549,10 +1554,17 @@ public final class Item extends WorldObject implements ItemInstanceInfo {
 	 * functions, if this particular item instance is enhanched
 	 * for a particular player.
 	 *
+	 * The Funcs are immutable, so they are created once and shared by every equip of the item.
+	 *
 	 * @return Func[]
 	 */
 	public Func[] getStatFuncs() {
-		return getItem().getStatFuncs(this);
+		Func[] funcs = statFuncs;
+		if (funcs == null) {
+			funcs = getItem().getStatFuncs(this);
+			statFuncs = funcs;
+		}
+		return funcs;
 	}
 	
 	/**
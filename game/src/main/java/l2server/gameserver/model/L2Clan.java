@@ -25,6 +25,7 @@ import l2server.gameserver.instancemanager.CastleManager;
 import l2server.gameserver.instancemanager.CastleSiegeManager;
 import l2server.gameserver.instancemanager.ClanRecruitManager;
 import l2server.gameserver.instancemanager.FortManager;
+import l2server.gameserver.instancemanager.LeaderboardManager;
 import l2server.gameserver.model.actor.Creature;
 import l2server.gameserver.model.actor.instance.Player;
 import l2server.gameserver.model.actor.instance.Player.TimeStamp;
@@ -251,6 +252,7 @@ public class L2Clan {
 	public void setLeader(L2ClanMember leader) {
 		this.leader = leader;
 		members.put(leader.getObjectId(), leader);
+		LeaderboardManager.getInstance().onClanMembersChanged(this);
 	}
 
 	public void setNewLeader(L2ClanMember member) {
@@ -340,6 +342,7 @@ public class L2Clan {
 
 	private void addClanMember(L2ClanMember member) {
 		members.put(member.getObjectId(), member);
+		LeaderboardManager.getInstance().onClanMembersChanged(this);
 	}
 
 	public void addClanMember(Player player) {
@@ -389,6 +392,7 @@ public class L2Clan {
 			log.warn("Member Object ID: " + objectId + " not found in clan while trying to remove");
 			return;
 		}
+		LeaderboardManager.getInstance().onClanMembersChanged(this);
 		int leadssubpledge = getLeaderSubPledge(objectId);
 		if (leadssubpledge != 0) {
 			// Sub-unit leader withdraws, position becomes vacant and leader
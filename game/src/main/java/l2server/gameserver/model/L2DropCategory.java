@@ -27,6 +27,9 @@ public class L2DropCategory {
 	private ArrayList<L2DropData> drops;
 	private boolean custom = false;
 	
+	// Flat copy of the drops with their cumulative chances, built on the first roll after a change
+	private volatile CompiledDrops compiled;
+	
 	public L2DropCategory(float chance) {
 		this.chance = chance;
 		drops = new ArrayList<>();
@@ -34,14 +37,35 @@ public class L2DropCategory {
 	
 	public void addDropData(L2DropData drop) {
 		drops.add(drop);
+		invalidate();
 	}
 	
+	/**
+	 * Call {@link #invalidate()} after modifying the returned list.
+	 */
 	public ArrayList<L2DropData> getAllDrops() {
 		return drops;
 	}
 	
 	public void clearAllDrops() {
 		drops.clear();
+		invalidate();
+	}
+	
+	/**
+	 * Makes the next roll use the current content of the drop list.
+	 */
+	public void invalidate() {
+		compiled = null;
+	}
+	
+	private CompiledDrops getCompiled() {
+		CompiledDrops c = compiled;
+		if (c == null) {
+			c = new CompiledDrops(drops.toArray(new L2DropData[drops.size()]));
+			compiled = c;
+		}
+		return c;
 	}
 	
 	// this returns the chance for the category to be visited in order to check if
@@ -70,31 +94,25 @@ public class L2DropCategory {
 	 *
 	 * @return acceptable drop when mob is seeded, if it exists.  Null otherwise.
 	 */
-	public synchronized L2DropData dropSeedAllowedDropsOnly() {
-		ArrayList<L2DropData> drops = new ArrayList<>();
-		int subCatChance = 0;
-		for (L2DropData drop : getAllDrops()) {
-			if (drop.getItemId() == 57 || drop.getItemId() == 6360 || drop.getItemId() == 6361 || drop.getItemId() == 6362) {
-				drops.add(drop);
-				subCatChance += drop.getChance();
-			}
-		}
+	public L2DropData dropSeedAllowedDropsOnly() {
+		final CompiledDrops c = getCompiled();
 		
 		// among the results choose one.
-		int randomIndex = Rnd.get(subCatChance);
-		int sum = 0;
-		for (L2DropData drop : drops) {
-			sum += drop.getChance();
-			
-			if (sum > randomIndex) // drop this item and exit the function
-			{
-				drops.clear();
-				drops = null;
-				return drop;
+		int randomIndex = Rnd.get(c.seedChanceSum);
+		final int[] cumulative = c.seedCumulativeChances;
+		int low = 0;
+		int high = cumulative.length;
+		// first drop whose contribution to the sum makes it greater than the random number
+		while (low < high) {
+			final int mid = low + high >>> 1;
+			if (cumulative[mid] > randomIndex) {
+				high = mid;
+			} else {
+				low = mid + 1;
 			}
 		}
 		// since it is still within category, only drop one of the acceptable drops from the results.
-		return null;
+		return low < cumulative.length ? c.seedDrops[low] : null;
 	}
 	
 	/**
@@ -124,17 +142,64 @@ public class L2DropCategory {
 	 *
 	 * @return selected drop from category, or null if nothing is dropped.
 	 */
-	public synchronized L2DropData dropOne() {
-		float randomIndex = Rnd.get(1000000) / 10000.0f;
-		float sum = 0;
-		for (L2DropData drop : getAllDrops()) {
-			sum += drop.getChance();
+	public L2DropData dropOne() {
+		final CompiledDrops c = getCompiled();
+		final float randomIndex = Rnd.get(1000000) / 10000.0f;
+		final float[] cumulative = c.cumulativeChances;
+		int low = 0;
+		int high = cumulative.length;
+		while (low < high) {
+			final int mid = low + high >>> 1;
+			if (cumulative[mid] >= randomIndex) {
+				high = mid;
+			} else {
+				low = mid + 1;
+			}
+		}
+		return low < cumulative.length ? c.drops[low] : null;
+	}
+	
+	/**
+	 * The drops of the category with the running sum of their chances, in list order, so that a roll is a binary search.
+	 * The sums are accumulated the same way the rolls used to walk the list, giving the same results.
+	 */
+	private static final class CompiledDrops {
+		private final L2DropData[] drops;
+		private final float[] cumulativeChances;
+		private final L2DropData[] seedDrops;
+		private final int[] seedCumulativeChances;
+		private final int seedChanceSum;
+		
+		private CompiledDrops(L2DropData[] drops) {
+			this.drops = drops;
+			cumulativeChances = new float[drops.length];
+			float sum = 0;
+			int seedCount = 0;
+			for (int i = 0; i < drops.length; i++) {
+				sum += drops[i].getChance();
+				cumulativeChances[i] = sum;
+				if (isSeedAllowed(drops[i])) {
+					seedCount++;
+				}
+			}
 			
-			if (sum >= randomIndex) // drop this item and exit the function
-			{
-				return drop;
+			seedDrops = new L2DropData[seedCount];
+			seedCumulativeChances = new int[seedCount];
+			int seedSum = 0;
+			int index = 0;
+			for (L2DropData drop : drops) {
+				if (isSeedAllowed(drop)) {
+					seedSum += drop.getChance();
+					seedDrops[index] = drop;
+					seedCumulativeChances[index] = seedSum;
+					index++;
+				}
 			}
+			seedChanceSum = seedSum;
+		}
+		
+		private static boolean isSeedAllowed(L2DropData drop) {
+			return drop.getItemId() == 57 || drop.getItemId() == 6360 || drop.getItemId() == 6361 || drop.getItemId() == 6362;
 		}
-		return null;
 	}
 }
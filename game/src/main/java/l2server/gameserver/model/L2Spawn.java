@@ -27,13 +27,12 @@ import l2server.gameserver.model.actor.instance.ArmyMonsterInstance;
 import l2server.gameserver.model.actor.instance.ChessPieceInstance;
 import l2server.gameserver.model.actor.instance.EventGolemInstance;
 import l2server.gameserver.model.actor.instance.MonsterInstance;
+import l2server.gameserver.model.quest.Quest;
 import l2server.gameserver.templates.chars.NpcTemplate;
 import l2server.util.Rnd;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.lang.reflect.Constructor;
-import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -53,7 +52,22 @@ public class L2Spawn {
 	/**
 	 * The link on the NpcTemplate object containing generic and static properties of this spawn (ex : RewardExp, RewardSP, AggroRange...)
 	 */
-	private final Npc npc;
+	private final NpcTemplate template;
+
+	/**
+	 * The factory of the NpcInstance class managed by this spawn
+	 */
+	private final NpcFactory factory;
+
+	/**
+	 * The NpcInstance managed by this spawn, null while it is dormant
+	 */
+	private volatile Npc npc;
+
+	/**
+	 * The inactive region keeping the compact record of the NpcInstance while it is dormant
+	 */
+	private volatile WorldRegion dormantRegion;
 
 	/**
 	 * The location area where NpcInstance can be spawned
@@ -95,6 +109,11 @@ public class L2Spawn {
 	 */
 	List<int[]> randomCoords;
 
+	/**
+	 * The position [x, y, z] computed ahead by prepareSpawn(), used by the next spawn
+	 */
+	private volatile int[] preparedLocation;
+
 	/**
 	 * The delay between a NpcInstance remove and its re-spawn
 	 */
@@ -139,44 +158,29 @@ public class L2Spawn {
 		}
 	}
 
-	public L2Spawn(NpcTemplate template)
-			throws SecurityException, ClassNotFoundException, NoSuchMethodException, InstantiationException, IllegalAccessException,
-			IllegalArgumentException, InvocationTargetException {
+	public L2Spawn(NpcTemplate template) throws ClassNotFoundException, NoSuchMethodException, IllegalAccessException {
 		if (template == null) {
 			throw new IllegalArgumentException("Null template!");
 		}
 
-		// Create the generic constructor of NpcInstance managed by this L2Spawn
-		Class<?>[] parameters = {int.class, Class.forName("l2server.gameserver.templates.chars.NpcTemplate")};
+		this.template = template;
+		factory = template.getNpcFactory();
 
-		Class<?> instanceClass = getClassFor(template.Type, false);
-
-		// Couldn't get the NPC class from default NpcTypes. Must be custom.
-		if (instanceClass == null) {
-			instanceClass = getClassFor(template.Type, true);
-		}
-
-		Constructor<?> constructor = instanceClass.getConstructor(parameters);
+		npc = createNpc(IdFactory.getInstance().getNextId());
+		npc.setIsDead(true);
 
-		// Get NpcInstance Init parameters and its generate an Identifier
-		Object[] params = {IdFactory.getInstance().getNextId(), template};
+		template.onSpawn(this);
+	}
 
+	private Npc createNpc(int objectId) {
 		// Call the constructor of the NpcInstance
 		// (can be a ArtefactInstance, FriendlyMobInstance, GuardInstance, MonsterInstance, L2SiegeGuardInstance, L2BoxInstance,
 		// FeedableBeastInstance, TamedBeastInstance, L2FolkInstance or L2InstancedEventNpcInstance)
-		Object tmp = constructor.newInstance(params);
-		// Check if the Instance is a NpcInstance
-		if (!(tmp instanceof Npc)) {
-			throw new IllegalArgumentException("Trying to create a spawn of a non NPC object!");
-		}
-
-		npc = (Npc) tmp;
+		Npc npc = factory.create(objectId, template);
 
 		// Link the NpcInstance to this L2Spawn
 		npc.setSpawn(this);
-		npc.setIsDead(true);
-
-		template.onSpawn(this);
+		return npc;
 	}
 
 	/**
@@ -213,7 +217,7 @@ public class L2Spawn {
 				SpawnDataManager.getInstance().updateDbSpawnData(this);
 			}
 		} else {
-			npc.getTemplate().onUnSpawn(this);
+			template.onUnSpawn(this);
 		}
 	}
 
@@ -255,6 +259,8 @@ public class L2Spawn {
 			return false;
 		}
 
+		// The npc may go dormant during initializeNpc()
+		final Npc npc = this.npc;
 		boolean temp = npc.isShowSummonAnimation();
 		npc.setShowSummonAnimation(isSummonSpawn);
 
@@ -289,7 +295,15 @@ public class L2Spawn {
 		return true;
 	}
 
-	private void initializeNpc() {
+	/**
+	 * Computes the position of the next spawn (random point or coords, geodata height) ahead of doSpawn().<BR>
+	 * Only reads the geodata and writes this spawn, so different spawns can be prepared in parallel.
+	 */
+	public void prepareSpawn() {
+		preparedLocation = computeSpawnLocation();
+	}
+
+	private int[] computeSpawnLocation() {
 		int newlocx, newlocy, newlocz;
 
 		// If Locx=0 and Locy=0, the NpcInstance must be spawned in an area defined by location
@@ -330,6 +344,20 @@ public class L2Spawn {
 				newlocz = getZ();
 			}
 		}
+		return new int[]{newlocx, newlocy, newlocz};
+	}
+
+	private void initializeNpc() {
+		final Npc npc = this.npc;
+		int[] location = preparedLocation;
+		if (location != null) {
+			preparedLocation = null;
+		} else {
+			location = computeSpawnLocation();
+		}
+		final int newlocx = location[0];
+		final int newlocy = location[1];
+		final int newlocz = location[2];
 
 		npc.stopAllEffects();
 
@@ -366,6 +394,12 @@ public class L2Spawn {
 			}
 		}
 
+		// Keep only the compact record of the NpcInstance if nobody is around to see it
+		if (canBeDormant(npc) && newlocx >= World.MAP_MIN_X && newlocx <= World.MAP_MAX_X && newlocy >= World.MAP_MIN_Y &&
+				newlocy <= World.MAP_MAX_Y && World.getInstance().getRegion(newlocx, newlocy).addDormantNpc(this, npc, newlocx, newlocy, newlocz)) {
+			return;
+		}
+
 		// Init other values of the NpcInstance (ex : from its CreatureTemplate for INT, STR, DEX...) and add it in the world as a visible object
 		npc.spawnMe(newlocx, newlocy, newlocz);
 
@@ -376,21 +410,6 @@ public class L2Spawn {
 		}
 	}
 
-	private Class<?> getClassFor(final String templateType, final boolean custom) {
-		Class<?> instanceClass = null;
-
-		try {
-			instanceClass = Class.forName("l2server.gameserver.model.actor.instance." + (custom ? "custom." : "") + templateType + "Instance");
-		} catch (ClassNotFoundException e) {
-			// Let us know only once we tried both default/custom...
-			if (custom) {
-				e.printStackTrace();
-			}
-		}
-
-		return instanceClass;
-	}
-
 	/**
 	 * Return the Identifier of the location area where NpcInstance can be spwaned.<BR><BR>
 	 */
@@ -423,7 +442,7 @@ public class L2Spawn {
 	 * Return the Itdentifier of the NpcInstance manage by this L2Spwan contained in the NpcTemplate.<BR><BR>
 	 */
 	public int getNpcId() {
-		return npc.getNpcId();
+		return template.NpcId;
 	}
 
 	/**
@@ -536,11 +555,111 @@ public class L2Spawn {
 		randomRespawnDelay = i * 1000;
 	}
 
+	/**
+	 * Returns the NpcInstance managed by this spawn, null while it is dormant: use {@link #materialize()} when a live one is needed.
+	 */
 	public Npc getNpc() {
 		return npc;
 	}
 
+	/**
+	 * Returns the NpcInstance managed by this spawn, rebuilding and spawning it first if it is dormant.
+	 * It may still be null if it's being spawned by another thread meanwhile or failed to be rebuilt.
+	 */
+	public Npc materialize() {
+		final Npc npc = this.npc;
+		if (npc != null) {
+			return npc;
+		}
+
+		final WorldRegion region = dormantRegion;
+		return region != null ? region.materializeNpc(this) : this.npc;
+	}
+
+	/**
+	 * Return true if the NpcInstance of this spawn is only kept as a compact record by an inactive region.<BR><BR>
+	 */
+	public boolean isDormant() {
+		return dormantRegion != null;
+	}
+
+	/**
+	 * Only plain monsters which can be rebuilt from their spawn, position and HP go dormant: no raids, minions or leaders,
+	 * champions, instances, persisted spawns, npcs scripted by quests (other than on kill) or by the auto chat.
+	 */
+	final boolean canBeDormant(Npc npc) {
+		return Config.DORMANT_NPCS && npc == this.npc && npc.getClass() == MonsterInstance.class && doRespawn && instanceId == 0 &&
+				npc.getInstanceId() == 0 && (dbName == null || dbName.isEmpty()) && !npc.isDead() && !npc.isInCombat() &&
+				!npc.isShowSummonAnimation() && !((Attackable) npc).isChampion() && ((MonsterInstance) npc).getLeader() == null &&
+				!((MonsterInstance) npc).hasMinions() && (template.getMinionData() == null || template.getMinionData().isEmpty()) &&
+				template.getRandomMinionData() == null && !isScripted(template) &&
+				AutoChatHandler.getInstance().getAutoChatInstance(template.NpcId, false) == null;
+	}
+
+	/**
+	 * Scripts may keep state attached to the NpcInstance, which would be lost by rebuilding it.
+	 * The quests only listening to the kills, mostly for their drops, don't.
+	 */
+	private static boolean isScripted(NpcTemplate template) {
+		for (Quest.QuestEventType type : Quest.QuestEventType.values()) {
+			if (type != Quest.QuestEventType.ON_KILL && template.getEventQuests(type) != null) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Called by the region keeping the compact record of the NpcInstance, which is released.
+	 */
+	final void setDormant(WorldRegion region) {
+		dormantRegion = region;
+		npc = null;
+	}
+
+	/**
+	 * Rebuilds the NpcInstance from its compact record with the same object id, the region's records being locked.
+	 * The NpcInstance is only added in the world and set as the one of this spawn by {@link #publish(Npc)}, once they are released.
+	 */
+	final Npc materialize(int objectId, int x, int y, int z, int heading, double hp) {
+		final Npc npc;
+		try {
+			npc = createNpc(objectId);
+		} catch (RuntimeException e) {
+			// The spawn is lost, don't leak its object id
+			dormantRegion = null;
+			spawned = false;
+			IdFactory.getInstance().releaseId(objectId);
+			throw e;
+		}
+
+		npc.setInstanceId(instanceId);
+		npc.setHeading(heading);
+		npc.setCurrentHpMp(Math.min(hp, npc.getMaxHp()), npc.getMaxMp());
+		npc.setXYZInvisible(x, y, z);
+		return npc;
+	}
+
+	/**
+	 * Adds a materialized NpcInstance in the world, at the position it was dormant at, and then makes it the one of this spawn.
+	 */
+	final void publish(Npc npc) {
+		try {
+			npc.spawnMe(npc.getX(), npc.getY(), npc.getZ());
+		} finally {
+			this.npc = npc;
+			dormantRegion = null;
+		}
+		L2Spawn.notifyNpcSpawned(npc);
+	}
+
 	private void respawnNpc() {
+		final Npc npc = this.npc;
+		if (npc == null) {
+			// Lost while it was dormant, or dormant again
+			return;
+		}
+
 		if (doRespawn) {
 			npc.refreshID();
 			initializeNpc();
@@ -549,7 +668,7 @@ public class L2Spawn {
 	}
 
 	public NpcTemplate getTemplate() {
-		return npc.getTemplate();
+		return template;
 	}
 
 	public int getInstanceId() {
@@ -16,6 +16,7 @@
 package l2server.gameserver.model;
 
 import l2server.DatabasePool;
+import l2server.gameserver.cache.PlayerLoadCache;
 import l2server.gameserver.datatables.UITable;
 import l2server.gameserver.model.actor.instance.Player;
 import l2server.gameserver.model.entity.ActionKey;
@@ -148,16 +149,17 @@ public class L2UIKeysSettings {
 		Connection con = null;
 		try {
 			con = DatabasePool.getInstance().getConnection();
-			PreparedStatement stmt = con.prepareStatement("SELECT * FROM character_ui_categories WHERE `charId` = ? ORDER BY `catId`, `order`");
-			stmt.setInt(1, player.getObjectId());
-			ResultSet rs = stmt.executeQuery();
+			ResultSet rs = PlayerLoadCache.getInstance()
+					.query(con,
+							player.getObjectId(),
+							"SELECT * FROM character_ui_categories WHERE `charId` = ? ORDER BY `catId`, `order`",
+							player.getObjectId());
 			
 			while (rs.next()) {
 				int cat = rs.getInt("catId");
 				int cmd = rs.getInt("cmdId");
 				insertCategory(cat, cmd);
 			}
-			stmt.close();
 			rs.close();
 		} catch (Exception e) {
 			log.warn("Exception: getCatsFromDB(): " + e.getMessage(), e);
@@ -180,9 +182,11 @@ public class L2UIKeysSettings {
 		Connection con = null;
 		try {
 			con = DatabasePool.getInstance().getConnection();
-			PreparedStatement stmt = con.prepareStatement("SELECT * FROM character_ui_actions WHERE `charId` = ? ORDER BY `cat`, `order`");
-			stmt.setInt(1, player.getObjectId());
-			ResultSet rs = stmt.executeQuery();
+			ResultSet rs = PlayerLoadCache.getInstance()
+					.query(con,
+							player.getObjectId(),
+							"SELECT * FROM character_ui_actions WHERE `charId` = ? ORDER BY `cat`, `order`",
+							player.getObjectId());
 			
 			while (rs.next()) {
 				int cat = rs.getInt("cat");
@@ -193,7 +197,6 @@ public class L2UIKeysSettings {
 				int show = rs.getInt("show");
 				insertKey(cat, cmd, key, tgKey1, tgKey2, show);
 			}
-			stmt.close();
 			rs.close();
 		} catch (Exception e) {
 			log.warn("Exception: getKeysFromDB(): " + e.getMessage(), e);
@@ -16,6 +16,7 @@
 package l2server.gameserver.model;
 
 import l2server.DatabasePool;
+import l2server.gameserver.cache.PlayerLoadCache;
 import l2server.gameserver.model.L2Macro.L2MacroCmd;
 import l2server.gameserver.model.actor.instance.Player;
 import l2server.gameserver.network.serverpackets.SendMacroList;
@@ -171,10 +172,11 @@ public class MacroList {
 		Connection con = null;
 		try {
 			con = DatabasePool.getInstance().getConnection();
-			PreparedStatement statement =
-					con.prepareStatement("SELECT charId, id, icon, name, descr, acronym, commands FROM character_macroses WHERE charId=?");
-			statement.setInt(1, owner.getObjectId());
-			ResultSet rset = statement.executeQuery();
+			ResultSet rset = PlayerLoadCache.getInstance()
+					.query(con,
+							owner.getObjectId(),
+							"SELECT charId, id, icon, name, descr, acronym, commands FROM character_macroses WHERE charId=?",
+							owner.getObjectId());
 			while (rset.next()) {
 				int id = rset.getInt("id");
 				int icon = rset.getInt("icon");
@@ -203,7 +205,6 @@ public class MacroList {
 				macroses.put(m.id, m);
 			}
 			rset.close();
-			statement.close();
 		} catch (Exception e) {
 			log.warn("could not store shortcuts:", e);
 		} finally {
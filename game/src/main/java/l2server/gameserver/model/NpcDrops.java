@@ -0,0 +1,155 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package l2server.gameserver.model;
+
+import l2server.gameserver.datatables.ExtraDropTable;
+import l2server.gameserver.datatables.GlobalDropTable;
+import l2server.gameserver.datatables.GlobalDropTable.GlobalDropCategory;
+import l2server.gameserver.templates.chars.NpcTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Everything a NpcTemplate can drop, flattened into arrays once instead of being looked up on every kill:
+ * its own drops, its categories, the extra drop group and the global drops that may apply to it.<BR>
+ * Also indexes the drops by item id for the drop search.
+ * Built by {@link NpcTemplate#getCompiledDrops()}, which builds it again after the drops of the template are modified.
+ */
+public final class NpcDrops {
+	private final L2DropData[] spoilDrops;
+	private final L2DropData[] drops;
+	private final L2DropCategory[] categories;
+	private final L2DropCategory[] extraCategories;
+	private final GlobalDropCategory[] globalDrops;
+	private final List<GlobalDropCategory> globalDropSource;
+
+	private final Map<Integer, L2DropData> spoilDropsByItem = new HashMap<>();
+	private final Map<Integer, ItemDrop> dropsByItem = new HashMap<>();
+
+	public NpcDrops(NpcTemplate template) {
+		spoilDrops = template.getSpoilData().toArray(new L2DropData[template.getSpoilData().size()]);
+		drops = template.getDropData().toArray(new L2DropData[template.getDropData().size()]);
+		categories = template.getMultiDropData().toArray(new L2DropCategory[template.getMultiDropData().size()]);
+
+		List<L2DropCategory> extra = null;
+		if (template.ExtraDropGroup > 0) {
+			extra = ExtraDropTable.getInstance().getExtraDroplist(template.ExtraDropGroup);
+		}
+		if (extra == null) {
+			extra = Collections.emptyList();
+		}
+		extraCategories = extra.toArray(new L2DropCategory[extra.size()]);
+
+		// The level and raid conditions depend on the npc instance, only the npc id is checked here
+		globalDropSource = GlobalDropTable.getInstance().getGlobalDropCategories();
+		List<GlobalDropCategory> global = new ArrayList<>();
+		for (GlobalDropCategory drop : globalDropSource) {
+			if (drop.getMobId() == 0 || drop.getMobId() == template.NpcId) {
+				global.add(drop);
+			}
+		}
+		globalDrops = global.toArray(new GlobalDropCategory[global.size()]);
+
+		for (L2DropData drop : spoilDrops) {
+			spoilDropsByItem.putIfAbsent(drop.getItemId(), drop);
+		}
+
+		// The uncategorized drops first, as they were searched before the categories
+		for (L2DropData drop : drops) {
+			dropsByItem.putIfAbsent(drop.getItemId(), new ItemDrop(drop, 100.0f));
+		}
+		for (L2DropCategory category : categories) {
+			if (category == null) {
+				continue;
+			}
+
+			for (L2DropData drop : category.getAllDrops()) {
+				dropsByItem.putIfAbsent(drop.getItemId(), new ItemDrop(drop, category.getChance()));
+			}
+		}
+	}
+
+	/**
+	 * @return false if the global drops were reloaded since this was built
+	 */
+	public boolean isUpToDate() {
+		return globalDropSource == GlobalDropTable.getInstance().getGlobalDropCategories();
+	}
+
+	public L2DropData[] getSpoilDrops() {
+		return spoilDrops;
+	}
+
+	public L2DropData[] getDrops() {
+		return drops;
+	}
+
+	public L2DropCategory[] getCategories() {
+		return categories;
+	}
+
+	public L2DropCategory[] getExtraCategories() {
+		return extraCategories;
+	}
+
+	public GlobalDropCategory[] getGlobalDrops() {
+		return globalDrops;
+	}
+
+	public L2DropData getSpoilDrop(int itemId) {
+		return spoilDropsByItem.get(itemId);
+	}
+
+	/**
+	 * @return the uncategorized or categorized drop of the item, null if not dropped
+	 */
+	public ItemDrop getDrop(int itemId) {
+		return dropsByItem.get(itemId);
+	}
+
+	public Iterable<Integer> getSpoilItemIds() {
+		return spoilDropsByItem.keySet();
+	}
+
+	public Iterable<Integer> getDropItemIds() {
+		return dropsByItem.keySet();
+	}
+
+	public static final class ItemDrop {
+		private final L2DropData drop;
+		private final float categoryChance;
+
+		private ItemDrop(L2DropData drop, float categoryChance) {
+			this.drop = drop;
+			this.categoryChance = categoryChance;
+		}
+
+		public L2DropData getDrop() {
+			return drop;
+		}
+
+		/**
+		 * @return the chance of the category of the drop, 100 for the uncategorized drops
+		 */
+		public float getCategoryChance() {
+			return categoryChance;
+		}
+	}
+}
@@ -0,0 +1,122 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package l2server.gameserver.model;
+
+import l2server.gameserver.model.actor.Npc;
+import l2server.gameserver.templates.chars.NpcTemplate;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Creates the NpcInstance class of a npc type (L2Monster -> MonsterInstance, or custom.*Instance) through a direct call to its
+ * (int objectId, NpcTemplate template) constructor.<BR>
+ * The class and its constructor are resolved once per type, the spawns and respawns then create their npcs without reflection.
+ *
+ * @see NpcTemplate#getNpcFactory()
+ */
+public final class NpcFactory {
+	private static final String INSTANCE_PACKAGE = "l2server.gameserver.model.actor.instance.";
+
+	private static final Map<String, NpcFactory> factories = new ConcurrentHashMap<>();
+
+	@FunctionalInterface
+	private interface NpcConstructor {
+		Npc create(int objectId, NpcTemplate template);
+	}
+
+	private final String type;
+	private final Class<? extends Npc> npcClass;
+	private final NpcConstructor constructor;
+
+	private NpcFactory(String type, Class<? extends Npc> npcClass, NpcConstructor constructor) {
+		this.type = type;
+		this.npcClass = npcClass;
+		this.constructor = constructor;
+	}
+
+	/**
+	 * @param type the Type of a NpcTemplate
+	 */
+	public static NpcFactory forType(String type) throws ClassNotFoundException, NoSuchMethodException, IllegalAccessException {
+		NpcFactory factory = factories.get(type);
+		if (factory == null) {
+			factory = build(type);
+			factories.putIfAbsent(type, factory);
+		}
+		return factory;
+	}
+
+	private static NpcFactory build(String type) throws ClassNotFoundException, NoSuchMethodException, IllegalAccessException {
+		Class<?> instanceClass;
+		try {
+			instanceClass = Class.forName(INSTANCE_PACKAGE + type + "Instance");
+		} catch (ClassNotFoundException e) {
+			// Couldn't get the NPC class from default NpcTypes. Must be custom.
+			instanceClass = Class.forName(INSTANCE_PACKAGE + "custom." + type + "Instance");
+		}
+
+		if (!Npc.class.isAssignableFrom(instanceClass)) {
+			throw new IllegalArgumentException("Trying to create a spawn of a non NPC object!");
+		}
+
+		final Class<? extends Npc> npcClass = instanceClass.asSubclass(Npc.class);
+		final MethodHandles.Lookup lookup = MethodHandles.lookup();
+		final MethodHandle handle = lookup.findConstructor(npcClass, MethodType.methodType(void.class, int.class, NpcTemplate.class));
+
+		NpcConstructor constructor;
+		try {
+			final CallSite site = LambdaMetafactory.metafactory(lookup,
+					"create",
+					MethodType.methodType(NpcConstructor.class),
+					MethodType.methodType(Npc.class, int.class, NpcTemplate.class),
+					handle,
+					MethodType.methodType(npcClass, int.class, NpcTemplate.class));
+			constructor = (NpcConstructor) site.getTarget().invoke();
+		} catch (Throwable t) {
+			// The lambda couldn't be generated for this class, call the constructor handle instead
+			final MethodHandle generic = handle.asType(MethodType.methodType(Npc.class, int.class, NpcTemplate.class));
+			constructor = (objectId, template) -> {
+				try {
+					return (Npc) generic.invokeExact(objectId, template);
+				} catch (RuntimeException | Error e) {
+					throw e;
+				} catch (Throwable e) {
+					throw new IllegalStateException(e);
+				}
+			};
+		}
+
+		return new NpcFactory(type, npcClass, constructor);
+	}
+
+	public Npc create(int objectId, NpcTemplate template) {
+		return constructor.create(objectId, template);
+	}
+
+	public String getType() {
+		return type;
+	}
+
+	public Class<? extends Npc> getNpcClass() {
+		return npcClass;
+	}
+}
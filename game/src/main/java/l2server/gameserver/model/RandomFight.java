@@ -1,7 +1,7 @@
 package l2server.gameserver.model;
 
-import l2server.DatabasePool;
 import l2server.gameserver.ThreadPoolManager;
+import l2server.gameserver.instancemanager.LeaderboardManager;
 import l2server.gameserver.model.actor.Npc;
 import l2server.gameserver.model.actor.instance.Player;
 import l2server.gameserver.network.serverpackets.SkillCoolTime;
@@ -11,9 +11,6 @@ import l2server.util.Rnd;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.sql.Connection;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
 import java.util.Vector;
 
 /**
@@ -115,44 +112,11 @@ public class RandomFight {
 	}
 	
 	public int getRankedPoints(Player player) {
-		Connection get = null;
-		
-		try {
-			get = DatabasePool.getInstance().getConnection();
-			PreparedStatement statement = get.prepareStatement("SELECT rankedPoints FROM characters WHERE charId = ?");
-			statement.setInt(1, player.getObjectId());
-			ResultSet rset = statement.executeQuery();
-			
-			if (rset.next()) {
-				int currentPoints = rset.getInt("rankedPoints");
-				return (currentPoints);
-			}
-			rset.close();
-			statement.close();
-		} catch (Exception e) {
-			log.warn("Couldn't get current ranked points : " + e.getMessage(), e);
-		} finally {
-			DatabasePool.close(get);
-		}
-		return 0;
+		return LeaderboardManager.getInstance().getRankedPoints(player.getObjectId());
 	}
 	
 	public void setRankedPoints(Player player, int amount) {
-		Connection con = null;
-		try {
-			con = DatabasePool.getInstance().getConnection();
-			
-			PreparedStatement statement = con.prepareStatement("UPDATE characters SET rankedPoints=? WHERE charId=?");
-			statement.setInt(1, amount);
-			statement.setInt(2, player.getObjectId());
-			
-			statement.execute();
-			statement.close();
-		} catch (Exception e) {
-			log.error("Failed updating Ranked Points", e);
-		} finally {
-			DatabasePool.close(con);
-		}
+		LeaderboardManager.getInstance().setRankedPoints(player.getObjectId(), amount);
 	}
 	
 	public void onKillInia(Player killer, Player killed) {
@@ -16,6 +16,7 @@
 package l2server.gameserver.model;
 
 import l2server.DatabasePool;
+import l2server.gameserver.cache.PlayerLoadCache;
 import l2server.gameserver.datatables.SkillTable;
 import l2server.gameserver.model.actor.instance.Player;
 import l2server.gameserver.network.serverpackets.ShortCutInit;
@@ -278,13 +279,13 @@ public class ShortCuts {
 			//owner.sendMessage("Loading Shortcuts from DB.");
 			try {
 				con = DatabasePool.getInstance().getConnection();
-				PreparedStatement statement =
-						con.prepareStatement("SELECT charId FROM character_shortcuts WHERE charId=? AND class_index=? AND levelRange = ?");
-				statement.setInt(1, owner.getObjectId());
-				statement.setInt(2, classIndex);
-				statement.setInt(3, levelRange);
-
-				ResultSet rset = statement.executeQuery();
+				ResultSet rset = PlayerLoadCache.getInstance()
+						.query(con,
+								owner.getObjectId(),
+								"SELECT charId FROM character_shortcuts WHERE charId=? AND class_index=? AND levelRange = ?",
+								owner.getObjectId(),
+								classIndex,
+								levelRange);
 
 				if (rset.next()) {
 					hasPresetForCurrentLevel = true;
@@ -299,7 +300,6 @@ public class ShortCuts {
 				}
 
 				rset.close();
-				statement.close();
 			} catch (Exception e) {
 				log.warn("Could not check if the character had preset for current level " + e.getMessage(), e);
 			} finally {
@@ -316,15 +316,9 @@ public class ShortCuts {
 						query += " AND levelRange = ?";
 					}
 
-					PreparedStatement statement = con.prepareStatement(query);
-					statement.setInt(1, owner.getObjectId());
-					statement.setInt(2, classIndex);
-
-					if (hasPresetForCurrentLevel) {
-						statement.setInt(3, levelRange);
-					}
-
-					ResultSet rset = statement.executeQuery();
+					ResultSet rset = hasPresetForCurrentLevel ?
+							PlayerLoadCache.getInstance().query(con, owner.getObjectId(), query, owner.getObjectId(), classIndex, levelRange) :
+							PlayerLoadCache.getInstance().query(con, owner.getObjectId(), query, owner.getObjectId(), classIndex);
 
 					while (rset.next()) {
 						int slot = rset.getInt("slot");
@@ -341,7 +335,6 @@ public class ShortCuts {
 					//System.out.println("Shortcuts Size = " +  shortCuts.get(classIndex).get(levelRange).values().size());
 
 					rset.close();
-					statement.close();
 				} catch (Exception e) {
 					log.warn("Could not restore character shortcuts: " + e.getMessage(), e);
 				} finally {
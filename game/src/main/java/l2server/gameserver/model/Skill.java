@@ -268,6 +268,7 @@ public abstract class Skill implements IChanceSkillTrigger {
 	protected List<Condition> preCondition;
 	protected List<Condition> itemPreCondition;
 	protected FuncTemplate[] funcTemplates;
+	private volatile Func[] statFuncs;
 	protected AbnormalTemplate[] effectTemplates;
 	protected AbnormalTemplate[] effectTemplatesSelf;
 	
@@ -2161,6 +2162,11 @@ public abstract class Skill implements IChanceSkillTrigger {
 			return emptyFunctionSet;
 		}
 		
+		// The Funcs are immutable and owned by the skill, so every character having it shares them
+		if (statFuncs != null) {
+			return statFuncs;
+		}
+		
 		ArrayList<Func> funcs = new ArrayList<>(funcTemplates.length);
 		
 		Func f;
@@ -2171,10 +2177,12 @@ public abstract class Skill implements IChanceSkillTrigger {
 			}
 		}
 		if (funcs.isEmpty()) {
-			return emptyFunctionSet;
+			statFuncs = emptyFunctionSet;
+		} else {
+			statFuncs = funcs.toArray(new Func[funcs.size()]);
 		}
 		
-		return funcs.toArray(new Func[funcs.size()]);
+		return statFuncs;
 	}
 	
 	public boolean hasEffects() {
@@ -67,8 +67,6 @@ public class SpawnGroup {
 						spawn.setGroup(this);
 						spawn.setDbName(dbName);
 
-						spawn.doSpawn();
-
 						spawns.add(spawn);
 
 						if (t.Type.equals("L2Monster")) {
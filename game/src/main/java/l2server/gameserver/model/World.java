@@ -28,13 +28,16 @@ import l2server.gameserver.model.olympiad.OlympiadManager;
 import l2server.util.Point3D;
 import l2server.util.StringUtil;
 import l2server.util.loader.annotations.Load;
+import l2server.util.metrics.MetricsRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
@@ -90,6 +93,11 @@ public final class World {
 	 */
 	private Map<Integer, Player> allPlayers = new ConcurrentHashMap<>();
 	
+	/**
+	 * The visible players of each map region (town area), kept by the WorldRegions they go through
+	 */
+	private final Map<Integer, Set<Player>> mapRegionPlayers = new ConcurrentHashMap<>();
+	
 	/**
 	 * L2ObjectHashMap(WorldObject) containing all visible objects
 	 */
@@ -233,6 +241,26 @@ public final class World {
 		return allPlayers;
 	}
 	
+	/**
+	 * @param mapRegion a region of the MapRegionTable
+	 * @return the visible players whose position is in the map region, as found by MapRegionTable.getMapRegion
+	 */
+	public Set<Player> getMapRegionPlayers(int mapRegion) {
+		final Set<Player> players = mapRegionPlayers.get(mapRegion);
+		return players != null ? players : Collections.emptySet();
+	}
+	
+	void addToMapRegion(Player player, int mapRegion) {
+		mapRegionPlayers.computeIfAbsent(mapRegion, k -> ConcurrentHashMap.newKeySet()).add(player);
+	}
+	
+	void removeFromMapRegion(Player player, int mapRegion) {
+		final Set<Player> players = mapRegionPlayers.get(mapRegion);
+		if (players != null) {
+			players.remove(player);
+		}
+	}
+	
 	public final Collection<Player> getAllPlayersArray() {
 		return allPlayers.values();
 	}
@@ -749,6 +777,41 @@ public final class World {
 		}
 		
 		log.info("World: (" + REGIONS_X + " by " + REGIONS_Y + ") World Region Grid set up.");
+		
+		final MetricsRegistry metrics = MetricsRegistry.getInstance();
+		metrics.gauge("l2_world_players", "Players in the world", this::getAllPlayersCount);
+		metrics.gauge("l2_world_objects", "Objects stored in the world", this::getAllVisibleObjectsCount);
+		metrics.gauge("l2_world_pets", "Summoned pets", () -> petsInstance.size());
+		metrics.gauge("l2_world_active_regions", "World regions currently active", this::getActiveRegionCount);
+		metrics.gauge("l2_world_dormant_npcs", "NPCs kept in their compact form in inactive regions", this::getDormantNpcCount);
+	}
+	
+	/**
+	 * @return the amount of world regions currently active
+	 */
+	public int getActiveRegionCount() {
+		int count = 0;
+		for (WorldRegion[] regions : worldRegions) {
+			for (WorldRegion region : regions) {
+				if (region.isActive()) {
+					count++;
+				}
+			}
+		}
+		return count;
+	}
+	
+	/**
+	 * @return the amount of NPCs currently dormant in the inactive regions
+	 */
+	public int getDormantNpcCount() {
+		int count = 0;
+		for (WorldRegion[] regions : worldRegions) {
+			for (WorldRegion region : regions) {
+				count += region.getDormantNpcCount();
+			}
+		}
+		return count;
 	}
 	
 	/**
@@ -17,8 +17,10 @@ package l2server.gameserver.model;
 
 import l2server.Config;
 import l2server.gameserver.ThreadPoolManager;
+import l2server.gameserver.datatables.MapRegionTable;
 import l2server.gameserver.datatables.SpawnTable;
 import l2server.gameserver.model.actor.*;
+import l2server.gameserver.model.actor.instance.Player;
 import l2server.gameserver.model.zone.ZoneType;
 import l2server.gameserver.model.zone.type.DerbyTrackZone;
 import l2server.gameserver.model.zone.type.PeaceZone;
@@ -53,8 +55,18 @@ public final class WorldRegion {
 	
 	private List<WorldRegion> surroundingRegions;
 	private int tileX, tileY;
-	private boolean active = false;
+	/**
+	 * The map region (town area) covering this region, -1 until a player enters it. Map tiles are made of whole regions.
+	 */
+	private int mapRegion = -1;
+	private volatile boolean active = false;
 	private ScheduledFuture<?> neighborsTask = null;
+	
+	/**
+	 * NPCs of this region kept in their compact form while the region is inactive, see DORMANT_NPCS
+	 */
+	private final DormantNpcList dormantNpcs = new DormantNpcList();
+	private ScheduledFuture<?> dormancyTask = null;
 	private final ArrayList<ZoneType> zones;
 	
 	public WorldRegion(int pTileX, int pTileY) {
@@ -195,6 +207,16 @@ public final class WorldRegion {
 		}
 	}
 	
+	/**
+	 * Task collapsing the NPCs of the region once it stayed inactive for DORMANT_NPC_GRACE_TIME
+	 */
+	private class DormancyTask implements Runnable {
+		@Override
+		public void run() {
+			collapseNpcs();
+		}
+	}
+	
 	private void switchAI(boolean isOn) {
 		int c = 0;
 		if (!isOn) {
@@ -284,9 +306,18 @@ public final class WorldRegion {
 		
 		active = value;
 		
+		// rebuild the dormant NPCs before their AI is turned on
+		if (value) {
+			materializeNpcs();
+		}
+		
 		// turn the AI on or off to match the region's activation.
 		switchAI(value);
 		
+		if (!value) {
+			scheduleDormancy();
+		}
+		
 		// TODO
 		// turn the geodata on or off to match the region's activation.
 		if (value) {
@@ -356,6 +387,10 @@ public final class WorldRegion {
 		if (object instanceof Playable) {
 			allPlayable.put(object.getObjectId(), (Playable) object);
 			
+			if (object instanceof Player) {
+				World.getInstance().addToMapRegion((Player) object, getMapRegion());
+			}
+			
 			// if this is the first player to enter the region, activate self & neighbors
 			if (allPlayable.size() == 1 && !Config.GRIDS_ALWAYS_ON) {
 				startActivation();
@@ -381,12 +416,23 @@ public final class WorldRegion {
 		if (object instanceof Playable) {
 			allPlayable.remove(object.getObjectId());
 			
+			if (object instanceof Player) {
+				World.getInstance().removeFromMapRegion((Player) object, getMapRegion());
+			}
+			
 			if (allPlayable.isEmpty() && !Config.GRIDS_ALWAYS_ON) {
 				startDeactivation();
 			}
 		}
 	}
 	
+	public int getMapRegion() {
+		if (mapRegion == -1) {
+			mapRegion = MapRegionTable.getInstance().getMapRegion((tileX - World.OFFSET_X) << World.SHIFT_BY, (tileY - World.OFFSET_Y) << World.SHIFT_BY);
+		}
+		return mapRegion;
+	}
+	
 	public void addSurroundingRegion(WorldRegion region) {
 		surroundingRegions.add(region);
 	}
@@ -406,6 +452,160 @@ public final class WorldRegion {
 		return visibleObjects;
 	}
 	
+	/**
+	 * Starts the grace period after which the idle NPCs of this inactive region will be collapsed.
+	 */
+	private void scheduleDormancy() {
+		if (!Config.DORMANT_NPCS) {
+			return;
+		}
+		
+		synchronized (this) {
+			if (dormancyTask == null || dormancyTask.isDone()) {
+				dormancyTask = ThreadPoolManager.getInstance().scheduleGeneral(new DormancyTask(), 1000L * Config.DORMANT_NPC_GRACE_TIME);
+			}
+		}
+	}
+	
+	/**
+	 * Replaces the idle NPCs of this inactive region by their compact record.
+	 * They keep their object id, which stays reserved in the IdFactory, but they are removed from the world.
+	 */
+	private void collapseNpcs() {
+		int count = 0;
+		synchronized (dormantNpcs) {
+			for (WorldObject obj : visibleObjects.values()) {
+				if (active) {
+					break;
+				}
+				
+				if (!(obj instanceof Npc)) {
+					continue;
+				}
+				
+				Npc npc = (Npc) obj;
+				L2Spawn spawn = npc.getSpawn();
+				if (spawn == null || !spawn.canBeDormant(npc) || npc.getWorldRegion() != this) {
+					continue;
+				}
+				
+				npc.getStatus().stopHpMpRegeneration();
+				dormantNpcs.add(spawn, npc.getObjectId(), npc.getNpcId(), npc.getX(), npc.getY(), npc.getZ(), npc.getHeading(), npc.getCurrentHp());
+				spawn.setDormant(this);
+				
+				removeFromZones(npc);
+				npc.decayMe();
+				count++;
+			}
+		}
+		
+		if (count > 0) {
+			log.debug(count + " npcs went dormant in Grid " + tileX + "," + tileY);
+		}
+	}
+	
+	/**
+	 * Stores a freshly initialized NPC of this region in its compact form instead of spawning it.
+	 *
+	 * @return false if the region is active and the NPC must be spawned normally
+	 */
+	final boolean addDormantNpc(L2Spawn spawn, Npc npc, int x, int y, int z) {
+		synchronized (dormantNpcs) {
+			if (active) {
+				return false;
+			}
+			
+			dormantNpcs.add(spawn, npc.getObjectId(), npc.getNpcId(), x, y, z, npc.getHeading(), npc.getCurrentHp());
+			spawn.setDormant(this);
+			return true;
+		}
+	}
+	
+	/**
+	 * Rebuilds the NpcInstance of a dormant spawn of this region, when something needs it while the region is still inactive.
+	 */
+	final Npc materializeNpc(L2Spawn spawn) {
+		Npc npc;
+		synchronized (dormantNpcs) {
+			int index = dormantNpcs.indexOf(spawn);
+			if (index < 0) {
+				// Materialized meanwhile, null until it's spawned
+				return spawn.getNpc();
+			}
+			
+			npc = materializeNpc(index);
+		}
+		
+		// Added in the world outside of the lock, spawning notifies the known lists and listeners
+		if (npc != null) {
+			spawn.publish(npc);
+		}
+		
+		if (!active) {
+			scheduleDormancy();
+		}
+		return npc;
+	}
+	
+	private void materializeNpcs() {
+		synchronized (this) {
+			if (dormancyTask != null) {
+				dormancyTask.cancel(false);
+				dormancyTask = null;
+			}
+		}
+		
+		final List<Npc> materialized;
+		synchronized (dormantNpcs) {
+			int count = dormantNpcs.size();
+			materialized = new ArrayList<>(count);
+			for (int i = count - 1; i >= 0; i--) {
+				Npc npc = materializeNpc(i);
+				if (npc != null) {
+					materialized.add(npc);
+				}
+			}
+		}
+		
+		for (Npc npc : materialized) {
+			try {
+				npc.getSpawn().publish(npc);
+			} catch (Exception e) {
+				log.error("Failed spawning materialized NPC " + npc.getNpcId() + " (" + npc.getObjectId() + ") in Grid " + tileX + "," + tileY, e);
+			}
+		}
+		
+		if (!materialized.isEmpty()) {
+			log.debug(materialized.size() + " dormant npcs were materialized in Grid " + tileX + "," + tileY);
+		}
+	}
+	
+	/**
+	 * Removes the record and rebuilds its NpcInstance, not yet added in the world. The records must be locked.
+	 */
+	private Npc materializeNpc(int index) {
+		final L2Spawn spawn = dormantNpcs.getSpawn(index);
+		final int objectId = dormantNpcs.getObjectId(index);
+		final int templateId = dormantNpcs.getTemplateId(index);
+		final int x = dormantNpcs.getX(index);
+		final int y = dormantNpcs.getY(index);
+		final int z = dormantNpcs.getZ(index);
+		final int heading = dormantNpcs.getHeading(index);
+		final double hp = dormantNpcs.getHp(index);
+		dormantNpcs.remove(index);
+		
+		try {
+			return spawn.materialize(objectId, x, y, z, heading, hp);
+		} catch (Exception e) {
+			log.error("Failed materializing dormant NPC " + templateId + " (" + objectId + ") in Grid " + tileX + "," + tileY, e);
+			return null;
+		}
+	}
+	
+	public int getDormantNpcCount() {
+		return dormantNpcs.size();
+	}
+	
 	public String getName() {
 		return "(" + tileX + ", " + tileY + ")";
 	}
@@ -415,6 +615,7 @@ public final class WorldRegion {
 	 */
 	public void deleteVisibleNpcSpawns() {
 		log.debug("Deleting all visible NPC's in Region: " + getName());
+		materializeNpcs();
 		Collection<WorldObject> vNPC = visibleObjects.values();
 		//synchronized (visibleObjects)
 		{
@@ -16,6 +16,7 @@
 package l2server.gameserver.model.actor;
 
 import gnu.trove.TIntIntHashMap;
+import gnu.trove.TIntIntIterator;
 import l2server.Config;
 import l2server.gameserver.ItemsAutoDestroy;
 import l2server.gameserver.ThreadPoolManager;
@@ -53,6 +54,10 @@ import java.util.concurrent.ConcurrentHashMap;
 public class Attackable extends Npc {
 	private static Logger log = LoggerFactory.getLogger(Attackable.class.getName());
 	
+	// Per thread collections reused by the reward calculations of the kills
+	private static final ThreadLocal<HashMap<Creature, RewardInfo>> rewardsScratch = new ThreadLocal<>();
+	private static final ThreadLocal<TIntIntHashMap> categoryRewardsScratch = ThreadLocal.withInitial(TIntIntHashMap::new);
+	
 	private boolean isRaid = false;
 	private boolean isRaidMinion = false;
 	private boolean champion = false;
@@ -551,8 +556,13 @@ public class Attackable extends Npc {
 	 */
 	@Override
 	protected void calculateRewards(Creature lastAttacker) {
-		// Creates an empty list of rewards
-		HashMap<Creature, RewardInfo> rewards = new HashMap<>();
+		// Takes the empty list of rewards of this thread, or a new one if a reward calculation triggered this one
+		HashMap<Creature, RewardInfo> rewards = rewardsScratch.get();
+		if (rewards == null) {
+			rewards = new HashMap<>();
+		} else {
+			rewardsScratch.set(null);
+		}
 		try {
 			if (getAggroList().isEmpty()) {
 				return;
@@ -855,9 +865,11 @@ public class Attackable extends Npc {
 					}
 				}
 			}
-			rewards = null;
 		} catch (Exception e) {
 			log.error("", e);
+		} finally {
+			rewards.clear();
+			rewardsScratch.set(rewards);
 		}
 	}
 	
@@ -1327,7 +1339,8 @@ public class Attackable extends Npc {
 			categoryDropChance = 0.00001F;
 		}
 		
-		TIntIntHashMap rewardsMap = new TIntIntHashMap();
+		final TIntIntHashMap rewardsMap = categoryRewardsScratch.get();
+		rewardsMap.clear();
 		// Check if an Item from this category must be dropped
 		int random = Rnd.get(L2DropData.MAX_CHANCE * 100000);
 		while (random < categoryDropChance * 100000) {
@@ -1349,8 +1362,10 @@ public class Attackable extends Npc {
 		
 		RewardItem[] rewards = new RewardItem[rewardsMap.size()];
 		int index = 0;
-		for (int itemId : rewardsMap.keys()) {
-			int itemCount = rewardsMap.get(itemId);
+		for (TIntIntIterator it = rewardsMap.iterator(); it.hasNext(); ) {
+			it.advance();
+			final int itemId = it.key();
+			int itemCount = it.value();
 			if (Config.RATE_DROP_ITEMS_ID.get(itemId) != 0) {
 				itemCount *= Config.RATE_DROP_ITEMS_ID.get(itemId) / dropRate;
 			}
@@ -1477,12 +1492,14 @@ public class Attackable extends Npc {
 		
 		CursedWeaponsManager.getInstance().checkDrop(this, player);
 		
+		final NpcDrops drops = npcTemplate.getCompiledDrops();
+		
 		// now throw all categorized drops and handle spoil.
 		if (isSpoil()) {
 			RewardItem item = null;
 			ArrayList<RewardItem> sweepList = new ArrayList<>();
 			
-			for (L2DropData dd : npcTemplate.getSpoilData()) {
+			for (L2DropData dd : drops.getSpoilDrops()) {
 				item = calculateRewardItem(player, dd, levelModifier, true);
 				if (item == null) {
 					continue;
@@ -1499,7 +1516,7 @@ public class Attackable extends Npc {
 			}
 		}
 		
-		for (L2DropData dd : npcTemplate.getDropData()) {
+		for (L2DropData dd : drops.getDrops()) {
 			RewardItem item = calculateRewardItem(player, dd, levelModifier, false);
 			if (item == null) {
 				continue;
@@ -1541,7 +1558,7 @@ public class Attackable extends Npc {
 		}
 		
 		RewardItem[] items;
-		for (L2DropCategory cat : npcTemplate.getMultiDropData()) {
+		for (L2DropCategory cat : drops.getCategories()) {
 			if (isSeeded()) {
 				L2DropData drop = cat.dropSeedAllowedDropsOnly();
 				if (drop == null) {
@@ -1632,7 +1649,7 @@ public class Attackable extends Npc {
 		//Instant Item Drop :>
 		if (getTemplate().ExtraDropGroup > 0 && !Config.isServer(Config.TENKAI)) {
 			RewardItem item = null;
-			for (L2DropCategory cat : ExtraDropTable.getInstance().getExtraDroplist(getTemplate().ExtraDropGroup)) {
+			for (L2DropCategory cat : getTemplate().getCompiledDrops().getExtraCategories()) {
 				item = calculateCategorizedExtraItem(player, cat);
 				if (item != null) {
 					// more than one herb cant be auto looted!
@@ -1651,7 +1668,8 @@ public class Attackable extends Npc {
 			}
 		}
 		
-		for (GlobalDropCategory drop : GlobalDropTable.getInstance().getGlobalDropCategories()) {
+		// Already filtered by npc id
+		for (GlobalDropCategory drop : getTemplate().getCompiledDrops().getGlobalDrops()) {
 			
 			RewardItem item = null;
 			int random = Rnd.get(100000);
@@ -1671,8 +1689,7 @@ public class Attackable extends Npc {
 			if (this instanceof GrandBossInstance)
 				random /= 10;*/
 			
-			if (random < drop.getChance() && drop.canLootNow(player) && (drop.getMobId() == 0 || getNpcId() == drop.getMobId()) &&
-					getLevel() >= drop.getMinLevel() && getLevel() <= drop.getMaxLevel()) {
+			if (random < drop.getChance() && drop.canLootNow(player) && getLevel() >= drop.getMinLevel() && getLevel() <= drop.getMaxLevel()) {
 				drop.increaseCountForPlayer(player);
 				item = new RewardItem(drop.getRandomReward(), drop.getMinAmount() + Rnd.get(drop.getMaxAmount() - drop.getMinAmount()));
 				player.doAutoLoot(this, item);
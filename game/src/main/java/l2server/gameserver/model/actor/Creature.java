@@ -66,6 +66,7 @@ import l2server.gameserver.stats.skills.SkillAgathion;
 import l2server.gameserver.stats.skills.SkillMount;
 import l2server.gameserver.stats.skills.SkillSummon;
 import l2server.gameserver.taskmanager.AttackStanceTaskManager;
+import l2server.gameserver.taskmanager.CombatEventScheduler;
 import l2server.gameserver.templates.chars.CreatureTemplate;
 import l2server.gameserver.templates.chars.NpcTemplate;
 import l2server.gameserver.templates.item.ItemTemplate;
@@ -112,6 +113,7 @@ public abstract class Creature extends WorldObject {
 	private volatile boolean isCastingNow = false;
 	private volatile boolean isCastingNow2 = false;
 	private volatile boolean isCastingSimultaneouslyNow = false;
+	private volatile int combatEventEpoch = 0;
 	private Skill lastSkillCast;
 	private Skill lastSimultaneousSkillCast;
 	
@@ -590,6 +592,7 @@ public abstract class Creature extends WorldObject {
 		stopMove(null, false);
 		abortAttack();
 		abortCast();
+		cancelCombatEvents();
 		
 		setIsTeleporting(true);
 		setTarget(null);
@@ -782,7 +785,7 @@ public abstract class Creature extends WorldObject {
 						
 						if (getCurrentMp() < mpConsume) {
 							// If Player doesn't have enough MP, stop the attack
-							ThreadPoolManager.getInstance().scheduleAi(new NotifyAITask(CtrlEvent.EVT_READY_TO_ACT), 1000);
+							CombatEventScheduler.getInstance().scheduleNotify(this, CtrlEvent.EVT_READY_TO_ACT, 1000);
 							sendPacket(SystemMessage.getSystemMessage(SystemMessageId.NOT_ENOUGH_MP));
 							sendPacket(ActionFailed.STATIC_PACKET);
 							return;
@@ -796,7 +799,7 @@ public abstract class Creature extends WorldObject {
 						disableBowAttackEndTime = 5 * TimeController.TICKS_PER_SECOND + TimeController.getGameTicks();
 					} else {
 						// Cancel the action because the bow can't be re-use at this moment
-						ThreadPoolManager.getInstance().scheduleAi(new NotifyAITask(CtrlEvent.EVT_READY_TO_ACT), 1000);
+						CombatEventScheduler.getInstance().scheduleNotify(this, CtrlEvent.EVT_READY_TO_ACT, 1000);
 						
 						sendPacket(ActionFailed.STATIC_PACKET);
 						return;
@@ -829,7 +832,7 @@ public abstract class Creature extends WorldObject {
 						disableCrossBowAttackEndTime = 5 * TimeController.TICKS_PER_SECOND + TimeController.getGameTicks();
 					} else {
 						// Cancel the action because the crossbow can't be re-use at this moment
-						ThreadPoolManager.getInstance().scheduleAi(new NotifyAITask(CtrlEvent.EVT_READY_TO_ACT), 1000);
+						CombatEventScheduler.getInstance().scheduleNotify(this, CtrlEvent.EVT_READY_TO_ACT, 1000);
 						sendPacket(ActionFailed.STATIC_PACKET);
 						return;
 					}
@@ -980,7 +983,7 @@ public abstract class Creature extends WorldObject {
 		}
 		
 		// Notify AI with EVT_READY_TO_ACT
-		ThreadPoolManager.getInstance().scheduleAi(new NotifyAITask(CtrlEvent.EVT_READY_TO_ACT), timeAtk + reuse);
+		CombatEventScheduler.getInstance().scheduleNotify(this, CtrlEvent.EVT_READY_TO_ACT, timeAtk + reuse);
 	}
 	
 	/**
@@ -1038,7 +1041,7 @@ public abstract class Creature extends WorldObject {
 		}
 		
 		// Create a new hit task with Medium priority
-		ThreadPoolManager.getInstance().scheduleAi(new HitTask(target, damage1, crit1, miss1, attack.soulshotCharge, shld1), sAtk);
+		CombatEventScheduler.getInstance().scheduleHit(this, target, damage1, crit1, miss1, attack.soulshotCharge, shld1, sAtk);
 		
 		// Calculate and set the disable delay of the bow in function of the Attack Speed
 		disableBowAttackEndTime = (sAtk + reuse) / TimeController.MILLIS_IN_TICK + TimeController.getGameTicks();
@@ -1108,12 +1111,12 @@ public abstract class Creature extends WorldObject {
 		if (this instanceof Attackable) {
 			if (((Attackable) this).soulshotcharged) {
 				// Create a new hit task with Medium priority
-				ThreadPoolManager.getInstance().scheduleAi(new HitTask(target, damage1, crit1, miss1, Item.CHARGED_SOULSHOT, shld1), sAtk);
+				CombatEventScheduler.getInstance().scheduleHit(this, target, damage1, crit1, miss1, Item.CHARGED_SOULSHOT, shld1, sAtk);
 			} else {
-				ThreadPoolManager.getInstance().scheduleAi(new HitTask(target, damage1, crit1, miss1, Item.CHARGED_NONE, shld1), sAtk);
+				CombatEventScheduler.getInstance().scheduleHit(this, target, damage1, crit1, miss1, Item.CHARGED_NONE, shld1, sAtk);
 			}
 		} else {
-			ThreadPoolManager.getInstance().scheduleAi(new HitTask(target, damage1, crit1, miss1, attack.soulshotCharge, shld1), sAtk);
+			CombatEventScheduler.getInstance().scheduleHit(this, target, damage1, crit1, miss1, attack.soulshotCharge, shld1, sAtk);
 		}
 		
 		// Calculate and set the disable delay of the bow in function of the Attack Speed
@@ -1183,23 +1186,22 @@ public abstract class Creature extends WorldObject {
 			if (((Attackable) this).soulshotcharged) {
 				
 				// Create a new hit task with Medium priority for hit 1
-				ThreadPoolManager.getInstance()
-						.scheduleAi(new HitTask(target, damage1, crit1, miss1, Item.CHARGED_SOULSHOT, shld1), sAtk / 2);
+				CombatEventScheduler.getInstance().scheduleHit(this, target, damage1, crit1, miss1, Item.CHARGED_SOULSHOT, shld1, sAtk / 2);
 				
 				// Create a new hit task with Medium priority for hit 2 with a higher delay
-				ThreadPoolManager.getInstance().scheduleAi(new HitTask(target, damage2, crit2, miss2, Item.CHARGED_SOULSHOT, shld2), sAtk);
+				CombatEventScheduler.getInstance().scheduleHit(this, target, damage2, crit2, miss2, Item.CHARGED_SOULSHOT, shld2, sAtk);
 			} else {
-				ThreadPoolManager.getInstance().scheduleAi(new HitTask(target, damage1, crit1, miss1, Item.CHARGED_NONE, shld1), sAtk / 2);
+				CombatEventScheduler.getInstance().scheduleHit(this, target, damage1, crit1, miss1, Item.CHARGED_NONE, shld1, sAtk / 2);
 				
 				// Create a new hit task with Medium priority for hit 2 with a higher delay
-				ThreadPoolManager.getInstance().scheduleAi(new HitTask(target, damage2, crit2, miss2, Item.CHARGED_NONE, shld2), sAtk);
+				CombatEventScheduler.getInstance().scheduleHit(this, target, damage2, crit2, miss2, Item.CHARGED_NONE, shld2, sAtk);
 			}
 		} else {
 			// Create a new hit task with Medium priority for hit 1
-			ThreadPoolManager.getInstance().scheduleAi(new HitTask(target, damage1, crit1, miss1, attack.soulshotCharge, shld1), sAtk / 2);
+			CombatEventScheduler.getInstance().scheduleHit(this, target, damage1, crit1, miss1, attack.soulshotCharge, shld1, sAtk / 2);
 			
 			// Create a new hit task with Medium priority for hit 2 with a higher delay
-			ThreadPoolManager.getInstance().scheduleAi(new HitTask(target, damage2, crit2, miss2, attack.soulshotCharge, shld2), sAtk);
+			CombatEventScheduler.getInstance().scheduleHit(this, target, damage2, crit2, miss2, attack.soulshotCharge, shld2, sAtk);
 		}
 		
 		// Add those hits to the Server-Client packet Attack
@@ -1397,12 +1399,12 @@ public abstract class Creature extends WorldObject {
 		// Create a new hit task with Medium priority
 		if (this instanceof Attackable) {
 			if (((Attackable) this).soulshotcharged) {
-				ThreadPoolManager.getInstance().scheduleAi(new HitTask(target, damage1, crit1, miss1, Item.CHARGED_SOULSHOT, shld1), sAtk);
+				CombatEventScheduler.getInstance().scheduleHit(this, target, damage1, crit1, miss1, Item.CHARGED_SOULSHOT, shld1, sAtk);
 			} else {
-				ThreadPoolManager.getInstance().scheduleAi(new HitTask(target, damage1, crit1, miss1, Item.CHARGED_NONE, shld1), sAtk);
+				CombatEventScheduler.getInstance().scheduleHit(this, target, damage1, crit1, miss1, Item.CHARGED_NONE, shld1, sAtk);
 			}
 		} else {
-			ThreadPoolManager.getInstance().scheduleAi(new HitTask(target, damage1, crit1, miss1, attack.soulshotCharge, shld1), sAtk);
+			CombatEventScheduler.getInstance().scheduleHit(this, target, damage1, crit1, miss1, attack.soulshotCharge, shld1, sAtk);
 		}
 		
 		// Add this hit to the Server-Client packet Attack
@@ -1695,7 +1697,7 @@ public abstract class Creature extends WorldObject {
 		
 		// queue herbs and potions
 		if (isCastingSimultaneouslyNow() && simultaneously) {
-			ThreadPoolManager.getInstance().scheduleAi(new UsePotionTask(this, skill), 100);
+			ThreadPoolManager.getInstance().scheduleAi(this, new UsePotionTask(this, skill), 100);
 			return;
 		}
 		
@@ -1981,7 +1983,7 @@ public abstract class Creature extends WorldObject {
 			abortAttack();
 			
 			setXYZ(x, y, z);
-			ThreadPoolManager.getInstance().scheduleEffect(new FlyToLocationTask(this, x, y, z), 400);
+			ThreadPoolManager.getInstance().scheduleEffect(this, new FlyToLocationTask(this, x, y, z), 400);
 		}
 		
 		MagicUseTask mut = new MagicUseTask(targets, skill, hitTime, coolTime, simultaneously, shotSave, second);
@@ -2014,7 +2016,7 @@ public abstract class Creature extends WorldObject {
 				
 				// Create a task MagicUseTask to launch the MagicSkill at the end of the casting time (hitTime)
 				// For client animation reasons (party buffs especially) 400 ms before!
-				simultSkillCast = ThreadPoolManager.getInstance().scheduleEffect(mut, hitTime - 400);
+				simultSkillCast = CombatEventScheduler.getInstance().schedule(this, mut, hitTime - 400);
 			} else if (second) {
 				Future<?> future = skillCast2;
 				if (future != null) {
@@ -2024,7 +2026,7 @@ public abstract class Creature extends WorldObject {
 				
 				// Create a task MagicUseTask to launch the MagicSkill at the end of the casting time (hitTime)
 				// For client animation reasons (party buffs especially) 400 ms before!
-				skillCast2 = ThreadPoolManager.getInstance().scheduleEffect(mut, hitTime - 400);
+				skillCast2 = CombatEventScheduler.getInstance().schedule(this, mut, hitTime - 400);
 			} else {
 				Future<?> future = skillCast;
 				if (future != null) {
@@ -2034,7 +2036,7 @@ public abstract class Creature extends WorldObject {
 				
 				// Create a task MagicUseTask to launch the MagicSkill at the end of the casting time (hitTime)
 				// For client animation reasons (party buffs especially) 400 ms before!
-				skillCast = ThreadPoolManager.getInstance().scheduleEffect(mut, hitTime - 400);
+				skillCast = CombatEventScheduler.getInstance().schedule(this, mut, hitTime - 400);
 			}
 		} else {
 			mut.hitTime = 0;
@@ -2260,6 +2262,9 @@ public abstract class Creature extends WorldObject {
 			setIsDead(true);
 		}
 		
+		// Drop the pending hits and AI notifications
+		cancelCombatEvents();
+		
 		// Set target to null and cancel Attack or Cast
 		setTarget(null);
 		
@@ -2854,43 +2859,6 @@ public abstract class Creature extends WorldObject {
 		}
 	}
 	
-	/**
-	 * Task lauching the function onHitTimer().<BR><BR>
-	 * <p>
-	 * <B><U> Actions</U> :</B><BR><BR>
-	 * <li>If the attacker/target is dead or use fake death, notify the AI with EVT_CANCEL and send a Server->Client packet ActionFailed (if attacker is a Player)</li>
-	 * <li>If attack isn't aborted, send a message system (critical hit, missed...) to attacker/target if they are Player </li>
-	 * <li>If attack isn't aborted and hit isn't missed, reduce HP of the target and calculate reflection damage to reduce HP of attacker if necessary </li>
-	 * <li>if attack isn't aborted and hit isn't missed, manage attack or cast break of the target (calculating rate, sending message...) </li><BR><BR>
-	 */
-	public class HitTask implements Runnable {
-		Creature hitTarget;
-		int damage;
-		boolean crit;
-		boolean miss;
-		byte shld;
-		double soulshot;
-		
-		public HitTask(Creature target, int damage, boolean crit, boolean miss, double soulshot, byte shld) {
-			hitTarget = target;
-			this.damage = damage;
-			this.crit = crit;
-			this.shld = shld;
-			this.miss = miss;
-			this.soulshot = soulshot;
-		}
-		
-		@Override
-		public void run() {
-			try {
-				onHitTimer(hitTarget, damage, crit, miss, soulshot, shld, false);
-			} catch (Exception e) {
-				log.error("Failed executing HitTask. Hit target: " + hitTarget);
-				e.printStackTrace();
-			}
-		}
-	}
-	
 	/**
 	 * Task lauching the magic skill phases
 	 */
@@ -2976,26 +2944,6 @@ public abstract class Creature extends WorldObject {
 		}
 	}
 	
-	/**
-	 * Task of AI notification
-	 */
-	public class NotifyAITask implements Runnable {
-		private final CtrlEvent evt;
-		
-		NotifyAITask(CtrlEvent evt) {
-			this.evt = evt;
-		}
-		
-		@Override
-		public void run() {
-			try {
-				getAI().notifyEvent(evt, null);
-			} catch (Exception e) {
-				log.warn("NotifyAITask failed. " + e.getMessage() + " Actor " + Creature.this, e);
-			}
-		}
-	}
-	
 	// =========================================================
 	
 	/**
@@ -4211,6 +4159,18 @@ public abstract class Creature extends WorldObject {
 		}
 	}
 	
+	/**
+	 * Drop the hits and AI notifications of the Creature pending in the CombatEventScheduler.<BR><BR>
+	 */
+	public final void cancelCombatEvents() {
+		// Not atomic, but two concurrent cancels still both change the epoch the pending events were scheduled with
+		combatEventEpoch++;
+	}
+	
+	public final int getCombatEventEpoch() {
+		return combatEventEpoch;
+	}
+	
 	/**
 	 * Returns body part (paperdoll slot) we are targeting right now
 	 */
@@ -4829,7 +4789,7 @@ public abstract class Creature extends WorldObject {
 		
 		// Create a task to notify the AI that Creature arrives at a check point of the movement
 		if (ticksToMove * TimeController.MILLIS_IN_TICK > 3000) {
-			ThreadPoolManager.getInstance().scheduleAi(new NotifyAITask(CtrlEvent.EVT_ARRIVED_REVALIDATE), 2000);
+			CombatEventScheduler.getInstance().scheduleNotify(this, CtrlEvent.EVT_ARRIVED_REVALIDATE, 2000);
 		}
 		
 		// the CtrlEvent.EVT_ARRIVED will be sent when the character will actually arrive
@@ -4905,7 +4865,7 @@ public abstract class Creature extends WorldObject {
 		
 		// Create a task to notify the AI that Creature arrives at a check point of the movement
 		if (ticksToMove * TimeController.MILLIS_IN_TICK > 3000) {
-			ThreadPoolManager.getInstance().scheduleAi(new NotifyAITask(CtrlEvent.EVT_ARRIVED_REVALIDATE), 2000);
+			CombatEventScheduler.getInstance().scheduleNotify(this, CtrlEvent.EVT_ARRIVED_REVALIDATE, 2000);
 		}
 		
 		// the CtrlEvent.EVT_ARRIVED will be sent when the character will actually arrive
@@ -5226,7 +5186,7 @@ public abstract class Creature extends WorldObject {
 	public abstract ItemTemplate getSecondaryWeaponItem();
 	
 	/**
-	 * Manage hit process (called by Hit Task).<BR><BR>
+	 * Manage hit process (called by the CombatEventScheduler).<BR><BR>
 	 * <p>
 	 * <B><U> Actions</U> :</B><BR><BR>
 	 * <li>If the attacker/target is dead or use fake death, notify the AI with EVT_CANCEL and send a Server->Client packet ActionFailed (if attacker is a Player)</li>
@@ -6246,9 +6206,9 @@ public abstract class Creature extends WorldObject {
 		if (mut.hitTime == 0) {
 			onMagicHitTimer(mut);
 		} else if (mut.second) {
-			skillCast2 = ThreadPoolManager.getInstance().scheduleEffect(mut, 400);
+			skillCast2 = CombatEventScheduler.getInstance().schedule(this, mut, 400);
 		} else {
-			skillCast = ThreadPoolManager.getInstance().scheduleEffect(mut, 400);
+			skillCast = CombatEventScheduler.getInstance().schedule(this, mut, 400);
 		}
 	}
 	
@@ -6434,11 +6394,11 @@ public abstract class Creature extends WorldObject {
 			if (mut.count < skill.getHitCounts()) {
 				int hitTime = mut.hitTime * skill.getHitTimings()[mut.count] / 100;
 				if (mut.simultaneously) {
-					simultSkillCast = ThreadPoolManager.getInstance().scheduleEffect(mut, hitTime);
+					simultSkillCast = CombatEventScheduler.getInstance().schedule(this, mut, hitTime);
 				} else if (mut.second) {
-					skillCast2 = ThreadPoolManager.getInstance().scheduleEffect(mut, hitTime);
+					skillCast2 = CombatEventScheduler.getInstance().schedule(this, mut, hitTime);
 				} else {
-					skillCast = ThreadPoolManager.getInstance().scheduleEffect(mut, hitTime);
+					skillCast = CombatEventScheduler.getInstance().schedule(this, mut, hitTime);
 				}
 				return;
 			}
@@ -6449,11 +6409,11 @@ public abstract class Creature extends WorldObject {
 			onMagicFinalizer(mut);
 		} else {
 			if (mut.simultaneously) {
-				simultSkillCast = ThreadPoolManager.getInstance().scheduleEffect(mut, mut.coolTime);
+				simultSkillCast = CombatEventScheduler.getInstance().schedule(this, mut, mut.coolTime);
 			} else if (mut.second) {
-				skillCast2 = ThreadPoolManager.getInstance().scheduleEffect(mut, mut.coolTime);
+				skillCast2 = CombatEventScheduler.getInstance().schedule(this, mut, mut.coolTime);
 			} else {
-				skillCast = ThreadPoolManager.getInstance().scheduleEffect(mut, mut.coolTime);
+				skillCast = CombatEventScheduler.getInstance().schedule(this, mut, mut.coolTime);
 			}
 		}
 	}
@@ -23,7 +23,6 @@ import l2server.gameserver.network.serverpackets.NpcHtmlMessage;
 import l2server.gameserver.network.serverpackets.NpcSay;
 import l2server.gameserver.templates.chars.NpcTemplate;
 
-import java.util.Collection;
 import java.util.StringTokenizer;
 
 /**
@@ -94,14 +93,8 @@ public final class CastleTeleporterInstance extends Npc {
 				NpcSay cs = new NpcSay(getObjectId(), 1, getNpcId(), 1000443); // The defenders of $s1 castle will be teleported to the inner castle.
 				cs.addStringParameter(getCastle().getName());
 				int region = MapRegionTable.getInstance().getMapRegion(getX(), getY());
-				Collection<Player> pls = World.getInstance().getAllPlayers().values();
-				//synchronized (World.getInstance().getAllPlayers())
-				{
-					for (Player player : pls) {
-						if (region == MapRegionTable.getInstance().getMapRegion(player.getX(), player.getY())) {
-							player.sendPacket(cs);
-						}
-					}
+				for (Player player : World.getInstance().getMapRegionPlayers(region)) {
+					player.sendPacket(cs);
 				}
 				oustAllPlayers();
 				setTask(false);
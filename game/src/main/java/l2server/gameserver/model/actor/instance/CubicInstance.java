@@ -14,7 +14,6 @@
 package l2server.gameserver.model.actor.instance;
 
 import l2server.Config;
-import l2server.gameserver.ThreadPoolManager;
 import l2server.gameserver.ai.CtrlEvent;
 import l2server.gameserver.datatables.SkillTable;
 import l2server.gameserver.handler.ISkillHandler;
@@ -32,6 +31,7 @@ import l2server.gameserver.network.serverpackets.SystemMessage;
 import l2server.gameserver.stats.Formulas;
 import l2server.gameserver.stats.skills.SkillDrain;
 import l2server.gameserver.taskmanager.AttackStanceTaskManager;
+import l2server.gameserver.taskmanager.SummonTaskManager;
 import l2server.gameserver.templates.skills.SkillBehaviorType;
 import l2server.gameserver.templates.skills.SkillType;
 import l2server.gameserver.util.Util;
@@ -40,7 +40,6 @@ import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.Future;
 
 public class CubicInstance {
 	private static Logger log = LoggerFactory.getLogger(CubicInstance.class.getName());
@@ -94,8 +93,13 @@ public class CubicInstance {
 	
 	protected List<Skill> skills = new ArrayList<>();
 	
-	private Future<?> disappearTask;
-	private Future<?> actionTask;
+	/**
+	 * Next run of the action or heal, 0 while idle, and end of the lifetime, 0 once cancelled. Both run by the SummonTaskManager.
+	 */
+	private long nextActionTime;
+	private long disappearTime;
+	private boolean actionDue;
+	private boolean disappearDue;
 	
 	public CubicInstance(Player owner,
 	                     int id,
@@ -265,7 +269,8 @@ public class CubicInstance {
 				doAction();
 				break;
 		}
-		disappearTask = ThreadPoolManager.getInstance().scheduleGeneral(new Disappear(), totallifetime); // disappear
+		disappearTime = System.currentTimeMillis() + Math.max(totallifetime, 1); // disappear
+		SummonTaskManager.getInstance().addCubic(this);
 	}
 	
 	public synchronized void doAction() {
@@ -295,14 +300,83 @@ public class CubicInstance {
 			case HEX_CUBIC:
 			case PHANTOM_CUBIC:
 			case GUARDIAN_CUBIC:
-				actionTask =
-						ThreadPoolManager.getInstance().scheduleEffectAtFixedRate(new Action(activationchance), activationtime / 2, activationtime);
+				nextActionTime = System.currentTimeMillis() + activationtime / 2;
 				break;
 			
 			case LIFE_CUBIC:
 			case BUFF_CUBIC:
 			case MIND_CUBIC:
-				actionTask = ThreadPoolManager.getInstance().scheduleEffectAtFixedRate(new Heal(), 0, activationtime);
+				nextActionTime = System.currentTimeMillis();
+				break;
+		}
+		
+		if (nextActionTime != 0) {
+			SummonTaskManager.getInstance().addCubic(this);
+		}
+	}
+	
+	/**
+	 * Called by the tick of the SummonTaskManager, takes the work due at the given time so that the next tick doesn't see it again
+	 *
+	 * @return true if doDueWork must be run
+	 */
+	public synchronized boolean takeDueWork(long now) {
+		if (nextActionTime != 0 && nextActionTime <= now) {
+			actionDue = true;
+			nextActionTime += Math.max(activationtime, SummonTaskManager.TICK);
+			if (nextActionTime <= now) {
+				// Late, skip the missed runs as a fixed rate task would run them at once
+				nextActionTime = now + Math.max(activationtime, SummonTaskManager.TICK);
+			}
+		}
+		
+		if (disappearTime != 0 && disappearTime <= now) {
+			disappearDue = true;
+			disappearTime = 0;
+		}
+		
+		return actionDue || disappearDue;
+	}
+	
+	/**
+	 * Runs the work taken by takeDueWork, in the pass of the owner
+	 */
+	public void doDueWork(OwnerState state) {
+		final boolean action;
+		final boolean disappear;
+		synchronized (this) {
+			action = actionDue;
+			disappear = disappearDue;
+			actionDue = false;
+			disappearDue = false;
+		}
+		
+		if (disappear) {
+			disappear();
+			return;
+		}
+		
+		if (!action) {
+			return;
+		}
+		
+		boolean active = owner.getCubics().get(id) == this && !owner.isDead() && owner.isOnline();
+		if (!active) {
+			stopAction();
+			owner.delCubic(id);
+			owner.broadcastUserInfo();
+			cancelDisappear();
+			return;
+		}
+		
+		switch (id) {
+			case LIFE_CUBIC:
+			case BUFF_CUBIC:
+			case MIND_CUBIC:
+				heal(state);
+				break;
+			default:
+				action(state);
 				break;
 		}
 	}
@@ -324,21 +398,23 @@ public class CubicInstance {
 		return matk;
 	}
 	
-	public void stopAction() {
+	public synchronized void stopAction() {
 		target = null;
+		nextActionTime = 0;
+		actionDue = false;
+		active = false;
 		
-		if (actionTask != null) {
-			actionTask.cancel(true);
-			actionTask = null;
+		if (disappearTime == 0) {
+			SummonTaskManager.getInstance().removeCubic(this);
 		}
-		
-		active = false;
 	}
 	
-	public void cancelDisappear() {
-		if (disappearTask != null) {
-			disappearTask.cancel(true);
-			disappearTask = null;
+	public synchronized void cancelDisappear() {
+		disappearTime = 0;
+		disappearDue = false;
+		
+		if (nextActionTime == 0) {
+			SummonTaskManager.getInstance().removeCubic(this);
 		}
 	}
 	
@@ -353,172 +429,205 @@ public class CubicInstance {
 		}
 	}
 	
-	private class Action implements Runnable {
-		@SuppressWarnings("unused")
-		private int chance;
+	/**
+	 * What the cubics of an owner share when they act in the same pass, computed on the first need
+	 */
+	public static final class OwnerState {
+		private final Player owner;
+		private Boolean fighting;
+		private List<Creature> healCandidates;
+		
+		public OwnerState(Player owner) {
+			this.owner = owner;
+		}
 		
-		Action(int chance) {
-			this.chance = chance;
-			// run task
+		public Player getOwner() {
+			return owner;
 		}
 		
-		@Override
-		public void run() {
-			try {
-				boolean active = false;
-				for (CubicInstance cubic : owner.getCubics().values()) {
-					if (cubic == CubicInstance.this) {
-						active = true;
+		private boolean isFighting() {
+			if (fighting == null) {
+				boolean hasActiveSummon = false;
+				for (SummonInstance summon : owner.getSummons()) {
+					if (AttackStanceTaskManager.getInstance().getAttackStanceTask(summon)) {
+						hasActiveSummon = true;
 					}
 				}
 				
-				if (active) {
-					active = active && !owner.isDead() && owner.isOnline();
+				fighting = AttackStanceTaskManager.getInstance().getAttackStanceTask(owner) || hasActiveSummon ||
+						owner.getPet() != null && AttackStanceTaskManager.getInstance().getAttackStanceTask(owner.getPet());
+			}
+			return fighting;
+		}
+		
+		/**
+		 * @return the living party members of the owner in cubic range, with their pets and servitors, or the owner and its own
+		 * if it has no party
+		 */
+		private List<Creature> getHealCandidates() {
+			if (healCandidates != null) {
+				return healCandidates;
+			}
+			
+			healCandidates = new ArrayList<>();
+			
+			L2Party party = owner.getParty();
+			
+			// if owner is in a duel but not in a party duel, then it is the same as he does not have a
+			// party
+			if (owner.isInDuel()) {
+				if (!DuelManager.getInstance().getDuel(owner.getDuelId()).isPartyDuel()) {
+					party = null;
 				}
-				
-				if (!active) {
-					stopAction();
-					owner.delCubic(id);
-					owner.broadcastUserInfo();
-					cancelDisappear();
-					return;
+			}
+			
+			if (party != null && !owner.isInOlympiadMode()) {
+				for (Player partyMember : party.getPartyMembers()) {
+					if (!partyMember.isDead() && isInCubicRange(owner, partyMember)) {
+						healCandidates.add(partyMember);
+					}
+					
+					addHealCandidates(partyMember);
 				}
+			} else {
+				healCandidates.add(owner);
 				
-				boolean hasActiveSummon = false;
-				boolean cubicShouldStopIfNoAction = true;
+				addHealCandidates(owner);
+			}
+			return healCandidates;
+		}
+		
+		private void addHealCandidates(Player player) {
+			if (player.getPet() != null && !player.getPet().isDead() && isInCubicRange(owner, player.getPet())) {
+				healCandidates.add(player.getPet());
+			}
+			
+			for (SummonInstance summon : player.getSummons()) {
+				if (!summon.isDead() && isInCubicRange(owner, summon)) {
+					healCandidates.add(summon);
+				}
+			}
+		}
+	}
+	
+	private void action(OwnerState state) {
+		boolean cubicShouldStopIfNoAction = true;
+		
+		switch (id) {
+			case KNIGHT_CUBIC:
+			case AVENGING_CUBIC:
+			case HEX_CUBIC:
+			case PHANTOM_CUBIC:
+			case FAIRY_OF_LIFE:
+			case GUARDIAN_CUBIC:
+				cubicShouldStopIfNoAction = false;
+				break;
+		}
+		
+		if (cubicShouldStopIfNoAction && !state.isFighting()) {
+			stopAction();
+			return;
+		}
+		// The cubic has already reached its limit and it will stay idle until its lifetime ends.
+		if (maxcount > -1 && currentcount >= maxcount) {
+			stopAction();
+			return;
+		}
+		
+		for (Skill sk : skills) {
+			Skill skill = SkillTable.getInstance().getInfo(sk.getId(), sk.getLevel());
+			//Broadcast.toGameMasters(skill.getName() + " has a reuse delay of " + skill.getReuseDelay());
+			
+			if (skill.getId() == SKILL_CUBIC_HEAL) {
+				// friendly skill, so we look a target in owner's party
+				cubicTargetForHeal(state);
+			} else if (skill.getId() == 10056 || skill.getId() == 11292 || skill.getId() == 11807 || skill.getId() == 10093) {
+				target = owner;
+			} else {
+				// offensive skill, we look for an enemy target
+				if (owner.getTarget() instanceof Creature) {
+					target = (Creature) owner.getTarget();
+				}
 				
-				switch (id) {
-					case KNIGHT_CUBIC:
-					case AVENGING_CUBIC:
-					case HEX_CUBIC:
-					case PHANTOM_CUBIC:
-					case FAIRY_OF_LIFE:
-					case GUARDIAN_CUBIC:
-						cubicShouldStopIfNoAction = false;
-						break;
+				if (!owner.isAbleToCastOnTarget(target, skill, false)) {
+					target = null;
 				}
 				
-				for (SummonInstance summon : owner.getSummons()) {
-					if (AttackStanceTaskManager.getInstance().getAttackStanceTask(summon)) {
-						hasActiveSummon = true;
-					}
+				if (target != null && !Util.checkIfInRange(skill.getCastRange(), owner, target, false)) {
+					target = null;
 				}
 				
-				if (!AttackStanceTaskManager.getInstance().getAttackStanceTask(owner) && !hasActiveSummon && cubicShouldStopIfNoAction) {
-					if (owner.getPet() != null) {
-						if (!AttackStanceTaskManager.getInstance().getAttackStanceTask(owner.getPet())) {
-							stopAction();
-							return;
-						}
-					} else {
-						stopAction();
-						return;
-					}
+				if (target == null) {
+					break;
 				}
-				// The cubic has already reached its limit and it will stay idle until its lifetime ends.
-				if (maxcount > -1 && currentcount >= maxcount) {
-					stopAction();
-					return;
+			}
+			
+			if (owner.isSkillDisabled(skill.getReuseHashCode())) {
+				continue;
+			}
+			
+			int reuseDelay = skill.getReuseDelay();
+			
+			if (reuseDelay == 0) {
+				reuseDelay = 10000;
+			}
+			
+			owner.disableSkill(skill, reuseDelay);
+			
+			//Broadcast.toGameMasters(owner.getName() + " Cubic(" + id + ") is casting " + skill.getName() + " on " + target.getName() + ".");
+			
+			Creature target = this.target; // copy to avoid npe
+			
+			if (target != null && !target.isDead()) {
+				if (Config.DEBUG) {
+					log.info("CubicInstance: Action.run();");
+					log.info("Cubic Id: " + id + " Target: " + target.getName() + " distance: " +
+							Math.sqrt(target.getDistanceSq(owner.getX(), owner.getY(), owner.getZ())));
 				}
 				
-				for (Skill sk : skills) {
-					Skill skill = SkillTable.getInstance().getInfo(sk.getId(), sk.getLevel());
-					//Broadcast.toGameMasters(skill.getName() + " has a reuse delay of " + skill.getReuseDelay());
-					
-					if (skill.getId() == SKILL_CUBIC_HEAL) {
-						// friendly skill, so we look a target in owner's party
-						cubicTargetForHeal();
-					} else if (skill.getId() == 10056 || skill.getId() == 11292 || skill.getId() == 11807 || skill.getId() == 10093) {
-						target = owner;
-					} else {
-						// offensive skill, we look for an enemy target
-						if (owner.getTarget() instanceof Creature) {
-							target = (Creature) owner.getTarget();
-						}
-						
-						if (!owner.isAbleToCastOnTarget(target, skill, false)) {
-							target = null;
-						}
-						
-						if (target != null && !Util.checkIfInRange(skill.getCastRange(), owner, target, false)) {
-							target = null;
-						}
-						
-						if (target == null) {
-							break;
-						}
+				owner.broadcastPacket(new MagicSkillUse(owner, target, skill.getId(), skill.getLevel(), 0, 0, 0));
+				
+				ISkillHandler handler = SkillHandler.getInstance().getSkillHandler(skill.getSkillType());
+				
+				Creature[] targets = {target};
+				
+				SkillType type = skill.getSkillType();
+				
+				//Broadcast.toGameMasters("Cubic is using Skill " + skill.getName());
+				if (type == SkillType.AGGDAMAGE) {
+					if (Config.DEBUG) {
+						log.info("CubicInstance: Action.run() handler " + type);
 					}
 					
-					if (owner.isSkillDisabled(skill.getReuseHashCode())) {
-						continue;
+					useCubicDisabler(type, this, skill, targets);
+				} else if (type == SkillType.MDAM || type == SkillType.DRAIN) {
+					if (Config.DEBUG) {
+						log.info("CubicInstance: Action.run() handler " + type);
 					}
 					
-					int reuseDelay = skill.getReuseDelay();
-					
-					if (reuseDelay == 0) {
-						reuseDelay = 10000;
+					useCubicMdam(this, skill, targets);
+				} else if (type == SkillType.DEBUFF) {
+					if (Config.DEBUG) {
+						log.info("CubicInstance: Action.run() handler " + type);
 					}
 					
-					owner.disableSkill(skill, reuseDelay);
-					
-					//Broadcast.toGameMasters(owner.getName() + " Cubic(" + id + ") is casting " + skill.getName() + " on " + target.getName() + ".");
-					
-					Creature target = CubicInstance.this.target; // copy to avoid npe
-					
-					if (target != null && !target.isDead()) {
-						if (Config.DEBUG) {
-							log.info("CubicInstance: Action.run();");
-							log.info("Cubic Id: " + id + " Target: " + target.getName() + " distance: " +
-									Math.sqrt(target.getDistanceSq(owner.getX(), owner.getY(), owner.getZ())));
-						}
-						
-						owner.broadcastPacket(new MagicSkillUse(owner, target, skill.getId(), skill.getLevel(), 0, 0, 0));
-						
-						ISkillHandler handler = SkillHandler.getInstance().getSkillHandler(skill.getSkillType());
-						
-						Creature[] targets = {target};
-						
-						SkillType type = skill.getSkillType();
-						
-						//Broadcast.toGameMasters("Cubic is using Skill " + skill.getName());
-						if (type == SkillType.AGGDAMAGE) {
-							if (Config.DEBUG) {
-								log.info("CubicInstance: Action.run() handler " + type);
-							}
-							
-							useCubicDisabler(type, CubicInstance.this, skill, targets);
-						} else if (type == SkillType.MDAM || type == SkillType.DRAIN) {
-							if (Config.DEBUG) {
-								log.info("CubicInstance: Action.run() handler " + type);
-							}
-							
-							useCubicMdam(CubicInstance.this, skill, targets);
-						} else if (type == SkillType.DEBUFF) {
-							if (Config.DEBUG) {
-								log.info("CubicInstance: Action.run() handler " + type);
-							}
-							
-							useCubicContinuous(CubicInstance.this, skill, targets);
-						} else if (type == SkillType.DRAIN) {
-							if (Config.DEBUG) {
-								log.info("CubicInstance: Action.run() skill " + type);
-							}
-							
-							((SkillDrain) skill).useCubicSkill(CubicInstance.this, targets);
-						} else {
-							handler.useSkill(owner, skill, targets);
-						}
+					useCubicContinuous(this, skill, targets);
+				} else if (type == SkillType.DRAIN) {
+					if (Config.DEBUG) {
+						log.info("CubicInstance: Action.run() skill " + type);
 					}
 					
-					// The cubic has done an action, increase the currentcount
-					currentcount++;
-					
-					if (skill.getSkillBehavior() != SkillBehaviorType.FRIENDLY) {
-						break;
-					}
+					((SkillDrain) skill).useCubicSkill(this, targets);
+				} else {
+					handler.useSkill(owner, skill, targets);
 				}
-			} catch (Exception e) {
-				log.error("", e);
+			}
+			
+			// The cubic has done an action, increase the currentcount
+			currentcount++;
+			
+			if (skill.getSkillBehavior() != SkillBehaviorType.FRIENDLY) {
+				break;
 			}
 		}
 	}
@@ -717,7 +826,7 @@ public class CubicInstance {
 	/**
 	 * returns true if the target is inside of the owner's max Cubic range
 	 */
-	public boolean isInCubicRange(Creature owner, Creature target) {
+	public static boolean isInCubicRange(Creature owner, Creature target) {
 		if (owner == null || target == null) {
 			return false;
 		}
@@ -737,104 +846,18 @@ public class CubicInstance {
 	}
 	
 	/**
-	 * this sets the friendly target for a cubic
+	 * this sets the friendly target for a cubic: the candidate of the owner with the lowest HP
 	 */
-	public void cubicTargetForHeal() {
+	public void cubicTargetForHeal(OwnerState state) {
 		Creature target = null;
 		
 		double percentleft = 100.0;
 		
-		L2Party party = owner.getParty();
-		
-		// if owner is in a duel but not in a party duel, then it is the same as he does not have a
-		// party
-		if (owner.isInDuel()) {
-			if (!DuelManager.getInstance().getDuel(owner.getDuelId()).isPartyDuel()) {
-				party = null;
-			}
-		}
-		
-		if (party != null && !owner.isInOlympiadMode()) {
-			// Get all visible objects in a spheric area near the Creature
-			// Get a list of Party Members
-			List<Player> partyList = party.getPartyMembers();
-			
-			for (Player partyMember : partyList) {
-				if (!partyMember.isDead()) {
-					// if party member not dead, check if he is in castrange of heal cubic
-					if (isInCubicRange(owner, partyMember)) {
-						// member is in cubic casting range, check if he need heal and if he have
-						// the lowest HP
-						if (partyMember.getCurrentHp() < partyMember.getMaxHp()) {
-							if (percentleft > partyMember.getCurrentHp() / partyMember.getMaxHp()) {
-								percentleft = partyMember.getCurrentHp() / partyMember.getMaxHp();
-								
-								target = partyMember;
-							}
-						}
-					}
-				}
+		for (Creature candidate : state.getHealCandidates()) {
+			if (candidate.getCurrentHp() < candidate.getMaxHp() && percentleft > candidate.getCurrentHp() / candidate.getMaxHp()) {
+				percentleft = candidate.getCurrentHp() / candidate.getMaxHp();
 				
-				if (partyMember.getPet() != null) {
-					if (partyMember.getPet().isDead()) {
-						continue;
-					}
-					
-					// if party member's pet not dead, check if it is in castrange of heal cubic
-					if (!isInCubicRange(owner, partyMember.getPet())) {
-						continue;
-					}
-					
-					// member's pet is in cubic casting range, check if he need heal and if he have
-					// the lowest HP
-					if (partyMember.getPet().getCurrentHp() < partyMember.getPet().getMaxHp() &&
-							percentleft > partyMember.getPet().getCurrentHp() / partyMember.getPet().getMaxHp()) {
-						percentleft = partyMember.getPet().getCurrentHp() / partyMember.getPet().getMaxHp();
-						
-						target = partyMember.getPet();
-					}
-				}
-				
-				for (SummonInstance summon : partyMember.getSummons()) {
-					if (summon.isDead()) {
-						continue;
-					}
-					
-					// if party member's pet not dead, check if it is in castrange of heal cubic
-					if (!isInCubicRange(owner, summon)) {
-						continue;
-					}
-					
-					// member's pet is in cubic casting range, check if he need heal and if he have
-					// the lowest HP
-					if (summon.getCurrentHp() < summon.getMaxHp() && percentleft > summon.getCurrentHp() / summon.getMaxHp()) {
-						percentleft = summon.getCurrentHp() / summon.getMaxHp();
-						
-						target = summon;
-					}
-				}
-			}
-		} else {
-			if (owner.getCurrentHp() < owner.getMaxHp()) {
-				percentleft = owner.getCurrentHp() / owner.getMaxHp();
-				
-				target = owner;
-			}
-			
-			if (owner.getPet() != null && !owner.getPet().isDead() && owner.getPet().getCurrentHp() < owner.getPet().getMaxHp() &&
-					percentleft > owner.getPet().getCurrentHp() / owner.getPet().getMaxHp() && isInCubicRange(owner, owner.getPet())) {
-				percentleft = owner.getPet().getCurrentHp() / owner.getPet().getMaxHp();
-				
-				target = owner.getPet();
-			}
-			
-			for (SummonInstance summon : owner.getSummons()) {
-				if (!summon.isDead() && summon.getCurrentHp() < summon.getMaxHp() && percentleft > summon.getCurrentHp() / summon.getMaxHp() &&
-						isInCubicRange(owner, summon)) {
-					percentleft = summon.getCurrentHp() / summon.getMaxHp();
-					
-					target = summon;
-				}
+				target = candidate;
 			}
 		}
 		
@@ -845,91 +868,54 @@ public class CubicInstance {
 		return givenByOther;
 	}
 	
-	private class Heal implements Runnable {
-		Heal() {
-			// run task
-		}
+	private void heal(OwnerState state) {
+		Skill skill = null;
 		
-		@Override
-		public void run() {
-			boolean active = false;
-			for (CubicInstance cubic : owner.getCubics().values()) {
-				if (cubic == CubicInstance.this) {
-					active = true;
-				}
-			}
-			
-			if (active) {
-				active = active && !owner.isDead() && owner.isOnline();
+		for (Skill sk : skills) {
+			if (sk != null &&
+					(sk.getId() == SKILL_CUBIC_HEAL || sk.getId() == SKILL_BUFF_CUBIC_HEAL || sk.getId() == SKILL_MIND_CUBIC_HEAL)) {
+				skill = sk;
+				
+				break;
 			}
+		}
+		
+		if (skill != null) {
+			Creature target = this.target;
 			
-			if (!active) {
-				stopAction();
-				owner.delCubic(id);
-				owner.broadcastUserInfo();
-				cancelDisappear();
-				return;
+			if (id != BUFF_CUBIC && id != MIND_CUBIC) {
+				cubicTargetForHeal(state);
+			} else {
+				target = owner;
 			}
 			
-			try {
-				Skill skill = null;
-				
-				for (Skill sk : skills) {
-					if (sk != null &&
-							(sk.getId() == SKILL_CUBIC_HEAL || sk.getId() == SKILL_BUFF_CUBIC_HEAL || sk.getId() == SKILL_MIND_CUBIC_HEAL)) {
-						skill = sk;
-						
-						break;
-					}
-				}
+			if (target != null && !target.isDead()) {
+				boolean cubicShouldStopIfNoAction = !(id == BUFF_CUBIC || id == MIND_CUBIC);
 				
-				if (skill != null) {
-					Creature target = CubicInstance.this.target;
+				if (target.getMaxHp() - target.getCurrentHp() > skill.getPower() || !cubicShouldStopIfNoAction) {
+					Creature[] targets = {target};
+					
+					ISkillHandler handler = SkillHandler.getInstance().getSkillHandler(skill.getSkillType());
 					
-					if (id != BUFF_CUBIC && id != MIND_CUBIC) {
-						cubicTargetForHeal();
+					if (handler != null) {
+						handler.useSkill(owner, skill, targets);
 					} else {
-						target = owner;
+						skill.useSkill(owner, targets);
 					}
 					
-					if (target != null && !target.isDead()) {
-						boolean cubicShouldStopIfNoAction = !(id == BUFF_CUBIC || id == MIND_CUBIC);
-						
-						if (target.getMaxHp() - target.getCurrentHp() > skill.getPower() || !cubicShouldStopIfNoAction) {
-							Creature[] targets = {target};
-							
-							ISkillHandler handler = SkillHandler.getInstance().getSkillHandler(skill.getSkillType());
-							
-							if (handler != null) {
-								handler.useSkill(owner, skill, targets);
-							} else {
-								skill.useSkill(owner, targets);
-							}
-							
-							MagicSkillUse msu = new MagicSkillUse(owner, target, skill.getId(), skill.getLevel(), 0, 0, 0);
-							
-							owner.broadcastPacket(msu);
-						}
-					}
+					MagicSkillUse msu = new MagicSkillUse(owner, target, skill.getId(), skill.getLevel(), 0, 0, 0);
+					
+					owner.broadcastPacket(msu);
 				}
-			} catch (Exception e) {
-				log.error("", e);
 			}
 		}
 	}
 	
-	private class Disappear implements Runnable {
-		Disappear() {
-			// run task
-		}
+	private void disappear() {
+		stopAction();
 		
-		@Override
-		public void run() {
-			stopAction();
-			
-			owner.delCubic(id);
-			
-			owner.broadcastUserInfo();
-		}
+		owner.delCubic(id);
+		
+		owner.broadcastUserInfo();
 	}
 }
@@ -15,6 +15,7 @@
 
 package l2server.gameserver.model.actor.instance;
 
+import l2server.gameserver.GeoDoorOverlay;
 import l2server.gameserver.ThreadPoolManager;
 import l2server.gameserver.ai.CreatureAI;
 import l2server.gameserver.ai.DoorAI;
@@ -198,6 +199,7 @@ public class DoorInstance extends Creature {
 	 */
 	private void setOpen(boolean open) {
 		this.open = open;
+		GeoDoorOverlay.getInstance().updateDoor(this);
 		if (getChildId() > 0) {
 			getSiblingDoor(getChildId()).notifyChildEvent(open);
 		}
@@ -498,6 +500,8 @@ public class DoorInstance extends Creature {
 			return false;
 		}
 		
+		GeoDoorOverlay.getInstance().updateDoor(this);
+		
 		boolean isFort = getFort() != null && getFort().getFortId() > 0 && getFort().getSiege().getIsInProgress();
 		boolean isCastle = getCastle() != null && getCastle().getCastleId() > 0 && getCastle().getSiege().getIsInProgress();
 		
@@ -507,6 +511,12 @@ public class DoorInstance extends Creature {
 		return true;
 	}
 	
+	@Override
+	public void doRevive() {
+		super.doRevive();
+		GeoDoorOverlay.getInstance().updateDoor(this);
+	}
+	
 	@Override
 	public void sendInfo(Player activeChar) {
 		if (getEmitter() > 0) {
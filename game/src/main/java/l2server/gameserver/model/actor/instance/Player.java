@@ -26,6 +26,7 @@ import l2server.gameserver.ai.CtrlIntention;
 import l2server.gameserver.ai.PlayerAI;
 import l2server.gameserver.ai.SummonAI;
 import l2server.gameserver.cache.HtmCache;
+import l2server.gameserver.cache.PlayerLoadCache;
 import l2server.gameserver.cache.WarehouseCacheManager;
 import l2server.gameserver.communitybbs.BB.Forum;
 import l2server.gameserver.communitybbs.Manager.ForumsBBSManager;
@@ -7349,6 +7350,9 @@ public class Player extends Playable {
 		Player player = null;
 		Connection con = null;
 		
+		// All the restore methods below share this connection
+		DatabasePool.getInstance().pinConnection();
+		PlayerLoadCache.getInstance().onLoadStart(objectId);
 		try {
 			// Retrieve the Player from the characters table of the database
 			con = DatabasePool.getInstance().getConnection();
@@ -7646,6 +7650,8 @@ public class Player extends Playable {
 			e.printStackTrace();
 		} finally {
 			DatabasePool.close(con);
+			PlayerLoadCache.getInstance().onLoaded(objectId);
+			DatabasePool.getInstance().unpinConnection();
 		}
 		
 		return player;
@@ -7704,10 +7710,7 @@ public class Player extends Playable {
 		
 		try {
 			con = DatabasePool.getInstance().getConnection();
-			PreparedStatement statement = con.prepareStatement(RESTORE_CHAR_SUBCLASSES);
-			statement.setInt(1, player.getObjectId());
-			
-			ResultSet rset = statement.executeQuery();
+			ResultSet rset = PlayerLoadCache.getInstance().query(con, player.getObjectId(), RESTORE_CHAR_SUBCLASSES, player.getObjectId());
 			
 			while (rset.next()) {
 				SubClass subClass = new SubClass();
@@ -7723,7 +7726,7 @@ public class Player extends Playable {
 				player.getSubClasses().put(subClass.getClassIndex(), subClass);
 			}
 			
-			statement.close();
+			rset.close();
 		} catch (Exception e) {
 			log.warn("Could not restore classes for " + player.getName() + ": " + e.getMessage(), e);
 		} finally {
@@ -7783,12 +7786,8 @@ public class Player extends Playable {
 			con = DatabasePool.getInstance().getConnection();
 			String sql = loadCommon ? "SELECT id, type, classIndex FROM character_recipebook WHERE charId=?" :
 					"SELECT id FROM character_recipebook WHERE charId=? AND classIndex=? AND type = 1";
-			PreparedStatement statement = con.prepareStatement(sql);
-			statement.setInt(1, getObjectId());
-			if (!loadCommon) {
-				statement.setInt(2, classIndex);
-			}
-			ResultSet rset = statement.executeQuery();
+			ResultSet rset = loadCommon ? PlayerLoadCache.getInstance().query(con, getObjectId(), sql, getObjectId()) :
+					PlayerLoadCache.getInstance().query(con, getObjectId(), sql, getObjectId(), classIndex);
 			
 			dwarvenRecipeBook.clear();
 			
@@ -7810,7 +7809,6 @@ public class Player extends Playable {
 			}
 			
 			rset.close();
-			statement.close();
 		} catch (Exception e) {
 			log.error("Could not restore recipe book data:" + e.getMessage(), e);
 		} finally {
@@ -8359,14 +8357,14 @@ public class Player extends Playable {
 			try {
 				// Retrieve all skills of this Player from the database
 				con = DatabasePool.getInstance().getConnection();
-				PreparedStatement statement = con.prepareStatement(
-						"SELECT skill_id,skill_level FROM character_skills WHERE charId=? AND class_index=? AND skill_id > ? AND skill_id < ?");
-				
-				statement.setInt(1, getObjectId());
-				statement.setInt(2, 0);
-				statement.setInt(3, 1955); // Certificate Skills, Lowest ID
-				statement.setInt(4, 1987); // Certificate Skills, Highest ID
-				ResultSet rset = statement.executeQuery();
+				ResultSet rset = PlayerLoadCache.getInstance()
+						.query(con,
+								getObjectId(),
+								"SELECT skill_id,skill_level FROM character_skills WHERE charId=? AND class_index=? AND skill_id > ? AND skill_id < ?",
+								getObjectId(),
+								0,
+								1955, // Certificate Skills, Lowest ID
+								1987); // Certificate Skills, Highest ID
 				
 				// Go though the recordset of this SQL query
 				while (rset.next()) {
@@ -8385,7 +8383,6 @@ public class Player extends Playable {
 				}
 				
 				rset.close();
-				statement.close();
 			} catch (Exception e) {
 				log.warn("Could not restore character " + this + " certificate skills: " + e.getMessage(), e);
 			} finally {
@@ -8396,11 +8393,7 @@ public class Player extends Playable {
 		try {
 			// Retrieve all skills of this Player from the database
 			con = DatabasePool.getInstance().getConnection();
-			PreparedStatement statement = con.prepareStatement(RESTORE_SKILLS_FOR_CHAR);
-			
-			statement.setInt(1, getObjectId());
-			statement.setInt(2, getClassIndex());
-			ResultSet rset = statement.executeQuery();
+			ResultSet rset = PlayerLoadCache.getInstance().query(con, getObjectId(), RESTORE_SKILLS_FOR_CHAR, getObjectId(), getClassIndex());
 			
 			// Go though the recordset of this SQL query
 			while (rset.next()) {
@@ -8433,7 +8426,6 @@ public class Player extends Playable {
 			}
 			
 			rset.close();
-			statement.close();
 		} catch (Exception e) {
 			log.warn("Could not restore character " + this + " skills: " + e.getMessage(), e);
 		} finally {
@@ -8533,10 +8525,7 @@ public class Player extends Playable {
 		Connection con = null;
 		try {
 			con = DatabasePool.getInstance().getConnection();
-			PreparedStatement statement = con.prepareStatement(RESTORE_CHAR_HENNAS);
-			statement.setInt(1, getObjectId());
-			statement.setInt(2, getClassIndex());
-			ResultSet rset = statement.executeQuery();
+			ResultSet rset = PlayerLoadCache.getInstance().query(con, getObjectId(), RESTORE_CHAR_HENNAS, getObjectId(), getClassIndex());
 			
 			for (int i = 0; i < 4; i++) {
 				henna[i] = null;
@@ -8576,7 +8565,6 @@ public class Player extends Playable {
 			}
 			
 			rset.close();
-			statement.close();
 		} catch (Exception e) {
 			log.error("Failed restoing character " + this + " hennas.", e);
 		} finally {
@@ -14409,9 +14397,7 @@ public class Player extends Playable {
 		
 		try {
 			con = DatabasePool.getInstance().getConnection();
-			PreparedStatement statement = con.prepareStatement(RESTORE_TP_BOOKMARK);
-			statement.setInt(1, getObjectId());
-			ResultSet rset = statement.executeQuery();
+			ResultSet rset = PlayerLoadCache.getInstance().query(con, getObjectId(), RESTORE_TP_BOOKMARK, getObjectId());
 			
 			while (rset.next()) {
 				tpbookmark.add(new TeleportBookmark(rset.getInt("Id"),
@@ -14424,7 +14410,6 @@ public class Player extends Playable {
 			}
 			
 			rset.close();
-			statement.close();
 		} catch (Exception e) {
 			log.error("Failed restoing character teleport bookmark.", e);
 		} finally {
@@ -16,7 +16,6 @@
 package l2server.gameserver.model.actor.instance;
 
 import l2server.Config;
-import l2server.gameserver.ThreadPoolManager;
 import l2server.gameserver.datatables.SkillTable;
 import l2server.gameserver.events.instanced.EventInstance.EventType;
 import l2server.gameserver.model.Abnormal;
@@ -27,13 +26,12 @@ import l2server.gameserver.model.actor.Summon;
 import l2server.gameserver.network.serverpackets.SetSummonRemainTime;
 import l2server.gameserver.stats.skills.SkillSummon;
 import l2server.gameserver.taskmanager.DecayTaskManager;
+import l2server.gameserver.taskmanager.SummonTaskManager;
 import l2server.gameserver.templates.chars.NpcTemplate;
 import l2server.gameserver.templates.skills.AbnormalType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.concurrent.Future;
-
 public class SummonInstance extends Summon {
 	private static Logger log = LoggerFactory.getLogger(SummonInstance.class.getName());
 
@@ -52,7 +50,11 @@ public class SummonInstance extends Summon {
 	private int summonPoints;
 	public int lastLifeTimeCheck; // Following FbiAgent's example to avoid sending useless packets
 	
-	private Future<?> summonLifeTask;
+	/**
+	 * Next run of the lifetime check by the SummonTaskManager
+	 */
+	private long nextLifetimeCheck;
+	private boolean lifetimeCheckDue;
 	
 	public SummonInstance(int objectId, NpcTemplate template, Player owner, Skill skill) {
 		super(objectId, template, owner);
@@ -111,7 +113,8 @@ public class SummonInstance extends Summon {
 			log.warn("SummonInstance: Task Delay " + delay / 1000 + " seconds.");
 		}
 		
-		summonLifeTask = ThreadPoolManager.getInstance().scheduleGeneralAtFixedRate(new SummonLifetime(getOwner(), this), delay, delay);
+		nextLifetimeCheck = System.currentTimeMillis() + delay;
+		SummonTaskManager.getInstance().addSummon(this);
 		
 		// Restore summon's buffs if there are any stored (Noblesse)
 		if (!getOwner().isInOlympiadMode()) {
@@ -241,10 +244,7 @@ public class SummonInstance extends Summon {
 			log.warn("SummonInstance: " + getTemplate().Name + " (" + getOwner().getName() + ") has been killed.");
 		}
 		
-		if (summonLifeTask != null) {
-			summonLifeTask.cancel(true);
-			summonLifeTask = null;
-		}
+		stopLifetimeCheck();
 		return true;
 	}
 	
@@ -278,67 +278,87 @@ public class SummonInstance extends Summon {
 		}
 	}
 	
-	static class SummonLifetime implements Runnable {
-		private Player activeChar;
-		private SummonInstance summon;
-		
-		SummonLifetime(Player activeChar, SummonInstance newpet) {
-			this.activeChar = activeChar;
-			summon = newpet;
+	/**
+	 * Called by the tick of the SummonTaskManager, takes the check due at the given time so that the next tick doesn't see it again
+	 *
+	 * @return true if doLifetimeCheck must be run
+	 */
+	public synchronized boolean takeLifetimeCheck(long now) {
+		if (nextLifetimeCheck > now) {
+			return false;
 		}
 		
-		@Override
-		public void run() {
-			if (Config.DEBUG) {
-				log.warn("SummonInstance: " + summon.getTemplate().Name + " (" + activeChar.getName() + ") run task.");
+		nextLifetimeCheck = Math.max(nextLifetimeCheck + 1000, now + 1);
+		lifetimeCheckDue = true;
+		return true;
+	}
+	
+	/**
+	 * @return false if the lifetime wasn't checked anymore
+	 */
+	private synchronized boolean stopLifetimeCheck() {
+		lifetimeCheckDue = false;
+		return SummonTaskManager.getInstance().removeSummon(this);
+	}
+	
+	public void doLifetimeCheck() {
+		synchronized (this) {
+			if (!lifetimeCheckDue) {
+				return;
 			}
+			lifetimeCheckDue = false;
+		}
+		
+		final Player owner = getOwner();
+		if (Config.DEBUG) {
+			log.warn("SummonInstance: " + getTemplate().Name + " (" + owner.getName() + ") run task.");
+		}
+		
+		try {
+			double oldTimeRemaining = getTimeRemaining();
+			int maxTime = getTotalLifeTime();
+			double newTimeRemaining;
 			
-			try {
-				double oldTimeRemaining = summon.getTimeRemaining();
-				int maxTime = summon.getTotalLifeTime();
-				double newTimeRemaining;
+			// if pet is attacking
+			if (isAttackingNow()) {
+				decTimeRemaining(getTimeLostActive());
+			} else {
+				decTimeRemaining(getTimeLostIdle());
+			}
+			newTimeRemaining = getTimeRemaining();
+			// check if the summon's lifetime has ran out
+			if (maxTime > 0 && newTimeRemaining < 0) {
+				unSummon(owner);
+			}
+			// check if it is time to consume another item
+			else if (newTimeRemaining <= getNextItemConsumeTime() && oldTimeRemaining > getNextItemConsumeTime()) {
+				decNextItemConsumeTime(maxTime / (getItemConsumeSteps() + 1));
 				
-				// if pet is attacking
-				if (summon.isAttackingNow()) {
-					summon.decTimeRemaining(summon.getTimeLostActive());
-				} else {
-					summon.decTimeRemaining(summon.getTimeLostIdle());
-				}
-				newTimeRemaining = summon.getTimeRemaining();
-				// check if the summon's lifetime has ran out
-				if (maxTime > 0 && newTimeRemaining < 0) {
-					summon.unSummon(activeChar);
+				// check if owner has enought itemConsume, if requested
+				if (getItemConsumeCount() > 0 && getItemConsumeId() != 0 && !isDead() &&
+						!destroyItemByItemId("Consume", getItemConsumeId(), getItemConsumeCount(), owner, true)) {
+					unSummon(owner);
 				}
-				// check if it is time to consume another item
-				else if (newTimeRemaining <= summon.getNextItemConsumeTime() && oldTimeRemaining > summon.getNextItemConsumeTime()) {
-					summon.decNextItemConsumeTime(maxTime / (summon.getItemConsumeSteps() + 1));
-					
-					// check if owner has enought itemConsume, if requested
-					if (summon.getItemConsumeCount() > 0 && summon.getItemConsumeId() != 0 && !summon.isDead() &&
-							!summon.destroyItemByItemId("Consume", summon.getItemConsumeId(), summon.getItemConsumeCount(), activeChar, true)) {
-						summon.unSummon(activeChar);
-					}
-				}
-				
-				// prevent useless packet-sending when the difference isn't visible.
-				/*if ((summon.lastShowntimeRemaining - newTimeRemaining) > maxTime / 352)
+			}
+			
+			// prevent useless packet-sending when the difference isn't visible.
+			/*if ((lastShowntimeRemaining - newTimeRemaining) > maxTime / 352)
                 {
-					summon.getOwner().sendPacket(new SetSummonRemainTime(maxTime, (int) newTimeRemaining));
-					summon.lastShowntimeRemaining = (int) newTimeRemaining;
-					summon.updateEffectIcons();
-				}*/
-				if (summon.lastLifeTimeCheck > 50) {
-					summon.getOwner().sendPacket(new SetSummonRemainTime(maxTime, (int) newTimeRemaining));
-					summon.lastLifeTimeCheck = 0;
-					if (summon.summonPrice != null) {
-						summon.summonPrice.getEffects(summon, activeChar);
-					}
-					summon.updateEffectIcons();
+				getOwner().sendPacket(new SetSummonRemainTime(maxTime, (int) newTimeRemaining));
+				lastShowntimeRemaining = (int) newTimeRemaining;
+				updateEffectIcons();
+			}*/
+			if (lastLifeTimeCheck > 50) {
+				getOwner().sendPacket(new SetSummonRemainTime(maxTime, (int) newTimeRemaining));
+				lastLifeTimeCheck = 0;
+				if (summonPrice != null) {
+					summonPrice.getEffects(this, owner);
 				}
-				summon.lastLifeTimeCheck++;
-			} catch (Exception e) {
-				log.error("Error on player [" + activeChar.getName() + "] summon item consume task.", e);
+				updateEffectIcons();
 			}
+			lastLifeTimeCheck++;
+		} catch (Exception e) {
+			log.error("Error on player [" + owner.getName() + "] summon item consume task.", e);
 		}
 	}
 	
@@ -348,10 +368,7 @@ public class SummonInstance extends Summon {
 			log.warn("SummonInstance: " + getTemplate().Name + " (" + owner.getName() + ") unsummoned.");
 		}
 		
-		if (summonLifeTask != null) {
-			summonLifeTask.cancel(true);
-			summonLifeTask = null;
-			
+		if (stopLifetimeCheck()) {
 			if (summonPrice != null) {
 				for (Abnormal e : owner.getAllEffects()) {
 					if (e.getSkill().getId() == summonPrice.getId()) {
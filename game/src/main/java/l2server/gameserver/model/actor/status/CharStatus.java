@@ -238,7 +238,7 @@ public class CharStatus {
 			int period = Formulas.getRegeneratePeriod(getActiveChar());
 
 			// Create the HP/MP/CP Regeneration task
-			regTask = ThreadPoolManager.getInstance().scheduleEffectAtFixedRate(new RegenTask(), period, period);
+			regTask = ThreadPoolManager.getInstance().scheduleEffectAtFixedRate(getActiveChar(), new RegenTask(), period, period);
 		}
 	}
 
@@ -29,6 +29,8 @@ public class ClientStats {
 	public int longFloods = 0;
 	public int totalQueueOverflows = 0;
 	public int totalUnderflowExceptions = 0;
+	public int profiledPackets = 0;
+	public int overBudgetPackets = 0;
 
 	private final int[] packetsInSecond;
 	private long packetCountStartTick = 0;
@@ -43,6 +45,7 @@ public class ClientStats {
 	private long overflowStartTick = 0;
 	private int underflowReadsInMin = 0;
 	private long underflowReadStartTick = 0;
+	private int profilerSampleCounter = 0;
 
 	private volatile boolean floodDetected = false;
 	private volatile boolean queueOverflowDetected = false;
@@ -153,6 +156,24 @@ public class ClientStats {
 		return underflowReadsInMin > Config.CLIENT_PACKET_QUEUE_MAX_UNDERFLOWS_PER_MIN;
 	}
 
+	/**
+	 * Returns true if the timings of the executed packet must be recorded by the profiler,
+	 * once every PACKET_PROFILER_SAMPLE_RATE packets.
+	 */
+	protected final boolean countProfilerSample() {
+		if (Config.PACKET_PROFILER_SAMPLE_RATE <= 0) {
+			return false;
+		}
+
+		if (++profilerSampleCounter < Config.PACKET_PROFILER_SAMPLE_RATE) {
+			return false;
+		}
+
+		profilerSampleCounter = 0;
+		profiledPackets++;
+		return true;
+	}
+
 	/**
 	 * Returns true if maximum number of floods per minute is reached.
 	 */
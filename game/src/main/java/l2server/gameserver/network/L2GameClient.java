@@ -21,12 +21,16 @@ import l2server.gameserver.LoginServerThread;
 import l2server.gameserver.LoginServerThread.SessionKey;
 import l2server.gameserver.Shutdown;
 import l2server.gameserver.ThreadPoolManager;
+import l2server.gameserver.cache.PlayerLoadCache;
 import l2server.gameserver.datatables.CharNameTable;
 import l2server.gameserver.datatables.ClanTable;
+import l2server.gameserver.datatables.ImageTable;
+import l2server.gameserver.datatables.OfflineTradersTable;
 import l2server.gameserver.events.instanced.EventsManager;
 import l2server.gameserver.instancemanager.AntiFeedManager;
 import l2server.gameserver.instancemanager.ArenaManager;
 import l2server.gameserver.instancemanager.CustomOfflineBuffersManager;
+import l2server.gameserver.instancemanager.LeaderboardManager;
 import l2server.gameserver.instancemanager.arena.Fighter;
 import l2server.gameserver.model.Abnormal;
 import l2server.gameserver.model.CharSelectInfoPackage;
@@ -35,6 +39,7 @@ import l2server.gameserver.model.World;
 import l2server.gameserver.model.actor.Creature;
 import l2server.gameserver.model.actor.instance.Player;
 import l2server.gameserver.model.actor.instance.SummonInstance;
+import l2server.gameserver.network.clientpackets.L2GameClientPacket;
 import l2server.gameserver.network.serverpackets.ActionFailed;
 import l2server.gameserver.network.serverpackets.L2GameServerPacket;
 import l2server.gameserver.network.serverpackets.ServerClose;
@@ -53,7 +58,9 @@ import java.nio.ByteBuffer;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.util.Set;
 import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Future;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledFuture;
@@ -110,6 +117,12 @@ public final class L2GameClient extends MMOClient<MMOConnection<L2GameClient>> i
 	
 	private boolean isDetached = false;
 	
+	/**
+	 * The crests and images (both sent as pledge crests) and the ally crests received by the client during this session
+	 */
+	private final Set<Integer> knownCrests = ConcurrentHashMap.newKeySet();
+	private final Set<Integer> knownAllyCrests = ConcurrentHashMap.newKeySet();
+	
 	private boolean protocolOk;
 	private int protocolVersion;
 	
@@ -167,6 +180,20 @@ public final class L2GameClient extends MMOClient<MMOConnection<L2GameClient>> i
 		return stats;
 	}
 	
+	/**
+	 * @return true if the client didn't receive this pledge crest or image yet
+	 */
+	public boolean addKnownCrest(int crestId) {
+		return knownCrests.add(crestId);
+	}
+	
+	/**
+	 * @return true if the client didn't receive this ally crest yet
+	 */
+	public boolean addKnownAllyCrest(int crestId) {
+		return knownAllyCrests.add(crestId);
+	}
+	
 	/**
 	 * Returns cached connection IP address, for checking detached clients.
 	 * For loaded offline traders returns localhost address.
@@ -257,6 +284,12 @@ public final class L2GameClient extends MMOClient<MMOConnection<L2GameClient>> i
 			}
 		}
 		
+		// The images shown by an html must reach the client before it
+		final String html = gsp.getHtml();
+		if (html != null) {
+			ImageTable.getInstance().sendImages(this, html);
+		}
+		
 		getConnection().sendPacket(gsp);
 		gsp.runImpl();
 	}
@@ -387,6 +420,7 @@ public final class L2GameClient extends MMOClient<MMOConnection<L2GameClient>> i
 		}
 		
 		CharNameTable.getInstance().removeName(objid);
+		PlayerLoadCache.getInstance().invalidate(objid);
 		
 		Connection con = null;
 		
@@ -581,6 +615,7 @@ public final class L2GameClient extends MMOClient<MMOConnection<L2GameClient>> i
 		} finally {
 			DatabasePool.close(con);
 		}
+		LeaderboardManager.getInstance().onCharacterDeleted(objid);
 	}
 	
 	public Player loadCharFromDisk(int charslot) {
@@ -589,6 +624,9 @@ public final class L2GameClient extends MMOClient<MMOConnection<L2GameClient>> i
 			return null;
 		}
 		
+		// Its offline shop is not restored anymore, or already in the world
+		OfflineTradersTable.INSTANCE.onCharacterSelected(objId);
+		
 		Player character = World.getInstance().getPlayer(objId);
 		if (character != null) {
 			// exploit prevention, should not happens in normal way
@@ -1018,6 +1056,10 @@ public final class L2GameClient extends MMOClient<MMOConnection<L2GameClient>> i
 			return;
 		}
 		
+		if (packet instanceof L2GameClientPacket) {
+			((L2GameClientPacket) packet).setQueuedTime(System.nanoTime());
+		}
+		
 		if (!packetQueue.offer(packet)) {
 			if (getStats().countQueueOverflow()) {
 				log.error("Client " + toString() + " - Disconnected, too many queue overflows.");
@@ -1077,11 +1119,13 @@ public final class L2GameClient extends MMOClient<MMOConnection<L2GameClient>> i
 					return;
 				}
 				
+				final long startTime = System.nanoTime();
 				try {
 					packet.run();
 				} catch (Exception e) {
 					log.error("Exception during execution " + packet.getClass().getSimpleName() + ", client: " + toString() + "," + e.getMessage());
 				}
+				PacketProfiler.getInstance().onPacketExecuted(this, packet, startTime, System.nanoTime());
 				
 				count++;
 				if (getStats().countBurst(count)) {
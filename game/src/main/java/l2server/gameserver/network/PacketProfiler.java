@@ -0,0 +1,148 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package l2server.gameserver.network;
+
+import l2server.Config;
+import l2server.gameserver.network.clientpackets.L2GameClientPacket;
+import l2server.network.ReceivablePacket;
+import l2server.util.metrics.MetricsHistogram;
+import l2server.util.metrics.MetricsRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Always-on profiler of the client packets execution.<BR>
+ * Counts every executed packet per type and, for the packets sampled by each client ({@link ClientStats#countProfilerSample()}),
+ * records the time spent waiting in the client queue and the time spent running.
+ * Packets running longer than PACKET_PROFILER_BUDGET are logged.
+ */
+public final class PacketProfiler {
+	private static Logger log = LoggerFactory.getLogger(PacketProfiler.class.getName());
+	
+	private final Map<Class<?>, PacketStats> stats = new ConcurrentHashMap<>();
+	
+	public static PacketProfiler getInstance() {
+		return SingletonHolder.instance;
+	}
+	
+	private PacketProfiler() {
+	}
+	
+	/**
+	 * Called by the client once the packet has been executed.
+	 *
+	 * @param startTime System.nanoTime() when the packet started running
+	 * @param endTime   System.nanoTime() when the packet finished running
+	 */
+	public final void onPacketExecuted(L2GameClient client, ReceivablePacket<L2GameClient> packet, long startTime, long endTime) {
+		final PacketStats packetStats = getStats(packet);
+		packetStats.count.increment();
+		
+		final long runTime = endTime - startTime;
+		if (client.getStats().countProfilerSample()) {
+			packetStats.runTime.record(runTime);
+			if (packet instanceof L2GameClientPacket && ((L2GameClientPacket) packet).getQueuedTime() != 0) {
+				packetStats.queueTime.record(startTime - ((L2GameClientPacket) packet).getQueuedTime());
+			}
+		}
+		
+		if (Config.PACKET_PROFILER_BUDGET > 0 && runTime > TimeUnit.MILLISECONDS.toNanos(Config.PACKET_PROFILER_BUDGET)) {
+			packetStats.overBudget.increment();
+			client.getStats().overBudgetPackets++;
+			log.warn("Client " + client + " - " + packetStats.type + " took " + TimeUnit.NANOSECONDS.toMillis(runTime) + " ms, budget is " +
+					Config.PACKET_PROFILER_BUDGET + " ms.");
+		}
+	}
+	
+	private PacketStats getStats(ReceivablePacket<L2GameClient> packet) {
+		final PacketStats packetStats = stats.get(packet.getClass());
+		if (packetStats != null) {
+			return packetStats;
+		}
+		
+		return stats.computeIfAbsent(packet.getClass(), k -> {
+			final String type = packet instanceof L2GameClientPacket ? ((L2GameClientPacket) packet).getType() : k.getSimpleName();
+			final PacketStats created = new PacketStats(type);
+			
+			final MetricsRegistry metrics = MetricsRegistry.getInstance();
+			final String name = k.getSimpleName();
+			metrics.counter("l2_client_packets_total", "Client packets executed", created.count::sum, "packet", name);
+			metrics.counter("l2_client_packets_over_budget_total", "Client packets which exceeded the run budget", created.overBudget::sum, "packet", name);
+			metrics.register("l2_client_packet_run_seconds", "Client packet run time (sampled)", created.runTime, "packet", name);
+			metrics.register("l2_client_packet_queue_seconds", "Client packet time spent in the client queue (sampled)", created.queueTime, "packet", name);
+			return created;
+		});
+	}
+	
+	/**
+	 * @param limit maximum amount of packet types to return
+	 * @return a human readable report of the packet types sorted by total run time
+	 */
+	public final List<String> getStats(int limit) {
+		final List<PacketStats> sorted = new ArrayList<>(stats.values());
+		sorted.sort(Comparator.comparingLong((PacketStats s) -> s.runTime.getTotalNanos()).reversed());
+		
+		final List<String> result = new ArrayList<>();
+		result.add("Packet: count / run avg, p99, max (ms) / queue p99 (ms) / over budget");
+		for (PacketStats packetStats : sorted) {
+			if (result.size() > limit) {
+				break;
+			}
+			
+			final long sampled = packetStats.runTime.getCount();
+			result.add(packetStats.type + ": " + packetStats.count.sum() + " / " +
+					String.format("%.2f", sampled == 0 ? 0. : packetStats.runTime.getTotalNanos() / (double) sampled / 1000000) + ", " +
+					toMillis(packetStats.runTime.getValueAtQuantile(0.99)) + ", " + toMillis(packetStats.runTime.getMaxNanos()) + " / " +
+					toMillis(packetStats.queueTime.getValueAtQuantile(0.99)) + " / " + packetStats.overBudget.sum());
+		}
+		return result;
+	}
+	
+	public final void reset() {
+		for (PacketStats packetStats : stats.values()) {
+			packetStats.runTime.reset();
+			packetStats.queueTime.reset();
+		}
+	}
+	
+	private static String toMillis(long nanos) {
+		return String.format("%.2f", nanos / 1000000.);
+	}
+	
+	private static final class PacketStats {
+		private final String type;
+		private final LongAdder count = new LongAdder();
+		private final LongAdder overBudget = new LongAdder();
+		private final MetricsHistogram runTime = new MetricsHistogram();
+		private final MetricsHistogram queueTime = new MetricsHistogram();
+		
+		private PacketStats(String type) {
+			this.type = type;
+		}
+	}
+	
+	private static class SingletonHolder {
+		protected static final PacketProfiler instance = new PacketProfiler();
+	}
+}
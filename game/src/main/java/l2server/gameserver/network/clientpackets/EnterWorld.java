@@ -84,6 +84,16 @@ public class EnterWorld extends L2GameClientPacket {
 
 	@Override
 	protected void runImpl() {
+		// The managers queried by the world entrance share a single connection
+		DatabasePool.getInstance().pinConnection();
+		try {
+			enterWorld();
+		} finally {
+			DatabasePool.getInstance().unpinConnection();
+		}
+	}
+
+	private void enterWorld() {
 		final Player activeChar = getClient().getActiveChar();
 
 		if (activeChar == null) {
@@ -285,10 +295,6 @@ public class EnterWorld extends L2GameClientPacket {
 
 		Quest.playerEnter(activeChar);
 
-		if (Config.isServer(Config.TENKAI) || Config.IS_CLASSIC) {
-			ImageTable.getInstance().sendImages(activeChar);
-		}
-
 		if (!Config.DISABLE_TUTORIAL) {
 			loadTutorial(activeChar);
 		}
@@ -34,6 +34,8 @@ import java.nio.BufferUnderflowException;
 public abstract class L2GameClientPacket extends ReceivablePacket<L2GameClient> {
 	protected static Logger log = LoggerFactory.getLogger(ReceivablePacket.class.getName());
 	
+	private long queuedTime;
+	
 	@Override
 	public boolean read() {
 		//if (getClient() != null && getClient().getAccountName() != null
@@ -55,6 +57,17 @@ public abstract class L2GameClientPacket extends ReceivablePacket<L2GameClient>
 	
 	protected abstract void readImpl();
 	
+	/**
+	 * @return System.nanoTime() when the packet was queued for execution, 0 if unknown
+	 */
+	public final long getQueuedTime() {
+		return queuedTime;
+	}
+	
+	public final void setQueuedTime(long queuedTime) {
+		this.queuedTime = queuedTime;
+	}
+	
 	@Override
 	public void run() {
 		try {
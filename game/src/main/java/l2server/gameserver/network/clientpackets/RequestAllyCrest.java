@@ -15,7 +15,7 @@
 
 package l2server.gameserver.network.clientpackets;
 
-import l2server.gameserver.network.serverpackets.AllyCrest;
+import l2server.gameserver.cache.CrestCache;
 
 /**
  * This class ...
@@ -36,7 +36,7 @@ public final class RequestAllyCrest extends L2GameClientPacket {
 	
 	@Override
 	protected void runImpl() {
-		sendPacket(new AllyCrest(crestId));
+		CrestCache.getInstance().sendAllyCrest(getClient(), crestId);
 	}
 	
 	@Override
@@ -16,7 +16,6 @@
 package l2server.gameserver.network.clientpackets;
 
 import l2server.gameserver.cache.CrestCache;
-import l2server.gameserver.network.serverpackets.ExPledgeCrestLarge;
 
 /**
  * Fomat : chd
@@ -40,16 +39,7 @@ public final class RequestExPledgeCrestLarge extends L2GameClientPacket {
 	
 	@Override
 	protected void runImpl() {
-		final byte[][] data = CrestCache.getInstance().getPledgeCrestLarge(crestId);
-		if (data != null) {
-			for (int i = 0; i < data.length; i++) {
-				if (data[i] == null || data[i].length == 0) {
-					break;
-				}
-				
-				sendPacket(new ExPledgeCrestLarge(crestId, i, data[i]));
-			}
-		}
+		CrestCache.getInstance().sendPledgeCrestLarge(getClient(), crestId);
 	}
 	
 	@Override
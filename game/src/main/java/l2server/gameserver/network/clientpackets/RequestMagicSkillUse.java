@@ -16,6 +16,7 @@
 package l2server.gameserver.network.clientpackets;
 
 import l2server.Config;
+import l2server.gameserver.ThreadPoolManager;
 import l2server.gameserver.datatables.ComboSkillTable;
 import l2server.gameserver.datatables.ComboSkillTable.Combo;
 import l2server.gameserver.datatables.SkillTable;
@@ -149,7 +150,7 @@ public final class RequestMagicSkillUse extends L2GameClientPacket {
 				}
 				
 				Skill magic = SkillTable.getInstance().getInfo(skill.getId() + offset, skill.getLevelHash());
-				activeChar.useMagic(magic, ctrlPressed, shiftPressed);
+				useMagic(activeChar, magic);
 				return;
 			}
 			
@@ -159,10 +160,21 @@ public final class RequestMagicSkillUse extends L2GameClientPacket {
 			}
 			
 			// activeChar.stopMove();
-			activeChar.useMagic(skill, ctrlPressed, shiftPressed);
+			useMagic(activeChar, skill);
 		} else {
 			activeChar.sendPacket(ActionFailed.STATIC_PACKET);
 			log.warn("No skill found with id " + magicId + " and level " + level + " !!");
 		}
 	}
+	
+	/**
+	 * In region affine mode the cast starts on the executor of the region group of the player, with the rest of its combat tasks.
+	 */
+	private void useMagic(Player activeChar, Skill skill) {
+		if (Config.REGION_AFFINE_EXECUTION) {
+			ThreadPoolManager.getInstance().executeAi(activeChar, () -> activeChar.useMagic(skill, ctrlPressed, shiftPressed));
+		} else {
+			activeChar.useMagic(skill, ctrlPressed, shiftPressed);
+		}
+	}
 }
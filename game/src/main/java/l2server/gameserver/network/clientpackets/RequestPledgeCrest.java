@@ -15,7 +15,7 @@
 
 package l2server.gameserver.network.clientpackets;
 
-import l2server.gameserver.network.serverpackets.PledgeCrest;
+import l2server.gameserver.cache.CrestCache;
 
 /**
  * This class ...
@@ -33,7 +33,7 @@ public final class RequestPledgeCrest extends L2GameClientPacket {
 
 	@Override
 	protected void runImpl() {
-		sendPacket(new PledgeCrest(crestId));
+		CrestCache.getInstance().sendPledgeCrest(getClient(), crestId);
 	}
 
 	@Override
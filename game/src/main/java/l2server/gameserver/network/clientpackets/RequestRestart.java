@@ -17,6 +17,7 @@ package l2server.gameserver.network.clientpackets;
 
 import l2server.Config;
 import l2server.gameserver.Ranked1v1;
+import l2server.gameserver.cache.PlayerLoadCache;
 import l2server.gameserver.events.Elpy;
 import l2server.gameserver.events.Ranked2v2;
 import l2server.gameserver.instancemanager.AntiFeedManager;
@@ -117,6 +118,7 @@ public final class RequestRestart extends L2GameClientPacket {
 		player.setClient(null);
 
 		player.deleteMe();
+		PlayerLoadCache.getInstance().onRestart(player.getObjectId());
 
 		client.setActiveChar(null);
 		AntiFeedManager.getInstance().onDisconnect(client);
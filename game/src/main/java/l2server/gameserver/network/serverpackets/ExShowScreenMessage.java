@@ -117,6 +117,11 @@ public class ExShowScreenMessage extends L2GameServerPacket {
 		effect = showEffect;
 	}
 	
+	@Override
+	protected boolean isSameForAllClients() {
+		return true;
+	}
+	
 	@Override
 	protected final void writeImpl() {
 		writeD(type); // 0 - system messages, 1 - your defined text
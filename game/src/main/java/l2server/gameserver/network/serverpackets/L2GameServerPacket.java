@@ -21,6 +21,10 @@ import l2server.network.SendablePacket;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
 /**
  * @author KenM
  */
@@ -29,6 +33,15 @@ public abstract class L2GameServerPacket extends SendablePacket<L2GameClient> {
 	
 	protected int invisibleCharacter = 0;
 	
+	/**
+	 * The content writeImpl wrote for the first client or before being sent, copied as it is to the clients, after the
+	 * opcode which is looked up on each write so that it can be reloaded
+	 *
+	 * @see #isSameForAllClients()
+	 * @see #preEncode(int)
+	 */
+	private volatile byte[] content;
+	
 	/**
 	 * @return True if packet originated from invisible character.
 	 */
@@ -57,12 +70,96 @@ public abstract class L2GameServerPacket extends SendablePacket<L2GameClient> {
 				writeB(opcode);
 			}
 			
-			writeImpl();
+			if (content != null || isSameForAllClients()) {
+				writeContent();
+			} else {
+				writeImpl();
+			}
 		} catch (Exception e) {
 			log.error("Client: " + getClient().toString() + " - Failed writing: " + getType() + " ; " + e.getMessage(), e);
 		}
 	}
 	
+	private void writeContent() {
+		final byte[] written = content;
+		if (written != null) {
+			writeB(written);
+			return;
+		}
+		
+		final int start = buf.position();
+		writeImpl();
+		if (buf.hasArray()) {
+			content = Arrays.copyOfRange(buf.array(), buf.arrayOffset() + start, buf.arrayOffset() + buf.position());
+		}
+	}
+	
+	/**
+	 * Writes the content now instead of on the first send, for the packets shared from the start
+	 *
+	 * @param maxSize the maximum size of the content of the packet
+	 */
+	protected final void preEncode(int maxSize) {
+		preEncode(this, maxSize);
+	}
+	
+	/**
+	 * Keeps the content another packet writes as the content of this one
+	 *
+	 * @param maxSize the maximum size of the content of the packet
+	 * @see SerializedPacket
+	 */
+	final void preEncode(L2GameServerPacket packet, int maxSize) {
+		content = packet.toByteArray(maxSize);
+	}
+	
+	/**
+	 * @return the size of the content kept, 0 if not written yet
+	 */
+	final int getContentSize() {
+		final byte[] written = content;
+		return written == null ? 0 : written.length;
+	}
+	
+	/**
+	 * To be called when a packet whose content is kept changes after being sent
+	 */
+	protected final void resetContent() {
+		content = null;
+	}
+	
+	/**
+	 * @return true if writeImpl writes the same content whatever the client is, so it only runs for the first client
+	 * the packet is sent to and the next ones get a copy of the bytes
+	 */
+	protected boolean isSameForAllClients() {
+		return false;
+	}
+	
+	/**
+	 * Writes the content of the packet outside of any connection, without the opcode.
+	 *
+	 * @param maxSize the size of the buffer the packet is written into
+	 * @return the bytes writeImpl would write to a client, before encryption
+	 */
+	private byte[] toByteArray(int maxSize) {
+		final ByteBuffer buffer = ByteBuffer.allocate(maxSize).order(ByteOrder.LITTLE_ENDIAN);
+		buf = buffer;
+		try {
+			writeImpl();
+		} finally {
+			buf = null;
+		}
+		return Arrays.copyOf(buffer.array(), buffer.position());
+	}
+	
+	/**
+	 * @return the html this packet shows to the client, scanned for the custom images it needs before being sent
+	 */
+	public String getHtml() {
+		return null;
+	}
+	
 	public void runImpl() {
 	
 	}
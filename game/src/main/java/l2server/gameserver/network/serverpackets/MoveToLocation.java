@@ -51,4 +51,9 @@ public final class MoveToLocation extends L2GameServerPacket {
 		writeD(y);
 		writeD(z);
 	}
+	
+	@Override
+	public long getSupersedeKey() {
+		return supersedeKey(charObjId, 0);
+	}
 }
@@ -219,6 +219,11 @@ public final class NpcHtmlMessage extends L2GameServerPacket {
 		}
 	}
 	
+	@Override
+	public String getHtml() {
+		return html;
+	}
+	
 	@Override
 	protected final void writeImpl() {
 		writeD(npcObjId);
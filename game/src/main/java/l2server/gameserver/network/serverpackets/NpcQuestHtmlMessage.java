@@ -190,6 +190,11 @@ public final class NpcQuestHtmlMessage extends L2GameServerPacket {
 		}
 	}
 	
+	@Override
+	public String getHtml() {
+		return html;
+	}
+	
 	@Override
 	protected final void writeImpl() {
 		writeD(npcObjId);
@@ -65,6 +65,12 @@ public final class NpcSay extends L2GameServerPacket {
 			parameters = new ArrayList<>();
 		}
 		parameters.add(text);
+		resetContent();
+	}
+
+	@Override
+	protected boolean isSameForAllClients() {
+		return true;
 	}
 
 	@Override
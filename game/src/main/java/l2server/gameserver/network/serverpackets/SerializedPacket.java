@@ -0,0 +1,57 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package l2server.gameserver.network.serverpackets;
+
+/**
+ * A packet whose content is written once, then copied as it is to every client it is sent to, after the opcode of the packet.<BR>
+ * Meant for big packets which never change, such as crests and images: the wrapped packet isn't kept, only its content.
+ *
+ * @see L2GameServerPacket#preEncode(int)
+ */
+public final class SerializedPacket extends L2GameServerPacket {
+	private final Class<?> opCodeClass;
+	
+	/**
+	 * @param maxSize the maximum size of the content of the packet
+	 */
+	public SerializedPacket(L2GameServerPacket packet, int maxSize) {
+		opCodeClass = packet.getOpCodeClass();
+		preEncode(packet, maxSize);
+	}
+	
+	/**
+	 * @return the size of the content of the packet
+	 */
+	public int getSize() {
+		return getContentSize();
+	}
+	
+	@Override
+	protected boolean isSameForAllClients() {
+		return true;
+	}
+	
+	@Override
+	protected void writeImpl() {
+		// The content is written by the wrapped packet when created
+		throw new IllegalStateException("SerializedPacket without content");
+	}
+	
+	@Override
+	protected Class<?> getOpCodeClass() {
+		return opCodeClass;
+	}
+}
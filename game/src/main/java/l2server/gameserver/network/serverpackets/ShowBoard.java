@@ -34,6 +34,11 @@ public class ShowBoard extends L2GameServerPacket {
 		}
 	}
 
+	@Override
+	public String getHtml() {
+		return htmlCode.toString();
+	}
+	
 	@Override
 	protected final void writeImpl() {
 		writeC(0x01); //c4 1 to show community 00 to hide
@@ -17,6 +17,7 @@ package l2server.gameserver.network.serverpackets;
 
 import l2server.gameserver.model.WorldObject;
 import l2server.gameserver.model.actor.Creature;
+import l2server.network.SendablePacket;
 
 import java.util.ArrayList;
 
@@ -139,6 +140,37 @@ public final class StatusUpdate extends L2GameServerPacket {
 		attributes.add(new Attribute(id, level));
 	}
 	
+	private long getAttributeMask() {
+		long mask = 0;
+		for (Attribute temp : attributes) {
+			mask |= 1L << temp.id;
+		}
+		return mask;
+	}
+	
+	/**
+	 * Plain updates (no causer, no display effect) replace a queued update for the same object and the same set of attributes.
+	 */
+	@Override
+	public long getSupersedeKey() {
+		if (causerId != 0 || display != 0) {
+			return 0;
+		}
+		
+		final long mask = getAttributeMask();
+		return supersedeKey(objectId, (int) (mask ^ mask >>> 32));
+	}
+	
+	@Override
+	public boolean supersedes(SendablePacket<?> older) {
+		if (!(older instanceof StatusUpdate)) {
+			return false;
+		}
+		
+		final StatusUpdate su = (StatusUpdate) older;
+		return su.objectId == objectId && su.causerId == 0 && su.display == 0 && su.getAttributeMask() == getAttributeMask();
+	}
+	
 	@Override
 	protected final void writeImpl() {
 		writeD(objectId);
@@ -110,6 +110,8 @@ public final class SystemMessage extends L2GameServerPacket {
 		
 		sm = new SystemMessage(smId);
 		if (smId.getParamCount() == 0) {
+			// Shared by all the senders, so written once: id and no parameter
+			sm.preEncode(3);
 			smId.setStaticSystemMessage(sm);
 		}
 		
@@ -152,6 +154,7 @@ public final class SystemMessage extends L2GameServerPacket {
 		}
 		
 		params[paramIndex++] = param;
+		resetContent();
 	}
 	
 	public final SystemMessage addString(final String text) {
@@ -443,6 +446,11 @@ public final class SystemMessage extends L2GameServerPacket {
 		}
 	}
 	
+	@Override
+	protected boolean isSameForAllClients() {
+		return true;
+	}
+	
 	@Override
 	protected final void writeImpl() {
 		writeH(smId.getId());
@@ -24,6 +24,11 @@ public final class TutorialShowHtml extends L2GameServerPacket {
 		this.html = html;
 	}
 	
+	@Override
+	public String getHtml() {
+		return html;
+	}
+	
 	/* (non-Javadoc)
 	 * @see l2server.gameserver.serverpackets.ServerBasePacket#writeImpl()
 	 */
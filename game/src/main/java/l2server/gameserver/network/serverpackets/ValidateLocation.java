@@ -46,4 +46,9 @@ public class ValidateLocation extends L2GameServerPacket {
 		writeD(z);
 		writeD(heading);
 	}
+	
+	@Override
+	public long getSupersedeKey() {
+		return supersedeKey(charObjId, 0);
+	}
 }
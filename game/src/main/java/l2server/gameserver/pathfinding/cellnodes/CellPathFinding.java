@@ -24,6 +24,7 @@ import l2server.gameserver.pathfinding.AbstractNode;
 import l2server.gameserver.pathfinding.AbstractNodeLoc;
 import l2server.gameserver.pathfinding.PathFinding;
 import l2server.util.StringUtil;
+import l2server.util.metrics.MetricsRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -72,6 +73,19 @@ public class CellPathFinding extends PathFinding {
 			log.warn("CellPathFinding: Problem during buffer init: " + e.getMessage(), e);
 			throw new Error("CellPathFinding: load aborted");
 		}
+
+		final MetricsRegistry metrics = MetricsRegistry.getInstance();
+		metrics.counter("l2_pathfind_total", "Pathfinding requests", () -> findSuccess, "result", "success");
+		metrics.counter("l2_pathfind_total", "Pathfinding requests", () -> findFails, "result", "fail");
+		metrics.counter("l2_pathfind_postfilter_total", "Pathfinding LOS postfilter runs", () -> postFilterUses);
+		metrics.counter("l2_pathfind_postfilter_seconds_total", "Time spent in the LOS postfilter", () -> postFilterElapsed / 1000d);
+		metrics.counter("l2_pathfind_buffer_overflows_total", "Requests which had to allocate a temporary node buffer", () -> {
+			int overflows = 0;
+			for (BufferInfo info : allBuffers) {
+				overflows += info.overflows;
+			}
+			return overflows;
+		});
 	}
 
 	@Override
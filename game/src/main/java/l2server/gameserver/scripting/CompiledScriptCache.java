@@ -24,11 +24,23 @@ import javax.script.CompiledScript;
 import javax.script.ScriptEngine;
 import javax.script.ScriptException;
 import java.io.*;
+import java.lang.reflect.Field;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * Cache of Compiled Scripts
+ * Cache of Compiled Scripts.<BR>
+ * A cached script is reused as long as the content of its file and of every script file compiled along with it is unchanged,
+ * so modifying a superclass recompiles all its subclasses, and only them.<BR>
+ * Safe to use from the threads compiling the scripts in parallel.
  *
  * @author KenM
  */
@@ -36,39 +48,148 @@ public class CompiledScriptCache implements Serializable {
 	private static Logger log = LoggerFactory.getLogger(CompiledScriptCache.class.getName());
 
 
-	private static final long serialVersionUID = 3L;
+	private static final long serialVersionUID = 4L;
 	
-	private final Map<String, CompiledScriptHolder> compiledScripts = new HashMap<>();
-	private transient boolean modified = false;
+	/**
+	 * The content hashes of the script files, computed again only when the date or the size of a file changes
+	 */
+	private static final Map<String, FileHash> fileHashes = new ConcurrentHashMap<>();
 	
-	public CompiledScript loadCompiledScript(ScriptEngine engine, File file) throws FileNotFoundException, ScriptException {
+	/**
+	 * The classes produced by the java engine, read to know which script files a script was compiled from
+	 */
+	private static Field classBytesField;
+	
+	private final Map<String, CompiledScriptHolder> compiledScripts = new ConcurrentHashMap<>();
+	private transient volatile boolean modified = false;
+	
+	private static final class FileHash {
+		private final long lastModified;
+		private final long size;
+		private final String hash;
+		
+		private FileHash(long lastModified, long size, String hash) {
+			this.lastModified = lastModified;
+			this.size = size;
+			this.hash = hash;
+		}
+	}
+	
+	private static String getRelativePath(File file) {
 		int len = L2ScriptEngineManager.getSCRIPT_FOLDER().getPath().length() + 1;
-		String relativeName = file.getPath().substring(len);
+		return file.getPath().substring(len);
+	}
+	
+	/**
+	 * @param relativePath the path of a file relative to the script folder
+	 * @return the hash of the content of the file, null if it doesn't exist
+	 */
+	static String getFileHash(String relativePath) {
+		final File file = new File(L2ScriptEngineManager.getSCRIPT_FOLDER(), relativePath);
+		final long lastModified = file.lastModified();
+		final long size = file.length();
+		if (!file.isFile()) {
+			fileHashes.remove(relativePath);
+			return null;
+		}
 		
-		CompiledScriptHolder csh = compiledScripts.get(relativeName);
-		if (csh != null && csh.matches(file)) {
+		FileHash fileHash = fileHashes.get(relativePath);
+		if (fileHash == null || fileHash.lastModified != lastModified || fileHash.size != size) {
+			try {
+				final MessageDigest digest = MessageDigest.getInstance("SHA-1");
+				fileHash = new FileHash(lastModified, size, new BigInteger(1, digest.digest(Files.readAllBytes(file.toPath()))).toString(16));
+			} catch (IOException | NoSuchAlgorithmException e) {
+				log.warn("Couldn't hash the script " + relativePath + ": " + e.getMessage());
+				return null;
+			}
+			fileHashes.put(relativePath, fileHash);
+		}
+		return fileHash.hash;
+	}
+	
+	public boolean isUpToDate(File file) {
+		CompiledScriptHolder csh = compiledScripts.get(getRelativePath(file));
+		return csh != null && csh.isUpToDate();
+	}
+	
+	public CompiledScript loadCompiledScript(ScriptEngine engine, File file) throws FileNotFoundException, ScriptException {
+		CompiledScriptHolder csh = compiledScripts.get(getRelativePath(file));
+		if (csh != null && csh.isUpToDate()) {
 			if (Config.DEBUG) {
 				log.debug("Reusing cached compiled script: " + file);
 			}
 			return csh.getCompiledScript();
-		} else {
-			if (Config.DEBUG) {
-				log.info("Compiling script: " + file);
+		}
+		
+		return compileScript(engine, file);
+	}
+	
+	/**
+	 * Compiles the script and caches it with the hashes of its sources.<BR>
+	 * The engine must be used by the calling thread only, with the context of this script.
+	 */
+	public CompiledScript compileScript(ScriptEngine engine, File file) throws FileNotFoundException, ScriptException {
+		final String relativeName = getRelativePath(file);
+		if (Config.DEBUG) {
+			log.info("Compiling script: " + file);
+		}
+		
+		// Hashed before compiling, a file modified during the compilation will be compiled again
+		final Map<String, String> dependencies = new HashMap<>();
+		final String hash = getFileHash(relativeName);
+		
+		Compilable eng = (Compilable) engine;
+		CompiledScript cs;
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file)))) {
+			cs = eng.compile(reader);
+		} catch (IOException e) {
+			throw new ScriptException(e);
+		}
+		
+		if (cs instanceof Serializable && hash != null) {
+			dependencies.put(relativeName, hash);
+			for (String dependency : getSourceFiles(cs)) {
+				String dependencyHash = getFileHash(dependency);
+				if (dependencyHash != null) {
+					dependencies.put(dependency, dependencyHash);
+				}
 			}
-			Compilable eng = (Compilable) engine;
-			BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file)));
 			
-			// TODO lock file
-			CompiledScript cs = eng.compile(reader);
-			if (cs instanceof Serializable) {
-				synchronized (compiledScripts) {
-					compiledScripts.put(relativeName, new CompiledScriptHolder(cs, file));
-					modified = true;
-				}
+			compiledScripts.put(relativeName, new CompiledScriptHolder(cs, dependencies));
+			modified = true;
+		}
+		
+		return cs;
+	}
+	
+	/**
+	 * @return the script files of the classes the compiler produced for this script (relative paths)
+	 */
+	private static Iterable<String> getSourceFiles(CompiledScript cs) {
+		final Set<String> sources = new HashSet<>();
+		try {
+			if (classBytesField == null) {
+				Field field = cs.getClass().getDeclaredField("_classBytes");
+				field.setAccessible(true);
+				classBytesField = field;
 			}
 			
-			return cs;
+			for (Object className : ((Map<?, ?>) classBytesField.get(cs)).keySet()) {
+				String topLevelName = className.toString();
+				final int inner = topLevelName.indexOf('$');
+				if (inner >= 0) {
+					topLevelName = topLevelName.substring(0, inner);
+				}
+				
+				final String path = topLevelName.replace('.', File.separatorChar) + ".java";
+				if (new File(L2ScriptEngineManager.getSCRIPT_FOLDER(), path).isFile()) {
+					sources.add(path);
+				}
+			}
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			// Another engine: the script only depends on its own file
 		}
+		return sources;
 	}
 	
 	public boolean isModified() {
@@ -76,13 +197,12 @@ public class CompiledScriptCache implements Serializable {
 	}
 	
 	public void purge() {
-		synchronized (compiledScripts) {
-			for (String path : compiledScripts.keySet()) {
-				File file = new File(L2ScriptEngineManager.getSCRIPT_FOLDER(), path);
-				if (!file.isFile()) {
-					compiledScripts.remove(path);
-					modified = true;
-				}
+		Iterator<String> it = compiledScripts.keySet().iterator();
+		while (it.hasNext()) {
+			File file = new File(L2ScriptEngineManager.getSCRIPT_FOLDER(), it.next());
+			if (!file.isFile()) {
+				it.remove();
+				modified = true;
 			}
 		}
 	}
@@ -97,15 +217,22 @@ public class CompiledScriptCache implements Serializable {
 		}
 	}
 	
+	/**
+	 * Drops the scripts whose file or one of its dependencies changed since the cache was saved.
+	 */
 	public void checkFiles() {
-		synchronized (compiledScripts) {
-			for (String path : compiledScripts.keySet()) {
-				File file = new File(L2ScriptEngineManager.getSCRIPT_FOLDER(), path);
-				if (!compiledScripts.get(path).matches(file)) {
-					compiledScripts.clear();
-					return;
-				}
+		int outdated = 0;
+		Iterator<CompiledScriptHolder> it = compiledScripts.values().iterator();
+		while (it.hasNext()) {
+			if (!it.next().isUpToDate()) {
+				it.remove();
+				outdated++;
 			}
 		}
+		
+		if (outdated > 0) {
+			modified = true;
+		}
+		log.info("Compiled Scripts Cache: " + compiledScripts.size() + " scripts up-to-date, " + outdated + " to compile again.");
 	}
 }
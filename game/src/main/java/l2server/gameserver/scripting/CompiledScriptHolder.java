@@ -16,54 +16,31 @@
 package l2server.gameserver.scripting;
 
 import javax.script.CompiledScript;
-import java.io.File;
 import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
+ * A compiled script and the content hashes of the sources it was compiled from:
+ * its own file and every script file the compiler had to compile along with it (superclasses, helpers...).
+ *
  * @author KenM
  */
 public class CompiledScriptHolder implements Serializable {
 	/**
-	 * Version 1
+	 * Version 2
 	 */
-	private static final long serialVersionUID = 1L;
+	private static final long serialVersionUID = 2L;
 	
-	private long lastModified;
-	private long size;
 	private CompiledScript compiledScript;
-	
-	public CompiledScriptHolder(CompiledScript compiledScript, File scriptFile) {
-		this.compiledScript = compiledScript;
-		lastModified = scriptFile.lastModified();
-		size = scriptFile.length();
-	}
-	
-	/**
-	 * @return Returns the lastModified.
-	 */
-	public long getLastModified() {
-		return lastModified;
-	}
-	
-	/**
-	 * @param lastModified The lastModified to set.
-	 */
-	public void setLastModified(long lastModified) {
-		this.lastModified = lastModified;
-	}
+	private final Map<String, String> dependencies;
 	
 	/**
-	 * @return Returns the size.
+	 * @param dependencies the content hashes of the script file and its dependencies, by path relative to the script folder
 	 */
-	public long getSize() {
-		return size;
-	}
-	
-	/**
-	 * @param size The size to set.
-	 */
-	public void setSize(long size) {
-		this.size = size;
+	public CompiledScriptHolder(CompiledScript compiledScript, Map<String, String> dependencies) {
+		this.compiledScript = compiledScript;
+		this.dependencies = new HashMap<>(dependencies);
 	}
 	
 	/**
@@ -80,7 +57,22 @@ public class CompiledScriptHolder implements Serializable {
 		this.compiledScript = compiledScript;
 	}
 	
-	public boolean matches(File f) {
-		return f.lastModified() == getLastModified() && f.length() == getSize();
+	/**
+	 * @return the content hashes of the sources of this script, by path relative to the script folder
+	 */
+	public Map<String, String> getDependencies() {
+		return dependencies;
+	}
+	
+	/**
+	 * @return true if none of the sources of this script changed since it was compiled
+	 */
+	public boolean isUpToDate() {
+		for (Map.Entry<String, String> dependency : dependencies.entrySet()) {
+			if (!dependency.getValue().equals(CompiledScriptCache.getFileHash(dependency.getKey()))) {
+				return false;
+			}
+		}
+		return true;
 	}
 }
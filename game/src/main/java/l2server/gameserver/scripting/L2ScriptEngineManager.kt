@@ -25,6 +25,8 @@ import l2server.util.loader.annotations.Load
 import org.slf4j.LoggerFactory
 import java.io.*
 import java.util.*
+import java.util.concurrent.Callable
+import java.util.concurrent.Executors
 import javax.script.*
 
 /**
@@ -70,7 +72,7 @@ object L2ScriptEngineManager {
     /**
      * Use Compiled Scripts Cache.<BR></BR>
      * Only works if ATTEMPT_COMPILATION is true.<BR></BR>
-     * DISABLED DUE TO ISSUES (if a superclass file changes subclasses are not recompiled while they should)
+     * A script is compiled again when its file or any script file it was compiled with (such as its superclass) changes.
      */
     private val USE_COMPILED_CACHE = true
 
@@ -210,10 +212,12 @@ object L2ScriptEngineManager {
         }
 
         if (list.isFile) {
+            val files = ArrayList<File>()
             val lnr = LineNumberReader(InputStreamReader(FileInputStream(list)))
             var line = lnr.readLine()
             while (line != null) {
                 if (Config.ALT_DEV_NO_HANDLERS && line.contains("MasterHandler.java")) {
+                    line = lnr.readLine()
                     continue
                 }
 
@@ -231,16 +235,11 @@ object L2ScriptEngineManager {
                     file = File(SCRIPT_FOLDER, line)
 
                     if (file.isDirectory && parts[0].endsWith("/**")) {
-                        executeAllScriptsInDirectory(file, true, 32)
+                        collectScriptsInDirectory(file, true, 32, 0, files)
                     } else if (file.isDirectory && parts[0].endsWith("/*")) {
-                        executeAllScriptsInDirectory(file)
+                        collectScriptsInDirectory(file, false, 0, 0, files)
                     } else if (file.isFile) {
-                        try {
-                            executeScript(file)
-                        } catch (e: ScriptException) {
-                            reportScriptFileError(file, e)
-                        }
-
+                        files.add(file)
                     } else {
                         log.warn("Failed loading: (" + file.canonicalPath + ") @ " + list.name + ":" + lnr.lineNumber +
                                 " - Reason: it doesn't exist or it's not a file.")
@@ -250,6 +249,8 @@ object L2ScriptEngineManager {
                 line = lnr.readLine()
             }
             lnr.close()
+
+            executeScripts(files)
         } else {
             throw IllegalArgumentException("Argument must be an file containing a list of scripts to be loaded")
         }
@@ -260,42 +261,97 @@ object L2ScriptEngineManager {
     }
 
     fun executeAllScriptsInDirectory(dir: File, recurseDown: Boolean, maxDepth: Int) {
-        this.executeAllScriptsInDirectory(dir, recurseDown, maxDepth, 0)
+        if (!dir.isDirectory) {
+            throw IllegalArgumentException("The argument directory either doesn't exist or it's not a directory.")
+        }
+
+        val files = ArrayList<File>()
+        collectScriptsInDirectory(dir, recurseDown, maxDepth, 0, files)
+        executeScripts(files)
     }
 
-    private fun executeAllScriptsInDirectory(dir: File, recurseDown: Boolean, maxDepth: Int, currentDepth: Int) {
-        if (dir.isDirectory) {
-            for (file in dir.listFiles()!!) {
-                if (file.isDirectory && recurseDown && maxDepth > currentDepth) {
-                    if (VERBOSE_LOADING) {
-                        log.info("Entering folder: " + file.name)
-                    }
-                    executeAllScriptsInDirectory(file, recurseDown, maxDepth, currentDepth + 1)
-                } else if (file.isFile) {
+    /**
+     * Adds the files of the directory handled by a script engine.
+     */
+    private fun collectScriptsInDirectory(dir: File, recurseDown: Boolean, maxDepth: Int, currentDepth: Int, files: MutableList<File>) {
+        for (file in dir.listFiles()!!) {
+            if (file.isDirectory && recurseDown && maxDepth > currentDepth) {
+                if (VERBOSE_LOADING) {
+                    log.info("Entering folder: " + file.name)
+                }
+                collectScriptsInDirectory(file, recurseDown, maxDepth, currentDepth + 1, files)
+            } else if (file.isFile) {
+                val name = file.name
+                val lastIndex = name.lastIndexOf('.')
+                if (lastIndex != -1 && getEngineByExtension(name.substring(lastIndex + 1)) != null) {
+                    files.add(file)
+                }
+            }
+        }
+    }
+
+    /**
+     * Compiles the outdated scripts of the list in parallel, then runs all of them one by one, in the order of the list.
+     */
+    private fun executeScripts(files: List<File>) {
+        compileOutdatedScripts(files)
+
+        for (file in files) {
+            try {
+                executeScript(file)
+            } catch (e: FileNotFoundException) {
+                // should never happen
+                log.warn("", e)
+            } catch (e: ScriptException) {
+                reportScriptFileError(file, e)
+            }
+        }
+    }
+
+    /**
+     * Fills the compiled scripts cache with the java scripts whose sources changed, each compiler thread using its own engine.<BR>
+     * The scripts failing to compile are left out, they are compiled again and reported when run.
+     */
+    private fun compileOutdatedScripts(files: List<File>) {
+        val compiledScriptCache = cache ?: return
+        val engine = getEngineByExtension("java")
+        if (engine !is Compilable || !ATTEMPT_COMPILATION || Config.SCRIPT_COMPILER_THREADS < 2) {
+            return
+        }
+
+        val outdated = files.filter { it.name.endsWith(".java") && !compiledScriptCache.isUpToDate(it) }.distinct()
+        if (outdated.size < 2) {
+            return
+        }
+
+        val start = System.currentTimeMillis()
+        val threads = Math.min(Config.SCRIPT_COMPILER_THREADS, outdated.size)
+        val engines = ThreadLocal.withInitial { engine.factory.scriptEngine }
+        val executor = Executors.newFixedThreadPool(threads) { r ->
+            val thread = Thread(r, "ScriptCompiler")
+            thread.isDaemon = true
+            thread
+        }
+        try {
+            val tasks = outdated.map { file ->
+                executor.submit(Callable {
+                    val threadEngine = engines.get()
+                    threadEngine.context = createScriptContext(threadEngine, file)
                     try {
-                        val name = file.name
-                        val lastIndex = name.lastIndexOf('.')
-                        val extension: String
-                        if (lastIndex != -1) {
-                            extension = name.substring(lastIndex + 1)
-                            val engine = getEngineByExtension(extension)
-                            if (engine != null) {
-                                executeScript(engine, file)
-                            }
-                        }
-                    } catch (e: FileNotFoundException) {
-                        // should never happen
-                        log.warn("", e)
-                    } catch (e: ScriptException) {
-                        reportScriptFileError(file, e)
-                        //Logozo.warn( "", e);
+                        compiledScriptCache.compileScript(threadEngine, file)
+                    } catch (e: Exception) {
+                        null
                     }
-
-                }
+                })
             }
-        } else {
-            throw IllegalArgumentException("The argument directory either doesn't exist or it's not a directory.")
+            for (task in tasks) {
+                task.get()
+            }
+        } finally {
+            executor.shutdown()
         }
+
+        log.info("Compiled " + outdated.size + " modified scripts in " + (System.currentTimeMillis() - start) + " ms on " + threads + " threads.")
     }
 
     fun loadCompiledScriptCache(): CompiledScriptCache? {
@@ -376,12 +432,7 @@ object L2ScriptEngineManager {
         }
 
         if (engine is Compilable && ATTEMPT_COMPILATION) {
-            val context = SimpleScriptContext()
-            context.setAttribute("mainClass", getClassForFile(file)!!.replace('/', '.').replace('\\', '.'), ScriptContext.ENGINE_SCOPE)
-            context.setAttribute(ScriptEngine.FILENAME, file.name, ScriptContext.ENGINE_SCOPE)
-            context.setAttribute("classpath", SCRIPT_FOLDER.absolutePath, ScriptContext.ENGINE_SCOPE)
-            context.setAttribute("sourcepath", SCRIPT_FOLDER.absolutePath, ScriptContext.ENGINE_SCOPE)
-            context.setAttribute(JythonScriptEngine.JYTHON_ENGINE_INSTANCE, engine, ScriptContext.ENGINE_SCOPE)
+            val context = createScriptContext(engine, file)
 
             currentLoadingScript = file
             val ctx = engine.context
@@ -418,6 +469,16 @@ object L2ScriptEngineManager {
         }
     }
 
+    private fun createScriptContext(engine: ScriptEngine, file: File): ScriptContext {
+        val context = SimpleScriptContext()
+        context.setAttribute("mainClass", getClassForFile(file)!!.replace('/', '.').replace('\\', '.'), ScriptContext.ENGINE_SCOPE)
+        context.setAttribute(ScriptEngine.FILENAME, file.name, ScriptContext.ENGINE_SCOPE)
+        context.setAttribute("classpath", SCRIPT_FOLDER.absolutePath, ScriptContext.ENGINE_SCOPE)
+        context.setAttribute("sourcepath", SCRIPT_FOLDER.absolutePath, ScriptContext.ENGINE_SCOPE)
+        context.setAttribute(JythonScriptEngine.JYTHON_ENGINE_INSTANCE, engine, ScriptContext.ENGINE_SCOPE)
+        return context
+    }
+
     fun getScriptContext(engine: ScriptEngine): ScriptContext {
         return engine.context
     }
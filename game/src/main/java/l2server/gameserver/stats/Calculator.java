@@ -16,6 +16,7 @@
 package l2server.gameserver.stats;
 
 import l2server.gameserver.stats.funcs.Func;
+import l2server.gameserver.stats.funcs.FuncAggregate;
 
 import java.util.ArrayList;
 
@@ -30,6 +31,10 @@ import java.util.ArrayList;
  * The result of the calculation is stored in the value property of an Env class instance.<BR><BR>
  * <p>
  * Method addFunc and removeFunc permit to add and remove a Func object from a Calculator.<BR><BR>
+ * <p>
+ * The unconditional Funcs with a constant value (most of the item and buff modifiers) are folded into the FuncAggregate
+ * they would run right after, so that calc runs a few additions and multiplications whatever the number of buffs and items.
+ * Funcs are never folded across another Func, the result is the same as running them one by one in the order they were added.<BR><BR>
  */
 
 public final class Calculator {
@@ -93,7 +98,7 @@ public final class Calculator {
 	}
 
 	/**
-	 * Return the number of Funcs in the Calculator.<BR><BR>
+	 * Return the number of Funcs run by the Calculator, the folded ones counting as one.<BR><BR>
 	 */
 	public int size() {
 		return functions.length;
@@ -104,6 +109,27 @@ public final class Calculator {
 	 */
 	public synchronized void addFunc(Func f) {
 		Func[] funcs = functions;
+
+		if (f.getAggregateKind() != null) {
+			// The Func would run right after the last one of its order, it's only folded if that one is an aggregate of its kind:
+			// funcs of other kinds may share the order, and folding across them would change the result
+			int last = -1;
+			for (int i = 0; i < funcs.length && funcs[i].getOrder() <= f.getOrder(); i++) {
+				if (funcs[i].getOrder() == f.getOrder()) {
+					last = i;
+				}
+			}
+
+			if (last >= 0 && funcs[last] instanceof FuncAggregate && ((FuncAggregate) funcs[last]).accepts(f)) {
+				Func[] tmp = funcs.clone();
+				tmp[last] = ((FuncAggregate) funcs[last]).with(f);
+				functions = tmp;
+				return;
+			}
+
+			f = new FuncAggregate(f);
+		}
+
 		Func[] tmp = new Func[funcs.length + 1];
 
 		final int order = f.getOrder();
@@ -127,6 +153,22 @@ public final class Calculator {
 	 */
 	public synchronized void removeFunc(Func f) {
 		Func[] funcs = functions;
+
+		for (int i = 0; i < funcs.length; i++) {
+			if (funcs[i] instanceof FuncAggregate && ((FuncAggregate) funcs[i]).contains(f)) {
+				FuncAggregate aggregate = ((FuncAggregate) funcs[i]).without(f);
+				if (aggregate == null) {
+					f = funcs[i];
+					break;
+				}
+
+				Func[] tmp = funcs.clone();
+				tmp[i] = aggregate;
+				functions = tmp;
+				return;
+			}
+		}
+
 		Func[] tmp = new Func[funcs.length - 1];
 
 		int i;
@@ -157,7 +199,14 @@ public final class Calculator {
 		ArrayList<Stats> modifiedStats = new ArrayList<>();
 
 		for (Func func : functions) {
-			if (func.funcOwner == owner) {
+			if (func instanceof FuncAggregate) {
+				for (Func folded : ((FuncAggregate) func).getFuncs()) {
+					if (folded.funcOwner == owner) {
+						modifiedStats.add(folded.stat);
+						removeFunc(folded);
+					}
+				}
+			} else if (func.funcOwner == owner) {
 				modifiedStats.add(func.stat);
 				removeFunc(func);
 			}
@@ -76,6 +76,21 @@ public abstract class Func {
 		return 0x100;
 	}
 
+	/**
+	 * Kind of the FuncAggregate this Func can be folded into by a Calculator,
+	 * null if it must be run on its own (conditional, variable value or non-linear).
+	 */
+	public FuncAggregate.Kind getAggregateKind() {
+		return null;
+	}
+
+	/**
+	 * The constant operand of the Func once folded: a term of the sum, a factor of the product or the value set.
+	 */
+	public double getAggregateValue() {
+		return 0;
+	}
+
 	/**
 	 * Run the mathematic function of the Func.<BR><BR>
 	 */
@@ -31,6 +31,16 @@ public class FuncAdd extends Func {
 		return 0x40;
 	}
 
+	@Override
+	public FuncAggregate.Kind getAggregateKind() {
+		return cond == null && lambda instanceof LambdaConst ? FuncAggregate.Kind.ADD : null;
+	}
+
+	@Override
+	public double getAggregateValue() {
+		return ((LambdaConst) lambda).getValue();
+	}
+
 	@Override
 	public void calc(Env env) {
 		if (cond == null || cond.test(env)) {
@@ -0,0 +1,153 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package l2server.gameserver.stats.funcs;
+
+import l2server.gameserver.stats.Env;
+
+/**
+ * All the unconditional, constant Funcs of a Calculator sharing the same kind and order, applied as a single one.<BR>
+ * Immutable: adding or removing a Func gives a new aggregate, so Calculators copied from each other can share it.
+ */
+public final class FuncAggregate extends Func {
+	public enum Kind {
+		/**
+		 * value = operand, the last added Func wins
+		 */
+		SET,
+		/**
+		 * value += sum of the operands
+		 */
+		ADD,
+		/**
+		 * value *= product of the operands
+		 */
+		MUL,
+		/**
+		 * value += baseValue * sum of the operands
+		 */
+		ADD_BASE
+	}
+
+	private final Kind kind;
+	private final int order;
+	private final Func[] funcs;
+	private final double value;
+
+	public FuncAggregate(Func f) {
+		this(f.getAggregateKind(), f.getOrder(), new Func[]{f}, f.getAggregateValue(), f);
+	}
+
+	private FuncAggregate(Kind kind, int order, Func[] funcs, double value, Func sample) {
+		super(sample.stat, null);
+		this.kind = kind;
+		this.order = order;
+		this.funcs = funcs;
+		this.value = value;
+	}
+
+	@Override
+	public int getOrder() {
+		return order;
+	}
+
+	public Func[] getFuncs() {
+		return funcs;
+	}
+
+	/**
+	 * @return true if the Func can be folded into this aggregate
+	 */
+	public boolean accepts(Func f) {
+		return f.getAggregateKind() == kind && f.getOrder() == order;
+	}
+
+	public boolean contains(Func f) {
+		for (Func func : funcs) {
+			if (func == f) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return this aggregate with the Func folded in
+	 */
+	public FuncAggregate with(Func f) {
+		Func[] tmp = new Func[funcs.length + 1];
+		System.arraycopy(funcs, 0, tmp, 0, funcs.length);
+		tmp[funcs.length] = f;
+		return new FuncAggregate(kind, order, tmp, fold(value, f.getAggregateValue()), f);
+	}
+
+	/**
+	 * @return this aggregate without the Func, null if it was the last one
+	 */
+	public FuncAggregate without(Func f) {
+		int index = 0;
+		while (index < funcs.length && funcs[index] != f) {
+			index++;
+		}
+
+		if (index == funcs.length) {
+			return this;
+		}
+
+		if (funcs.length == 1) {
+			return null;
+		}
+
+		Func[] tmp = new Func[funcs.length - 1];
+		System.arraycopy(funcs, 0, tmp, 0, index);
+		System.arraycopy(funcs, index + 1, tmp, index, tmp.length - index);
+
+		// Folded again from scratch, a removed factor can be 0
+		double folded = tmp[0].getAggregateValue();
+		for (int i = 1; i < tmp.length; i++) {
+			folded = fold(folded, tmp[i].getAggregateValue());
+		}
+		return new FuncAggregate(kind, order, tmp, folded, tmp[0]);
+	}
+
+	private double fold(double folded, double operand) {
+		switch (kind) {
+			case SET:
+				return operand;
+			case MUL:
+				return folded * operand;
+			default:
+				return folded + operand;
+		}
+	}
+
+	@Override
+	public void calc(Env env) {
+		switch (kind) {
+			case SET:
+				env.value = value;
+				break;
+			case ADD:
+				env.value += value;
+				break;
+			case MUL:
+				env.value *= value;
+				break;
+			case ADD_BASE:
+				env.value += env.baseValue * value;
+				break;
+		}
+	}
+}
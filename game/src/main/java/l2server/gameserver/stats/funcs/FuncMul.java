@@ -31,6 +31,16 @@ public class FuncMul extends Func {
 		return 0x30;
 	}
 
+	@Override
+	public FuncAggregate.Kind getAggregateKind() {
+		return cond == null && lambda instanceof LambdaConst ? FuncAggregate.Kind.MUL : null;
+	}
+
+	@Override
+	public double getAggregateValue() {
+		return ((LambdaConst) lambda).getValue();
+	}
+
 	@Override
 	public void calc(Env env) {
 		if (cond == null || cond.test(env)) {
@@ -31,6 +31,17 @@ public class FuncMulBase extends Func {
 		return 0x30;
 	}
 
+	@Override
+	public FuncAggregate.Kind getAggregateKind() {
+		return cond == null && lambda instanceof LambdaConst ? FuncAggregate.Kind.ADD_BASE : null;
+	}
+
+	@Override
+	public double getAggregateValue() {
+		final double value = ((LambdaConst) lambda).getValue();
+		return value - 1.0;
+	}
+
 	@Override
 	public void calc(Env env) {
 		if (cond == null || cond.test(env)) {
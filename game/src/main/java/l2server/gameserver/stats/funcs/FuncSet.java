@@ -31,6 +31,16 @@ public class FuncSet extends Func {
 		return 0x08;
 	}
 	
+	@Override
+	public FuncAggregate.Kind getAggregateKind() {
+		return cond == null && lambda instanceof LambdaConst ? FuncAggregate.Kind.SET : null;
+	}
+	
+	@Override
+	public double getAggregateValue() {
+		return ((LambdaConst) lambda).getValue();
+	}
+	
 	@Override
 	public void calc(Env env) {
 		if (cond == null || cond.test(env)) {
@@ -31,6 +31,17 @@ public class FuncSub extends Func {
 		return 0x40;
 	}
 
+	@Override
+	public FuncAggregate.Kind getAggregateKind() {
+		return cond == null && lambda instanceof LambdaConst ? FuncAggregate.Kind.ADD : null;
+	}
+
+	@Override
+	public double getAggregateValue() {
+		final double value = ((LambdaConst) lambda).getValue();
+		return -value;
+	}
+
 	@Override
 	public void calc(Env env) {
 		if (cond == null || cond.test(env)) {
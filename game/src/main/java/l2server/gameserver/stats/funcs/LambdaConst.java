@@ -32,4 +32,8 @@ public final class LambdaConst extends Lambda {
 	public double calc(Env env) {
 		return value;
 	}
+
+	public double getValue() {
+		return value;
+	}
 }
@@ -0,0 +1,530 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package l2server.gameserver.taskmanager;
+
+import l2server.gameserver.ThreadPoolManager;
+import l2server.gameserver.ai.CtrlEvent;
+import l2server.gameserver.model.actor.Creature;
+import l2server.util.metrics.MetricsRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.IdentityHashMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Schedules the short lived combat events (attack hits, AI notifications and skill cast phases) in a ring of buckets of
+ * one tick each, instead of one scheduled future per event.<BR>
+ * The events due in a tick are run grouped by the creature they belong to, in the order they were scheduled, on the
+ * executor of its region in region affine mode. The cast phases can be cancelled through the {@link CombatEvent} they are
+ * scheduled with, the hits and notifications of a creature all at once through {@link Creature#cancelCombatEvents()}.<BR>
+ * Scheduling takes no global lock: the events are pushed to an inbox, which the tick drains into the ring. Only the tick
+ * touches the ring. The records of the events come from striped pools, the tick gives them back once their pass ran, and
+ * reuses its passes and its map of the creatures due.
+ */
+public class CombatEventScheduler {
+	private static Logger log = LoggerFactory.getLogger(CombatEventScheduler.class.getName());
+
+	public static final int TICK = 10;
+	/**
+	 * 5 seconds per turn of the ring, the events further away stay in their bucket for the next turns
+	 */
+	private static final int RING_SIZE = 512;
+	private static final int POOL_STRIPES = 16;
+	private static final int POOL_SIZE = 4096;
+
+	private static final int TYPE_HIT = 0;
+	private static final int TYPE_NOTIFY = 1;
+	private static final int TYPE_TASK = 2;
+
+	private final Record[] heads = new Record[RING_SIZE];
+	private final Record[] tails = new Record[RING_SIZE];
+	private final long startTime;
+	private long nextTick = 0;
+
+	/**
+	 * The events scheduled since the last tick, the last one first
+	 */
+	private final AtomicReference<Record> inbox = new AtomicReference<>();
+	private final AtomicInteger pending = new AtomicInteger();
+
+	private final RecordPool[] pools = new RecordPool[POOL_STRIPES];
+	private int nextPool = 0;
+
+	/**
+	 * The passes which ran since the last tick, to be reused with their records
+	 */
+	private final AtomicReference<OwnerPass> finishedPasses = new AtomicReference<>();
+	private final ArrayDeque<OwnerPass> freePasses = new ArrayDeque<>();
+	private final IdentityHashMap<Creature, OwnerPass> duePasses = new IdentityHashMap<>();
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder notifications = new LongAdder();
+	private final LongAdder tasks = new LongAdder();
+	private final LongAdder dropped = new LongAdder();
+
+	private CombatEventScheduler() {
+		this(System.currentTimeMillis());
+		ThreadPoolManager.getInstance().scheduleEffectAtFixedRate(new Tick(), TICK, TICK);
+
+		final MetricsRegistry metrics = MetricsRegistry.getInstance();
+		metrics.counter("l2_combat_events_total", "Combat events scheduled", hits::sum, "type", "hit");
+		metrics.counter("l2_combat_events_total", "Combat events scheduled", notifications::sum, "type", "notify");
+		metrics.counter("l2_combat_events_total", "Combat events scheduled", tasks::sum, "type", "task");
+		metrics.counter("l2_combat_events_dropped_total", "Combat events dropped by a teleport or a death", dropped::sum);
+		metrics.gauge("l2_combat_events_pending", "Combat events waiting for their tick", this::getPendingCount);
+	}
+
+	/**
+	 * A scheduler without its tick, which is run by {@link #tick()}
+	 */
+	CombatEventScheduler(long startTime) {
+		this.startTime = startTime;
+		for (int i = 0; i < POOL_STRIPES; i++) {
+			pools[i] = new RecordPool();
+		}
+	}
+
+	public static CombatEventScheduler getInstance() {
+		return SingletonHolder.instance;
+	}
+
+	/**
+	 * A scheduled task, to cancel it. Never interrupts the task once it runs
+	 */
+	public static final class CombatEvent implements Future<Object> {
+		private boolean cancelled = false;
+		private boolean done = false;
+
+		@Override
+		public synchronized boolean cancel(boolean mayInterruptIfRunning) {
+			if (done || cancelled) {
+				return false;
+			}
+			cancelled = true;
+			notifyAll();
+			return true;
+		}
+
+		@Override
+		public synchronized boolean isCancelled() {
+			return cancelled;
+		}
+
+		@Override
+		public synchronized boolean isDone() {
+			return done || cancelled;
+		}
+
+		/**
+		 * @return false if the task was cancelled
+		 */
+		private synchronized boolean start() {
+			return !cancelled;
+		}
+
+		private synchronized void finish() {
+			done = true;
+			notifyAll();
+		}
+
+		@Override
+		public synchronized Object get() throws InterruptedException, ExecutionException {
+			while (!isDone()) {
+				wait();
+			}
+			if (cancelled) {
+				throw new CancellationException();
+			}
+			return null;
+		}
+
+		@Override
+		public synchronized Object get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+			final long end = System.nanoTime() + unit.toNanos(timeout);
+			while (!isDone()) {
+				final long left = end - System.nanoTime();
+				if (left <= 0) {
+					throw new TimeoutException();
+				}
+				TimeUnit.NANOSECONDS.timedWait(this, left);
+			}
+			if (cancelled) {
+				throw new CancellationException();
+			}
+			return null;
+		}
+	}
+
+	private static final class Record {
+		private int type;
+		private Creature owner;
+		private int epoch;
+		private long tick;
+		private Record next;
+
+		// Hit
+		private Creature target;
+		private int damage;
+		private boolean crit;
+		private boolean miss;
+		private double soulshot;
+		private byte shld;
+
+		// Notification
+		private CtrlEvent event;
+
+		// Task
+		private Runnable task;
+		private CombatEvent handle;
+
+		private void clear() {
+			owner = null;
+			next = null;
+			target = null;
+			event = null;
+			task = null;
+			handle = null;
+		}
+	}
+
+	/**
+	 * One of the stripes of the record pool, the scheduling threads are spread over them
+	 */
+	private static final class RecordPool {
+		private Record head;
+		private int size = 0;
+
+		private synchronized Record take() {
+			final Record record = head;
+			if (record != null) {
+				head = record.next;
+				record.next = null;
+				size--;
+			}
+			return record;
+		}
+
+		/**
+		 * Gives back the records of a pass, linked through their next field
+		 */
+		private synchronized void put(Record first, Record last, int count) {
+			if (size >= POOL_SIZE / POOL_STRIPES) {
+				return;
+			}
+
+			last.next = head;
+			head = first;
+			size += count;
+		}
+	}
+
+	/**
+	 * Schedules the hit of an attack, delivered through {@link Creature#onHitTimer}
+	 */
+	public void scheduleHit(Creature attacker, Creature target, int damage, boolean crit, boolean miss, double soulshot, byte shld, long delay) {
+		final Record record = take(TYPE_HIT, attacker);
+		record.target = target;
+		record.damage = damage;
+		record.crit = crit;
+		record.miss = miss;
+		record.soulshot = soulshot;
+		record.shld = shld;
+		add(record, delay);
+		hits.increment();
+	}
+
+	/**
+	 * Schedules an event notified to the AI of the creature
+	 */
+	public void scheduleNotify(Creature creature, CtrlEvent event, long delay) {
+		final Record record = take(TYPE_NOTIFY, creature);
+		record.event = event;
+		add(record, delay);
+		notifications.increment();
+	}
+
+	/**
+	 * Schedules a task acting on the creature
+	 *
+	 * @return the handle to cancel it
+	 */
+	public CombatEvent schedule(Creature creature, Runnable task, long delay) {
+		final CombatEvent handle = new CombatEvent();
+		final Record record = take(TYPE_TASK, creature);
+		record.task = task;
+		record.handle = handle;
+		add(record, delay);
+		tasks.increment();
+		return handle;
+	}
+
+	public int getPendingCount() {
+		return pending.get();
+	}
+
+	/**
+	 * @return the amount of hits and notifications dropped since the start
+	 */
+	long getDroppedCount() {
+		return dropped.sum();
+	}
+
+	long currentTimeMillis() {
+		return System.currentTimeMillis();
+	}
+
+	/**
+	 * Runs the events of a creature due in this tick
+	 */
+	void execute(Creature owner, Runnable pass) {
+		ThreadPoolManager.getInstance().executeAi(owner, pass);
+	}
+
+	private Record take(int type, Creature owner) {
+		Record record = pools[(int) Thread.currentThread().getId() & POOL_STRIPES - 1].take();
+		if (record == null) {
+			record = new Record();
+		}
+		record.type = type;
+		record.owner = owner;
+		record.epoch = owner.getCombatEventEpoch();
+		return record;
+	}
+
+	private void add(Record record, long delay) {
+		// Rounded up to the next tick, an event never runs early
+		record.tick = (currentTimeMillis() + Math.max(delay, 0) - startTime + TICK - 1) / TICK;
+		pending.incrementAndGet();
+
+		Record head;
+		do {
+			head = inbox.get();
+			record.next = head;
+		} while (!inbox.compareAndSet(head, record));
+	}
+
+	/**
+	 * Moves the events of the inbox to the buckets of their tick, in the order they were scheduled
+	 */
+	private void drainInbox() {
+		Record record = inbox.getAndSet(null);
+		Record reversed = null;
+		while (record != null) {
+			final Record next = record.next;
+			record.next = reversed;
+			reversed = record;
+			record = next;
+		}
+
+		while (reversed != null) {
+			final Record next = reversed.next;
+			reversed.next = null;
+			if (reversed.tick < nextTick) {
+				reversed.tick = nextTick;
+			}
+
+			final int slot = (int) (reversed.tick & RING_SIZE - 1);
+			if (tails[slot] == null) {
+				heads[slot] = reversed;
+			} else {
+				tails[slot].next = reversed;
+			}
+			tails[slot] = reversed;
+			reversed = next;
+		}
+	}
+
+	/**
+	 * Gives the records of the passes which ran back to the pools, and keeps the passes for the next ticks
+	 */
+	private void recycleFinishedPasses() {
+		OwnerPass pass = finishedPasses.getAndSet(null);
+		while (pass != null) {
+			final OwnerPass next = pass.nextFinished;
+			int count = 0;
+			for (Record record = pass.first; record != null; ) {
+				final Record following = record.next;
+				record.clear();
+				record.next = following;
+				count++;
+				record = following;
+			}
+			if (count > 0) {
+				pools[nextPool++ & POOL_STRIPES - 1].put(pass.first, pass.last, count);
+			}
+
+			pass.owner = null;
+			pass.first = null;
+			pass.last = null;
+			pass.nextFinished = null;
+			freePasses.push(pass);
+			pass = next;
+		}
+	}
+
+	/**
+	 * Groups the events due until now by creature in the order they were scheduled
+	 */
+	private void takeDueEvents() {
+		drainInbox();
+
+		final long currentTick = (currentTimeMillis() - startTime) / TICK;
+		for (; nextTick <= currentTick; nextTick++) {
+			final int slot = (int) (nextTick & RING_SIZE - 1);
+			Record previous = null;
+			Record record = heads[slot];
+			while (record != null) {
+				final Record next = record.next;
+				if (record.tick > nextTick) {
+					// Due in a later turn of the ring
+					previous = record;
+					record = next;
+					continue;
+				}
+
+				if (previous == null) {
+					heads[slot] = next;
+				} else {
+					previous.next = next;
+				}
+				if (tails[slot] == record) {
+					tails[slot] = previous;
+				}
+				record.next = null;
+				pending.decrementAndGet();
+
+				OwnerPass pass = duePasses.get(record.owner);
+				if (pass == null) {
+					pass = freePasses.isEmpty() ? new OwnerPass() : freePasses.pop();
+					pass.owner = record.owner;
+					duePasses.put(record.owner, pass);
+				}
+				if (pass.last == null) {
+					pass.first = record;
+				} else {
+					pass.last.next = record;
+				}
+				pass.last = record;
+				record = next;
+			}
+		}
+	}
+
+	/**
+	 * Runs the events due until now, to be called every tick by a single thread at a time
+	 */
+	void tick() {
+		recycleFinishedPasses();
+		takeDueEvents();
+		if (duePasses.isEmpty()) {
+			return;
+		}
+
+		for (OwnerPass pass : duePasses.values()) {
+			try {
+				execute(pass.owner, pass);
+			} catch (RuntimeException e) {
+				// The pass is lost with its records, the pools refill with new ones
+				log.error("Failed executing the combat events of " + pass.owner + ": " + e.getMessage(), e);
+			}
+		}
+		duePasses.clear();
+	}
+
+	private void run(Record record) {
+		if (record.type != TYPE_TASK && record.epoch != record.owner.getCombatEventEpoch()) {
+			// Cancelled by a teleport or the death of the creature
+			dropped.increment();
+			return;
+		}
+
+		switch (record.type) {
+			case TYPE_HIT:
+				try {
+					record.owner.onHitTimer(record.target, record.damage, record.crit, record.miss, record.soulshot, record.shld, false);
+				} catch (Exception e) {
+					log.error("Failed executing HitTask. Hit target: " + record.target, e);
+				}
+				break;
+			case TYPE_NOTIFY:
+				try {
+					record.owner.getAI().notifyEvent(record.event, null);
+				} catch (Exception e) {
+					log.warn("NotifyAITask failed. " + e.getMessage() + " Actor " + record.owner, e);
+				}
+				break;
+			case TYPE_TASK:
+				final CombatEvent handle = record.handle;
+				if (!handle.start()) {
+					break;
+				}
+				try {
+					record.task.run();
+				} catch (Exception e) {
+					log.error("Failed executing the combat task of " + record.owner + ": " + e.getMessage(), e);
+				} finally {
+					handle.finish();
+				}
+				break;
+		}
+	}
+
+	/**
+	 * The events of a creature due in a tick, linked through their next field
+	 */
+	private final class OwnerPass implements Runnable {
+		private Creature owner;
+		private Record first;
+		private Record last;
+		private OwnerPass nextFinished;
+
+		@Override
+		public void run() {
+			try {
+				for (Record record = first; record != null; record = record.next) {
+					CombatEventScheduler.this.run(record);
+				}
+			} finally {
+				OwnerPass head;
+				do {
+					head = finishedPasses.get();
+					nextFinished = head;
+				} while (!finishedPasses.compareAndSet(head, this));
+			}
+		}
+	}
+
+	private class Tick implements Runnable {
+		@Override
+		public void run() {
+			tick();
+		}
+	}
+
+	@SuppressWarnings("synthetic-access")
+	private static class SingletonHolder {
+		protected static final CombatEventScheduler instance = new CombatEventScheduler();
+	}
+}
@@ -0,0 +1,125 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package l2server.gameserver.taskmanager;
+
+import l2server.gameserver.ThreadPoolManager;
+import l2server.gameserver.model.actor.instance.CubicInstance;
+import l2server.gameserver.model.actor.instance.Player;
+import l2server.gameserver.model.actor.instance.SummonInstance;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Runs the periodic work of the cubics (actions, heals, disappearance) and of the servitors (lifetime, item consumption)
+ * from a single tick instead of one scheduled task each.<BR>
+ * Everything due in a tick is grouped by owner and run in one pass per owner, on the executor of its region in region
+ * affine mode, so that the cubics of an owner share the checks and target candidates they compute.
+ */
+public class SummonTaskManager {
+	private static Logger log = LoggerFactory.getLogger(SummonTaskManager.class.getName());
+
+	public static final int TICK = 100;
+
+	private final Set<CubicInstance> cubics = ConcurrentHashMap.newKeySet();
+	private final Set<SummonInstance> summons = ConcurrentHashMap.newKeySet();
+
+	private SummonTaskManager() {
+		ThreadPoolManager.getInstance().scheduleEffectAtFixedRate(new Tick(), TICK, TICK);
+	}
+
+	public static SummonTaskManager getInstance() {
+		return SingletonHolder.instance;
+	}
+
+	public void addCubic(CubicInstance cubic) {
+		cubics.add(cubic);
+	}
+
+	public void removeCubic(CubicInstance cubic) {
+		cubics.remove(cubic);
+	}
+
+	public void addSummon(SummonInstance summon) {
+		summons.add(summon);
+	}
+
+	/**
+	 * @return false if the servitor wasn't registered
+	 */
+	public boolean removeSummon(SummonInstance summon) {
+		return summons.remove(summon);
+	}
+
+	private static final class OwnerPass implements Runnable {
+		private final CubicInstance.OwnerState state;
+		private final List<CubicInstance> cubics = new ArrayList<>(2);
+		private final List<SummonInstance> summons = new ArrayList<>(1);
+
+		private OwnerPass(Player owner) {
+			state = new CubicInstance.OwnerState(owner);
+		}
+
+		@Override
+		public void run() {
+			for (CubicInstance cubic : cubics) {
+				try {
+					cubic.doDueWork(state);
+				} catch (Exception e) {
+					log.error("Error in the cubic " + cubic.getId() + " of " + state.getOwner().getName() + ": " + e.getMessage(), e);
+				}
+			}
+
+			for (SummonInstance summon : summons) {
+				summon.doLifetimeCheck();
+			}
+		}
+	}
+
+	private class Tick implements Runnable {
+		@Override
+		public void run() {
+			final long now = System.currentTimeMillis();
+			final Map<Player, OwnerPass> passes = new HashMap<>();
+			for (CubicInstance cubic : cubics) {
+				if (cubic.takeDueWork(now)) {
+					passes.computeIfAbsent(cubic.getOwner(), OwnerPass::new).cubics.add(cubic);
+				}
+			}
+
+			for (SummonInstance summon : summons) {
+				if (summon.takeLifetimeCheck(now)) {
+					passes.computeIfAbsent(summon.getOwner(), OwnerPass::new).summons.add(summon);
+				}
+			}
+
+			for (OwnerPass pass : passes.values()) {
+				ThreadPoolManager.getInstance().executeAi(pass.state.getOwner(), pass);
+			}
+		}
+	}
+
+	@SuppressWarnings("synthetic-access")
+	private static class SingletonHolder {
+		protected static final SummonTaskManager instance = new SummonTaskManager();
+	}
+}
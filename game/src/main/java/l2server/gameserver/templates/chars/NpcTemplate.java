@@ -154,6 +154,8 @@ public final class NpcTemplate extends CreatureTemplate {
 	private ArrayList<L2DropData> spoilDrop = new ArrayList<>();
 	private ArrayList<L2DropData> normalDrop = new ArrayList<>();
 	private ArrayList<L2DropCategory> multiDrop = new ArrayList<>();
+	private volatile NpcDrops compiledDrops;
+	private volatile NpcFactory npcFactory;
 	
 	/**
 	 * The table containing all Minions that must be spawn with the NpcInstance using this NpcTemplate
@@ -335,14 +337,17 @@ public final class NpcTemplate extends CreatureTemplate {
 	
 	public void addSpoilData(L2DropData drop) {
 		spoilDrop.add(drop);
+		invalidateDrops();
 	}
 	
 	public void addDropData(L2DropData drop) {
 		normalDrop.add(drop);
+		invalidateDrops();
 	}
 	
 	public void addMultiDrop(L2DropCategory category) {
 		multiDrop.add(category);
+		invalidateDrops();
 	}
 	
 	public void addRaidData(L2MinionData minion) {
@@ -461,6 +466,42 @@ public final class NpcTemplate extends CreatureTemplate {
 		return multiDrop;
 	}
 	
+	/**
+	 * Return the factory creating the NpcInstance of this NpcTemplate, resolved again if its Type was changed.<BR><BR>
+	 */
+	public NpcFactory getNpcFactory() throws ClassNotFoundException, NoSuchMethodException, IllegalAccessException {
+		NpcFactory factory = npcFactory;
+		if (factory == null || !factory.getType().equals(Type)) {
+			factory = NpcFactory.forType(Type);
+			npcFactory = factory;
+		}
+		return factory;
+	}
+	
+	/**
+	 * Return the drops of this NpcTemplate flattened for the drop rolls, built again after {@link #invalidateDrops()}.<BR><BR>
+	 */
+	public NpcDrops getCompiledDrops() {
+		NpcDrops drops = compiledDrops;
+		if (drops == null || !drops.isUpToDate()) {
+			drops = new NpcDrops(this);
+			compiledDrops = drops;
+		}
+		return drops;
+	}
+	
+	/**
+	 * Must be called after modifying the lists returned by getSpoilData(), getDropData() or getMultiDropData().<BR><BR>
+	 */
+	public void invalidateDrops() {
+		compiledDrops = null;
+		for (L2DropCategory category : multiDrop) {
+			if (category != null) {
+				category.invalidate();
+			}
+		}
+	}
+	
 	/**
 	 * Return the list of all Minions that must be spawn with the NpcInstance using this NpcTemplate.<BR><BR>
 	 */
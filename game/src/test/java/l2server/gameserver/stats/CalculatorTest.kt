@@ -0,0 +1,105 @@
+package l2server.gameserver.stats
+
+import l2server.gameserver.stats.funcs.Func
+import l2server.gameserver.stats.funcs.FuncAdd
+import l2server.gameserver.stats.funcs.FuncAddPercent
+import l2server.gameserver.stats.funcs.FuncAddPercentBase
+import l2server.gameserver.stats.funcs.FuncMul
+import l2server.gameserver.stats.funcs.FuncMulBase
+import l2server.gameserver.stats.funcs.Lambda
+import l2server.gameserver.stats.funcs.LambdaConst
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import java.util.Random
+
+/**
+ * Checks that folding the constant Funcs doesn't change the result of the Calculator
+ */
+class CalculatorTest {
+
+	private class LambdaVariable(private val value: Double) : Lambda() {
+		override fun calc(env: Env): Double = value
+	}
+
+	@Test
+	fun testMixedKindsOfTheSameOrder() {
+		val funcs = listOf(
+				FuncMul(Stats.MAX_HP, this, LambdaConst(1.1)),
+				FuncAddPercentBase(Stats.MAX_HP, this, LambdaConst(10.0)),
+				FuncMul(Stats.MAX_HP, this, LambdaConst(1.2)))
+
+		val calculator = Calculator()
+		funcs.forEach { calculator.addFunc(it) }
+
+		assertEquals(unfolded(funcs), folded(calculator), 1e-9)
+		assertEquals((100 * 1.1 + 100 * 0.1) * 1.2, folded(calculator), 1e-9)
+	}
+
+	@Test
+	fun testConsecutiveFuncsAreFolded() {
+		val calculator = Calculator()
+		calculator.addFunc(FuncMul(Stats.MAX_HP, this, LambdaConst(1.1)))
+		calculator.addFunc(FuncMul(Stats.MAX_HP, this, LambdaConst(1.2)))
+		calculator.addFunc(FuncAdd(Stats.MAX_HP, this, LambdaConst(5.0)))
+		calculator.addFunc(FuncAdd(Stats.MAX_HP, this, LambdaConst(7.0)))
+
+		assertEquals(2, calculator.size())
+		assertEquals(100 * 1.1 * 1.2 + 12, folded(calculator), 1e-9)
+	}
+
+	@Test
+	fun testRandomSequences() {
+		val random = Random(42)
+		for (run in 0 until 500) {
+			val calculator = Calculator()
+			val funcs = ArrayList<Func>()
+			for (i in 0 until 1 + random.nextInt(12)) {
+				val func = randomFunc(random)
+				funcs.add(func)
+				calculator.addFunc(func)
+			}
+			assertEquals("Sequence $run", unfolded(funcs), folded(calculator), 1e-6)
+
+			while (!funcs.isEmpty()) {
+				val func = funcs.removeAt(random.nextInt(funcs.size))
+				calculator.removeFunc(func)
+				assertEquals("Sequence $run without $func", unfolded(funcs), folded(calculator), 1e-6)
+			}
+			assertTrue(calculator.size() == 0)
+		}
+	}
+
+	private fun randomFunc(random: Random): Func {
+		val lambda = if (random.nextInt(4) == 0) LambdaVariable(1 + random.nextInt(20) / 10.0) else LambdaConst(1 + random.nextInt(20) / 10.0)
+		return when (random.nextInt(5)) {
+			0 -> FuncMul(Stats.MAX_HP, this, lambda)
+			1 -> FuncMulBase(Stats.MAX_HP, this, lambda)
+			2 -> FuncAddPercent(Stats.MAX_HP, this, lambda)
+			3 -> FuncAddPercentBase(Stats.MAX_HP, this, lambda)
+			else -> FuncAdd(Stats.MAX_HP, this, lambda)
+		}
+	}
+
+	private fun newEnv(): Env {
+		val env = Env()
+		env.value = 100.0
+		env.baseValue = 100.0
+		return env
+	}
+
+	private fun folded(calculator: Calculator): Double {
+		val env = newEnv()
+		calculator.calc(env)
+		return env.value
+	}
+
+	/**
+	 * @return the result of running the Funcs one by one, by order and then in the order they were added
+	 */
+	private fun unfolded(funcs: List<Func>): Double {
+		val env = newEnv()
+		funcs.sortedBy { it.order }.forEach { it.calc(env) }
+		return env.value
+	}
+}
@@ -0,0 +1,172 @@
+package l2server.gameserver.taskmanager
+
+import l2server.gameserver.model.Item
+import l2server.gameserver.model.actor.Creature
+import l2server.gameserver.templates.item.ItemTemplate
+import l2server.gameserver.templates.item.WeaponTemplate
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import sun.misc.Unsafe
+
+class CombatEventSchedulerTest {
+
+	/**
+	 * Runs the passes right away, at a time set by the test
+	 */
+	private class TestScheduler : CombatEventScheduler(0) {
+		var now = 0L
+
+		override fun currentTimeMillis(): Long = now
+
+		override fun execute(owner: Creature, pass: Runnable) = pass.run()
+
+		fun advance(millis: Long) {
+			now += millis
+			tick()
+		}
+	}
+
+	/**
+	 * Built without its constructor, only the hits it gets are used
+	 */
+	private class TestCreature : Creature(0, null) {
+		override fun onHitTimer(target: Creature?, damage: Int, crit: Boolean, miss: Boolean, soulshot: Double, shld: Byte,
+		                        wasHeavyPunch: Boolean) {
+			received.add(this to damage)
+		}
+
+		override fun updateAbnormalEffect() {}
+		override fun getActiveWeaponInstance(): Item? = null
+		override fun getActiveWeaponItem(): WeaponTemplate? = null
+		override fun getSecondaryWeaponInstance(): Item? = null
+		override fun getSecondaryWeaponItem(): ItemTemplate? = null
+		override fun getLevel(): Int = 1
+		override fun isAutoAttackable(attacker: Creature?): Boolean = false
+		override fun toString(): String = "TestCreature"
+	}
+
+	companion object {
+		private val received = ArrayList<Pair<Creature, Int>>()
+
+		private val unsafe: Unsafe = Unsafe::class.java.getDeclaredField("theUnsafe").let {
+			it.isAccessible = true
+			it.get(null) as Unsafe
+		}
+
+		private fun newCreature(): TestCreature = unsafe.allocateInstance(TestCreature::class.java) as TestCreature
+	}
+
+	private fun hit(scheduler: CombatEventScheduler, attacker: Creature, damage: Int, delay: Long) =
+			scheduler.scheduleHit(attacker, attacker, damage, false, false, 0.0, 0, delay)
+
+	@Test
+	fun testEventsRunOnTheirTick() {
+		received.clear()
+		val scheduler = TestScheduler()
+		val creature = newCreature()
+		hit(scheduler, creature, 1, 25)
+
+		scheduler.advance(20)
+		assertTrue(received.isEmpty())
+		assertEquals(1, scheduler.pendingCount)
+
+		scheduler.advance(10)
+		assertEquals(listOf(creature to 1), received)
+		assertEquals(0, scheduler.pendingCount)
+	}
+
+	@Test
+	fun testDelaysLongerThanOneTurnOfTheRing() {
+		received.clear()
+		val scheduler = TestScheduler()
+		val creature = newCreature()
+		// The ring turns every 5 seconds, these share the buckets of the short ones
+		hit(scheduler, creature, 3, 12000)
+		hit(scheduler, creature, 2, 7000)
+		hit(scheduler, creature, 1, 2000)
+
+		scheduler.advance(2000)
+		assertEquals(listOf(creature to 1), received)
+
+		scheduler.advance(4990)
+		assertEquals(listOf(creature to 1), received)
+		scheduler.advance(10)
+		assertEquals(listOf(creature to 1, creature to 2), received)
+
+		// A late tick runs everything overdue
+		scheduler.advance(10000)
+		assertEquals(listOf(creature to 1, creature to 2, creature to 3), received)
+		assertEquals(0, scheduler.pendingCount)
+	}
+
+	@Test
+	fun testOrderPerOwner() {
+		received.clear()
+		val scheduler = TestScheduler()
+		val first = newCreature()
+		val second = newCreature()
+		for (i in 0 until 50) {
+			hit(scheduler, if (i % 2 == 0) first else second, i, 10)
+		}
+
+		scheduler.advance(10)
+		assertEquals((0 until 50 step 2).toList(), received.filter { it.first === first }.map { it.second })
+		assertEquals((1 until 50 step 2).toList(), received.filter { it.first === second }.map { it.second })
+	}
+
+	@Test
+	fun testCancelDropsTheStaleEventsOfTheCreatureOnly() {
+		received.clear()
+		val scheduler = TestScheduler()
+		val cancelled = newCreature()
+		val other = newCreature()
+		hit(scheduler, cancelled, 1, 10)
+		hit(scheduler, other, 2, 10)
+
+		cancelled.cancelCombatEvents()
+		// Scheduled after the cancel, not dropped
+		hit(scheduler, cancelled, 3, 10)
+
+		scheduler.advance(10)
+		assertEquals(listOf(other to 2, cancelled to 3), received.sortedBy { it.second })
+		assertEquals(1, scheduler.droppedCount)
+	}
+
+	@Test
+	fun testTaskHandles() {
+		received.clear()
+		val scheduler = TestScheduler()
+		val creature = newCreature()
+		var ran = 0
+		val cancelled = scheduler.schedule(creature, Runnable { ran += 10 }, 10)
+		val done = scheduler.schedule(creature, Runnable { ran++ }, 10)
+
+		assertTrue(cancelled.cancel(false))
+		// Tasks are only cancelled through their handle
+		creature.cancelCombatEvents()
+		scheduler.advance(10)
+
+		assertEquals(1, ran)
+		assertTrue(cancelled.isCancelled)
+		assertTrue(done.isDone)
+		assertFalse(done.isCancelled)
+	}
+
+	@Test
+	fun testRecordsAreReused() {
+		received.clear()
+		val scheduler = TestScheduler()
+		val creature = newCreature()
+		for (turn in 0 until 100) {
+			for (i in 0 until 10) {
+				hit(scheduler, creature, turn * 10 + i, 10)
+			}
+			scheduler.advance(10)
+		}
+
+		assertEquals((0 until 1000).toList(), received.map { it.second })
+		assertEquals(0, scheduler.pendingCount)
+	}
+}
@@ -16,89 +16,58 @@
 package l2server.loginserver;
 
 import l2server.Config;
+import l2server.network.IAcceptFilter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.IOException;
-import java.net.InetAddress;
-import java.net.ServerSocket;
-import java.net.Socket;
+import java.nio.channels.SocketChannel;
 import java.util.HashMap;
 import java.util.Map;
 
 /**
+ * Accept filter refusing the addresses which connect too fast.<BR>
+ * Only the selector thread accepts and closes connections, so the map needs no locking.
+ *
  * @author -Wooden-
  */
-public abstract class FloodProtectedListener extends Thread {
+public abstract class FloodProtectedListener implements IAcceptFilter {
 	private static Logger log = LoggerFactory.getLogger(FloodProtectedListener.class.getName());
 	
 	private Map<String, ForeignConnection> floodProtection = new HashMap<>();
-	private String listenIp;
-	private int port;
-	private ServerSocket serverSocket;
-
-	public FloodProtectedListener(String listenIp, int port) throws IOException {
-		this.port = port;
-		this.listenIp = listenIp;
-		if (listenIp.equals("*")) {
-			serverSocket = new ServerSocket(port);
-		} else {
-			serverSocket = new ServerSocket(port, 50, InetAddress.getByName(listenIp));
-		}
-	}
 
 	@Override
-	public void run() {
-		Socket connection = null;
+	public boolean accept(SocketChannel sc) {
+		if (!Config.FLOOD_PROTECTION) {
+			return true;
+		}
 
-		while (true) {
-			try {
-				connection = serverSocket.accept();
-				if (Config.FLOOD_PROTECTION) {
-					ForeignConnection fConnection = floodProtection.get(connection.getInetAddress().getHostAddress());
-					if (fConnection != null) {
-						fConnection.connectionNumber += 1;
-						if (fConnection.connectionNumber > Config.FAST_CONNECTION_LIMIT &&
-								System.currentTimeMillis() - fConnection.lastConnection < Config.NORMAL_CONNECTION_TIME ||
-								System.currentTimeMillis() - fConnection.lastConnection < Config.FAST_CONNECTION_TIME ||
-								fConnection.connectionNumber > Config.MAX_CONNECTION_PER_IP) {
-							fConnection.lastConnection = System.currentTimeMillis();
-							connection.close();
-							fConnection.connectionNumber -= 1;
-							if (!fConnection.isFlooding) {
-								log.warn("Potential Flood from " + connection.getInetAddress().getHostAddress());
-							}
-							fConnection.isFlooding = true;
-							continue;
-						}
-						if (fConnection.isFlooding) //if connection was flooding server but now passed the check
-						{
-							fConnection.isFlooding = false;
-							log.info(connection.getInetAddress().getHostAddress() + " is not considered as flooding anymore.");
-						}
-						fConnection.lastConnection = System.currentTimeMillis();
-					} else {
-						fConnection = new ForeignConnection(System.currentTimeMillis());
-						floodProtection.put(connection.getInetAddress().getHostAddress(), fConnection);
-					}
-				}
-				addClient(connection);
-			} catch (Exception e) {
-				try {
-					connection.close();
-				} catch (Exception ignored) {
-				}
-				if (isInterrupted()) {
-					// shutdown?
-					try {
-						serverSocket.close();
-					} catch (IOException io) {
-						log.info("", io);
-					}
-					break;
+		final String address = sc.socket().getInetAddress().getHostAddress();
+		ForeignConnection fConnection = floodProtection.get(address);
+		if (fConnection != null) {
+			fConnection.connectionNumber += 1;
+			if (fConnection.connectionNumber > Config.FAST_CONNECTION_LIMIT &&
+					System.currentTimeMillis() - fConnection.lastConnection < Config.NORMAL_CONNECTION_TIME ||
+					System.currentTimeMillis() - fConnection.lastConnection < Config.FAST_CONNECTION_TIME ||
+					fConnection.connectionNumber > Config.MAX_CONNECTION_PER_IP) {
+				fConnection.lastConnection = System.currentTimeMillis();
+				fConnection.connectionNumber -= 1;
+				if (!fConnection.isFlooding) {
+					log.warn("Potential Flood from " + address);
 				}
+				fConnection.isFlooding = true;
+				return false;
 			}
+			if (fConnection.isFlooding) //if connection was flooding server but now passed the check
+			{
+				fConnection.isFlooding = false;
+				log.info(address + " is not considered as flooding anymore.");
+			}
+			fConnection.lastConnection = System.currentTimeMillis();
+		} else {
+			fConnection = new ForeignConnection(System.currentTimeMillis());
+			floodProtection.put(address, fConnection);
 		}
+		return true;
 	}
 
 	protected static class ForeignConnection {
@@ -112,8 +81,6 @@ public abstract class FloodProtectedListener extends Thread {
 		}
 	}
 
-	public abstract void addClient(Socket s);
-
 	public void removeFloodProtection(String ip) {
 		if (!Config.FLOOD_PROTECTION) {
 			return;
@@ -128,12 +95,4 @@ public abstract class FloodProtectedListener extends Thread {
 			log.warn("Removing a flood protection for a GameServer that was not in the connection map??? :" + ip);
 		}
 	}
-
-	public void close() {
-		try {
-			serverSocket.close();
-		} catch (IOException e) {
-			e.printStackTrace();
-		}
-	}
 }
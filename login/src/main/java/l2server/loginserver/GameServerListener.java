@@ -16,40 +16,114 @@
 package l2server.loginserver;
 
 import l2server.Config;
+import l2server.loginserver.network.L2JGameServerPacketHandler.GameServerState;
+import l2server.network.Core;
+import l2server.network.CoreConfig;
+import l2server.network.IClientFactory;
+import l2server.network.IMMOExecutor;
+import l2server.network.IPacketHandler;
+import l2server.network.MMOConnection;
+import l2server.network.ReceivablePacket;
+import l2server.util.metrics.MetricsRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
-import java.net.Socket;
-import java.util.ArrayList;
+import java.net.InetAddress;
+import java.nio.ByteBuffer;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
+ * Accepts the game servers links on a selector thread.<BR>
+ * The handshake packets (blowfish key, auth) change the key and the state of the link, so they are handled on the selector
+ * before the next packet is decrypted. Once authed, the packets of all the game servers run in order on a single thread.
+ *
  * @author KenM
  */
-public class GameServerListener extends FloodProtectedListener {
+public class GameServerListener extends FloodProtectedListener
+		implements IClientFactory<GameServerThread>, IPacketHandler<GameServerThread>, IMMOExecutor<GameServerThread> {
 	private static Logger log = LoggerFactory.getLogger(GameServerListener.class.getName());
 	
-	private static List<GameServerThread> gameServers = new ArrayList<>();
+	private static List<GameServerThread> gameServers = new CopyOnWriteArrayList<>();
+	
+	private final Core<GameServerThread> selectorThread;
+	private final ThreadPoolExecutor packetsThreadPool;
 	
 	public GameServerListener() throws IOException {
-		super(Config.GAME_SERVER_LOGIN_HOST, Config.GAME_SERVER_LOGIN_PORT);
-		setName(getClass().getSimpleName());
+		final CoreConfig sc = new CoreConfig();
+		sc.SLEEP_TIME = Config.MMO_SELECTOR_SLEEP_TIME;
+		sc.HELPER_BUFFER_COUNT = 4;
+		sc.SUPERSEDE_PACKETS = false;
+		
+		selectorThread = new Core<>(sc, this, this, this, this);
+		selectorThread.setName(getClass().getSimpleName());
+		selectorThread.openServerSocket(
+				Config.GAME_SERVER_LOGIN_HOST.equals("*") ? null : InetAddress.getByName(Config.GAME_SERVER_LOGIN_HOST),
+				Config.GAME_SERVER_LOGIN_PORT);
+		
+		packetsThreadPool =
+				new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), new SelectorHelper.NamedThreadFactory("GameServerLink"));
+		
+		MetricsRegistry.getInstance().registerSelector("gs-link", selectorThread);
+		MetricsRegistry.getInstance().registerExecutor("gs-link-packets", packetsThreadPool);
+	}
+	
+	public void start() {
+		selectorThread.start();
 	}
 	
-	/**
-	 * @see l2server.loginserver.FloodProtectedListener#addClient(Socket)
-	 */
 	@Override
-	public void addClient(Socket s) {
+	public GameServerThread create(MMOConnection<GameServerThread> con) {
 		if (Config.DEBUG) {
-			log.info("Received gameserver connection from: " + s.getInetAddress().getHostAddress());
+			log.info("Received gameserver connection from: " + con.getInetAddress().getHostAddress());
 		}
-		GameServerThread gst = new GameServerThread(s);
+		GameServerThread gst = new GameServerThread(con);
 		gameServers.add(gst);
+		return gst;
+	}
+	
+	@Override
+	public ReceivablePacket<GameServerThread> handlePacket(ByteBuffer buf, GameServerThread server) {
+		final byte[] data = new byte[buf.remaining()];
+		buf.get(data);
+		
+		if (server.getLoginConnectionState() != GameServerState.AUTHED) {
+			// must be done before the next packet is decrypted
+			server.handlePacket(data);
+			return null;
+		}
+		
+		return new GameServerPacket(data);
+	}
+	
+	@Override
+	public void execute(ReceivablePacket<GameServerThread> packet) {
+		packetsThreadPool.execute(packet);
 	}
 	
 	public void removeGameServer(GameServerThread gst) {
 		gameServers.remove(gst);
 	}
+	
+	private static final class GameServerPacket extends ReceivablePacket<GameServerThread> {
+		private final byte[] data;
+		
+		private GameServerPacket(byte[] data) {
+			this.data = data;
+		}
+		
+		@Override
+		protected boolean read() {
+			return true;
+		}
+		
+		@Override
+		public void run() {
+			getClient().handlePacket(data);
+		}
+	}
 }
@@ -24,35 +24,34 @@ import l2server.loginserver.network.loginserverpackets.KickPlayer;
 import l2server.loginserver.network.loginserverpackets.LoginServerFail;
 import l2server.loginserver.network.loginserverpackets.RequestCharacters;
 import l2server.network.BaseSendablePacket;
+import l2server.network.MMOClient;
+import l2server.network.MMOConnection;
+import l2server.network.SendablePacket;
 import l2server.util.Rnd;
 import l2server.util.Util;
 import l2server.util.crypt.NewCrypt;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.BufferedOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
-import java.net.Socket;
+import java.nio.ByteBuffer;
 import java.security.KeyPair;
 import java.security.interfaces.RSAPrivateKey;
 import java.security.interfaces.RSAPublicKey;
-import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
+ * The link of a game server, handled by the {@link GameServerListener} selector.
+ *
  * @author -Wooden-
  * @author KenM
  */
 
-public class GameServerThread extends Thread {
+public class GameServerThread extends MMOClient<MMOConnection<GameServerThread>> {
 	private static Logger log = LoggerFactory.getLogger(GameServerThread.class.getName());
 
 
-	private final Socket connection;
-	private InputStream in;
-	private OutputStream out;
 	private final RSAPublicKey publicKey;
 	private final RSAPrivateKey privateKey;
 	private NewCrypt blowfish;
@@ -65,82 +64,81 @@ public class GameServerThread extends Thread {
 	/**
 	 * Authed Clients on a GameServer
 	 */
-	private final Set<String> accountsOnGameServer = new HashSet<>();
+	private final Set<String> accountsOnGameServer = ConcurrentHashMap.newKeySet();
 	
 	private String connectionIPAddress;
 	
 	@Override
-	public void run() {
-		connectionIPAddress = connection.getInetAddress().getHostAddress();
-		if (GameServerThread.isBannedGameserverIP(connectionIPAddress)) {
-			log.info("GameServerRegistration: IP Address " + connectionIPAddress + " is on Banned IP list.");
-			forceClose(LoginServerFail.REASON_IP_BANNED);
-			// ensure no further processing for this connection
-			return;
+	public boolean decrypt(ByteBuffer buf, int size) {
+		try {
+			blowfish.decrypt(buf.array(), buf.position(), size);
+		} catch (IOException e) {
+			log.warn("Failed decrypting a packet from " + this + ", closing connection.", e);
+			getConnection().close((SendablePacket<GameServerThread>) null);
+			return false;
 		}
 		
-		InitLS startPacket = new InitLS(publicKey.getModulus().toByteArray());
+		if (!NewCrypt.verifyChecksum(buf.array(), buf.position(), size)) {
+			log.warn("Incorrect packet checksum from " + this + ", closing connection.");
+			getConnection().close((SendablePacket<GameServerThread>) null);
+			return false;
+		}
+		return true;
+	}
+	
+	@Override
+	public boolean encrypt(ByteBuffer buf, int size) {
+		final int offset = buf.position();
 		try {
-			sendPacket(startPacket);
-			
-			int lengthHi = 0;
-			int lengthLo = 0;
-			int length = 0;
-			boolean checksumOk = false;
-			for (; ; ) {
-				lengthLo = in.read();
-				lengthHi = in.read();
-				length = lengthHi * 256 + lengthLo;
-				
-				if (lengthHi < 0 || connection.isClosed()) {
-					log.trace("LoginServerThread: Login terminated the connection.");
-					break;
-				}
-				
-				byte[] data = new byte[length - 2];
-				
-				int receivedBytes = 0;
-				int newBytes = 0;
-				int left = length - 2;
-				while (newBytes != -1 && receivedBytes < length - 2) {
-					newBytes = in.read(data, receivedBytes, left);
-					receivedBytes = receivedBytes + newBytes;
-					left -= newBytes;
-				}
-				
-				if (receivedBytes != length - 2) {
-					log.warn("Incomplete Packet is sent to the server, closing connection.(LS)");
-					break;
-				}
-				
-				// decrypt if we have a key
-				data = blowfish.decrypt(data);
-				checksumOk = NewCrypt.verifyChecksum(data);
-				if (!checksumOk) {
-					log.warn("Incorrect packet checksum, closing connection (LS)");
-					return;
-				}
-				
-				if (Config.DEBUG) {
-					log.warn("[C]\n" + Util.printData(data));
-				}
-				
-				L2JGameServerPacketHandler.handlePacket(data, this);
-			}
+			NewCrypt.appendChecksum(buf.array(), offset, size);
+			blowfish.crypt(buf.array(), offset, size);
 		} catch (IOException e) {
-			String serverName = getServerId() != -1 ? "[" + getServerId() + "] " + GameServerTable.getInstance().getServerNameById(getServerId()) :
-					"(" + connectionIPAddress + ")";
-			String msg = "GameServer " + serverName + ": Connection lost: " + e.getMessage();
-			log.info(msg);
-		} finally {
-			if (isAuthed()) {
-				gsi.setDown();
-				log.info("Server [" + getServerId() + "] " + GameServerTable.getInstance().getServerNameById(getServerId()) +
-						" is now set as disconnected");
-			}
-			L2LoginServer.getInstance().getGameServerListener().removeGameServer(this);
-			L2LoginServer.getInstance().getGameServerListener().removeFloodProtection(connectionIp);
+			log.warn("Failed encrypting a packet to " + this + ".", e);
+			return false;
 		}
+		
+		buf.position(offset + size);
+		return true;
+	}
+	
+	/**
+	 * @param data the decrypted packet, checksum included
+	 */
+	void handlePacket(byte[] data) {
+		if (Config.DEBUG) {
+			log.warn("[C]\n" + Util.printData(data));
+		}
+		
+		try {
+			L2JGameServerPacketHandler.handlePacket(data, this);
+		} catch (Exception e) {
+			log.warn("Failed handling a packet from " + this + ": " + e.getMessage(), e);
+		}
+	}
+	
+	@Override
+	public void onDisconnection() {
+		String serverName = getServerId() != -1 ? "[" + getServerId() + "] " + GameServerTable.getInstance().getServerNameById(getServerId()) :
+				"(" + connectionIPAddress + ")";
+		log.info("GameServer " + serverName + ": Connection lost.");
+		
+		if (isAuthed()) {
+			gsi.setDown();
+			log.info("Server [" + getServerId() + "] " + GameServerTable.getInstance().getServerNameById(getServerId()) +
+					" is now set as disconnected");
+		}
+		L2LoginServer.getInstance().getGameServerListener().removeGameServer(this);
+		L2LoginServer.getInstance().getGameServerListener().removeFloodProtection(connectionIp);
+	}
+	
+	@Override
+	protected void onForcedDisconnection() {
+		// Empty
+	}
+	
+	@Override
+	public String toString() {
+		return "GameServer " + (getServerId() != -1 ? "[" + getServerId() + "]" : "") + "(" + connectionIPAddress + ")";
 	}
 	
 	public boolean hasAccountOnGameServer(String account) {
@@ -179,58 +177,36 @@ public class GameServerThread extends Thread {
 	}
 	
 	public void forceClose(int reason) {
-		sendPacket(new LoginServerFail(reason));
-		
-		try {
-			connection.close();
-		} catch (IOException e) {
-			log.trace("GameServerThread: Failed disconnecting banned server, server already disconnected.");
-		}
+		getConnection().close(new LinkPacket(new LoginServerFail(reason)));
 	}
 	
 	public static boolean isBannedGameserverIP(String ipAddress) {
 		return false;
 	}
 	
-	public GameServerThread(Socket con) {
-		connection = con;
+	public GameServerThread(MMOConnection<GameServerThread> con) {
+		super(con);
 		connectionIp = con.getInetAddress().getHostAddress();
-		try {
-			in = connection.getInputStream();
-			out = new BufferedOutputStream(connection.getOutputStream());
-		} catch (IOException e) {
-			e.printStackTrace();
-		}
+		connectionIPAddress = connectionIp;
 		KeyPair pair = GameServerTable.getInstance().getKeyPair();
 		privateKey = (RSAPrivateKey) pair.getPrivate();
 		publicKey = (RSAPublicKey) pair.getPublic();
 		blowfish = new NewCrypt("_;v.]05-31!|+-%xT!^[$\00");
-		setName(getClass().getSimpleName() + "-" + getId() + "@" + connectionIp);
-		start();
+		
+		if (GameServerThread.isBannedGameserverIP(connectionIPAddress)) {
+			log.info("GameServerRegistration: IP Address " + connectionIPAddress + " is on Banned IP list.");
+			forceClose(LoginServerFail.REASON_IP_BANNED);
+			return;
+		}
+		
+		sendPacket(new InitLS(publicKey.getModulus().toByteArray()));
 	}
 	
-	/**
-	 * @throws IOException
-	 */
 	public void sendPacket(BaseSendablePacket sl) {
-		try {
-			byte[] data = sl.getContent();
-			NewCrypt.appendChecksum(data);
-			if (Config.DEBUG) {
-				log.trace("[S] " + sl.getClass().getSimpleName() + ":\n" + Util.printData(data));
-			}
-			data = blowfish.crypt(data);
-			
-			int len = data.length + 2;
-			synchronized (out) {
-				out.write(len & 0xff);
-				out.write(len >> 8 & 0xff);
-				out.write(data);
-				out.flush();
-			}
-		} catch (IOException e) {
-			log.error("IOException while sending packet " + sl.getClass().getSimpleName());
+		if (Config.DEBUG) {
+			log.trace("[S] " + sl.getClass().getSimpleName());
 		}
+		getConnection().sendPacket(new LinkPacket(sl));
 	}
 	
 	public void kickPlayer(String account) {
@@ -315,4 +291,20 @@ public class GameServerThread extends Thread {
 	public void setLoginConnectionState(GameServerState state) {
 		loginConnectionState = state;
 	}
+	
+	/**
+	 * Carries the content of a login server packet, the checksum and the encryption are applied by {@link #encrypt(ByteBuffer, int)}.
+	 */
+	private static final class LinkPacket extends SendablePacket<GameServerThread> {
+		private final byte[] content;
+		
+		private LinkPacket(BaseSendablePacket packet) {
+			content = packet.getContent();
+		}
+		
+		@Override
+		protected void write() {
+			writeB(content);
+		}
+	}
 }
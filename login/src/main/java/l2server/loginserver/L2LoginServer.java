@@ -22,6 +22,7 @@ import l2server.loginserver.network.L2LoginClient;
 import l2server.loginserver.network.L2LoginPacketHandler;
 import l2server.network.Core;
 import l2server.network.CoreConfig;
+import l2server.util.metrics.MetricsRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -43,6 +44,7 @@ public class L2LoginServer {
 	private static L2LoginServer instance;
 	private GameServerListener gameServerListener;
 	private Core<L2LoginClient> selectorThread;
+	private SelectorHelper selectorHelper;
 	
 	public static L2LoginServer getInstance() {
 		return instance;
@@ -89,9 +91,9 @@ public class L2LoginServer {
 		sc.HELPER_BUFFER_COUNT = Config.MMO_HELPER_BUFFER_COUNT;
 		
 		final L2LoginPacketHandler lph = new L2LoginPacketHandler();
-		final SelectorHelper sh = new SelectorHelper();
+		selectorHelper = new SelectorHelper();
 		try {
-			selectorThread = new Core<>(sc, sh, lph, sh, sh);
+			selectorThread = new Core<>(sc, selectorHelper, lph, selectorHelper, selectorHelper);
 		} catch (IOException e) {
 			log.error("FATAL: Failed to open Selector. Reason: " + e.getMessage(), e);
 			System.exit(1);
@@ -113,6 +115,7 @@ public class L2LoginServer {
 			System.exit(1);
 		}
 		selectorThread.start();
+		MetricsRegistry.getInstance().registerSelector("login", selectorThread);
 		
 		log.info("Login Server ready on " + (bindAddress == null ? "*" : bindAddress.getHostAddress()) + ":" + Config.PORT_LOGIN);
 		
@@ -123,6 +126,10 @@ public class L2LoginServer {
 		return gameServerListener;
 	}
 	
+	public SelectorHelper getSelectorHelper() {
+		return selectorHelper;
+	}
+	
 	private void loadBanFile() {
 		File bannedFile = new File("./banned_ip.cfg");
 		if (bannedFile.exists() && bannedFile.isFile()) {
@@ -196,6 +203,7 @@ public class L2LoginServer {
 	}
 	
 	public void shutdown(boolean restart) {
+		LoginController.getInstance().flushAccountActivity();
 		Runtime.getRuntime().exit(restart ? 2 : 0);
 	}
 }
@@ -1,22 +1,29 @@
 package l2server.loginserver
 
 import io.ktor.application.call
+import io.ktor.http.ContentType
 import io.ktor.response.respondText
 import io.ktor.routing.get
 import io.ktor.routing.routing
 import io.ktor.server.engine.embeddedServer
 import io.ktor.server.netty.Netty
+import l2server.util.metrics.MetricsRegistry
 
 fun main(args: Array<String>) {
 	// FIXME I'M DIRTY!
 	L2LoginServer()
 
+	MetricsRegistry.getInstance().registerJvm()
+
 	// Run ktor application
 	val server = embeddedServer(Netty, port = 8088) {
 		routing {
 			get("/") {
 				call.respondText("Ktor UP!")
 			}
+			get("/metrics") {
+				call.respondText(MetricsRegistry.getInstance().scrape(), ContentType.parse("text/plain; version=0.0.4"))
+			}
 		}
 	}
 	server.start(wait = true)
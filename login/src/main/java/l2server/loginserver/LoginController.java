@@ -24,6 +24,7 @@ import l2server.loginserver.network.gameserverpackets.ServerStatus;
 import l2server.loginserver.network.serverpackets.LoginFail.LoginFailReason;
 import l2server.util.Rnd;
 import l2server.util.crypt.ScrambledKeyPair;
+import l2server.util.metrics.MetricsRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -41,7 +42,9 @@ import java.sql.ResultSet;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 /**
  * This class ...
@@ -68,6 +71,11 @@ public class LoginController {
 	
 	private final Map<InetAddress, FailedLoginAttempt> hackProtection;
 	
+	/**
+	 * lastactive/lastIP updates waiting for the next batch
+	 */
+	private final Queue<AccountActivity> pendingActivity = new ConcurrentLinkedQueue<>();
+	
 	protected ScrambledKeyPair[] keyPairs;
 	
 	private final Thread purge;
@@ -92,7 +100,7 @@ public class LoginController {
 	private LoginController() throws GeneralSecurityException {
 		log.info("Loading LoginController...");
 		
-		hackProtection = new HashMap<>();
+		hackProtection = new ConcurrentHashMap<>();
 		
 		keyPairs = new ScrambledKeyPair[10];
 		
@@ -116,6 +124,17 @@ public class LoginController {
 		purge = new PurgeThread();
 		purge.setDaemon(true);
 		purge.start();
+		
+		if (Config.LOGIN_ACTIVITY_FLUSH_INTERVAL > 0) {
+			Thread activityFlush = new ActivityFlushThread();
+			activityFlush.setDaemon(true);
+			activityFlush.start();
+		}
+		
+		final MetricsRegistry metrics = MetricsRegistry.getInstance();
+		metrics.gauge("l2_login_authed_clients", "Clients authed on the login server", () -> loginServerClients.size());
+		metrics.gauge("l2_login_game_server_players", "Players online on all the game servers", this::getTotalOnlinePlayerCount);
+		metrics.gauge("l2_login_pending_account_updates", "Account activity updates waiting for the next batch", () -> pendingActivity.size());
 	}
 	
 	/**
@@ -453,13 +472,14 @@ public class LoginController {
 			return;
 		}
 		
-		if (charsNum > 0) {
-			client.setCharsOnServ(serverId, charsNum);
-		}
-		
+		// the server list may be sent as soon as the characters are set
 		if (timeToDel != null && timeToDel.length > 0) {
 			client.serCharsWaitingDelOnServ(serverId, timeToDel);
 		}
+		
+		if (charsNum > 0) {
+			client.setCharsOnServ(serverId, charsNum);
+		}
 	}
 	
 	public boolean isGM(String user) {
@@ -636,34 +656,7 @@ public class LoginController {
 			if (ok) {
 				client.setAccessLevel(access);
 				client.setLastServer(lastServer);
-				PreparedStatement statement2 = con.prepareStatement("SELECT lastIP, lastIP2 FROM accounts WHERE login=?");
-				statement2.setString(1, user);
-				rset = statement2.executeQuery();
-				String lastIP = null;
-				String lastIP2 = null;
-				if (rset.next()) {
-					lastIP = rset.getString("lastIP");
-					lastIP2 = rset.getString("lastIP2");
-				}
-				rset.close();
-				statement2.close();
-				if (lastIP == null || !lastIP.equals(address.getHostAddress())) {
-					PreparedStatement statement3 =
-							con.prepareStatement("UPDATE accounts SET lastactive=?, lastIP=?, lastIP2=?, lastIP3=? WHERE login=?");
-					statement3.setLong(1, System.currentTimeMillis());
-					statement3.setString(2, address.getHostAddress());
-					statement3.setString(3, lastIP);
-					statement3.setString(4, lastIP2);
-					statement3.setString(5, user);
-					statement3.execute();
-					statement3.close();
-				} else {
-					PreparedStatement statement3 = con.prepareStatement("UPDATE accounts SET lastactive=? WHERE login=?");
-					statement3.setLong(1, System.currentTimeMillis());
-					statement3.setString(2, user);
-					statement3.execute();
-					statement3.close();
-				}
+				addAccountActivity(user, address.getHostAddress());
 			}
 		} catch (Exception e) {
 			log.warn("Could not check password(" + user + "):" + e.getMessage(), e);
@@ -751,34 +744,7 @@ public class LoginController {
 				
 				client.setAccessLevel(access);
 				client.setLastServer(lastServer);
-				PreparedStatement statement2 = con.prepareStatement("SELECT lastIP, lastIP2 FROM accounts WHERE login=?");
-				statement2.setString(1, login);
-				rset = statement2.executeQuery();
-				String lastIP = null;
-				String lastIP2 = null;
-				if (rset.next()) {
-					lastIP = rset.getString("lastIP");
-					lastIP2 = rset.getString("lastIP2");
-				}
-				rset.close();
-				statement2.close();
-				if (lastIP == null || !lastIP.equals(address.getHostAddress())) {
-					PreparedStatement statement3 =
-							con.prepareStatement("UPDATE accounts SET lastactive=?, lastIP=?, lastIP2=?, lastIP3=? WHERE login=?");
-					statement3.setLong(1, System.currentTimeMillis());
-					statement3.setString(2, address.getHostAddress());
-					statement3.setString(3, lastIP);
-					statement3.setString(4, lastIP2);
-					statement3.setString(5, login);
-					statement3.execute();
-					statement3.close();
-				} else {
-					PreparedStatement statement3 = con.prepareStatement("UPDATE accounts SET lastactive=? WHERE login=?");
-					statement3.setLong(1, System.currentTimeMillis());
-					statement3.setString(2, login);
-					statement3.execute();
-					statement3.close();
-				}
+				addAccountActivity(login, address.getHostAddress());
 			}
 		} catch (Exception e) {
 			log.warn("Could not check password(" + sessionKey + "):" + e.getMessage(), e);
@@ -818,6 +784,49 @@ public class LoginController {
 		return login;
 	}
 	
+	/**
+	 * Queues the lastactive/lastIP update of a successful login, the previous addresses are shifted to lastIP2 and lastIP3
+	 * when the address changed.
+	 */
+	private void addAccountActivity(String login, String ip) {
+		pendingActivity.add(new AccountActivity(login, ip, System.currentTimeMillis()));
+		if (Config.LOGIN_ACTIVITY_FLUSH_INTERVAL <= 0) {
+			flushAccountActivity();
+		}
+	}
+	
+	/**
+	 * Writes the queued account activity in a single batch, in the order the logins happened.
+	 */
+	public synchronized void flushAccountActivity() {
+		if (pendingActivity.isEmpty()) {
+			return;
+		}
+		
+		Connection con = null;
+		try {
+			con = DatabasePool.getInstance().getConnection();
+			// MySQL assigns from left to right, so lastIP3 and lastIP2 are computed from the previous values
+			PreparedStatement statement = con.prepareStatement(
+					"UPDATE accounts SET lastIP3=IF(lastIP<=>?, lastIP3, lastIP2), lastIP2=IF(lastIP<=>?, lastIP2, lastIP), lastIP=?, lastactive=? WHERE login=?");
+			AccountActivity activity;
+			while ((activity = pendingActivity.poll()) != null) {
+				statement.setString(1, activity.ip);
+				statement.setString(2, activity.ip);
+				statement.setString(3, activity.ip);
+				statement.setLong(4, activity.time);
+				statement.setString(5, activity.login);
+				statement.addBatch();
+			}
+			statement.executeBatch();
+			statement.close();
+		} catch (Exception e) {
+			log.warn("Could not update the accounts activity: " + e.getMessage(), e);
+		} finally {
+			DatabasePool.close(con);
+		}
+	}
+	
 	public boolean loginBanned(String user) {
 		boolean ok = false;
 		
@@ -925,6 +934,37 @@ public class LoginController {
 		}
 	}
 	
+	private static final class AccountActivity {
+		private final String login;
+		private final String ip;
+		private final long time;
+		
+		private AccountActivity(String login, String ip, long time) {
+			this.login = login;
+			this.ip = ip;
+			this.time = time;
+		}
+	}
+	
+	class ActivityFlushThread extends Thread {
+		public ActivityFlushThread() {
+			setName("ActivityFlushThread");
+		}
+		
+		@Override
+		public void run() {
+			while (!isInterrupted()) {
+				try {
+					Thread.sleep(Config.LOGIN_ACTIVITY_FLUSH_INTERVAL);
+				} catch (InterruptedException e) {
+					return;
+				}
+				
+				flushAccountActivity();
+			}
+		}
+	}
+	
 	class PurgeThread extends Thread {
 		public PurgeThread() {
 			setName("PurgeThread");
@@ -13,31 +13,65 @@
 
 package l2server.loginserver;
 
+import l2server.Config;
 import l2server.loginserver.network.L2LoginClient;
+import l2server.loginserver.network.clientpackets.RequestAuthLogin;
 import l2server.loginserver.network.serverpackets.Init;
 import l2server.network.*;
 import l2server.util.IPv4Filter;
+import l2server.util.metrics.MetricsRegistry;
 
 import java.nio.channels.SocketChannel;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * @author KenM
  */
 public class SelectorHelper implements IMMOExecutor<L2LoginClient>, IClientFactory<L2LoginClient>, IAcceptFilter {
 	private ThreadPoolExecutor generalPacketsThreadPool;
+	private ThreadPoolExecutor cryptoThreadPool;
+	private ScheduledThreadPoolExecutor scheduledThreadPool;
 	private IPv4Filter ipv4filter;
 	
 	public SelectorHelper() {
 		generalPacketsThreadPool = new ThreadPoolExecutor(4, 6, 15L, TimeUnit.SECONDS, new LinkedBlockingQueue<>());
+		final int cryptoThreads = Config.LOGIN_CRYPTO_THREADS > 0 ? Config.LOGIN_CRYPTO_THREADS : Runtime.getRuntime().availableProcessors();
+		cryptoThreadPool = new ThreadPoolExecutor(cryptoThreads,
+				cryptoThreads,
+				0L,
+				TimeUnit.MILLISECONDS,
+				new LinkedBlockingQueue<>(),
+				new NamedThreadFactory("LoginCrypto"));
+		scheduledThreadPool = new ScheduledThreadPoolExecutor(1, new NamedThreadFactory("LoginScheduler"));
+		MetricsRegistry.getInstance().registerExecutor("login-packets", generalPacketsThreadPool);
+		MetricsRegistry.getInstance().registerExecutor("login-crypto", cryptoThreadPool);
 		ipv4filter = new IPv4Filter();
 	}
 	
 	@Override
 	public void execute(ReceivablePacket<L2LoginClient> packet) {
-		generalPacketsThreadPool.execute(packet);
+		// the RSA decryption is CPU bound, keep it away from the packets waiting on the database
+		if (packet instanceof RequestAuthLogin) {
+			cryptoThreadPool.execute(packet);
+		} else {
+			generalPacketsThreadPool.execute(packet);
+		}
+	}
+	
+	/**
+	 * Runs the task on the login packets pool.
+	 */
+	public void executeTask(Runnable r) {
+		generalPacketsThreadPool.execute(r);
+	}
+	
+	public void schedule(Runnable r, long delay) {
+		scheduledThreadPool.schedule(r, delay, TimeUnit.MILLISECONDS);
 	}
 	
 	@Override
@@ -51,4 +85,20 @@ public class SelectorHelper implements IMMOExecutor<L2LoginClient>, IClientFacto
 	public boolean accept(SocketChannel sc) {
 		return ipv4filter.accept(sc) && !LoginController.getInstance().isBannedAddress(sc.socket().getInetAddress());
 	}
+	
+	static class NamedThreadFactory implements ThreadFactory {
+		private final String name;
+		private final AtomicInteger threadNumber = new AtomicInteger(1);
+		
+		public NamedThreadFactory(String name) {
+			this.name = name;
+		}
+		
+		@Override
+		public Thread newThread(Runnable r) {
+			final Thread t = new Thread(r, name + "-" + threadNumber.getAndIncrement());
+			t.setDaemon(true);
+			return t;
+		}
+	}
 }
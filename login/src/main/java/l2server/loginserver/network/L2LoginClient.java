@@ -16,6 +16,7 @@
 package l2server.loginserver.network;
 
 import l2server.Config;
+import l2server.loginserver.L2LoginServer;
 import l2server.loginserver.LoginController;
 import l2server.loginserver.SessionKey;
 import l2server.loginserver.network.serverpackets.L2LoginServerPacket;
@@ -23,6 +24,7 @@ import l2server.loginserver.network.serverpackets.LoginFail;
 import l2server.loginserver.network.serverpackets.LoginFail.LoginFailReason;
 import l2server.loginserver.network.serverpackets.PlayFail;
 import l2server.loginserver.network.serverpackets.PlayFail.PlayFailReason;
+import l2server.loginserver.network.serverpackets.ServerList;
 import l2server.network.MMOClient;
 import l2server.network.MMOConnection;
 import l2server.network.SendablePacket;
@@ -38,6 +40,8 @@ import java.nio.ByteBuffer;
 import java.security.interfaces.RSAPrivateKey;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Represents a client connected into the LoginServer
@@ -67,8 +71,9 @@ public final class L2LoginClient extends MMOClient<MMOConnection<L2LoginClient>>
 	private SessionKey sessionKey;
 	public int sessionId;
 	private boolean joinedGS;
-	private Map<Integer, Integer> charsOnServers;
+	private volatile Map<Integer, Integer> charsOnServers;
 	private Map<Integer, long[]> charsToDelete;
+	private final AtomicBoolean serverListPending = new AtomicBoolean();
 
 	private long connectionStartTime;
 
@@ -204,11 +209,32 @@ public final class L2LoginClient extends MMOClient<MMOConnection<L2LoginClient>>
 		getConnection().close(lsp);
 	}
 
-	public void setCharsOnServ(int servId, int chars) {
+	public synchronized void setCharsOnServ(int servId, int chars) {
 		if (charsOnServers == null) {
-			charsOnServers = new HashMap<>();
+			charsOnServers = new ConcurrentHashMap<>();
 		}
 		charsOnServers.put(servId, chars);
+		
+		sendPendingServerList();
+	}
+	
+	/**
+	 * Sends the server list once the first game server replied with the characters on the account,
+	 * or after one second if none did, without holding a login thread meanwhile.
+	 */
+	public void sendServerListWhenReady() {
+		serverListPending.set(true);
+		if (charsOnServers != null) {
+			sendPendingServerList();
+		} else {
+			L2LoginServer.getInstance().getSelectorHelper().schedule(this::sendPendingServerList, 1000);
+		}
+	}
+	
+	private void sendPendingServerList() {
+		if (serverListPending.compareAndSet(true, false)) {
+			sendPacket(new ServerList(this));
+		}
 	}
 
 	public Map<Integer, Integer> getCharsOnServ() {
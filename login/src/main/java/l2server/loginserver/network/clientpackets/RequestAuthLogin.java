@@ -17,12 +17,12 @@ package l2server.loginserver.network.clientpackets;
 
 import l2server.Config;
 import l2server.loginserver.GameServerTable;
+import l2server.loginserver.L2LoginServer;
 import l2server.loginserver.LoginController;
 import l2server.loginserver.network.L2LoginClient;
 import l2server.loginserver.network.serverpackets.AccountKicked;
 import l2server.loginserver.network.serverpackets.LoginFail;
 import l2server.loginserver.network.serverpackets.LoginOk;
-import l2server.loginserver.network.serverpackets.ServerList;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -36,7 +36,17 @@ import java.security.GeneralSecurityException;
  */
 public class RequestAuthLogin extends L2LoginClientPacket {
 	private static Logger log = LoggerFactory.getLogger(RequestAuthLogin.class.getName());
-
+	
+	/**
+	 * Cipher.getInstance() walks the security providers, each crypto thread keeps its own instance
+	 */
+	private static final ThreadLocal<Cipher> rsaCipher = ThreadLocal.withInitial(() -> {
+		try {
+			return Cipher.getInstance("RSA/ECB/nopadding");
+		} catch (GeneralSecurityException e) {
+			throw new IllegalStateException(e);
+		}
+	});
 
 	private byte[] raw = new byte[256];
 	
@@ -66,16 +76,19 @@ public class RequestAuthLogin extends L2LoginClientPacket {
 		}
 	}
 	
+	/**
+	 * Runs on the crypto pool: decrypts the login block and hands the account check over to the login packets pool.
+	 */
 	@Override
 	public void run() {
 		byte[] decrypted = null;
 		byte[] decrypted2 = null;
 		L2LoginClient client = getClient();
 		try {
-			Cipher rsaCipher = Cipher.getInstance("RSA/ECB/nopadding");
-			rsaCipher.init(Cipher.DECRYPT_MODE, client.getRSAPrivateKey());
-			decrypted = rsaCipher.doFinal(raw, 0x00, 0x80);
-			decrypted2 = rsaCipher.doFinal(raw, 0x80, 0x80);
+			final Cipher cipher = rsaCipher.get();
+			cipher.init(Cipher.DECRYPT_MODE, client.getRSAPrivateKey());
+			decrypted = cipher.doFinal(raw, 0x00, 0x80);
+			decrypted2 = cipher.doFinal(raw, 0x80, 0x80);
 		} catch (GeneralSecurityException e) {
 			log.info("", e);
 			return;
@@ -89,6 +102,11 @@ public class RequestAuthLogin extends L2LoginClientPacket {
 		ncotp |= decrypted[0x7e] << 16;
 		ncotp |= decrypted[0x7f] << 24;
 		
+		L2LoginServer.getInstance().getSelectorHelper().executeTask(this::authenticate);
+	}
+	
+	private void authenticate() {
+		L2LoginClient client = getClient();
 		LoginController lc = LoginController.getInstance();
 		/*try
 		{*/
@@ -102,16 +120,7 @@ public class RequestAuthLogin extends L2LoginClientPacket {
 				if (Config.SHOW_LICENCE) {
 					client.sendPacket(new LoginOk(getClient().getSessionKey()));
 				} else {
-					int time = 0;
-					while (getClient().getCharsOnServ() == null && time < 10) {
-						try {
-							Thread.sleep(100);
-						} catch (Exception e) {
-							e.printStackTrace();
-						}
-						time++;
-					}
-					getClient().sendPacket(new ServerList(getClient()));
+					client.sendServerListWhenReady();
 				}
 				break;
 			case INVALID_PASSWORD:
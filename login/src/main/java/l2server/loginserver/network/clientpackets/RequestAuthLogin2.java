@@ -25,7 +25,6 @@ import l2server.loginserver.network.serverpackets.AccountKicked;
 import l2server.loginserver.network.serverpackets.AccountKicked.AccountKickedReason;
 import l2server.loginserver.network.serverpackets.LoginFail.LoginFailReason;
 import l2server.loginserver.network.serverpackets.LoginOk;
-import l2server.loginserver.network.serverpackets.ServerList;
 
 /**
  * @author Pere
@@ -87,16 +86,7 @@ public class RequestAuthLogin2 extends L2LoginClientPacket {
 				if (Config.SHOW_LICENCE) {
 					client.sendPacket(new LoginOk(getClient().getSessionKey()));
 				} else {
-					int time = 0;
-					while (getClient().getCharsOnServ() == null && time < 10) {
-						try {
-							Thread.sleep(100);
-						} catch (Exception e) {
-							e.printStackTrace();
-						}
-						time++;
-					}
-					getClient().sendPacket(new ServerList(getClient()));
+					client.sendServerListWhenReady();
 				}
 				break;
 			case INVALID_PASSWORD: